@@ -0,0 +1,137 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core.collections;
+
+/**
+ * A batch of rows stored as column vectors.
+ * <p>
+ * Only the rows whose positions are contained in the selection vector are part of the batch. Filtering a batch
+ * therefore doesn't move any values, it only shrinks the selection, see {@link #numSelected(int)}.
+ * </p>
+ * A batch is usually a shared object which is re-filled by its producer once the consumer returned.
+ */
+public class RowBatch {
+
+    private final Object[][] columns;
+    private final int[] selection;
+    private final Cursor cursor = new Cursor();
+    private int size = 0;
+    private int numSelected = 0;
+
+    public RowBatch(int numColumns, int capacity) {
+        columns = new Object[numColumns][capacity];
+        selection = new int[capacity];
+    }
+
+    public int numColumns() {
+        return columns.length;
+    }
+
+    public int capacity() {
+        return selection.length;
+    }
+
+    /**
+     * @return the number of rows in the column vectors, including the rows which aren't selected.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of rows in the column vectors and selects all of them.
+     */
+    public void size(int size) {
+        assert size <= capacity() : "size must not exceed the capacity";
+        this.size = size;
+        for (int i = 0; i < size; i++) {
+            selection[i] = i;
+        }
+        numSelected = size;
+    }
+
+    /**
+     * @return the column vector of the column with the given index, the value of the row at position
+     * {@code pos} is {@code column(idx)[pos]}
+     */
+    public Object[] column(int idx) {
+        return columns[idx];
+    }
+
+    public int numSelected() {
+        return numSelected;
+    }
+
+    /**
+     * Shrinks the selection to the first {@code numSelected} entries of {@link #selection()}.
+     */
+    public void numSelected(int numSelected) {
+        assert numSelected <= this.numSelected : "the selection can only shrink";
+        this.numSelected = numSelected;
+    }
+
+    /**
+     * @return the positions of the selected rows, only the first {@link #numSelected()} entries are valid.
+     * The entries are ascending and may be overwritten to change the selection.
+     */
+    public int[] selection() {
+        return selection;
+    }
+
+    /**
+     * @return a row which is a view on the row at the given position. The same instance is returned on every call.
+     */
+    public Row row(int pos) {
+        cursor.pos = pos;
+        return cursor;
+    }
+
+    private class Cursor implements Row {
+
+        private int pos;
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index][pos];
+        }
+
+        @Override
+        public Object[] materialize() {
+            Object[] cells = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                cells[i] = columns[i][pos];
+            }
+            return cells;
+        }
+
+        @Override
+        public String toString() {
+            return "RowBatch.Cursor{pos=" + pos + '}';
+        }
+    }
+}
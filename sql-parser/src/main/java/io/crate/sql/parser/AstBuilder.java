@@ -61,6 +61,11 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         return new BeginStatement();
     }
 
+    @Override
+    public Node visitAnalyze(SqlBaseParser.AnalyzeContext context) {
+        return new AnalyzeStatement();
+    }
+
     @Override
     public Node visitOptimize(SqlBaseParser.OptimizeContext context) {
         return new OptimizeStatement(
@@ -53,6 +53,11 @@ public class TestStatementBuilder {
         printStatement("BEGIN");
     }
 
+    @Test
+    public void testAnalyze() throws Exception {
+        printStatement("ANALYZE");
+    }
+
     @Test
     public void testNullNotAllowedAsArgToExtractField() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
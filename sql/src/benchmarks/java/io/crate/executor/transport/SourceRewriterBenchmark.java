@@ -0,0 +1,131 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.carrotsearch.junitbenchmarks.annotation.LabelType;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Compares a counter update (<code>SET hits = hits + 1</code>) of documents of different sizes
+ * done by parsing the source into a map and serializing it again with the streaming {@link SourceRewriter}.
+ */
+@AxisRange(min = 0)
+@BenchmarkHistoryChart(filePrefix = "benchmark-source-rewriter-history", labelWith = LabelType.CUSTOM_KEY)
+@BenchmarkMethodChart(filePrefix = "benchmark-source-rewriter")
+public class SourceRewriterBenchmark {
+
+    private static final int NUM_UPDATES = 10_000;
+    private static final int BENCHMARK_ROUNDS = 20;
+
+    private static BytesReference smallSource;
+    private static BytesReference largeSource;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        smallSource = source(10);
+        largeSource = source(1000);
+    }
+
+    private static BytesReference source(int numFields) throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        builder.field("hits", 0L);
+        for (int i = 0; i < numFields; i++) {
+            builder.startObject("field_" + i)
+                .field("name", "some value of field " + i)
+                .field("value", i * 1.5d)
+                .endObject();
+        }
+        return builder.endObject().bytes();
+    }
+
+    private static Map<String, Object> changes(int i) {
+        return Collections.<String, Object>singletonMap("hits", (long) i + 1);
+    }
+
+    private static void updateUsingMap(BytesReference source) throws IOException {
+        for (int i = 0; i < NUM_UPDATES; i++) {
+            Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(source, true);
+            Map<String, Object> sourceAsMap = sourceAndContent.v2();
+            TransportShardUpsertAction.updateSourceByPaths(sourceAsMap, changes(i));
+            XContentFactory.contentBuilder(sourceAndContent.v1()).map(sourceAsMap).bytes();
+        }
+    }
+
+    private static void updateUsingRewriter(BytesReference source) throws IOException {
+        for (int i = 0; i < NUM_UPDATES; i++) {
+            SourceRewriter.forChanges(changes(i)).rewrite(source);
+        }
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testUpdateSmallDocumentUsingMap() throws Exception {
+        updateUsingMap(smallSource);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testUpdateSmallDocumentUsingRewriter() throws Exception {
+        updateUsingRewriter(smallSource);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testUpdateLargeDocumentUsingMap() throws Exception {
+        updateUsingMap(largeSource);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testUpdateLargeDocumentUsingRewriter() throws Exception {
+        updateUsingRewriter(largeSource);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testNoopUpdateLargeDocumentUsingRewriter() throws Exception {
+        Map<String, Object> changes = Collections.singletonMap("hits", 0L);
+        for (int i = 0; i < NUM_UPDATES; i++) {
+            SourceRewriter.forChanges(changes).rewrite(largeSource);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.executor.transport;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.carrotsearch.junitbenchmarks.annotation.LabelType;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares encoding and decoding a page of a distributed GROUP BY result (group key + aggregate columns)
+ * with the row based and the columnar {@link StreamBucket} encoding.
+ * <p>
+ * The number of bytes written by both encodings is logged once.
+ */
+@AxisRange(min = 0)
+@BenchmarkHistoryChart(filePrefix = "benchmark-stream-bucket-history", labelWith = LabelType.CUSTOM_KEY)
+@BenchmarkMethodChart(filePrefix = "benchmark-stream-bucket")
+public class StreamBucketBenchmark {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(StreamBucketBenchmark.class);
+
+    private static final int NUM_ROWS = 100_000;
+    private static final int BENCHMARK_ROUNDS = 20;
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.STRING.streamer(),
+        DataTypes.TIMESTAMP.streamer(),
+        DataTypes.LONG.streamer(),
+        DataTypes.DOUBLE.streamer()
+    };
+
+    private static final List<Row> ROWS = new ArrayList<>(NUM_ROWS);
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @BeforeClass
+    public static void prepare() throws Exception {
+        for (int i = 0; i < NUM_ROWS; i++) {
+            ROWS.add(new RowN(new Object[]{
+                new BytesRef("country-" + (i % 200)),
+                1480000000000L + i * 1000L,
+                (long) (i % 1000),
+                i * 1.5d
+            }));
+        }
+        LOGGER.info("bytes on the wire: rows={} columnar={}", encode(false).size(), encode(true).size());
+    }
+
+    private static BytesStreamOutput encode(boolean columnar) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, columnar);
+        for (Row row : ROWS) {
+            builder.add(row);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out, columnar);
+        return out;
+    }
+
+    private static long decode(BytesStreamOutput out) throws IOException {
+        StreamBucket bucket = new StreamBucket(STREAMERS);
+        bucket.readFrom(StreamInput.wrap(out.bytes()));
+        long sum = 0;
+        for (Row row : bucket) {
+            sum += (Long) row.get(2);
+        }
+        return sum;
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testEncodeRows() throws Exception {
+        encode(false);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testEncodeColumnar() throws Exception {
+        encode(true);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testEncodeAndDecodeRows() throws Exception {
+        decode(encode(false));
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 2, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testEncodeAndDecodeColumnar() throws Exception {
+        decode(encode(true));
+    }
+}
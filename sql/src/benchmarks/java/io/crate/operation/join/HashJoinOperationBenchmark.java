@@ -0,0 +1,180 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.operation.join;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.AxisRange;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkHistoryChart;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.carrotsearch.junitbenchmarks.annotation.LabelType;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.testing.RowCountRowReceiver;
+import io.crate.testing.RowGenerator;
+import io.crate.testing.RowSender;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares the {@link NestedLoopOperation} with the {@link HashJoinOperation} for an equi-join
+ * where every left row matches exactly one right row.
+ * <p>
+ * The runs with increasing input sizes show the point at which the quadratic nested loop falls behind
+ * the hash join, which has to build a hash table first.
+ */
+@AxisRange(min = 0)
+@BenchmarkHistoryChart(filePrefix = "benchmark-hash-join-history", labelWith = LabelType.CUSTOM_KEY)
+@BenchmarkMethodChart(filePrefix = "benchmark-hash-join")
+public class HashJoinOperationBenchmark {
+
+    private static final Predicate<Row> COL0_EQ_COL1 = new Predicate<Row>() {
+        @Override
+        public boolean apply(@Nullable Row input) {
+            return input != null && input.get(0).equals(input.get(1));
+        }
+    };
+
+    private ThreadPoolExecutor executor;
+
+    static final int BENCHMARK_ROUNDS = 10;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Before
+    public void prepare() {
+        executor = EsExecutors.newFixed("hash-join-benchmark", 5, 10, EsExecutors.daemonThreadFactory(getClass().getSimpleName()));
+    }
+
+    @After
+    public void cleanup() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testNestedLoop10() throws Exception {
+        executeNestedLoop(10);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testHashJoin10() throws Exception {
+        executeHashJoin(10);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testNestedLoop100() throws Exception {
+        executeNestedLoop(100);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testHashJoin100() throws Exception {
+        executeHashJoin(100);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testNestedLoop1000() throws Exception {
+        executeNestedLoop(1_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testHashJoin1000() throws Exception {
+        executeHashJoin(1_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testNestedLoop10000() throws Exception {
+        executeNestedLoop(10_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testHashJoin10000() throws Exception {
+        executeHashJoin(10_000);
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 1, benchmarkRounds = BENCHMARK_ROUNDS)
+    public void testHashJoin100000() throws Exception {
+        executeHashJoin(100_000);
+    }
+
+    private void executeNestedLoop(int size) throws Exception {
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        NestedLoopOperation operation = new NestedLoopOperation(
+            0, receiver, COL0_EQ_COL1, JoinType.INNER, 1, 1);
+        execute(operation, receiver, size);
+    }
+
+    private void executeHashJoin(int size) throws Exception {
+        RowCountRowReceiver receiver = new RowCountRowReceiver();
+        InputCollectExpression leftKey = new InputCollectExpression(0);
+        InputCollectExpression rightKey = new InputCollectExpression(0);
+        HashJoinOperation operation = new HashJoinOperation(
+            0,
+            receiver,
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)),
+            JoinType.INNER,
+            ImmutableList.of(leftKey),
+            ImmutableList.of(leftKey),
+            ImmutableList.of(rightKey),
+            ImmutableList.of(rightKey),
+            1);
+        execute(operation, receiver, size);
+    }
+
+    private void execute(JoinOperation operation, RowCountRowReceiver receiver, int size) throws Exception {
+        RowSender leftRowSender = new RowSender(RowGenerator.range(0, size), operation.leftRowReceiver(), executor);
+        RowSender rightRowSender = new RowSender(RowGenerator.range(0, size), operation.rightRowReceiver(), executor);
+
+        executor.execute(leftRowSender);
+        executor.execute(rightRowSender);
+        Bucket result = receiver.result(TimeValue.timeValueMinutes(10));
+        assertThat((Integer) result.iterator().next().get(0), is(size));
+    }
+}
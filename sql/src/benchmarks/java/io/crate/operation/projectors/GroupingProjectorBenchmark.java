@@ -27,6 +27,7 @@ import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.metadata.Functions;
@@ -34,6 +35,7 @@ import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
+import io.crate.operation.aggregation.impl.AverageAggregation;
 import io.crate.operation.aggregation.impl.MinimumAggregation;
 import io.crate.operation.aggregation.impl.SumAggregation;
 import io.crate.operation.collect.CollectExpression;
@@ -48,6 +50,7 @@ import org.elasticsearch.common.inject.ModulesBuilder;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -58,6 +61,11 @@ public class GroupingProjectorBenchmark {
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
         new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
 
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int NUM_ROWS = 20_000_000;
+
     @Rule
     public BenchmarkRule benchmarkRule = new BenchmarkRule();
 
@@ -150,4 +158,221 @@ public class GroupingProjectorBenchmark {
 
         groupingProjector.finish(RepeatHandle.UNSUPPORTED);
     }
+
+    private GroupingProjector createSumProjector(DataType keyType, int numKeys, GroupingStrategy strategy) {
+        return createProjector(keyType, numKeys, strategy, SumAggregation.NAME, true);
+    }
+
+    private GroupingProjector createProjector(DataType keyType,
+                                              int numKeys,
+                                              GroupingStrategy strategy,
+                                              String aggregationName,
+                                              boolean columnarStates) {
+        Functions functions = new ModulesBuilder().add(new AggregationImplModule())
+            .createInjector().getInstance(Functions.class);
+
+        List<Input<?>> keyInputs = new ArrayList<>(numKeys);
+        List<DataType> keyTypes = new ArrayList<>(numKeys);
+        CollectExpression[] collectExpressions = new CollectExpression[numKeys + 1];
+        for (int i = 0; i < numKeys; i++) {
+            InputCollectExpression keyInput = new InputCollectExpression(i);
+            keyInputs.add(keyInput);
+            keyTypes.add(keyType);
+            collectExpressions[i] = keyInput;
+        }
+        InputCollectExpression valueInput = new InputCollectExpression(numKeys);
+        collectExpressions[numKeys] = valueInput;
+
+        FunctionIdent functionIdent = new FunctionIdent(aggregationName,
+            Arrays.<DataType>asList(DataTypes.LONG));
+        AggregationFunction function = (AggregationFunction) functions.get(functionIdent);
+        Aggregation aggregation = Aggregation.finalAggregation(function.info(),
+            Arrays.<Symbol>asList(new InputColumn(numKeys)), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(function, aggregation);
+        aggregationContext.addInput(valueInput);
+        GroupingProjector groupingProjector = new GroupingProjector(
+            keyTypes, keyInputs, collectExpressions, new AggregationContext[]{aggregationContext},
+            RAM_ACCOUNTING_CONTEXT, strategy, columnarStates);
+        groupingProjector.downstream(new RowCountRowReceiver());
+        return groupingProjector;
+    }
+
+    private void groupByLongKeys(int numKeys, GroupingStrategy strategy) {
+        GroupingProjector groupingProjector = createSumProjector(DataTypes.LONG, numKeys, strategy);
+        RowN row = new RowN(numKeys + 1);
+        Object[] cells = new Object[numKeys + 1];
+        for (int i = 0; i < 20_000_000; i++) {
+            for (int k = 0; k < numKeys; k++) {
+                cells[k] = (long) ((i + k) % 10_000);
+            }
+            cells[numKeys] = (long) i;
+            row.cells(cells);
+            groupingProjector.setNextRow(row);
+        }
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+    }
+
+    @Test
+    public void testGroupBySumLongKeyGeneric() throws Exception {
+        groupByLongKeys(1, GroupingStrategy.GENERIC);
+    }
+
+    @Test
+    public void testGroupBySumLongKeySpecialized() throws Exception {
+        groupByLongKeys(1, GroupingStrategy.LONG);
+    }
+
+    @Test
+    public void testGroupBySumTwoLongKeysGeneric() throws Exception {
+        groupByLongKeys(2, GroupingStrategy.GENERIC);
+    }
+
+    @Test
+    public void testGroupBySumTwoLongKeysPacked() throws Exception {
+        groupByLongKeys(2, GroupingStrategy.FIXED_WIDTH);
+    }
+
+    private void groupByDoubleKey(GroupingStrategy strategy) {
+        GroupingProjector groupingProjector = createSumProjector(DataTypes.DOUBLE, 1, strategy);
+        RowN row = new RowN(2);
+        Object[] cells = new Object[2];
+        for (int i = 0; i < 20_000_000; i++) {
+            cells[0] = (i % 10_000) / 3.0d;
+            cells[1] = (long) i;
+            row.cells(cells);
+            groupingProjector.setNextRow(row);
+        }
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+    }
+
+    @Test
+    public void testGroupBySumDoubleKeyGeneric() throws Exception {
+        groupByDoubleKey(GroupingStrategy.GENERIC);
+    }
+
+    @Test
+    public void testGroupBySumDoubleKeySpecialized() throws Exception {
+        groupByDoubleKey(GroupingStrategy.DOUBLE);
+    }
+
+    private void groupByIntKey(GroupingStrategy strategy) {
+        GroupingProjector groupingProjector = createSumProjector(DataTypes.INTEGER, 1, strategy);
+        RowN row = new RowN(2);
+        Object[] cells = new Object[2];
+        for (int i = 0; i < 20_000_000; i++) {
+            cells[0] = i % 10_000;
+            cells[1] = (long) i;
+            row.cells(cells);
+            groupingProjector.setNextRow(row);
+        }
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+    }
+
+    @Test
+    public void testGroupBySumIntKeyGeneric() throws Exception {
+        groupByIntKey(GroupingStrategy.GENERIC);
+    }
+
+    @Test
+    public void testGroupBySumIntKeySpecialized() throws Exception {
+        groupByIntKey(GroupingStrategy.INT);
+    }
+
+    private void groupByStringKey(GroupingStrategy strategy) {
+        GroupingProjector groupingProjector = createSumProjector(DataTypes.STRING, 1, strategy);
+        List<BytesRef> keys = new ArrayList<>(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(new BytesRef("key-" + i));
+        }
+        RowN row = new RowN(2);
+        Object[] cells = new Object[2];
+        for (int i = 0; i < 20_000_000; i++) {
+            cells[0] = keys.get(i % keys.size());
+            cells[1] = (long) i;
+            row.cells(cells);
+            groupingProjector.setNextRow(row);
+        }
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+    }
+
+    @Test
+    public void testGroupBySumStringKeyGeneric() throws Exception {
+        groupByStringKey(GroupingStrategy.GENERIC);
+    }
+
+    @Test
+    public void testGroupBySumStringKeySpecialized() throws Exception {
+        groupByStringKey(GroupingStrategy.BYTES_REF);
+    }
+
+    /**
+     * Groups by a long key and prints the throughput and the bytes allocated per row as junit-benchmarks only
+     * reports the time per round.
+     * The keys and values are boxed up front so that only the allocations of the aggregation are measured.
+     */
+    private void groupByLongKeyStates(String aggregationName, boolean columnarStates) {
+        GroupingProjector groupingProjector = createProjector(
+            DataTypes.LONG, 1, GroupingStrategy.LONG, aggregationName, columnarStates);
+        Long[] keys = new Long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) i;
+        }
+        Long[] values = new Long[1_009];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) i;
+        }
+        RowN row = new RowN(2);
+        Object[] cells = new Object[2];
+        row.cells(cells);
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long startedNanos = System.nanoTime();
+        for (int i = 0; i < NUM_ROWS; i++) {
+            cells[0] = keys[i % keys.length];
+            cells[1] = values[i % values.length];
+            groupingProjector.setNextRow(row);
+        }
+        long elapsedNanos = System.nanoTime() - startedNanos;
+        long allocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        groupingProjector.finish(RepeatHandle.UNSUPPORTED);
+
+        System.out.printf(Locale.ENGLISH,
+            "group by long key, %s, %s states: %.0f rows/s, %.2f bytes allocated/row, %.0f MB/s%n",
+            aggregationName,
+            columnarStates ? "columnar" : "object",
+            NUM_ROWS / (elapsedNanos / 1e9),
+            allocatedBytes / (double) NUM_ROWS,
+            allocatedBytes / (elapsedNanos / 1e9) / (1024 * 1024));
+    }
+
+    @Test
+    public void testGroupBySumObjectStates() throws Exception {
+        groupByLongKeyStates(SumAggregation.NAME, false);
+    }
+
+    @Test
+    public void testGroupBySumColumnarStates() throws Exception {
+        groupByLongKeyStates(SumAggregation.NAME, true);
+    }
+
+    @Test
+    public void testGroupByAvgObjectStates() throws Exception {
+        groupByLongKeyStates(AverageAggregation.NAME, false);
+    }
+
+    @Test
+    public void testGroupByAvgColumnarStates() throws Exception {
+        groupByLongKeyStates(AverageAggregation.NAME, true);
+    }
+
+    @Test
+    public void testGroupByMinObjectStates() throws Exception {
+        groupByLongKeyStates(MinimumAggregation.NAME, false);
+    }
+
+    @Test
+    public void testGroupByMinColumnarStates() throws Exception {
+        groupByLongKeyStates(MinimumAggregation.NAME, true);
+    }
 }
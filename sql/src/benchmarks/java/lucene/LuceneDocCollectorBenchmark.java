@@ -254,6 +254,34 @@ public class LuceneDocCollectorBenchmark extends SQLTransportIntegrationTest {
         collectingRowReceiver.result(); // call result to make sure there were no errors
     }
 
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = WARMUP_ROUNDS)
+    @Test
+    public void testLuceneDocCollectorUnorderedDocValuesBlocksPerformance() throws Exception {
+        // only doc values columns are selected, so the documents are collected in blocks
+        collectingRowReceiver.rows.clear();
+        CrateCollector docCollector = createCollector(
+            "SELECT population, \"areaInSqKm\", continent FROM countries",
+            collectingRowReceiver,
+            NUMBER_OF_DOCUMENTS
+        );
+        docCollector.doCollect();
+        collectingRowReceiver.result(); // call result to make sure there were no errors
+    }
+
+    @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = WARMUP_ROUNDS)
+    @Test
+    public void testLuceneDocCollectorUnorderedDocValuesPerDocPerformance() throws Exception {
+        // selecting _score requires scoring, so the documents are collected one at a time
+        collectingRowReceiver.rows.clear();
+        CrateCollector docCollector = createCollector(
+            "SELECT population, \"areaInSqKm\", continent, _score FROM countries",
+            collectingRowReceiver,
+            NUMBER_OF_DOCUMENTS
+        );
+        docCollector.doCollect();
+        collectingRowReceiver.result(); // call result to make sure there were no errors
+    }
+
     @BenchmarkOptions(benchmarkRounds = BENCHMARK_ROUNDS, warmupRounds = WARMUP_ROUNDS)
     @Test
     public void testLuceneDocCollectorUnorderedStartStopPerformance() throws Exception {
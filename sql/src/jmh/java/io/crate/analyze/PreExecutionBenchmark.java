@@ -23,10 +23,12 @@
 package io.crate.analyze;
 
 import io.crate.action.sql.SessionContext;
+import io.crate.action.sql.StatementCache;
 import io.crate.planner.Plan;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.Statement;
 import io.crate.testing.SQLExecutor;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.cluster.NoopClusterService;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
@@ -46,12 +48,24 @@ public class PreExecutionBenchmark {
     private Statement selectStatement = SqlParser.createStatement("select name from users");
     private Analysis selectAnalysis = e.analyzer.boundAnalyze(selectStatement, SessionContext.SYSTEM_SESSION, ParameterContext.EMPTY);
     private UUID jobId = UUID.randomUUID();
+    private StatementCache statementCache = new StatementCache(Settings.EMPTY);
 
     @Benchmark
     public Statement benchParse() throws Exception {
         return SqlParser.createStatement("select name from users");
     }
 
+    @Benchmark
+    public Statement benchCachedParse() throws Exception {
+        return statementCache.get("select name from users");
+    }
+
+    @Benchmark
+    public Analysis benchCachedParseAndAnalyze() {
+        return e.analyzer.boundAnalyze(
+            statementCache.get("select name from users"), SessionContext.SYSTEM_SESSION, ParameterContext.EMPTY);
+    }
+
     @Benchmark
     public AnalyzedStatement benchParseAndAnalyzeSelect() {
         return e.analyze("select name from users");
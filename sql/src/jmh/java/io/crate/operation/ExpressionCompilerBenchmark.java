@@ -0,0 +1,120 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation;
+
+import com.google.common.base.Predicate;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.GtOperator;
+import io.crate.operation.operator.LikeOperator;
+import io.crate.operation.scalar.arithmetic.AddFunction;
+import io.crate.operation.scalar.arithmetic.MultiplyFunction;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the interpreted and the compiled evaluation of {@code a + b * 2 > c and d like 'x%'}
+ */
+@State(value = Scope.Benchmark)
+public class ExpressionCompilerBenchmark {
+
+    private static final int NUM_ROWS = 10_000;
+
+    private final Row[] rows = new Row[NUM_ROWS];
+    private final Predicate<Row> interpreted;
+    private final Predicate<Row> compiled;
+
+    public ExpressionCompilerBenchmark() {
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            rows[i] = new RowN(new Object[]{
+                random.nextInt(1000),
+                (long) random.nextInt(1000),
+                (long) random.nextInt(3000),
+                new BytesRef(random.nextBoolean() ? "xyz" : "abc")
+            });
+        }
+        Symbol filter = fn(AndOperator.NAME,
+            fn(GtOperator.NAME,
+                fn(AddFunction.NAME,
+                    new InputColumn(0, DataTypes.INTEGER),
+                    fn(MultiplyFunction.NAME, new InputColumn(1, DataTypes.LONG), Literal.of(2L))),
+                new InputColumn(2, DataTypes.LONG)),
+            fn(LikeOperator.NAME, new InputColumn(3, DataTypes.STRING), Literal.of("x%")));
+
+        InputFactory inputFactory = new InputFactory(TestingHelpers.getFunctions());
+        interpreted = RowFilter.create(inputFactory, filter, false);
+        compiled = RowFilter.create(inputFactory, filter, true);
+    }
+
+    private static Function fn(String name, Symbol... args) {
+        DataType returnType = name.startsWith("op_") ? DataTypes.BOOLEAN : DataTypes.LONG;
+        return new Function(
+            new FunctionInfo(new FunctionIdent(name, Symbols.extractTypes(Arrays.asList(args))), returnType),
+            Arrays.asList(args));
+    }
+
+    @Benchmark
+    public void benchInterpretedFilter(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(interpreted.apply(row));
+        }
+    }
+
+    @Benchmark
+    public void benchCompiledFilter(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(compiled.apply(row));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(ExpressionCompilerBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(opt).run();
+    }
+}
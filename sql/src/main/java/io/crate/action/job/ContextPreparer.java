@@ -33,6 +33,8 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.Streamer;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
@@ -42,11 +44,16 @@ import io.crate.jobs.*;
 import io.crate.metadata.Functions;
 import io.crate.metadata.Routing;
 import io.crate.operation.*;
+import io.crate.operation.collect.CollectExpression;
 import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.MapSideDataCollectOperation;
+import io.crate.operation.collect.stats.StatsTables;
 import io.crate.operation.count.CountOperation;
 import io.crate.operation.fetch.FetchContext;
+import io.crate.operation.join.HashJoinOperation;
+import io.crate.operation.join.JoinOperation;
 import io.crate.operation.join.NestedLoopOperation;
+import io.crate.operation.join.RuntimeFilter;
 import io.crate.operation.projectors.DistributingDownstreamFactory;
 import io.crate.operation.projectors.FlatProjectorChain;
 import io.crate.operation.projectors.RowReceiver;
@@ -60,6 +67,7 @@ import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.CountPhase;
 import io.crate.planner.node.dql.MergePhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.node.dql.join.JoinType;
 import io.crate.planner.node.dql.join.NestedLoopPhase;
 import io.crate.planner.node.fetch.FetchPhase;
 import io.crate.types.DataTypes;
@@ -97,6 +105,7 @@ public class ContextPreparer extends AbstractComponent {
     private final DistributingDownstreamFactory distributingDownstreamFactory;
     private final InnerPreparer innerPreparer;
     private final InputFactory inputFactory;
+    private final StatsTables statsTables;
 
 
     @Inject
@@ -108,7 +117,8 @@ public class ContextPreparer extends AbstractComponent {
                            ThreadPool threadPool,
                            PageDownstreamFactory pageDownstreamFactory,
                            DistributingDownstreamFactory distributingDownstreamFactory,
-                           Functions functions) {
+                           Functions functions,
+                           StatsTables statsTables) {
         super(settings);
         nlContextLogger = Loggers.getLogger(NestedLoopContext.class, settings);
         pageDownstreamContextLogger = Loggers.getLogger(PageDownstreamContext.class, settings);
@@ -122,6 +132,7 @@ public class ContextPreparer extends AbstractComponent {
         this.distributingDownstreamFactory = distributingDownstreamFactory;
         innerPreparer = new InnerPreparer();
         inputFactory = new InputFactory(functions);
+        this.statsTables = statsTables;
     }
 
     public List<ListenableFuture<Bucket>> prepareOnRemote(Iterable<? extends NodeOperation> nodeOperations,
@@ -346,6 +357,11 @@ public class ContextPreparer extends AbstractComponent {
         private final LongObjectMap<RowReceiver> phaseIdToRowReceivers = new LongObjectHashMap<>();
         private final IntObjectMap<RowReceiver> handlerRowReceivers = new IntObjectHashMap<>();
 
+        /**
+         * from the phaseId of a collect phase to the runtime filter of the hash join consuming its rows
+         */
+        private final IntObjectMap<RuntimeFilter> runtimeFilters = new IntObjectHashMap<>();
+
         @Nullable
         private final SharedShardContexts sharedShardContexts;
 
@@ -526,7 +542,8 @@ public class ContextPreparer extends AbstractComponent {
                 clusterService.state().nodes().getLocalNodeId(),
                 ramAccountingContext,
                 rowReceiver,
-                context.sharedShardContexts
+                context.sharedShardContexts,
+                context.runtimeFilters.get(phase.phaseId())
             ));
             return true;
         }
@@ -566,6 +583,7 @@ public class ContextPreparer extends AbstractComponent {
                 phase,
                 localNodeId,
                 context.sharedShardContexts,
+                RamAccountingContext.forExecutionPhase(circuitBreaker, phase),
                 routings));
             return true;
         }
@@ -587,21 +605,26 @@ public class ContextPreparer extends AbstractComponent {
             } else {
                 flatProjectorChain = FlatProjectorChain.withReceivers(Collections.singletonList(downstreamRowReceiver));
             }
-            Predicate<Row> joinCondition = RowFilter.create(inputFactory, phase.joinCondition());
-
-            NestedLoopOperation nestedLoopOperation = new NestedLoopOperation(
-                phase.phaseId(),
-                flatProjectorChain.firstProjector(),
-                joinCondition,
-                phase.joinType(),
-                phase.numLeftOutputs(),
-                phase.numRightOutputs());
+            JoinOperation joinOperation;
+            if (phase.isHashJoin()) {
+                joinOperation = createHashJoinOperation(
+                    phase, flatProjectorChain.firstProjector(), ramAccountingContext, createRuntimeFilter(phase, context));
+            } else {
+                Predicate<Row> joinCondition = RowFilter.create(inputFactory, phase.joinCondition());
+                joinOperation = new NestedLoopOperation(
+                    phase.phaseId(),
+                    flatProjectorChain.firstProjector(),
+                    joinCondition,
+                    phase.joinType(),
+                    phase.numLeftOutputs(),
+                    phase.numRightOutputs());
+            }
             PageDownstreamContext left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
                 (byte) 0,
                 phase.leftMergePhase(),
-                nestedLoopOperation.leftRowReceiver(),
+                joinOperation.leftRowReceiver(),
                 ramAccountingContext);
             if (left != null) {
                 context.registerSubContext(left);
@@ -611,7 +634,7 @@ public class ContextPreparer extends AbstractComponent {
                 context,
                 (byte) 1,
                 phase.rightMergePhase(),
-                nestedLoopOperation.rightRowReceiver(),
+                joinOperation.rightRowReceiver(),
                 ramAccountingContext
             );
             if (right != null) {
@@ -620,13 +643,68 @@ public class ContextPreparer extends AbstractComponent {
             context.registerSubContext(new NestedLoopContext(
                 nlContextLogger,
                 phase,
-                nestedLoopOperation,
+                joinOperation,
                 left,
                 right
             ));
             return true;
         }
 
+        private HashJoinOperation createHashJoinOperation(NestedLoopPhase phase,
+                                                          RowReceiver downstream,
+                                                          RamAccountingContext ramAccountingContext,
+                                                          @Nullable RuntimeFilter runtimeFilter) {
+            InputFactory.Context<CollectExpression<Row, ?>> leftCtx = inputFactory.ctxForInputColumns(phase.leftJoinKeys());
+            InputFactory.Context<CollectExpression<Row, ?>> rightCtx = inputFactory.ctxForInputColumns(phase.rightJoinKeys());
+            return new HashJoinOperation(
+                phase.phaseId(),
+                downstream,
+                ramAccountingContext,
+                phase.joinType(),
+                leftCtx.topLevelInputs(),
+                leftCtx.expressions(),
+                rightCtx.topLevelInputs(),
+                rightCtx.expressions(),
+                phase.numRightOutputs(),
+                runtimeFilter);
+        }
+
+        /**
+         * Creates a filter over the join keys of the right side if the rows of the left side are collected
+         * on this node and directly fed into the join. The filter is registered for the collect phase so that
+         * its collectors can skip rows which can't match.
+         */
+        @Nullable
+        private RuntimeFilter createRuntimeFilter(NestedLoopPhase phase, PreparerContext context) {
+            if (phase.joinType() != JoinType.INNER || phase.leftMergePhase() != null) {
+                return null;
+            }
+            RoutedCollectPhase collectPhase = null;
+            for (Integer sourcePhaseId : context.opCtx.targetToSourceMap.get(phase.phaseId())) {
+                NodeOperation nodeOperation = context.opCtx.nodeOperationMap.get(sourcePhaseId);
+                if (nodeOperation != null
+                    && nodeOperation.downstreamExecutionPhaseInputId() == 0
+                    && nodeOperation.executionPhase() instanceof RoutedCollectPhase) {
+                    collectPhase = (RoutedCollectPhase) nodeOperation.executionPhase();
+                }
+            }
+            if (collectPhase == null || !collectPhase.projections().isEmpty()) {
+                // with projections the outputs of the collect phase don't match the inputs of the join
+                return null;
+            }
+            List<Symbol> leftJoinKeys = phase.leftJoinKeys();
+            int[] keyPositions = new int[leftJoinKeys.size()];
+            for (int i = 0; i < keyPositions.length; i++) {
+                keyPositions[i] = ((InputColumn) leftJoinKeys.get(i)).index();
+            }
+            final int collectPhaseId = collectPhase.phaseId();
+            final UUID jobId = context.jobId();
+            RuntimeFilter runtimeFilter = new RuntimeFilter(
+                keyPositions, rows -> statsTables.operationPrunedRows(collectPhaseId, jobId, rows));
+            context.runtimeFilters.put(collectPhaseId, runtimeFilter);
+            return runtimeFilter;
+        }
+
         @Nullable
         private PageDownstreamContext pageDownstreamContextForNestedLoop(int nlPhaseId,
                                                                          PreparerContext ctx,
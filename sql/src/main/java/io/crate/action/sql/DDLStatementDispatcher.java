@@ -29,6 +29,7 @@ import io.crate.action.FutureActionListener;
 import io.crate.analyze.*;
 import io.crate.blob.v2.BlobAdminClient;
 import io.crate.executor.transport.*;
+import io.crate.planner.TableStatsService;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
@@ -57,6 +58,7 @@ public class DDLStatementDispatcher {
     private final AlterTableOperation alterTableOperation;
     private final RepositoryService repositoryService;
     private final SnapshotRestoreDDLDispatcher snapshotRestoreDDLDispatcher;
+    private final TableStatsService tableStatsService;
 
     private final InnerVisitor innerVisitor = new InnerVisitor();
 
@@ -67,13 +69,15 @@ public class DDLStatementDispatcher {
                                   AlterTableOperation alterTableOperation,
                                   RepositoryService repositoryService,
                                   SnapshotRestoreDDLDispatcher snapshotRestoreDDLDispatcher,
-                                  TransportActionProvider transportActionProvider) {
+                                  TransportActionProvider transportActionProvider,
+                                  TableStatsService tableStatsService) {
         this.blobAdminClient = blobAdminClient;
         this.tableCreator = tableCreator;
         this.alterTableOperation = alterTableOperation;
         this.transportActionProvider = transportActionProvider;
         this.repositoryService = repositoryService;
         this.snapshotRestoreDDLDispatcher = snapshotRestoreDDLDispatcher;
+        this.tableStatsService = tableStatsService;
     }
 
     public ListenableFuture<Long> dispatch(AnalyzedStatement analyzedStatement, UUID jobId) {
@@ -139,6 +143,11 @@ public class DDLStatementDispatcher {
         }
 
 
+        @Override
+        public ListenableFuture<Long> visitAnalyzeStatement(AnalyzeAnalyzedStatement analysis, UUID jobId) {
+            return tableStatsService.analyze();
+        }
+
         @Override
         public ListenableFuture<Long> visitCreateBlobTableStatement(
             CreateBlobTableAnalyzedStatement analysis, UUID jobId) {
@@ -22,6 +22,7 @@
 
 package io.crate.action.sql;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.core.collections.Row;
 import io.crate.executor.Executor;
@@ -29,6 +30,7 @@ import io.crate.operation.projectors.RowReceiver;
 import io.crate.planner.Plan;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * A subset / simplified form of {@link io.crate.operation.projectors.RowReceiver}.
@@ -44,4 +46,16 @@ public interface ResultReceiver extends CompletionListenable {
     void allFinished();
 
     void fail(@Nonnull Throwable t);
+
+    /**
+     * Called after each row. If the receiver is currently unable to take more rows (e.g. because the
+     * network can't keep up) it returns a future which completes once it's able to take rows again.
+     * The upstream will be paused until then.
+     *
+     * @return null if more rows can be received right away
+     */
+    @Nullable
+    default ListenableFuture<?> readyFuture() {
+        return null;
+    }
 }
@@ -22,6 +22,8 @@
 
 package io.crate.action.sql;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.crate.core.collections.Row;
 import io.crate.operation.projectors.*;
 
@@ -34,6 +36,7 @@ public class RowReceiverToResultReceiver implements RowReceiver {
     private long rowCount = 0;
 
     private ResumeHandle resumeHandle = null;
+    private ListenableFuture<?> readyFuture = null;
 
     public RowReceiverToResultReceiver(ResultReceiver resultReceiver, int maxRows) {
         this.resultReceiver = resultReceiver;
@@ -48,11 +51,22 @@ public class RowReceiverToResultReceiver implements RowReceiver {
         if (maxRows > 0 && rowCount % maxRows == 0) {
             return Result.PAUSE;
         }
+        readyFuture = resultReceiver.readyFuture();
+        if (readyFuture != null) {
+            return Result.PAUSE;
+        }
         return Result.CONTINUE;
     }
 
     @Override
     public void pauseProcessed(ResumeHandle resumeHandle) {
+        if (readyFuture != null) {
+            // paused because the resultReceiver can't keep up, not because the batch is finished
+            ListenableFuture<?> future = readyFuture;
+            readyFuture = null;
+            future.addListener(() -> resumeHandle.resume(true), MoreExecutors.directExecutor());
+            return;
+        }
         this.resumeHandle = resumeHandle;
         resultReceiver.batchFinished();
     }
@@ -83,6 +97,7 @@ public class RowReceiverToResultReceiver implements RowReceiver {
 
     public void replaceResultReceiver(ResultReceiver resultReceiver, int maxRows) {
         this.resumeHandle = null;
+        this.readyFuture = null;
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
     }
@@ -64,6 +64,7 @@ public class SQLOperations {
     private final Planner planner;
     private final Provider<Executor> executorProvider;
     private final StatsTables statsTables;
+    private final StatementCache statementCache;
     private final ClusterService clusterService;
     private final boolean isReadOnly;
     private volatile boolean disabled;
@@ -73,12 +74,14 @@ public class SQLOperations {
                          Planner planner,
                          Provider<Executor> executorProvider,
                          StatsTables statsTables,
+                         StatementCache statementCache,
                          Settings settings,
                          ClusterService clusterService) {
         this.analyzer = analyzer;
         this.planner = planner;
         this.executorProvider = executorProvider;
         this.statsTables = statsTables;
+        this.statementCache = statementCache;
         this.clusterService = clusterService;
         this.isReadOnly = settings.getAsBoolean(NODE_READ_ONLY_SETTING, false);
     }
@@ -171,7 +174,7 @@ public class SQLOperations {
 
             Statement statement;
             try {
-                statement = SqlParser.createStatement(query);
+                statement = statementCache.get(query);
             } catch (Throwable t) {
                 if ("".equals(query)) {
                     statement = EMPTY_STMT;
@@ -0,0 +1,116 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+
+/**
+ * Node level LRU cache of parsed statements, keyed by the query string.
+ * <p>
+ * The parse tree only depends on the query string; schema resolution and parameter binding happen
+ * during analysis. Cached statements therefore never become stale and don't have to be invalidated.
+ * Statements must not be modified once they're cached.
+ */
+@Singleton
+public class StatementCache {
+
+    public static final String SIZE_SETTING = "sql.statement_cache.size";
+    public static final int DEFAULT_SIZE = 1000;
+
+    /**
+     * Queries longer than this (e.g. bulk inserts with inlined values) are very unlikely to be repeated
+     * and aren't cached to avoid holding on to large parse trees.
+     */
+    static final int MAX_QUERY_LENGTH = 16 * 1024;
+
+    @Nullable
+    private final Cache<String, Statement> cache;
+
+    @Inject
+    public StatementCache(Settings settings) {
+        this(settings.getAsInt(SIZE_SETTING, DEFAULT_SIZE));
+    }
+
+    StatementCache(int maxSize) {
+        if (maxSize > 0) {
+            cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Returns the statement for the given query, parsing it if it isn't cached yet.
+     * Queries which fail to parse are not cached.
+     */
+    public Statement get(String query) {
+        if (cache == null || query.length() > MAX_QUERY_LENGTH) {
+            return SqlParser.createStatement(query);
+        }
+        Statement statement = cache.getIfPresent(query);
+        if (statement == null) {
+            statement = SqlParser.createStatement(query);
+            cache.put(query, statement);
+        }
+        return statement;
+    }
+
+    public Stats stats() {
+        if (cache == null) {
+            return new Stats(0, new CacheStats(0, 0, 0, 0, 0, 0));
+        }
+        return new Stats(cache.size(), cache.stats());
+    }
+
+    public Iterable<Stats> statsGetter() {
+        return Collections.singletonList(stats());
+    }
+
+    public static class Stats {
+
+        public final long size;
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+
+        Stats(long size, CacheStats cacheStats) {
+            this.size = size;
+            this.hits = cacheStats.hitCount();
+            this.misses = cacheStats.missCount();
+            this.evictions = cacheStats.evictionCount();
+        }
+    }
+}
@@ -152,4 +152,8 @@ public class AnalyzedStatementVisitor<C, R> {
     public R visitBegin(AnalyzedBegin analyzedBegin, C context) {
         return visitAnalyzedStatement(analyzedBegin, context);
     }
+
+    public R visitAnalyzeStatement(AnalyzeAnalyzedStatement analysis, C context) {
+        return visitDDLStatement(analysis, context);
+    }
 }
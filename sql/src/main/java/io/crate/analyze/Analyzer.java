@@ -292,6 +292,11 @@ public class Analyzer {
             return new AnalyzedBegin();
         }
 
+        @Override
+        public AnalyzedStatement visitAnalyze(AnalyzeStatement node, Analysis context) {
+            return AnalyzeAnalyzedStatement.INSTANCE;
+        }
+
         @Override
         protected AnalyzedStatement visitNode(Node node, Analysis context) {
             throw new UnsupportedOperationException(String.format(Locale.ENGLISH, "cannot analyze statement: '%s'", node));
@@ -95,14 +95,20 @@ public class InsertFromValuesAnalyzedStatement extends AbstractInsertAnalyzedSta
 
     public List<String> generatePartitions() {
         List<String> partitionValues = new ArrayList<>(partitionMaps.size());
+        List<String> columnNames = partitionedByColumnNames();
+        // bulk rows usually go into a few partitions only, so the index names are computed once per partition
+        Map<List<BytesRef>, String> indexNames = new HashMap<>();
         for (Map<String, String> map : partitionMaps) {
-            List<BytesRef> values = new ArrayList<>(map.size());
-            List<String> columnNames = partitionedByColumnNames();
+            List<BytesRef> values = new ArrayList<>(columnNames.size());
             for (String columnName : columnNames) {
                 values.add(BytesRefs.toBytesRef(map.get(columnName)));
             }
-            PartitionName partitionName = new PartitionName(tableInfo().ident(), values);
-            partitionValues.add(partitionName.asIndexName());
+            String indexName = indexNames.get(values);
+            if (indexName == null) {
+                indexName = new PartitionName(tableInfo().ident(), values).asIndexName();
+                indexNames.put(values, indexName);
+            }
+            partitionValues.add(indexName);
         }
         return partitionValues;
     }
@@ -22,6 +22,7 @@
 package io.crate.analyze;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import io.crate.analyze.expressions.ExpressionAnalysisContext;
 import io.crate.analyze.expressions.ExpressionAnalyzer;
 import io.crate.analyze.expressions.ValueNormalizer;
@@ -32,6 +33,7 @@ import io.crate.analyze.symbol.Field;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.analyze.symbol.SymbolType;
+import io.crate.analyze.symbol.SymbolVisitors;
 import io.crate.analyze.symbol.format.SymbolFormatter;
 import io.crate.core.StringUtils;
 import io.crate.core.collections.StringObjectMaps;
@@ -41,6 +43,7 @@ import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
 import io.crate.operation.Input;
+import io.crate.operation.InputFactory;
 import io.crate.sql.tree.*;
 import io.crate.types.DataType;
 import org.apache.lucene.util.BytesRef;
@@ -54,6 +57,8 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
 
     private static final ReferenceToLiteralConverter TO_LITERAL_CONVERTER = new ReferenceToLiteralConverter();
 
+    private final InputFactory inputFactory;
+
     private static class ValuesResolver implements io.crate.analyze.ValuesAwareExpressionAnalyzer.ValuesResolver {
 
         private final DocTableRelation tableRelation;
@@ -83,6 +88,7 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
 
     InsertFromValuesAnalyzer(Functions functions, Schemas schemas) {
         super(functions, schemas);
+        inputFactory = new InputFactory(functions);
     }
 
     public AnalyzedStatement analyze(InsertFromValues node, Analysis analysis) {
@@ -200,8 +206,13 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
             Function<List<BytesRef>, String> idFunction = Id.compileWithNullValidation(tableInfo.primaryKey(),
                 tableInfo.clusteredBy());
             if (parameterContext.numBulkParams() > 0) {
+                ValuesTemplate template = null;
                 for (int i = 0; i < parameterContext.numBulkParams(); i++) {
                     parameterContext.setBulkIdx(i);
+                    if (template != null) {
+                        template.bind(i);
+                        continue;
+                    }
                     addValues(
                         tableRelation,
                         valueNormalizer,
@@ -219,6 +230,23 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
                         idFunction,
                         i
                     );
+                    if (i == 0 && assignments.isEmpty()) {
+                        // the first row is analyzed as usual, which also adds the generated columns to the statement
+                        template = ValuesTemplate.compile(
+                            this,
+                            tableRelation,
+                            valueNormalizer,
+                            normalizer,
+                            expressionAnalyzer,
+                            expressionAnalysisContext,
+                            transactionContext,
+                            node,
+                            statement,
+                            parameterContext,
+                            referenceToLiteralContext,
+                            numPks,
+                            idFunction);
+                    }
                 }
             } else {
                 addValues(
@@ -262,67 +290,25 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         if (context.tableInfo().isPartitioned()) {
             context.newPartitionMap();
         }
-        List<BytesRef> primaryKeyValues = new ArrayList<>(numPrimaryKeys);
-        String routingValue = null;
-        List<ColumnIdent> primaryKey = context.tableInfo().primaryKey();
-        Object[] insertValues = new Object[node.values().size()];
+        RowContext row = new RowContext(
+            tableRelation,
+            context,
+            normalizer,
+            transactionContext,
+            referenceToLiteralContext,
+            numPrimaryKeys,
+            node.values().size());
 
         for (int i = 0, valuesSize = node.values().size(); i < valuesSize; i++) {
             Expression expression = node.values().get(i);
             Symbol valuesSymbol = normalizer.normalize(
                 expressionAnalyzer.convert(expression, expressionAnalysisContext),
                 transactionContext);
-
-            // implicit type conversion
-            Reference column = context.columns().get(i);
-            final ColumnIdent columnIdent = column.ident().columnIdent();
-            Object value;
-            try {
-                valuesSymbol = valueNormalizer.normalizeInputForReference(valuesSymbol, column);
-                value = ((Input) valuesSymbol).value();
-            } catch (IllegalArgumentException | UnsupportedOperationException e) {
-                throw new ColumnValidationException(columnIdent.sqlFqn(), e);
-            } catch (ClassCastException e) {
-                // symbol is no Input
-                throw new ColumnValidationException(columnIdent.name(),
-                    SymbolFormatter.format("Invalid value '%s' in insert statement", valuesSymbol));
-            }
-
-            if (context.primaryKeyColumnIndices().contains(i)) {
-                if (value == null) {
-                    throw new IllegalArgumentException("Primary key value must not be NULL");
-                }
-                int idx = primaryKey.indexOf(columnIdent);
-                if (idx < 0) {
-                    // oh look, one or more nested primary keys!
-                    assert value instanceof Map : "value must be instance of Map";
-                    for (ColumnIdent pkIdent : primaryKey) {
-                        if (!pkIdent.getRoot().equals(columnIdent)) {
-                            continue;
-                        }
-                        int pkIdx = primaryKey.indexOf(pkIdent);
-                        Object nestedValue = StringObjectMaps.fromMapByPath((Map) value, pkIdent.path());
-                        addPrimaryKeyValue(pkIdx, nestedValue, primaryKeyValues);
-                    }
-                } else {
-                    addPrimaryKeyValue(idx, value, primaryKeyValues);
-                }
-            }
-            if (i == context.routingColumnIndex()) {
-                routingValue = extractRoutingValue(columnIdent, value, context);
-            }
-            if (context.partitionedByIndices().contains(i)) {
-                Object rest = processPartitionedByValues(columnIdent, value, context);
-                if (rest != null) {
-                    insertValues[i] = rest;
-                }
-            } else {
-                insertValues[i] = value;
-            }
+            addValue(row, i, valuesSymbol, valueNormalizer);
         }
 
         if (!assignments.isEmpty()) {
-            valuesResolver.insertValues = insertValues;
+            valuesResolver.insertValues = row.insertValues;
             valuesResolver.columns = context.columns();
             Symbol[] onDupKeyAssignments = new Symbol[assignments.size()];
             valuesResolver.assignmentColumns = new ArrayList<>(assignments.size());
@@ -349,22 +335,70 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
 
         // process generated column expressions and add columns + values
-        GeneratedExpressionContext ctx = new GeneratedExpressionContext(
-            tableRelation,
-            context,
-            normalizer,
-            transactionContext,
-            referenceToLiteralContext,
-            primaryKeyValues,
-            insertValues,
-            routingValue);
-        processGeneratedExpressions(ctx);
-        insertValues = ctx.insertValues;
-        routingValue = ctx.routingValue;
-
-        context.sourceMaps().add(insertValues);
-        String id = idFunction.apply(primaryKeyValues);
-        context.addIdAndRouting(id, routingValue);
+        processGeneratedExpressions(row);
+        addRow(row, idFunction, bulkIdx);
+    }
+
+    /**
+     * Normalizes the value of the i-th insert column and adds it to the row,
+     * extracting primary key, routing and partition values.
+     */
+    private void addValue(RowContext row, int i, Symbol valuesSymbol, ValueNormalizer valueNormalizer) {
+        InsertFromValuesAnalyzedStatement context = row.analyzedStatement;
+        // implicit type conversion
+        Reference column = context.columns().get(i);
+        final ColumnIdent columnIdent = column.ident().columnIdent();
+        Object value;
+        try {
+            valuesSymbol = valueNormalizer.normalizeInputForReference(valuesSymbol, column);
+            value = ((Input) valuesSymbol).value();
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            throw new ColumnValidationException(columnIdent.sqlFqn(), e);
+        } catch (ClassCastException e) {
+            // symbol is no Input
+            throw new ColumnValidationException(columnIdent.name(),
+                SymbolFormatter.format("Invalid value '%s' in insert statement", valuesSymbol));
+        }
+
+        if (context.primaryKeyColumnIndices().contains(i)) {
+            if (value == null) {
+                throw new IllegalArgumentException("Primary key value must not be NULL");
+            }
+            List<ColumnIdent> primaryKey = context.tableInfo().primaryKey();
+            int idx = primaryKey.indexOf(columnIdent);
+            if (idx < 0) {
+                // oh look, one or more nested primary keys!
+                assert value instanceof Map : "value must be instance of Map";
+                for (ColumnIdent pkIdent : primaryKey) {
+                    if (!pkIdent.getRoot().equals(columnIdent)) {
+                        continue;
+                    }
+                    int pkIdx = primaryKey.indexOf(pkIdent);
+                    Object nestedValue = StringObjectMaps.fromMapByPath((Map) value, pkIdent.path());
+                    addPrimaryKeyValue(pkIdx, nestedValue, row.primaryKeyValues);
+                }
+            } else {
+                addPrimaryKeyValue(idx, value, row.primaryKeyValues);
+            }
+        }
+        if (i == context.routingColumnIndex()) {
+            row.routingValue = extractRoutingValue(columnIdent, value, context);
+        }
+        if (context.partitionedByIndices().contains(i)) {
+            Object rest = processPartitionedByValues(columnIdent, value, context);
+            if (rest != null) {
+                row.insertValues[i] = rest;
+            }
+        } else {
+            row.insertValues[i] = value;
+        }
+    }
+
+    private void addRow(RowContext row, Function<List<BytesRef>, String> idFunction, int bulkIdx) {
+        InsertFromValuesAnalyzedStatement context = row.analyzedStatement;
+        context.sourceMaps().add(row.insertValues);
+        String id = idFunction.apply(row.primaryKeyValues);
+        context.addIdAndRouting(id, row.routingValue);
         if (bulkIdx >= 0) {
             context.bulkIndices().add(bulkIdx);
         }
@@ -426,7 +460,10 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         return null;
     }
 
-    private static class GeneratedExpressionContext {
+    /**
+     * The state of the row which is currently added
+     */
+    private static class RowContext {
 
         private final DocTableRelation tableRelation;
         private final InsertFromValuesAnalyzedStatement analyzedStatement;
@@ -440,50 +477,209 @@ class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         @Nullable
         String routingValue;
 
-        private GeneratedExpressionContext(DocTableRelation tableRelation,
-                                           InsertFromValuesAnalyzedStatement analyzedStatement,
-                                           EvaluatingNormalizer normalizer,
-                                           TransactionContext transactionContext,
-                                           ReferenceToLiteralConverter.Context referenceToLiteralContext,
-                                           List<BytesRef> primaryKeyValues,
-                                           Object[] insertValues,
-                                           @Nullable String routingValue) {
+        private RowContext(DocTableRelation tableRelation,
+                           InsertFromValuesAnalyzedStatement analyzedStatement,
+                           EvaluatingNormalizer normalizer,
+                           TransactionContext transactionContext,
+                           ReferenceToLiteralConverter.Context referenceToLiteralContext,
+                           int numPrimaryKeys,
+                           int numValues) {
             this.tableRelation = tableRelation;
             this.analyzedStatement = analyzedStatement;
             this.transactionContext = transactionContext;
-            this.primaryKeyValues = primaryKeyValues;
-            this.insertValues = insertValues;
-            this.routingValue = routingValue;
+            this.primaryKeyValues = new ArrayList<>(numPrimaryKeys);
+            this.insertValues = new Object[numValues];
             this.referenceToLiteralContext = referenceToLiteralContext;
             this.normalizer = normalizer;
             referenceToLiteralContext.values(insertValues);
         }
     }
 
-    private void processGeneratedExpressions(GeneratedExpressionContext context) {
-        List<ColumnIdent> primaryKey = context.analyzedStatement.tableInfo().primaryKey();
+    private void processGeneratedExpressions(RowContext context) {
         for (GeneratedReference reference : context.tableRelation.tableInfo().generatedColumns()) {
             Symbol valueSymbol = TO_LITERAL_CONVERTER.process(reference.generatedExpression(), context.referenceToLiteralContext);
             valueSymbol = context.normalizer.normalize(valueSymbol, context.transactionContext);
             if (valueSymbol.symbolType() == SymbolType.LITERAL) {
-                Object value = ((Input) valueSymbol).value();
-                if (primaryKey.contains(reference.ident().columnIdent()) &&
-                    context.analyzedStatement.columns().indexOf(reference) == -1) {
-                    int idx = primaryKey.indexOf(reference.ident().columnIdent());
-                    addPrimaryKeyValue(idx, value, context.primaryKeyValues);
+                addGeneratedValue(context, reference, ((Input) valueSymbol).value());
+            }
+        }
+    }
+
+    private void addGeneratedValue(RowContext context, GeneratedReference reference, Object value) {
+        List<ColumnIdent> primaryKey = context.analyzedStatement.tableInfo().primaryKey();
+        if (primaryKey.contains(reference.ident().columnIdent()) &&
+            context.analyzedStatement.columns().indexOf(reference) == -1) {
+            int idx = primaryKey.indexOf(reference.ident().columnIdent());
+            addPrimaryKeyValue(idx, value, context.primaryKeyValues);
+        }
+        ColumnIdent routingColumn = context.analyzedStatement.tableInfo().clusteredBy();
+        if (routingColumn != null && routingColumn.equals(reference.ident().columnIdent())) {
+            context.routingValue = extractRoutingValue(routingColumn, value, context.analyzedStatement);
+        }
+        if (context.tableRelation.tableInfo().isPartitioned()
+            && context.tableRelation.tableInfo().partitionedByColumns().contains(reference)) {
+            addGeneratedPartitionedColumnValue(reference.ident().columnIdent(), value,
+                context.analyzedStatement.currentPartitionMap());
+        } else {
+            context.insertValues = addGeneratedColumnValue(context.analyzedStatement, reference, value, context.insertValues);
+        }
+    }
+
+    /**
+     * A VALUES list which only consists of parameters and literals, analyzed once for all bulk rows.
+     * <p>
+     * Instead of analyzing and normalizing the expressions of every bulk row, the parameters of a row are
+     * converted to the types of their columns directly and the generated columns are evaluated using
+     * inputs which read the values of the current row.
+     */
+    private static class ValuesTemplate {
+
+        private static final Predicate<Symbol> IS_NON_DETERMINISTIC = new Predicate<Symbol>() {
+            @Override
+            public boolean apply(@Nullable Symbol input) {
+                return input instanceof io.crate.analyze.symbol.Function &&
+                       !((io.crate.analyze.symbol.Function) input).info().features()
+                           .contains(FunctionInfo.Feature.DETERMINISTIC);
+            }
+        };
+
+        private final InsertFromValuesAnalyzer analyzer;
+        private final DocTableRelation tableRelation;
+        private final ValueNormalizer valueNormalizer;
+        private final EvaluatingNormalizer normalizer;
+        private final TransactionContext transactionContext;
+        private final InsertFromValuesAnalyzedStatement statement;
+        private final ParameterContext parameterContext;
+        private final ReferenceToLiteralConverter.Context referenceToLiteralContext;
+        private final int numPrimaryKeys;
+        private final Function<List<BytesRef>, String> idFunction;
+
+        /**
+         * per value either a {@link ParameterExpression} or the analyzed literal
+         */
+        private final Object[] values;
+        private final List<GeneratedReference> generatedColumns;
+        private final List<Input<?>> generatedInputs;
+
+        private ValuesTemplate(InsertFromValuesAnalyzer analyzer,
+                               DocTableRelation tableRelation,
+                               ValueNormalizer valueNormalizer,
+                               EvaluatingNormalizer normalizer,
+                               TransactionContext transactionContext,
+                               InsertFromValuesAnalyzedStatement statement,
+                               ParameterContext parameterContext,
+                               ReferenceToLiteralConverter.Context referenceToLiteralContext,
+                               int numPrimaryKeys,
+                               Function<List<BytesRef>, String> idFunction,
+                               Object[] values,
+                               List<GeneratedReference> generatedColumns,
+                               List<Input<?>> generatedInputs) {
+            this.analyzer = analyzer;
+            this.tableRelation = tableRelation;
+            this.valueNormalizer = valueNormalizer;
+            this.normalizer = normalizer;
+            this.transactionContext = transactionContext;
+            this.statement = statement;
+            this.parameterContext = parameterContext;
+            this.referenceToLiteralContext = referenceToLiteralContext;
+            this.numPrimaryKeys = numPrimaryKeys;
+            this.idFunction = idFunction;
+            this.values = values;
+            this.generatedColumns = generatedColumns;
+            this.generatedInputs = generatedInputs;
+        }
+
+        /**
+         * @return the template or null if the values contain anything else than parameters and
+         * literals of primitive types or if a generated column can't be evaluated using inputs
+         * or contains a non-deterministic function.
+         */
+        @Nullable
+        static ValuesTemplate compile(InsertFromValuesAnalyzer analyzer,
+                                      DocTableRelation tableRelation,
+                                      ValueNormalizer valueNormalizer,
+                                      EvaluatingNormalizer normalizer,
+                                      ExpressionAnalyzer expressionAnalyzer,
+                                      ExpressionAnalysisContext expressionAnalysisContext,
+                                      TransactionContext transactionContext,
+                                      ValuesList node,
+                                      InsertFromValuesAnalyzedStatement statement,
+                                      ParameterContext parameterContext,
+                                      ReferenceToLiteralConverter.Context referenceToLiteralContext,
+                                      int numPrimaryKeys,
+                                      Function<List<BytesRef>, String> idFunction) {
+            Object[] values = new Object[node.values().size()];
+            for (int i = 0; i < values.length; i++) {
+                Expression expression = node.values().get(i);
+                if (expression instanceof ParameterExpression) {
+                    values[i] = expression;
+                } else if (expression instanceof io.crate.sql.tree.Literal
+                           && !(expression instanceof ArrayLiteral)
+                           && !(expression instanceof ObjectLiteral)) {
+                    // objects and arrays are excluded as their values might be modified per row
+                    values[i] = normalizer.normalize(
+                        expressionAnalyzer.convert(expression, expressionAnalysisContext), transactionContext);
+                } else {
+                    return null;
                 }
-                ColumnIdent routingColumn = context.analyzedStatement.tableInfo().clusteredBy();
-                if (routingColumn != null && routingColumn.equals(reference.ident().columnIdent())) {
-                    context.routingValue = extractRoutingValue(routingColumn, value, context.analyzedStatement);
+            }
+            List<GeneratedReference> generatedColumns = tableRelation.tableInfo().generatedColumns();
+            List<Input<?>> generatedInputs = new ArrayList<>(generatedColumns.size());
+            java.util.function.Function<Symbol, Input<?>> toInput =
+                analyzer.inputFactory.forRefs(referenceToLiteralContext::inputFor);
+            for (GeneratedReference generatedColumn : generatedColumns) {
+                if (SymbolVisitors.any(IS_NON_DETERMINISTIC, generatedColumn.generatedExpression())) {
+                    // inputs would evaluate e.g. CURRENT_TIMESTAMP per row instead of once per statement
+                    return null;
                 }
-                if (context.tableRelation.tableInfo().isPartitioned()
-                    && context.tableRelation.tableInfo().partitionedByColumns().contains(reference)) {
-                    addGeneratedPartitionedColumnValue(reference.ident().columnIdent(), value,
-                        context.analyzedStatement.currentPartitionMap());
-                } else {
-                    context.insertValues = addGeneratedColumnValue(context.analyzedStatement, reference, value, context.insertValues);
+                try {
+                    generatedInputs.add(toInput.apply(generatedColumn.generatedExpression()));
+                } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                    return null;
                 }
             }
+            return new ValuesTemplate(
+                analyzer,
+                tableRelation,
+                valueNormalizer,
+                normalizer,
+                transactionContext,
+                statement,
+                parameterContext,
+                referenceToLiteralContext,
+                numPrimaryKeys,
+                idFunction,
+                values,
+                generatedColumns,
+                generatedInputs);
+        }
+
+        /**
+         * Adds the row of the current bulk parameters
+         */
+        void bind(int bulkIdx) {
+            if (statement.tableInfo().isPartitioned()) {
+                statement.newPartitionMap();
+            }
+            RowContext row = new RowContext(
+                tableRelation,
+                statement,
+                normalizer,
+                transactionContext,
+                referenceToLiteralContext,
+                numPrimaryKeys,
+                values.length);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                Symbol valueSymbol = value instanceof ParameterExpression
+                    ? parameterContext.apply((ParameterExpression) value)
+                    : (Symbol) value;
+                analyzer.addValue(row, i, valueSymbol, valueNormalizer);
+            }
+            for (int i = 0; i < generatedInputs.size(); i++) {
+                analyzer.addGeneratedValue(row, generatedColumns.get(i), generatedInputs.get(i).value());
+            }
+            analyzer.addRow(row, idFunction, bulkIdx);
         }
     }
 
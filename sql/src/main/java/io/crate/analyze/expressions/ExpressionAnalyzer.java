@@ -387,6 +387,9 @@ public class ExpressionAnalyzer {
             DataType targetType = left.valueType();
 
             Expression valueList = node.getValueList();
+            if (valueList instanceof SubqueryExpression) {
+                return inSubquery(left, (SubqueryExpression) valueList, context);
+            }
             if (!(valueList instanceof InListExpression)) {
                 throw new UnsupportedOperationException(String.format(Locale.ENGLISH,
                     "Expression %s is not supported in IN", ExpressionFormatter.formatExpression(valueList)));
@@ -725,8 +728,44 @@ public class ExpressionAnalyzer {
             return new io.crate.analyze.symbol.MatchPredicate(identBoostMap, queryTerm, matchType, options);
         }
 
+        /**
+         * convert where x IN (SELECT y FROM ...)
+         *
+         * into
+         *
+         *      x = ANY(subquery)
+         *
+         * The sub-query result is the set of distinct values of y. Depending on its size it is either inlined as
+         * an array literal or used as a set literal (semi-join), see {@link SelectSymbol.ResultType}.
+         */
+        private Symbol inSubquery(Symbol left, SubqueryExpression subquery, ExpressionAnalysisContext context) {
+            AnalyzedRelation relation = analyzeSubquery(subquery);
+            DataType innerType = relation.fields().get(0).valueType();
+            if (innerType == DataTypes.UNDEFINED) {
+                innerType = left.valueType();
+            } else {
+                left = castIfNeededOrFail(left, innerType);
+            }
+            SelectSymbol selectSymbol = new SelectSymbol(
+                relation, new SetType(innerType), SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES);
+            return context.allocateFunction(AnyEqOperator.createInfo(innerType), Arrays.asList(left, selectSymbol));
+        }
+
         @Override
         protected Symbol visitSubqueryExpression(SubqueryExpression node, ExpressionAnalysisContext context) {
+            AnalyzedRelation relation = analyzeSubquery(node);
+            /*
+             * The SelectSymbol should actually have a RowType as it is a row-expression.
+             *
+             * But there are no other row-expressions yet. In addition the cast functions and operators don't work with
+             * row types (yet).
+             *
+             * Since we only support 1 column and only single-row subselects it is okay to use the inner type directly.
+             */
+            return new SelectSymbol(relation, relation.fields().get(0).valueType());
+        }
+
+        private AnalyzedRelation analyzeSubquery(SubqueryExpression node) {
             if (subQueryAnalyzer == null) {
                 throw new UnsupportedOperationException("Subquery not supported in this statement");
             }
@@ -734,19 +773,10 @@ public class ExpressionAnalyzer {
              * this would require {@link StatementAnalysisContext#startRelation} to somehow inherit the parent context
              */
             AnalyzedRelation relation = subQueryAnalyzer.analyze(node.getQuery());
-            List<Field> fields = relation.fields();
-            if (fields.size() > 1) {
+            if (relation.fields().size() > 1) {
                 throw new UnsupportedOperationException("Subqueries with more than 1 column are not supported.");
             }
-            /*
-             * The SelectSymbol should actually have a RowType as it is a row-expression.
-             *
-             * But there are no other row-expressions yet. In addition the cast functions and operators don't work with
-             * row types (yet).
-             *
-             * Since we only support 1 column and only single-row subselects it is okay to use the inner type directly.
-             */
-            return new SelectSymbol(relation, fields.get(0).valueType());
+            return relation;
         }
 
         private void verifyTypesForMatch(Iterable<? extends Symbol> columns, DataType columnType) {
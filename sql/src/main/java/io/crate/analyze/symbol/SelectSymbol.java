@@ -34,18 +34,41 @@ import java.io.IOException;
  */
 public class SelectSymbol extends Symbol {
 
+    public enum ResultType {
+        /**
+         * The sub-query must return at most one row, the value of the symbol is the value of that row
+         */
+        SINGLE_COLUMN_SINGLE_VALUE,
+
+        /**
+         * The sub-query may return any number of rows, the value of the symbol is the set of the distinct values
+         * of all rows. Used for {@code x IN (SELECT ...)}
+         */
+        SINGLE_COLUMN_MULTIPLE_VALUES
+    }
+
     private final AnalyzedRelation relation;
     private final DataType type;
+    private final ResultType resultType;
 
     public SelectSymbol(AnalyzedRelation relation, DataType type) {
+        this(relation, type, ResultType.SINGLE_COLUMN_SINGLE_VALUE);
+    }
+
+    public SelectSymbol(AnalyzedRelation relation, DataType type, ResultType resultType) {
         this.relation = relation;
         this.type = type;
+        this.resultType = resultType;
     }
 
     public AnalyzedRelation relation() {
         return relation;
     }
 
+    public ResultType resultType() {
+        return resultType;
+    }
+
     public SelectSymbol(StreamInput in) throws IOException {
         throw new UnsupportedOperationException("Cannot stream SelectSymbol");
     }
@@ -0,0 +1,209 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze.where;
+
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitor;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.PartitionIndex;
+import io.crate.operation.operator.*;
+import io.crate.operation.operator.any.AnyEqOperator;
+import io.crate.operation.predicate.IsNullPredicate;
+import io.crate.types.CollectionType;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Looks up the partitions which can match a query using a {@link PartitionIndex}.
+ * <p>
+ * Equality, range, <code>= ANY</code> and <code>IS NULL</code> conditions on partition columns combined using
+ * <code>AND</code> and <code>OR</code> are resolved using the index. Any other part of the query is treated as
+ * if it could match every partition, so the result is a superset of the matching partitions which still has to be
+ * evaluated per partition.
+ */
+class PartitionPruner extends SymbolVisitor<PartitionIndex, BitSet> {
+
+    private static final PartitionPruner INSTANCE = new PartitionPruner();
+
+    private PartitionPruner() {
+    }
+
+    /**
+     * @return the partitions which might match the query
+     */
+    static BitSet candidates(Symbol query, PartitionIndex index) {
+        BitSet candidates = INSTANCE.process(query, index);
+        return candidates == null ? index.all() : candidates;
+    }
+
+    /**
+     * @return null if the symbol can't be resolved using the index
+     */
+    @Override
+    protected BitSet visitSymbol(Symbol symbol, PartitionIndex index) {
+        return null;
+    }
+
+    @Override
+    public BitSet visitLiteral(Literal symbol, PartitionIndex index) {
+        Object value = symbol.value();
+        if (value instanceof Boolean && !((Boolean) value)) {
+            return new BitSet();
+        }
+        return null;
+    }
+
+    @Override
+    public BitSet visitFunction(Function function, PartitionIndex index) {
+        String name = function.info().ident().name();
+        List<Symbol> args = function.arguments();
+        if (name.equals(AnyEqOperator.NAME)) {
+            return anyEq(args, index);
+        }
+        switch (name) {
+            case AndOperator.NAME: {
+                BitSet left = process(args.get(0), index);
+                BitSet right = process(args.get(1), index);
+                if (left == null) {
+                    return right;
+                }
+                if (right != null) {
+                    left.and(right);
+                }
+                return left;
+            }
+            case OrOperator.NAME: {
+                BitSet left = process(args.get(0), index);
+                if (left == null) {
+                    return null;
+                }
+                BitSet right = process(args.get(1), index);
+                if (right == null) {
+                    return null;
+                }
+                left.or(right);
+                return left;
+            }
+            case IsNullPredicate.NAME: {
+                ColumnIdent column = partitionColumn(args.get(0), index);
+                return column == null ? null : index.isNull(column);
+            }
+            case EqOperator.NAME:
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+                return comparison(name, args, index);
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static BitSet comparison(String name, List<Symbol> args, PartitionIndex index) {
+        Symbol left = args.get(0);
+        Symbol right = args.get(1);
+        if (left instanceof Literal) {
+            name = swap(name);
+            Symbol tmp = left;
+            left = right;
+            right = tmp;
+        }
+        ColumnIdent column = partitionColumn(left, index);
+        if (column == null || !(right instanceof Literal) || !right.valueType().equals(index.type(column))) {
+            return null;
+        }
+        Object value = ((Literal) right).value();
+        if (value == null) {
+            // comparisons with null never match
+            return new BitSet();
+        }
+        switch (name) {
+            case EqOperator.NAME:
+                return index.equalTo(column, value);
+            case GtOperator.NAME:
+                return index.range(column, value, false, null, false);
+            case GteOperator.NAME:
+                return index.range(column, value, true, null, false);
+            case LtOperator.NAME:
+                return index.range(column, null, false, value, false);
+            case LteOperator.NAME:
+                return index.range(column, null, false, value, true);
+            default:
+                throw new AssertionError("unexpected comparison " + name);
+        }
+    }
+
+    private static String swap(String comparison) {
+        switch (comparison) {
+            case GtOperator.NAME:
+                return LtOperator.NAME;
+            case GteOperator.NAME:
+                return LteOperator.NAME;
+            case LtOperator.NAME:
+                return GtOperator.NAME;
+            case LteOperator.NAME:
+                return GteOperator.NAME;
+            default:
+                return comparison;
+        }
+    }
+
+    @Nullable
+    private static BitSet anyEq(List<Symbol> args, PartitionIndex index) {
+        ColumnIdent column = partitionColumn(args.get(0), index);
+        Symbol array = args.get(1);
+        if (column == null || !(array instanceof Literal) || !(array.valueType() instanceof CollectionType)) {
+            return null;
+        }
+        DataType innerType = ((CollectionType) array.valueType()).innerType();
+        Object values = ((Literal) array).value();
+        if (!innerType.equals(index.type(column)) || !(values instanceof Object[])) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (Object value : (Object[]) values) {
+            if (value != null) {
+                result.or(index.equalTo(column, value));
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private static ColumnIdent partitionColumn(Symbol symbol, PartitionIndex index) {
+        if (symbol instanceof Reference) {
+            ColumnIdent column = ((Reference) symbol).ident().columnIdent();
+            if (index.type(column) != null) {
+                return column;
+            }
+        }
+        return null;
+    }
+}
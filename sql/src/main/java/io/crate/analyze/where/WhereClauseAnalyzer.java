@@ -34,6 +34,7 @@ import io.crate.analyze.symbol.Symbols;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.doc.PartitionIndex;
 import io.crate.operation.reference.partitioned.PartitionExpression;
 import org.elasticsearch.common.collect.Tuple;
 
@@ -162,7 +163,11 @@ public class WhereClauseAnalyzer {
         Symbol normalized;
         Map<Symbol, List<Literal>> queryPartitionMap = new HashMap<>();
 
-        for (PartitionName partitionName : tableInfo.partitions()) {
+        // only evaluate the query for the partitions which could match according to the partition index
+        PartitionIndex partitionIndex = tableInfo.partitionIndex();
+        BitSet candidates = PartitionPruner.candidates(whereClause.query(), partitionIndex);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            PartitionName partitionName = partitionIndex.partition(i);
             for (PartitionExpression partitionExpression : partitionReferenceResolver.expressions()) {
                 partitionExpression.setNextRow(partitionName);
             }
@@ -56,6 +56,12 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
 
     public static final double DEFAULT_LOG_CIRCUIT_BREAKER_OVERHEAD_CONSTANT = 1.0;
 
+    public static final String QUERY_RESULT_CACHE = "query_result_cache";
+    public static final String QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING = "indices.breaker.query_result_cache.limit";
+    public static final String DEFAULT_QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT = "1%";
+    public static final String QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING = "indices.breaker.query_result_cache.overhead";
+    public static final double DEFAULT_QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_CONSTANT = 1.0;
+
     static final String BREAKING_EXCEPTION_MESSAGE =
         "[query] Data too large, data for [%s] would be larger than limit of [%d/%s]";
 
@@ -102,6 +108,16 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
             Type.MEMORY);
         registerBreaker(breakerSettings);
 
+        breakerSettings = new BreakerSettings(QUERY_RESULT_CACHE,
+            settings.getAsMemory(
+                QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING,
+                DEFAULT_QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT).getBytes(),
+            settings.getAsDouble(
+                QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING,
+                DEFAULT_QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_CONSTANT),
+            Type.MEMORY);
+        registerBreaker(breakerSettings);
+
         nodeSettingsService.addListener(new ApplySettings());
     }
 
@@ -157,6 +173,14 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
                 DEFAULT_OPERATIONS_LOG_CIRCUIT_BREAKER_LIMIT,
                 OPERATIONS_LOG_CIRCUIT_BREAKER_OVERHEAD_SETTING,
                 DEFAULT_LOG_CIRCUIT_BREAKER_OVERHEAD_CONSTANT);
+
+            // Query result cache breaker settings
+            registerBreakerSettings(QUERY_RESULT_CACHE,
+                settings,
+                QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING,
+                DEFAULT_QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT,
+                QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING,
+                DEFAULT_QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_CONSTANT);
         }
 
         private void registerBreakerSettings(String name,
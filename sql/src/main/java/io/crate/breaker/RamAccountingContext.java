@@ -40,6 +40,8 @@ public class RamAccountingContext {
 
     private final AtomicLong totalBytes = new AtomicLong(0);
     private final AtomicLong flushBuffer = new AtomicLong(0);
+    private final AtomicLong spilledRuns = new AtomicLong(0);
+    private final AtomicLong spilledBytes = new AtomicLong(0);
     private volatile boolean closed = false;
     private volatile boolean tripped = false;
 
@@ -89,6 +91,48 @@ public class RamAccountingContext {
         }
     }
 
+    /**
+     * Release bytes which have been added before, e.g. because the data they account for has been spilled to disk.
+     * Bytes that have already been flushed to the breaker are returned to it.
+     *
+     * @param bytes bytes to be released
+     */
+    public void releaseBytes(long bytes) {
+        if (closed || bytes == 0) {
+            return;
+        }
+        long currentFlushBuffer = flushBuffer.addAndGet(-bytes);
+        if (currentFlushBuffer < 0) {
+            flushBuffer.addAndGet(-currentFlushBuffer);
+            totalBytes.addAndGet(currentFlushBuffer);
+            breaker.addWithoutBreaking(currentFlushBuffer);
+        }
+    }
+
+    /**
+     * Record that data of this context has been written to disk instead of being kept in memory.
+     *
+     * @param bytes number of bytes written to disk
+     */
+    public void addSpilledRun(long bytes) {
+        spilledRuns.incrementAndGet();
+        spilledBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Returns the number of times data has been spilled to disk
+     */
+    public long spilledRuns() {
+        return spilledRuns.get();
+    }
+
+    /**
+     * Returns the number of bytes that have been spilled to disk
+     */
+    public long spilledBytes() {
+        return spilledBytes.get();
+    }
+
     /**
      * Flush the {@code bytes} to the breaker, incrementing the total
      * bytes and adjusting the buffer.
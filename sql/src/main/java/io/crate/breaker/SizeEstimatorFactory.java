@@ -26,10 +26,21 @@ import io.crate.types.FixedWidthType;
 import io.crate.types.IpType;
 import io.crate.types.StringType;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
 
 public class SizeEstimatorFactory {
 
+    /**
+     * Rough estimate for objects, arrays and other types without an exact estimator
+     */
+    private static final SizeEstimator<Object> VARIABLE_SIZE_ESTIMATOR = new SizeEstimator<Object>() {
+        @Override
+        public long estimateSize(@Nullable Object value) {
+            return value == null ? 8L : 64L;
+        }
+    };
+
     @SuppressWarnings("unchecked")
     public static <T> SizeEstimator<T> create(DataType type) {
         switch (type.id()) {
@@ -43,4 +54,21 @@ public class SizeEstimatorFactory {
                 throw new UnsupportedOperationException(String.format(Locale.ENGLISH, "Cannot get SizeEstimator for type %s", type));
         }
     }
+
+    /**
+     * Like {@link #create(DataType)} but falls back to a rough estimate for types without an exact estimator
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SizeEstimator<T> createOrEstimate(DataType type) {
+        switch (type.id()) {
+            case StringType.ID:
+            case IpType.ID:
+                return create(type);
+            default:
+                if (type instanceof FixedWidthType) {
+                    return create(type);
+                }
+                return (SizeEstimator<T>) VARIABLE_SIZE_ESTIMATOR;
+        }
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.statistics.ColumnStatsSketch;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ColumnStatsResponse extends TransportResponse {
+
+    private Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> sketches;
+
+    public ColumnStatsResponse() {
+    }
+
+    public ColumnStatsResponse(Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> sketches) {
+        this.sketches = sketches;
+    }
+
+    public Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> sketches() {
+        return sketches;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int numTables = in.readVInt();
+        sketches = new HashMap<>(numTables);
+        for (int i = 0; i < numTables; i++) {
+            TableIdent tableIdent = TableIdent.fromStream(in);
+            int numColumns = in.readVInt();
+            Map<ColumnIdent, ColumnStatsSketch> columnSketches = new HashMap<>(numColumns);
+            for (int j = 0; j < numColumns; j++) {
+                ColumnIdent column = ColumnIdent.fromStream(in);
+                ColumnStatsSketch sketch = new ColumnStatsSketch();
+                sketch.readFrom(in);
+                columnSketches.put(column, sketch);
+            }
+            sketches.put(tableIdent, columnSketches);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(sketches.size());
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> tableEntry : sketches.entrySet()) {
+            tableEntry.getKey().writeTo(out);
+            out.writeVInt(tableEntry.getValue().size());
+            for (Map.Entry<ColumnIdent, ColumnStatsSketch> columnEntry : tableEntry.getValue().entrySet()) {
+                columnEntry.getKey().writeTo(out);
+                columnEntry.getValue().writeTo(out);
+            }
+        }
+    }
+}
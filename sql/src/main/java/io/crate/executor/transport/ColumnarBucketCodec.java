@@ -0,0 +1,378 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
+import io.crate.types.LongType;
+import io.crate.types.StringType;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Column oriented encoding for the rows of a {@link StreamBucket}.
+ * <p>
+ * Instead of writing the rows cell by cell, all values of a column are written as one block:
+ * <ul>
+ *     <li>long and timestamp columns: a null bitmap followed by the zig-zag/varint encoded deltas of the values</li>
+ *     <li>string columns: a dictionary of the distinct values followed by the (varint) ordinal of each row,
+ *     0 is used for null</li>
+ *     <li>other columns: the values written with the {@link Streamer} of the column</li>
+ * </ul>
+ * Blocks larger than {@link #COMPRESSION_THRESHOLD} are LZ4 compressed.
+ * <p>
+ * The encoded rows form a segment which is prefixed with its number of rows. The encoding of a bucket may consist of
+ * several segments, this allows to concatenate encoded buckets without decoding them.
+ * <p>
+ * Nodes which are able to read this encoding announce it with the {@link #NODE_ATTRIBUTE} node attribute.
+ */
+public final class ColumnarBucketCodec {
+
+    public static final String NODE_ATTRIBUTE = "columnar_buckets";
+
+    static final int COMPRESSION_THRESHOLD = 4 * 1024;
+
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte LZ4 = 1;
+
+    private static final byte GENERIC = 0;
+    private static final byte LONG_DELTA = 1;
+    private static final byte DICTIONARY = 2;
+
+    private ColumnarBucketCodec() {
+    }
+
+    public static boolean isSupportedBy(@Nullable DiscoveryNode node) {
+        return node != null && Booleans.parseBoolean(node.attributes().get(NODE_ATTRIBUTE), false);
+    }
+
+    static class Encoder {
+
+        private final ColumnEncoder[] columns;
+        private int numRows = 0;
+
+        Encoder(Streamer<?>[] streamers) {
+            columns = new ColumnEncoder[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                columns[i] = newColumnEncoder(streamers[i]);
+            }
+        }
+
+        void add(Row row) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(row.get(i));
+            }
+            numRows++;
+        }
+
+        void add(RowBatch batch, int pos) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(batch.column(i)[pos]);
+            }
+            numRows++;
+        }
+
+        BytesReference encode() throws IOException {
+            BytesStreamOutput raw = new BytesStreamOutput();
+            for (ColumnEncoder column : columns) {
+                column.writeTo(raw);
+            }
+            BytesStreamOutput out = new BytesStreamOutput(raw.size() + 6);
+            out.writeVInt(numRows);
+            if (raw.size() >= COMPRESSION_THRESHOLD) {
+                BytesRef uncompressed = raw.bytes().toBytesRef();
+                // worst case of LZ4 for incompressible input
+                byte[] compressed = new byte[uncompressed.length + uncompressed.length / 255 + 32];
+                ByteArrayDataOutput compressedOut = new ByteArrayDataOutput(compressed);
+                CompressionMode.FAST.newCompressor().compress(
+                    uncompressed.bytes, uncompressed.offset, uncompressed.length, compressedOut);
+                if (compressedOut.getPosition() < uncompressed.length) {
+                    out.writeByte(LZ4);
+                    out.writeVInt(uncompressed.length);
+                    out.writeVInt(compressedOut.getPosition());
+                    out.writeBytes(compressed, 0, compressedOut.getPosition());
+                    return out.bytes();
+                }
+            }
+            out.writeByte(UNCOMPRESSED);
+            raw.bytes().writeTo(out);
+            return out.bytes();
+        }
+    }
+
+    /**
+     * @return the values of the encoded bucket, one array per column
+     */
+    static Object[][] decode(BytesReference bytes, Streamer<?>[] streamers, int size) throws IOException {
+        Object[][] columns = new Object[streamers.length][size];
+        StreamInput in = bytes.streamInput();
+        int offset = 0;
+        while (offset < size) {
+            int numRows = in.readVInt();
+            decodeSegment(in, streamers, columns, offset, numRows);
+            offset += numRows;
+        }
+        return columns;
+    }
+
+    private static void decodeSegment(StreamInput in,
+                                      Streamer<?>[] streamers,
+                                      Object[][] columns,
+                                      int offset,
+                                      int numRows) throws IOException {
+        StreamInput segmentIn = in;
+        if (in.readByte() == LZ4) {
+            int uncompressedLength = in.readVInt();
+            BytesRef compressed = in.readBytesRef(in.readVInt());
+            BytesRef uncompressed = new BytesRef();
+            CompressionMode.FAST.newDecompressor().decompress(
+                new ByteArrayDataInput(compressed.bytes, compressed.offset, compressed.length),
+                uncompressedLength,
+                0,
+                uncompressedLength,
+                uncompressed);
+            segmentIn = new BytesArray(uncompressed).streamInput();
+        }
+        for (int i = 0; i < streamers.length; i++) {
+            decodeColumn(segmentIn, streamers[i], columns[i], offset, numRows);
+        }
+    }
+
+    private static void decodeColumn(StreamInput in,
+                                     Streamer<?> streamer,
+                                     Object[] values,
+                                     int offset,
+                                     int numRows) throws IOException {
+        int end = offset + numRows;
+        byte encoding = in.readByte();
+        switch (encoding) {
+            case GENERIC:
+                for (int i = offset; i < end; i++) {
+                    values[i] = streamer.readValueFrom(in);
+                }
+                break;
+
+            case LONG_DELTA:
+                BitSet nulls = in.readBoolean() ? BitSet.valueOf(readLongs(in)) : new BitSet(0);
+                long value = 0;
+                for (int i = offset; i < end; i++) {
+                    if (!nulls.get(i - offset)) {
+                        value += readZigZagVLong(in);
+                        values[i] = value;
+                    }
+                }
+                break;
+
+            case DICTIONARY:
+                BytesRef[] dictionary = new BytesRef[in.readVInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = in.readBytesRef();
+                }
+                for (int i = offset; i < end; i++) {
+                    int ordinal = in.readVInt();
+                    values[i] = ordinal == 0 ? null : dictionary[ordinal - 1];
+                }
+                break;
+
+            default:
+                throw new IllegalStateException("Invalid column encoding: " + encoding);
+        }
+    }
+
+    private static ColumnEncoder newColumnEncoder(Streamer<?> streamer) {
+        if (streamer instanceof LongType) {
+            return new LongDeltaColumn();
+        }
+        if (streamer instanceof StringType) {
+            return new DictionaryColumn(streamer);
+        }
+        return new GenericColumn(streamer);
+    }
+
+    private interface ColumnEncoder {
+
+        void add(@Nullable Object value) throws IOException;
+
+        void writeTo(StreamOutput out) throws IOException;
+    }
+
+    private static class GenericColumn implements ColumnEncoder {
+
+        private final Streamer<?> streamer;
+        private final BytesStreamOutput values = new BytesStreamOutput();
+
+        GenericColumn(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        public void add(@Nullable Object value) throws IOException {
+            streamer.writeValueTo(values, value);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeByte(GENERIC);
+            values.bytes().writeTo(out);
+        }
+    }
+
+    private static class LongDeltaColumn implements ColumnEncoder {
+
+        private final BitSet nulls = new BitSet();
+        private long[] values = new long[16];
+        private int numRows = 0;
+        private int numValues = 0;
+
+        @Override
+        public void add(@Nullable Object value) throws IOException {
+            if (value == null) {
+                nulls.set(numRows);
+            } else {
+                values = ArrayUtil.grow(values, numValues + 1);
+                values[numValues++] = ((Number) value).longValue();
+            }
+            numRows++;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeByte(LONG_DELTA);
+            boolean hasNulls = !nulls.isEmpty();
+            out.writeBoolean(hasNulls);
+            if (hasNulls) {
+                long[] words = nulls.toLongArray();
+                out.writeVInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+            long previous = 0;
+            for (int i = 0; i < numValues; i++) {
+                writeZigZagVLong(out, values[i] - previous);
+                previous = values[i];
+            }
+        }
+    }
+
+    private static class DictionaryColumn implements ColumnEncoder {
+
+        private final Streamer<?> streamer;
+        private final ObjectIntHashMap<BytesRef> ordinals = new ObjectIntHashMap<>();
+        private final List<BytesRef> dictionary = new ArrayList<>();
+        private int[] rowOrdinals = new int[16];
+        private int numRows = 0;
+
+        DictionaryColumn(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        public void add(@Nullable Object value) throws IOException {
+            int ordinal = 0;
+            if (value != null) {
+                BytesRef bytesRef = value instanceof BytesRef ? (BytesRef) value : new BytesRef(value.toString());
+                ordinal = ordinals.get(bytesRef);
+                if (ordinal == 0) {
+                    // the BytesRef might be re-used by the upstream
+                    BytesRef copy = BytesRef.deepCopyOf(bytesRef);
+                    dictionary.add(copy);
+                    ordinal = dictionary.size();
+                    ordinals.put(copy, ordinal);
+                }
+            }
+            rowOrdinals = ArrayUtil.grow(rowOrdinals, numRows + 1);
+            rowOrdinals[numRows++] = ordinal;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            if (dictionary.size() > numRows / 2) {
+                // mostly distinct values, the ordinals would only add overhead
+                out.writeByte(GENERIC);
+                for (int i = 0; i < numRows; i++) {
+                    int ordinal = rowOrdinals[i];
+                    streamer.writeValueTo(out, ordinal == 0 ? null : dictionary.get(ordinal - 1));
+                }
+                return;
+            }
+            out.writeByte(DICTIONARY);
+            out.writeVInt(dictionary.size());
+            for (BytesRef value : dictionary) {
+                out.writeBytesRef(value);
+            }
+            for (int i = 0; i < numRows; i++) {
+                out.writeVInt(rowOrdinals[i]);
+            }
+        }
+    }
+
+    private static long[] readLongs(StreamInput in) throws IOException {
+        long[] longs = new long[in.readVInt()];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = in.readLong();
+        }
+        return longs;
+    }
+
+    /**
+     * StreamOutput#writeVLong only supports positive values, deltas can be negative.
+     */
+    private static void writeZigZagVLong(StreamOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0L) {
+            out.writeByte((byte) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((byte) zigZag);
+    }
+
+    private static long readZigZagVLong(StreamInput in) throws IOException {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
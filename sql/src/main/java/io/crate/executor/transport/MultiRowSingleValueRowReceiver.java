@@ -0,0 +1,60 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.analyze.symbol.SelectSymbol;
+import io.crate.core.collections.Row;
+import io.crate.planner.Plan;
+import org.apache.lucene.util.BytesRef;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * RowReceiver which collects the distinct values of the first column of all rows into a set.
+ * Used for sub-selects of type {@link SelectSymbol.ResultType#SINGLE_COLUMN_MULTIPLE_VALUES}.
+ */
+class MultiRowSingleValueRowReceiver extends SubSelectRowReceiver {
+
+    private final Set<Object> values = new HashSet<>();
+
+    MultiRowSingleValueRowReceiver(Plan rootPlan, SelectSymbol selectSymbolToReplace) {
+        super(rootPlan, selectSymbolToReplace);
+    }
+
+    @Override
+    public Result setNextRow(Row row) {
+        Object value = row.get(0);
+        if (value instanceof BytesRef) {
+            // the upstream may re-use the underlying bytes
+            value = BytesRef.deepCopyOf((BytesRef) value);
+        }
+        values.add(value);
+        return Result.CONTINUE;
+    }
+
+    @Override
+    protected Object value() {
+        return values;
+    }
+}
@@ -42,8 +42,23 @@ public class NodeFetchResponse extends TransportResponse {
     @Nullable
     private IntObjectMap<StreamBucket> fetched;
 
+    /**
+     * Only relevant for the sender, decides if the buckets can be sent using the columnar encoding
+     */
+    private boolean columnarSupported = false;
+
     public static NodeFetchResponse forSending(IntObjectMap<StreamBucket> fetched) {
-        return new NodeFetchResponse(null, fetched);
+        return forSending(fetched, false);
+    }
+
+    /**
+     * @param columnarSupported whether the receiver is able to read buckets encoded using the
+     *                          {@link ColumnarBucketCodec}
+     */
+    public static NodeFetchResponse forSending(IntObjectMap<StreamBucket> fetched, boolean columnarSupported) {
+        NodeFetchResponse response = new NodeFetchResponse(null, fetched);
+        response.columnarSupported = columnarSupported;
+        return response;
     }
 
     public static NodeFetchResponse forReceiveing(@Nullable IntObjectMap<Streamer[]> streamers) {
@@ -86,7 +101,7 @@ public class NodeFetchResponse extends TransportResponse {
             out.writeVInt(fetched.size());
             for (IntObjectCursor<StreamBucket> cursor : fetched) {
                 out.writeVInt(cursor.key);
-                cursor.value.writeTo(out);
+                cursor.value.writeTo(out, columnarSupported);
             }
         }
     }
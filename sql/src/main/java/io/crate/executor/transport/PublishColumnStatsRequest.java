@@ -0,0 +1,83 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.planner.statistics.ColumnStats;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request to replace the column statistics of a node with the ones gathered by ANALYZE.
+ */
+public class PublishColumnStatsRequest extends TransportRequest {
+
+    private Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats;
+
+    public PublishColumnStatsRequest() {
+    }
+
+    public PublishColumnStatsRequest(Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats) {
+        this.columnStats = columnStats;
+    }
+
+    public Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats() {
+        return columnStats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int numTables = in.readVInt();
+        columnStats = new HashMap<>(numTables);
+        for (int i = 0; i < numTables; i++) {
+            TableIdent tableIdent = TableIdent.fromStream(in);
+            int numColumns = in.readVInt();
+            Map<ColumnIdent, ColumnStats> columns = new HashMap<>(numColumns);
+            for (int j = 0; j < numColumns; j++) {
+                ColumnStats stats = ColumnStats.fromStream(in);
+                columns.put(stats.column(), stats);
+            }
+            columnStats.put(tableIdent, columns);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(columnStats.size());
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStats>> tableEntry : columnStats.entrySet()) {
+            tableEntry.getKey().writeTo(out);
+            out.writeVInt(tableEntry.getValue().size());
+            for (ColumnStats stats : tableEntry.getValue().values()) {
+                stats.writeTo(out);
+            }
+        }
+    }
+}
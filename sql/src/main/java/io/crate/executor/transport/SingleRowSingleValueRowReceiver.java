@@ -24,24 +24,18 @@ package io.crate.executor.transport;
 
 import io.crate.analyze.symbol.SelectSymbol;
 import io.crate.core.collections.Row;
-import io.crate.operation.projectors.*;
 import io.crate.planner.Plan;
 
-import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-
 /**
  * RowReceiver expects to receive only one row and triggers a future with the value once completed
  */
-class SingleRowSingleValueRowReceiver implements RowReceiver {
+class SingleRowSingleValueRowReceiver extends SubSelectRowReceiver {
 
-    private final CompletableFuture<Object> completionFuture = new CompletableFuture<>();
     private final static Object SENTINEL = new Object();
-    private final SubSelectSymbolReplacer replacer;
     private Object value = SENTINEL;
 
     SingleRowSingleValueRowReceiver(Plan rootPlan, SelectSymbol selectSymbolToReplace) {
-        replacer = new SubSelectSymbolReplacer(rootPlan, selectSymbolToReplace);
+        super(rootPlan, selectSymbolToReplace);
     }
 
     @Override
@@ -55,37 +49,7 @@ class SingleRowSingleValueRowReceiver implements RowReceiver {
     }
 
     @Override
-    public void pauseProcessed(ResumeHandle resumeable) {
-    }
-
-    @Override
-    public void finish(RepeatHandle repeatable) {
-        try {
-            Object value = this.value == SENTINEL ? null : this.value;
-            replacer.onSuccess(value);
-        } catch (Throwable e) {
-            completionFuture.completeExceptionally(e);
-            return;
-        }
-        completionFuture.complete(value);
-    }
-
-    @Override
-    public void fail(Throwable throwable) {
-        completionFuture.completeExceptionally(throwable);
-    }
-
-    @Override
-    public void kill(Throwable throwable) {
-        completionFuture.completeExceptionally(throwable);
-    }
-
-    @Override
-    public Set<Requirement> requirements() {
-        return Requirements.NO_REQUIREMENTS;
-    }
-
-    public CompletableFuture<?> completionFuture() {
-        return completionFuture;
+    protected Object value() {
+        return value == SENTINEL ? null : value;
     }
 }
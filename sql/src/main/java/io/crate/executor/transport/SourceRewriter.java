@@ -0,0 +1,226 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.*;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Applies changes to the _source of a document without parsing it into a map.
+ * <p>
+ * The source is streamed from a parser into a builder of the same content type. Sub-trees which
+ * aren't affected by the changes are copied token by token, only the changed paths are rewritten.
+ * While doing so the old values of the changed paths are compared with the new ones
+ * to detect updates which don't modify the document.
+ * <p>
+ * The changes are applied with the same semantics as
+ * {@link TransportShardUpsertAction#updateSourceByPaths(Map, Map)}.
+ */
+final class SourceRewriter {
+
+    private final PathNode root;
+
+    private SourceRewriter(PathNode root) {
+        this.root = root;
+    }
+
+    /**
+     * @param changes the new values by path, the elements of a path are separated by dots.
+     * @return the rewriter or null if the changes contain a path and one of its parents
+     * as their result depends on the order in which they're applied.
+     */
+    @Nullable
+    static SourceRewriter forChanges(Map<String, Object> changes) {
+        PathNode root = new PathNode(null, null);
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            String[] elements = Strings.splitStringToArray(entry.getKey(), '.');
+            PathNode node = root;
+            for (int i = 0; i < elements.length - 1; i++) {
+                Object child = node.children.get(elements[i]);
+                if (child == null) {
+                    child = new PathNode(entry.getKey().substring(offset(elements, i + 1)), entry.getValue());
+                    node.children.put(elements[i], child);
+                } else if (!(child instanceof PathNode)) {
+                    return null;
+                }
+                node = (PathNode) child;
+            }
+            String leaf = elements[elements.length - 1];
+            if (node.children.containsKey(leaf)) {
+                return null;
+            }
+            node.children.put(leaf, new Value(entry.getValue()));
+        }
+        return new SourceRewriter(root);
+    }
+
+    /**
+     * @return the offset of the element at idx within the path
+     */
+    private static int offset(String[] elements, int idx) {
+        int offset = 0;
+        for (int i = 0; i < idx; i++) {
+            offset += elements[i].length() + 1;
+        }
+        return offset;
+    }
+
+    /**
+     * @return the updated source or null if the changes don't modify the source
+     */
+    @Nullable
+    BytesReference rewrite(BytesReference source) throws IOException {
+        XContentType contentType = XContentFactory.xContentType(source);
+        try (XContentParser parser = XContentHelper.createParser(source)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new IllegalArgumentException("The source of a document must be an object");
+            }
+            XContentBuilder builder = XContentFactory.contentBuilder(contentType);
+            boolean modified = rewriteObject(parser, builder, root, contentType);
+            return modified ? builder.bytes() : null;
+        }
+    }
+
+    /**
+     * Copies the object the parser is positioned at to the builder and applies the changes of the node.
+     *
+     * @return true if the object has been modified
+     */
+    private static boolean rewriteObject(XContentParser parser,
+                                         XContentBuilder builder,
+                                         PathNode node,
+                                         XContentType contentType) throws IOException {
+        builder.startObject();
+        Set<String> pending = new HashSet<>(node.children.keySet());
+        boolean modified = false;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String name = parser.currentName();
+            Object child = node.children.get(name);
+            if (child == null) {
+                builder.copyCurrentStructure(parser);
+                continue;
+            }
+            pending.remove(name);
+            token = parser.nextToken();
+            if (child instanceof Value) {
+                Object value = ((Value) child).value;
+                modified |= !isSameValue(parser, value, contentType);
+                builder.field(name, value);
+            } else {
+                PathNode childNode = (PathNode) child;
+                if (token == XContentParser.Token.VALUE_NULL) {
+                    throw new NullPointerException(String.format(Locale.ENGLISH,
+                        "Object %s is null, cannot write %s onto it", name,
+                        Collections.singletonMap(childNode.firstPath, childNode.firstValue)));
+                }
+                if (token != XContentParser.Token.START_OBJECT) {
+                    throw new ClassCastException(String.format(Locale.ENGLISH,
+                        "Object %s is no object, cannot write %s onto it", name,
+                        Collections.singletonMap(childNode.firstPath, childNode.firstValue)));
+                }
+                builder.field(name);
+                modified |= rewriteObject(parser, builder, childNode, contentType);
+            }
+        }
+        assert token == XContentParser.Token.END_OBJECT : "expected END_OBJECT but got " + token;
+
+        // paths which don't exist yet are added at the end
+        for (Map.Entry<String, Object> entry : node.children.entrySet()) {
+            if (pending.contains(entry.getKey())) {
+                builder.field(entry.getKey());
+                writeNew(builder, entry.getValue());
+                modified = true;
+            }
+        }
+        builder.endObject();
+        return modified;
+    }
+
+    private static void writeNew(XContentBuilder builder, Object child) throws IOException {
+        if (child instanceof Value) {
+            builder.value(((Value) child).value);
+        } else {
+            builder.startObject();
+            for (Map.Entry<String, Object> entry : ((PathNode) child).children.entrySet()) {
+                builder.field(entry.getKey());
+                writeNew(builder, entry.getValue());
+            }
+            builder.endObject();
+        }
+    }
+
+    /**
+     * Compares the serialized form of the value the parser is positioned at with the serialized new value.
+     * This is stricter than comparing the values (e.g. the order of keys of an object matters)
+     * but is never true if the update would modify the source.
+     * The parser is positioned at the end of the old value afterwards.
+     */
+    private static boolean isSameValue(XContentParser parser,
+                                       @Nullable Object newValue,
+                                       XContentType contentType) throws IOException {
+        if (newValue == null) {
+            boolean isNull = parser.currentToken() == XContentParser.Token.VALUE_NULL;
+            parser.skipChildren();
+            return isNull;
+        }
+        XContentBuilder oldValue = XContentFactory.contentBuilder(contentType);
+        oldValue.copyCurrentStructure(parser);
+        XContentBuilder serializedNewValue = XContentFactory.contentBuilder(contentType);
+        serializedNewValue.value(newValue);
+        return oldValue.bytes().equals(serializedNewValue.bytes());
+    }
+
+    private static final class Value {
+
+        @Nullable
+        private final Object value;
+
+        Value(@Nullable Object value) {
+            this.value = value;
+        }
+    }
+
+    private static final class PathNode {
+
+        /**
+         * Either a {@link Value} or a {@link PathNode} by element name
+         */
+        private final Map<String, Object> children = new LinkedHashMap<>();
+
+        /**
+         * The remaining path and value of the first change below this node, used for error messages
+         */
+        private final String firstPath;
+        private final Object firstValue;
+
+        PathNode(@Nullable String firstPath, @Nullable Object firstValue) {
+            this.firstPath = firstPath;
+            this.firstValue = firstValue;
+        }
+    }
+}
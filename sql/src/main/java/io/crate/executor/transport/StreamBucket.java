@@ -28,6 +28,7 @@ import com.google.common.collect.Iterables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.core.collections.RowN;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -39,12 +40,22 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 public class StreamBucket implements Bucket, Streamable {
 
+    /**
+     * Written in front of the size if the bucket is encoded using the {@link ColumnarBucketCodec}.
+     */
+    private static final int COLUMNAR_MARKER = -1;
+
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
+    private boolean columnar = false;
+
+    @Nullable
+    private Object[][] columns;
 
     public static class Builder {
 
@@ -52,39 +63,107 @@ public class StreamBucket implements Bucket, Streamable {
         private static final int INITIAL_PAGE_SIZE = 1024;
         private int size = 0;
         private final Streamer<?>[] streamers;
+        private final boolean columnar;
         private BytesStreamOutput out;
+        private ColumnarBucketCodec.Encoder encoder;
 
         public Builder(Streamer<?>[] streamers) {
+            this(streamers, false);
+        }
+
+        /**
+         * @param columnar if true the rows are encoded using the {@link ColumnarBucketCodec}.
+         *                 Such a bucket must be written using {@link StreamBucket#writeTo(StreamOutput, boolean)} if the
+         *                 receiver might not support the columnar encoding.
+         */
+        public Builder(Streamer<?>[] streamers, boolean columnar) {
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
-            out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            this.columnar = columnar;
+            if (columnar) {
+                encoder = new ColumnarBucketCodec.Encoder(streamers);
+            } else {
+                out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            }
         }
 
         public void add(Row row) throws IOException {
             assert streamers.length == row.size() : "number of streamer must match row size";
 
             size++;
+            if (columnar) {
+                encoder.add(row);
+                return;
+            }
             for (int i = 0; i < row.size(); i++) {
                 streamers[i].writeValueTo(out, row.get(i));
             }
         }
 
+        /**
+         * Adds the row at the given position of the batch
+         */
+        public void add(RowBatch batch, int pos) throws IOException {
+            assert streamers.length == batch.numColumns() : "number of streamer must match number of columns";
+
+            size++;
+            if (columnar) {
+                encoder.add(batch, pos);
+                return;
+            }
+            for (int i = 0; i < streamers.length; i++) {
+                streamers[i].writeValueTo(out, batch.column(i)[pos]);
+            }
+        }
+
+        /**
+         * Adds all selected rows of the batch
+         */
+        public void add(RowBatch batch) throws IOException {
+            int[] selection = batch.selection();
+            int numSelected = batch.numSelected();
+            for (int i = 0; i < numSelected; i++) {
+                add(batch, selection[i]);
+            }
+        }
+
         public void writeToStream(StreamOutput output) throws IOException {
+            if (columnar) {
+                build().writeTo(output);
+                return;
+            }
             output.writeVInt(size);
             if (size > 0) {
                 output.writeBytesReference(out.bytes());
             }
         }
 
+        /**
+         * The number of bytes written so far. Only available if the rows are not columnar encoded.
+         */
+        public long sizeInBytes() {
+            assert !columnar : "sizeInBytes is not available for columnar encoded buckets";
+            return out.size();
+        }
+
         public StreamBucket build() throws IOException {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
-            sb.bytes = out.bytes();
+            if (columnar) {
+                sb.columnar = true;
+                sb.bytes = encoder.encode();
+            } else {
+                sb.bytes = out.bytes();
+            }
             return sb;
         }
 
         public void reset() {
-            out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            if (columnar) {
+                encoder = new ColumnarBucketCodec.Encoder(streamers);
+            } else {
+                out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            }
             size = 0;
         }
     }
@@ -99,6 +178,13 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * The size of the encoded rows in bytes
+     */
+    public long sizeInBytes() {
+        return bytes == null ? 0 : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -112,8 +198,21 @@ public class StreamBucket implements Bucket, Streamable {
     }
 
     public static void writeBucket(StreamOutput out, @Nullable Streamer<?>[] streamers, @Nullable Bucket bucket) throws IOException {
+        writeBucket(out, streamers, bucket, false);
+    }
+
+    /**
+     * @param columnarSupported whether the receiver is able to read buckets encoded using the
+     *                          {@link ColumnarBucketCodec}
+     */
+    public static void writeBucket(StreamOutput out,
+                                   @Nullable Streamer<?>[] streamers,
+                                   @Nullable Bucket bucket,
+                                   boolean columnarSupported) throws IOException {
         if (bucket == null || bucket.size() == 0) {
             out.writeVInt(0);
+        } else if (bucket instanceof StreamBucket) {
+            ((StreamBucket) bucket).writeTo(out, columnarSupported);
         } else if (bucket instanceof Streamable) {
             ((Streamable) bucket).writeTo(out);
         } else {
@@ -126,6 +225,29 @@ public class StreamBucket implements Bucket, Streamable {
         }
     }
 
+    /**
+     * Concatenates buckets which have been built using the same streamers and encoding without decoding their rows.
+     */
+    public static StreamBucket concat(Streamer<?>[] streamers, List<StreamBucket> buckets) throws IOException {
+        if (buckets.size() == 1) {
+            return buckets.get(0);
+        }
+        StreamBucket result = new StreamBucket(streamers);
+        result.size = 0;
+        BytesStreamOutput out = new BytesStreamOutput();
+        for (StreamBucket bucket : buckets) {
+            if (bucket.size < 1) {
+                continue;
+            }
+            assert result.size == 0 || result.columnar == bucket.columnar : "buckets must use the same encoding";
+            result.columnar = bucket.columnar;
+            result.size += bucket.size;
+            bucket.bytes.writeTo(out);
+        }
+        result.bytes = out.bytes();
+        return result;
+    }
+
     private class RowIterator implements Iterator<Row> {
 
         private final StreamInput input = bytes.streamInput();
@@ -157,18 +279,63 @@ public class StreamBucket implements Bucket, Streamable {
         }
     }
 
+    private class ColumnarRowIterator implements Iterator<Row> {
+
+        private final Object[][] columns;
+        private int pos = 0;
+        private final Object[] current = new Object[streamers.length];
+        private final Row row = new RowN(current);
+
+        ColumnarRowIterator(Object[][] columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            for (int c = 0; c < columns.length; c++) {
+                current[c] = columns[c][pos];
+            }
+            pos++;
+            return row;
+        }
+
+        @Override
+        public void remove() {
+
+        }
+    }
+
     @Override
     public Iterator<Row> iterator() {
         if (size < 1) {
             return Collections.emptyIterator();
         }
         assert streamers != null : "streamers must not be null";
+        if (columnar) {
+            if (columns == null) {
+                try {
+                    columns = ColumnarBucketCodec.decode(bytes, streamers, size);
+                } catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+            }
+            return new ColumnarRowIterator(columns);
+        }
         return new RowIterator();
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         size = in.readVInt();
+        columnar = size == COLUMNAR_MARKER;
+        if (columnar) {
+            size = in.readVInt();
+        }
         if (size > 0) {
             bytes = in.readBytesReference();
         }
@@ -177,9 +344,28 @@ public class StreamBucket implements Bucket, Streamable {
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         assert size > -1 : "size must be > -1";
+        if (columnar && size > 0) {
+            out.writeVInt(COLUMNAR_MARKER);
+        }
         out.writeVInt(size);
         if (size > 0) {
             out.writeBytesReference(bytes);
         }
     }
+
+    /**
+     * Like {@link #writeTo(StreamOutput)} but falls back to the row based encoding if the bucket is
+     * columnar encoded and the receiver doesn't support it.
+     */
+    public void writeTo(StreamOutput out, boolean columnarSupported) throws IOException {
+        if (columnar && !columnarSupported && size > 0) {
+            Builder builder = new Builder(streamers);
+            for (Row row : this) {
+                builder.add(row);
+            }
+            builder.writeToStream(out);
+        } else {
+            writeTo(out);
+        }
+    }
 }
@@ -37,9 +37,13 @@ import io.crate.planner.Plan;
 import io.crate.planner.PlanVisitor;
 import io.crate.planner.node.dql.*;
 import io.crate.planner.node.dql.join.NestedLoop;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.SetType;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Set;
 
 /**
  * Replaces all symbols in the querySpec that match the given selectSymbol once the futureCallback
@@ -51,6 +55,8 @@ class SubSelectSymbolReplacer implements FutureCallback<Object> {
     private final SelectSymbol selectSymbolToReplace;
     private static final PlanSymbolVisitor PLAN_SYMBOL_VISITOR = new PlanSymbolVisitor();
 
+    static final int MAX_INLINED_VALUES = 1024;
+
     SubSelectSymbolReplacer(Plan plan, SelectSymbol selectSymbolToReplace) {
         this.plan = plan;
         this.selectSymbolToReplace = selectSymbolToReplace;
@@ -68,6 +74,25 @@ class SubSelectSymbolReplacer implements FutureCallback<Object> {
     public void onFailure(@Nonnull Throwable t) {
     }
 
+    /**
+     * Creates the literal which replaces the selectSymbol.
+     * <p>
+     * Multi-value results with up to {@link #MAX_INLINED_VALUES} values are inlined as array literal, the same way
+     * as {@code x IN (1, 2, 3)} is. Larger results are kept as set literal: the set is streamed to the collect nodes
+     * as is, {@code = ANY} uses hash lookups on it and the {@link io.crate.lucene.LuceneQueryBuilder} builds the
+     * terms query only once per node (semi-join).
+     */
+    static Literal toLiteral(SelectSymbol selectSymbol, @Nullable Object value) {
+        if (selectSymbol.resultType() == SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES) {
+            Set<?> values = (Set<?>) value;
+            if (values.size() <= MAX_INLINED_VALUES) {
+                DataType innerType = ((SetType) selectSymbol.valueType()).innerType();
+                return Literal.of(new ArrayType(innerType), values.toArray());
+            }
+        }
+        return Literal.of(selectSymbol.valueType(), value);
+    }
+
     private static class PlanSymbolVisitor extends PlanVisitor<SymbolReplacer, Void> {
 
         private void process(@Nullable MergePhase mergePhase, SymbolReplacer replacer) {
@@ -147,7 +172,7 @@ class SubSelectSymbolReplacer implements FutureCallback<Object> {
         @Override
         public Symbol visitSelectSymbol(SelectSymbol selectSymbol, Void context) {
             if (selectSymbol == selectSymbolToReplace) {
-                return Literal.of(selectSymbolToReplace.valueType(), value);
+                return toLiteral(selectSymbolToReplace, value);
             }
             return selectSymbol;
         }
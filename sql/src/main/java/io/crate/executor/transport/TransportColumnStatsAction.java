@@ -0,0 +1,262 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.executor.transport;
+
+import com.google.common.base.Function;
+import io.crate.executor.MultiActionListener;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.TableInfo;
+import io.crate.planner.TableStatsService;
+import io.crate.planner.statistics.ColumnStats;
+import io.crate.planner.statistics.ColumnStatsSketch;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Provider;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportRequestHandler;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link ColumnStatsSketch}es of the columns of all doc tables by reading the terms dictionary of the
+ * primary shards located on a node.
+ * <p>
+ * {@link #broadcast(ActionListener)} sends the request to all nodes and merges the sketches of all nodes.
+ * {@link #publish(Map, ActionListener)} distributes the resulting statistics to all nodes.
+ */
+@Singleton
+public class TransportColumnStatsAction extends AbstractComponent
+    implements NodeAction<ColumnStatsRequest, ColumnStatsResponse> {
+
+    private static final String ACTION_NAME = "crate/sql/column_stats";
+    private static final String PUBLISH_ACTION_NAME = "crate/sql/column_stats/publish";
+    private static final String EXECUTOR = ThreadPool.Names.MANAGEMENT;
+
+    private static final Function<List<ColumnStatsResponse>, Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>>>
+        MERGE_FUNCTION = new Function<List<ColumnStatsResponse>, Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>>>() {
+
+        @Nullable
+        @Override
+        public Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> apply(@Nullable List<ColumnStatsResponse> input) {
+            Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> merged = new HashMap<>();
+            if (input != null) {
+                for (ColumnStatsResponse response : input) {
+                    mergeInto(merged, response.sketches());
+                }
+            }
+            return merged;
+        }
+    };
+
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final IndicesService indicesService;
+    private final Schemas schemas;
+    private final Provider<TableStatsService> tableStatsServiceProvider;
+
+    @Inject
+    public TransportColumnStatsAction(Settings settings,
+                                      ClusterService clusterService,
+                                      TransportService transportService,
+                                      IndicesService indicesService,
+                                      Schemas schemas,
+                                      Provider<TableStatsService> tableStatsServiceProvider) {
+        super(settings);
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.indicesService = indicesService;
+        this.schemas = schemas;
+        this.tableStatsServiceProvider = tableStatsServiceProvider;
+        transportService.registerRequestHandler(ACTION_NAME,
+            ColumnStatsRequest.class,
+            EXECUTOR,
+            new NodeActionRequestHandler<ColumnStatsRequest, ColumnStatsResponse>(this) {
+            }
+        );
+        transportService.registerRequestHandler(PUBLISH_ACTION_NAME,
+            PublishColumnStatsRequest.class,
+            ThreadPool.Names.SAME,
+            new TransportRequestHandler<PublishColumnStatsRequest>() {
+                @Override
+                public void messageReceived(PublishColumnStatsRequest request, TransportChannel channel) throws Exception {
+                    tableStatsServiceProvider.get().setColumnStats(request.columnStats());
+                    channel.sendResponse(TransportResponse.Empty.INSTANCE);
+                }
+            }
+        );
+    }
+
+    /**
+     * Collects the sketches on all nodes of the cluster.
+     * The listener receives the sketches of all tables, merged over all primary shards.
+     */
+    public void broadcast(ActionListener<Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>>> listener) {
+        DiscoveryNodes nodes = clusterService.state().nodes();
+        ActionListener<ColumnStatsResponse> multiListener =
+            new MultiActionListener<>(nodes.size(), MERGE_FUNCTION, listener);
+        DefaultTransportResponseHandler<ColumnStatsResponse> responseHandler =
+            new DefaultTransportResponseHandler<ColumnStatsResponse>(multiListener) {
+                @Override
+                public ColumnStatsResponse newInstance() {
+                    return new ColumnStatsResponse();
+                }
+            };
+        ColumnStatsRequest request = new ColumnStatsRequest();
+        for (DiscoveryNode node : nodes) {
+            transportService.sendRequest(node, ACTION_NAME, request, responseHandler);
+        }
+    }
+
+    /**
+     * Replaces the column statistics of all nodes of the cluster with the given ones.
+     * The listener is notified once all nodes have applied them.
+     */
+    public void publish(Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats, final ActionListener<Void> listener) {
+        DiscoveryNodes nodes = clusterService.state().nodes();
+        ActionListener<TransportResponse.Empty> multiListener = new MultiActionListener<>(nodes.size(),
+            new Function<List<TransportResponse.Empty>, Void>() {
+                @Nullable
+                @Override
+                public Void apply(@Nullable List<TransportResponse.Empty> input) {
+                    return null;
+                }
+            }, listener);
+        DefaultTransportResponseHandler<TransportResponse.Empty> responseHandler =
+            new DefaultTransportResponseHandler<TransportResponse.Empty>(multiListener) {
+                @Override
+                public TransportResponse.Empty newInstance() {
+                    return TransportResponse.Empty.INSTANCE;
+                }
+            };
+        PublishColumnStatsRequest request = new PublishColumnStatsRequest(columnStats);
+        for (DiscoveryNode node : nodes) {
+            transportService.sendRequest(node, PUBLISH_ACTION_NAME, request, responseHandler);
+        }
+    }
+
+    @Override
+    public void nodeOperation(ColumnStatsRequest request, ActionListener<ColumnStatsResponse> listener) {
+        try {
+            listener.onResponse(new ColumnStatsResponse(collectLocalShards()));
+        } catch (Throwable t) {
+            listener.onFailure(t);
+        }
+    }
+
+    private Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> collectLocalShards() throws IOException {
+        Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> sketches = new HashMap<>();
+        for (IndexService indexService : indicesService) {
+            DocTableInfo tableInfo = docTableInfo(indexService.index().name());
+            if (tableInfo == null) {
+                continue;
+            }
+            for (IndexShard indexShard : indexService) {
+                if (!indexShard.routingEntry().primary() || indexShard.state() != IndexShardState.STARTED) {
+                    continue;
+                }
+                Map<ColumnIdent, ColumnStatsSketch> shardSketches = collectShard(tableInfo, indexShard);
+                mergeInto(sketches, Collections.singletonMap(tableInfo.ident(), shardSketches));
+            }
+        }
+        return sketches;
+    }
+
+    private Map<ColumnIdent, ColumnStatsSketch> collectShard(DocTableInfo tableInfo, IndexShard indexShard) throws IOException {
+        Map<ColumnIdent, ColumnStatsSketch> sketches = new HashMap<>();
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("column-stats")) {
+            for (Reference reference : tableInfo.columns()) {
+                ColumnIdent column = reference.ident().columnIdent();
+                if (!ColumnStatsSketch.isSupported(reference.valueType())
+                    || reference.indexType() == Reference.IndexType.NO
+                    || tableInfo.partitionedBy().contains(column)) {
+                    continue;
+                }
+                ColumnStatsSketch sketch = new ColumnStatsSketch(reference.valueType());
+                sketch.collect(searcher.reader(), column.fqn());
+                sketches.put(column, sketch);
+            }
+        }
+        return sketches;
+    }
+
+    @Nullable
+    private DocTableInfo docTableInfo(String indexName) {
+        if (indexName.startsWith(".")) {
+            // blob tables and other internal indices
+            return null;
+        }
+        try {
+            TableInfo tableInfo = schemas.getTableInfo(TableIdent.fromIndexName(indexName));
+            if (tableInfo instanceof DocTableInfo && !((DocTableInfo) tableInfo).isAlias()) {
+                return (DocTableInfo) tableInfo;
+            }
+        } catch (Exception e) {
+            // table has been dropped concurrently; no stats for it
+            logger.trace("Skipping column statistics of index {}", e, indexName);
+        }
+        return null;
+    }
+
+    private static void mergeInto(Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> target,
+                                  Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> source) {
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> tableEntry : source.entrySet()) {
+            Map<ColumnIdent, ColumnStatsSketch> targetColumns = target.get(tableEntry.getKey());
+            if (targetColumns == null) {
+                target.put(tableEntry.getKey(), new HashMap<>(tableEntry.getValue()));
+                continue;
+            }
+            for (Map.Entry<ColumnIdent, ColumnStatsSketch> columnEntry : tableEntry.getValue().entrySet()) {
+                ColumnStatsSketch existing = targetColumns.get(columnEntry.getKey());
+                if (existing == null) {
+                    targetColumns.put(columnEntry.getKey(), columnEntry.getValue());
+                } else {
+                    existing.merge(columnEntry.getValue());
+                    columnEntry.getValue().close();
+                }
+            }
+        }
+    }
+}
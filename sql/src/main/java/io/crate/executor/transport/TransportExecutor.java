@@ -312,8 +312,7 @@ public class TransportExecutor implements Executor {
             Plan rootPlan = multiPhasePlan.rootPlan();
             for (Map.Entry<Plan, SelectSymbol> entry : dependencies.entrySet()) {
                 Plan plan = entry.getKey();
-                SingleRowSingleValueRowReceiver singleRowSingleValueRowReceiver =
-                    new SingleRowSingleValueRowReceiver(rootPlan, entry.getValue());
+                SubSelectRowReceiver subSelectRowReceiver = SubSelectRowReceiver.forSelectSymbol(rootPlan, entry.getValue());
 
                 CompletableFuture<Plan> planFuture = process(plan, context);
                 planFuture.whenComplete((p, e) -> {
@@ -321,12 +320,12 @@ public class TransportExecutor implements Executor {
                         // must use plan2TaskVisitor instead of calling execute
                         // to avoid triggering MultiPhasePlans inside p again (they're already processed).
                         // since plan's are not mutated to remove them they're still part of the plan tree
-                        plan2TaskVisitor.process(p, null).execute(singleRowSingleValueRowReceiver, Row.EMPTY);
+                        plan2TaskVisitor.process(p, null).execute(subSelectRowReceiver, Row.EMPTY);
                     } else {
-                        singleRowSingleValueRowReceiver.fail(e);
+                        subSelectRowReceiver.fail(e);
                     }
                 });
-                dependencyFutures.add(singleRowSingleValueRowReceiver.completionFuture());
+                dependencyFutures.add(subSelectRowReceiver.completionFuture());
             }
             CompletableFuture[] cfs = dependencyFutures.toArray(new CompletableFuture[0]);
             return CompletableFuture.allOf(cfs).thenCompose(x -> process(rootPlan, context));
@@ -42,6 +42,12 @@ import javax.annotation.Nullable;
 public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, NodeFetchResponse> {
 
     private static final String TRANSPORT_ACTION = "crate/sql/node/fetch";
+
+    /**
+     * Like {@link #TRANSPORT_ACTION} but the response uses the columnar bucket encoding.
+     * Only used for target nodes which support it, so that the action name tells the fetching node how to respond.
+     */
+    private static final String COLUMNAR_TRANSPORT_ACTION = "crate/sql/node/fetch/columnar";
     private static final String EXECUTOR_NAME = ThreadPool.Names.SEARCH;
     private static final String RESPONSE_EXECUTOR = ThreadPool.Names.SAME;
 
@@ -61,13 +67,21 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
             NodeFetchRequest.class,
             EXECUTOR_NAME,
             new NodeActionRequestHandler<NodeFetchRequest, NodeFetchResponse>(this) {});
+        transportService.registerRequestHandler(COLUMNAR_TRANSPORT_ACTION,
+            NodeFetchRequest.class,
+            EXECUTOR_NAME,
+            new NodeActionRequestHandler<NodeFetchRequest, NodeFetchResponse>(
+                (request, listener) -> nodeOperation(request, listener, true)) {});
     }
 
     public void execute(String targetNode,
                         final IntObjectMap<Streamer[]> streamers,
                         final NodeFetchRequest request,
                         ActionListener<NodeFetchResponse> listener) {
-        transports.sendRequest(TRANSPORT_ACTION, targetNode, request, listener,
+        String action = ColumnarBucketCodec.isSupportedBy(transports.discoveryNode(targetNode))
+            ? COLUMNAR_TRANSPORT_ACTION
+            : TRANSPORT_ACTION;
+        transports.sendRequest(action, targetNode, request, listener,
             new DefaultTransportResponseHandler<NodeFetchResponse>(listener, RESPONSE_EXECUTOR) {
                 @Override
                 public NodeFetchResponse newInstance() {
@@ -79,6 +93,12 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
     @Override
     public void nodeOperation(final NodeFetchRequest request,
                               final ActionListener<NodeFetchResponse> responseListener) {
+        nodeOperation(request, responseListener, false);
+    }
+
+    private void nodeOperation(final NodeFetchRequest request,
+                               final ActionListener<NodeFetchResponse> responseListener,
+                               final boolean columnarSupported) {
         ListenableFuture<IntObjectMap<StreamBucket>> resultFuture = nodeFetchOperation.fetch(
             request.jobId(),
             request.fetchPhaseId(),
@@ -88,7 +108,7 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
         Futures.addCallback(resultFuture, new FutureCallback<IntObjectMap<StreamBucket>>() {
             @Override
             public void onSuccess(@Nullable IntObjectMap<StreamBucket> result) {
-                responseListener.onResponse(NodeFetchResponse.forSending(result));
+                responseListener.onResponse(NodeFetchResponse.forSending(result, columnarSupported));
             }
 
             @Override
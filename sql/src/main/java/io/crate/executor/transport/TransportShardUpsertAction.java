@@ -144,7 +144,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 break;
             }
             try {
-                translogLocation = indexItem(
+                Translog.Location itemLocation = indexItem(
                     tableInfo,
                     request,
                     item,
@@ -152,6 +152,9 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     item.insertValues() != null, // try insert first
                     notUsedNonGeneratedColumns,
                     0);
+                if (itemLocation != null) {
+                    translogLocation = itemLocation;
+                }
                 shardResponse.add(location);
             } catch (Throwable t) {
                 if (retryPrimaryException(t)) {
@@ -188,7 +191,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         for (ShardUpsertRequest.Item item : request.items()) {
             if (item.source() == null) {
                 if (logger.isTraceEnabled()) {
-                    logger.trace("[{} (R)] Document with id {}, has no source, primary operation must have failed",
+                    logger.trace("[{} (R)] Document with id {}, has no source, primary operation must have failed or was a noop",
                         indexShard.shardId(), item.id());
                 }
                 continue;
@@ -197,6 +200,10 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         }
     }
 
+    /**
+     * @return the translog location of the operation or null if the item is an update which doesn't modify the document
+     */
+    @Nullable
     protected Translog.Location indexItem(DocTableInfo tableInfo,
                                           ShardUpsertRequest request,
                                           ShardUpsertRequest.Item item,
@@ -221,6 +228,11 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             } else {
                 item.opType(IndexRequest.OpType.INDEX);
                 SourceAndVersion sourceAndVersion = prepareUpdate(tableInfo, request, item, indexShard);
+                if (sourceAndVersion == null) {
+                    // nothing to index, *mark* the item so that it's also skipped on the replicas
+                    item.source(null);
+                    return null;
+                }
                 item.source(sourceAndVersion.source);
                 version = sourceAndVersion.version;
             }
@@ -246,9 +258,10 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
 
     /**
      * Prepares an update request by converting it into an index request.
-     * <p/>
-     * TODO: detect a NOOP and return an update response if true
+     *
+     * @return the updated source or null if the update doesn't modify the document
      */
+    @Nullable
     @SuppressWarnings("unchecked")
     private SourceAndVersion prepareUpdate(DocTableInfo tableInfo,
                                            ShardUpsertRequest request,
@@ -279,12 +292,6 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 indexShard.shardId(), Constants.DEFAULT_MAPPING_TYPE, item.id(), getResult.getVersion(), item.version());
         }
 
-        Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(getResult.internalSourceRef(), true);
-        final Map<String, Object> updatedSourceAsMap;
-        final XContentType updateSourceContentType = sourceAndContent.v1();
-
-        updatedSourceAsMap = sourceAndContent.v2();
-
         SymbolToFieldExtractorContext ctx = new SymbolToFieldExtractorContext(functions, item.insertValues());
 
         Map<String, Object> pathsToUpdate = new LinkedHashMap<>();
@@ -317,10 +324,25 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         // Currently the validation is done only for generated columns.
         processGeneratedColumns(tableInfo, pathsToUpdate, updatedGeneratedColumns, true, getResult);
 
+        SourceRewriter sourceRewriter = SourceRewriter.forChanges(pathsToUpdate);
+        if (sourceRewriter != null) {
+            try {
+                BytesReference updatedSource = sourceRewriter.rewrite(getResult.internalSourceRef());
+                if (updatedSource == null) {
+                    return null;
+                }
+                return new SourceAndVersion(updatedSource, getResult.getVersion());
+            } catch (IOException e) {
+                throw new ElasticsearchGenerationException("Failed to update source with [" + pathsToUpdate + "]", e);
+            }
+        }
+
+        Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(getResult.internalSourceRef(), true);
+        Map<String, Object> updatedSourceAsMap = sourceAndContent.v2();
         updateSourceByPaths(updatedSourceAsMap, pathsToUpdate);
 
         try {
-            XContentBuilder builder = XContentFactory.contentBuilder(updateSourceContentType);
+            XContentBuilder builder = XContentFactory.contentBuilder(sourceAndContent.v1());
             builder.map(updatedSourceAsMap);
             return new SourceAndVersion(builder.bytes(), getResult.getVersion());
         } catch (IOException e) {
@@ -574,7 +596,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
      * the source map tree.
      * If the path doesn't exists, a new tree will be inserted.
      * <p/>
-     * TODO: detect NOOP
+     * Only used if the changes can't be applied by a {@link SourceRewriter}.
      */
     @SuppressWarnings("unchecked")
     static void updateSourceByPaths(@Nonnull Map<String, Object> source, @Nonnull Map<String, Object> changes) {
@@ -29,6 +29,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.transport.*;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
 
 
@@ -44,6 +45,11 @@ public class Transports {
         this.transportService = transportService;
     }
 
+    @Nullable
+    public DiscoveryNode discoveryNode(String node) {
+        return clusterService.state().nodes().get(node);
+    }
+
     public <TRequest extends TransportRequest, TResponse extends TransportResponse> void sendRequest(
         String action,
         String node,
@@ -21,13 +21,10 @@
 
 package io.crate.executor.transport.distributed;
 
-import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
-import io.crate.executor.transport.StreamBucket;
-
-import java.io.IOException;
+import io.crate.core.collections.RowBatch;
 
 /**
  * MultiBucketBuilder that returns N buckets where N is the number of buckets specified in the constructor.
@@ -36,44 +33,34 @@ import java.io.IOException;
 public class BroadcastingBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final StreamBucket.Builder bucketBuilder;
-    private volatile int size = 0;
+    private final ThreadLocalBucketBuilders bucketBuilders;
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets) {
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers);
+        this.bucketBuilders = new ThreadLocalBucketBuilders(streamers, 1);
     }
 
     @Override
     public void add(Row row) {
-        try {
-            synchronized (this) {
-                bucketBuilder.add(row);
-                size++;
-            }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
+        bucketBuilders.add(0, row);
+    }
+
+    @Override
+    public void add(RowBatch batch) {
+        bucketBuilders.add(0, batch);
     }
 
     @Override
     public int size() {
-        return size;
+        return bucketBuilders.size();
     }
 
     @Override
-    public synchronized void build(Bucket[] buckets) {
+    public void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
-        final Bucket bucket;
-        try {
-            bucket = bucketBuilder.build();
-            bucketBuilder.reset();
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
+        final Bucket bucket = bucketBuilders.build()[0];
         for (int i = 0; i < numBuckets; i++) {
             buckets[i] = bucket;
         }
-        size = 0;
     }
 }
@@ -43,12 +43,34 @@ public class DistributedResultRequest extends TransportRequest {
     private UUID jobId;
     private boolean isLast = true;
 
+    /**
+     * Only relevant for the sender, decides if the rows can be sent using the columnar encoding
+     */
+    private boolean columnarSupported = false;
+
+    /**
+     * Sequence number of the page within all pages sent by the upstream.
+     * Only sent if the upstream has more than one page in-flight, the receiver uses it to apply the pages in order.
+     */
+    private int pageIdx = -1;
+    private boolean pipelined = false;
+
     private Throwable throwable = null;
     private boolean isKilled = false;
 
     public DistributedResultRequest() {
     }
 
+    /**
+     * Creates a request to read a request which has been sent using
+     * {@link TransportDistributedResultAction#DISTRIBUTED_RESULT_PIPELINED_ACTION}
+     */
+    static DistributedResultRequest pipelined() {
+        DistributedResultRequest request = new DistributedResultRequest();
+        request.pipelined = true;
+        return request;
+    }
+
     private DistributedResultRequest(UUID jobId, byte inputId, int executionPhaseId, int bucketIdx) {
         this.jobId = jobId;
         this.executionPhaseId = executionPhaseId;
@@ -128,6 +150,23 @@ public class DistributedResultRequest extends TransportRequest {
         return isKilled;
     }
 
+    void columnarSupported(boolean columnarSupported) {
+        this.columnarSupported = columnarSupported;
+    }
+
+    void pageIdx(int pageIdx) {
+        this.pageIdx = pageIdx;
+        this.pipelined = true;
+    }
+
+    public int pageIdx() {
+        return pageIdx;
+    }
+
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -136,6 +175,9 @@ public class DistributedResultRequest extends TransportRequest {
         bucketIdx = in.readVInt();
         isLast = in.readBoolean();
         inputId = in.readByte();
+        if (pipelined) {
+            pageIdx = in.readVInt();
+        }
 
         boolean failure = in.readBoolean();
         if (failure) {
@@ -157,6 +199,9 @@ public class DistributedResultRequest extends TransportRequest {
         out.writeVInt(bucketIdx);
         out.writeBoolean(isLast);
         out.writeByte(inputId);
+        if (pipelined) {
+            out.writeVInt(pageIdx);
+        }
 
         boolean failure = throwable != null;
         out.writeBoolean(failure);
@@ -165,7 +210,7 @@ public class DistributedResultRequest extends TransportRequest {
             out.writeBoolean(isKilled);
         } else {
             // TODO: we should not rely on another bucket in this class and instead write to the stream directly
-            StreamBucket.writeBucket(out, streamers, rows);
+            StreamBucket.writeBucket(out, streamers, rows, columnarSupported);
         }
     }
 }
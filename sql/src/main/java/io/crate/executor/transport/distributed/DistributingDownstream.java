@@ -25,16 +25,20 @@ package io.crate.executor.transport.distributed;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.operation.projectors.*;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.metrics.MeanMetric;
 
 import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
 
 /**
  * RowReceiver that sends rows as paged requests to other hosts.
@@ -72,14 +76,19 @@ import java.util.concurrent.atomic.AtomicReference;
  * </pre>
  *
  * Note that the upstream-loop will *not* suspend if the pageSize is reached
- * but there are no "in-flight" requests.
+ * but less than {@code maxInFlightPages} pages are "in-flight" for every downstream.
  *
  * Both, the upstream-loop and request-loop can be running at the same time.
- * {@code trySendRequests} has some synchronization to make sure that there are
- * never two pages send concurrently.
+ * {@code trySendRequests} has some synchronization to make sure that pages are built one at a time
+ * and that no downstream has more than {@code maxInFlightPages} pages in-flight.
+ * If more than one page can be in-flight the requests contain the sequence number of the page
+ * so that the downstream can apply them in order.
+ *
+ * The time the upstream is paused waiting for the downstreams is reported to the {@code pausedListener},
+ * which exposes it in sys.operations.
  *
  */
-public class DistributingDownstream implements RowReceiver {
+public class DistributingDownstream implements BatchRowReceiver {
 
     private final ESLogger logger;
     final MultiBucketBuilder multiBucketBuilder;
@@ -88,14 +97,18 @@ public class DistributingDownstream implements RowReceiver {
     private final byte inputId;
     private final int bucketIdx;
     private final int pageSize;
-    private final AtomicInteger inFlightRequests = new AtomicInteger(0);
+    private final int maxInFlightPages;
     private final Object lock = new Object();
     private final Downstream[] downstreams;
     private final TransportDistributedResultAction distributedResultAction;
     private final Streamer<?>[] streamers;
-    private final Bucket[] buckets;
     private final boolean traceEnabled;
+    private final MeanMetric pausedWaitingForDownstreams = new MeanMetric();
+    private final LongConsumer pausedListener;
     private boolean upstreamFinished;
+    private boolean lastRequestSent = false;
+    private int nextPageIdx = 0;
+    private long pausedAt;
     private boolean isKilled = false;
     private final AtomicReference<ResumeHandle> resumeHandleRef = new AtomicReference<>(ResumeHandle.INVALID);
     private volatile boolean stop = false;
@@ -111,7 +124,9 @@ public class DistributingDownstream implements RowReceiver {
                                   Collection<String> downstreamNodeIds,
                                   TransportDistributedResultAction distributedResultAction,
                                   Streamer<?>[] streamers,
-                                  int pageSize) {
+                                  int pageSize,
+                                  int maxInFlightPages,
+                                  LongConsumer pausedListener) {
         this.logger = logger;
         this.multiBucketBuilder = multiBucketBuilder;
         this.jobId = jobId;
@@ -119,9 +134,10 @@ public class DistributingDownstream implements RowReceiver {
         this.inputId = inputId;
         this.bucketIdx = bucketIdx;
         this.pageSize = pageSize;
+        this.maxInFlightPages = maxInFlightPages;
+        this.pausedListener = pausedListener;
         this.streamers = streamers;
 
-        buckets = new Bucket[downstreamNodeIds.size()];
         downstreams = new Downstream[downstreamNodeIds.size()];
         this.distributedResultAction = distributedResultAction;
         int i = 0;
@@ -138,14 +154,28 @@ public class DistributingDownstream implements RowReceiver {
             return Result.STOP;
         }
         multiBucketBuilder.add(row);
+        return onRowsAdded();
+    }
+
+    @Override
+    public Result setNextBatch(RowBatch batch) {
+        if (stop) {
+            return Result.STOP;
+        }
+        multiBucketBuilder.add(batch);
+        return onRowsAdded();
+    }
+
+    private Result onRowsAdded() {
         if (multiBucketBuilder.size() >= pageSize) {
-            if (inFlightRequests.get() == 0) {
+            if (canSendPage()) {
                 trySendRequests();
             } else {
                 /*
                  * trySendRequests is called after pause has been processed to avoid race condition:
                  * ( trySendRequest -> return PAUSE -> onResponse before pauseProcessed)
                  */
+                pausedAt = System.nanoTime();
                 return Result.PAUSE;
             }
         }
@@ -183,24 +213,49 @@ public class DistributingDownstream implements RowReceiver {
         trySendRequests();
     }
 
+    /**
+     * @return true if none of the downstreams which still need rows has reached the maximum number of in-flight pages
+     */
+    private boolean canSendPage() {
+        for (Downstream downstream : downstreams) {
+            if (!downstream.isFinished && downstream.inFlightRequests.get() >= maxInFlightPages) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void trySendRequests() {
         boolean isLastRequest;
         Throwable error;
+        Bucket[] buckets;
+        int pageIdx;
         boolean resumeWithoutSendingRequests = false;
         synchronized (lock) {
-            int numInFlightRequests = inFlightRequests.get();
-            if (numInFlightRequests > 0) {
-                traceLog("action=trySendRequests numInFlightRequests > 0");
+            if (lastRequestSent) {
+                traceLog("action=trySendRequests lastRequestSent");
+                return;
+            }
+            if (!canSendPage()) {
+                traceLog("action=trySendRequests maxInFlightPages reached");
                 return;
             }
             isLastRequest = upstreamFinished;
             error = failure.get();
+            buckets = new Bucket[downstreams.length];
+            pageIdx = nextPageIdx;
             if (isLastRequest || multiBucketBuilder.size() >= pageSize) {
                 multiBucketBuilder.build(buckets);
-                inFlightRequests.addAndGet(downstreams.length);
+                nextPageIdx++;
+                lastRequestSent = isLastRequest;
+                for (Downstream downstream : downstreams) {
+                    if (!downstream.isFinished) {
+                        downstream.inFlightRequests.incrementAndGet();
+                    }
+                }
                 if (traceEnabled) {
-                    logger.trace("targetPhase={}/{} bucketIdx={} action=trySendRequests isLastRequest={} ",
-                        targetPhaseId, inputId, bucketIdx, isLastRequest);
+                    logger.trace("targetPhase={}/{} bucketIdx={} action=trySendRequests isLastRequest={} page={}",
+                        targetPhaseId, inputId, bucketIdx, isLastRequest, pageIdx);
                 }
             } else {
                 resumeWithoutSendingRequests = true;
@@ -212,8 +267,9 @@ public class DistributingDownstream implements RowReceiver {
             doResume();
             return;
         }
-        boolean allDownstreamsFinished = doSendRequests(isLastRequest, error);
+        boolean allDownstreamsFinished = doSendRequests(isLastRequest, error, buckets, pageIdx);
         if (isLastRequest) {
+            logPausedTime();
             return;
         }
         if (allDownstreamsFinished) {
@@ -222,16 +278,14 @@ public class DistributingDownstream implements RowReceiver {
         doResume();
     }
 
-    private boolean doSendRequests(boolean isLastRequest, Throwable error) {
+    private boolean doSendRequests(boolean isLastRequest, Throwable error, Bucket[] buckets, int pageIdx) {
         boolean allDownstreamsFinished = true;
         for (int i = 0; i < downstreams.length; i++) {
             Downstream downstream = downstreams[i];
             allDownstreamsFinished &= downstream.isFinished;
-            if (downstream.isFinished) {
-                inFlightRequests.decrementAndGet();
-            } else {
+            if (!downstream.isFinished) {
                 if (error == null) {
-                    downstream.sendRequest(buckets[i], isLastRequest);
+                    downstream.sendRequest(buckets[i], isLastRequest, pageIdx);
                 } else {
                     downstream.sendRequest(error, isKilled);
                 }
@@ -241,13 +295,31 @@ public class DistributingDownstream implements RowReceiver {
     }
 
     private void doResume() {
-        ResumeHandle resumeHandle = resumeHandleRef.get();
+        ResumeHandle resumeHandle = resumeHandleRef.getAndSet(ResumeHandle.INVALID);
         if (resumeHandle != ResumeHandle.INVALID) {
-            resumeHandleRef.set(ResumeHandle.INVALID);
+            long pausedNanos = System.nanoTime() - pausedAt;
+            pausedWaitingForDownstreams.inc(pausedNanos);
+            pausedListener.accept(pausedNanos);
             resumeHandle.resume(true);
         }
     }
 
+    private void logPausedTime() {
+        if (logger.isDebugEnabled() && pausedWaitingForDownstreams.count() > 0) {
+            logger.debug("targetPhase={}/{} bucketIdx={} paused {} times for {}ms waiting for downstream responses",
+                targetPhaseId, inputId, bucketIdx, pausedWaitingForDownstreams.count(),
+                TimeUnit.NANOSECONDS.toMillis(pausedWaitingForDownstreams.sum()));
+        }
+    }
+
+    /**
+     * The time in nanoseconds the upstream has been paused because the downstreams didn't acknowledge the
+     * in-flight pages fast enough.
+     */
+    MeanMetric pausedWaitingForDownstreams() {
+        return pausedWaitingForDownstreams;
+    }
+
     @Override
     public void kill(Throwable throwable) {
         stop = true;
@@ -267,7 +339,8 @@ public class DistributingDownstream implements RowReceiver {
     private class Downstream implements ActionListener<DistributedResultResponse> {
 
         private final String downstreamNodeId;
-        boolean isFinished = false;
+        private final AtomicInteger inFlightRequests = new AtomicInteger(0);
+        volatile boolean isFinished = false;
 
         Downstream(String downstreamNodeId) {
             this.downstreamNodeId = downstreamNodeId;
@@ -281,12 +354,13 @@ public class DistributingDownstream implements RowReceiver {
             );
         }
 
-        void sendRequest(Bucket bucket, boolean isLast) {
-            distributedResultAction.pushResult(
-                downstreamNodeId,
-                new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, bucket, isLast),
-                this
-            );
+        void sendRequest(Bucket bucket, boolean isLast, int pageIdx) {
+            DistributedResultRequest request =
+                new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, bucket, isLast);
+            if (maxInFlightPages > 1) {
+                request.pageIdx(pageIdx);
+            }
+            distributedResultAction.pushResult(downstreamNodeId, request, this);
         }
 
         @Override
@@ -21,18 +21,15 @@
 
 package io.crate.executor.transport.distributed;
 
-import com.google.common.base.Throwables;
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.executor.transport.StreamBucket;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.StringHelper;
 
 import javax.annotation.Nullable;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * builds N buckets where N is passed in the CTOR.
@@ -41,57 +38,53 @@ import java.util.List;
 public class ModuloBucketBuilder implements MultiBucketBuilder {
 
     private final int numBuckets;
-    private final List<StreamBucket.Builder> bucketBuilders;
+    private final ThreadLocalBucketBuilders bucketBuilders;
     private final int distributedByColumnIdx;
-    private volatile int size = 0;
 
     public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx) {
         this.numBuckets = numBuckets;
         this.distributedByColumnIdx = distributedByColumnIdx;
-        this.bucketBuilders = new ArrayList<>(numBuckets);
-        for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers));
-        }
+        this.bucketBuilders = new ThreadLocalBucketBuilders(streamers, numBuckets);
     }
 
     @Override
     public void add(Row row) {
-        final StreamBucket.Builder builder = bucketBuilders.get(getBucket(row));
-        try {
-            synchronized (this) {
-                builder.add(row);
-                size++;
-            }
-        } catch (IOException e) {
-            throw Throwables.propagate(e);
+        bucketBuilders.add(getBucket(row), row);
+    }
+
+    @Override
+    public void add(RowBatch batch) {
+        int numSelected = batch.numSelected();
+        int[] buckets = new int[numSelected];
+        Object[] column = batch.column(distributedByColumnIdx);
+        int[] selection = batch.selection();
+        for (int i = 0; i < numSelected; i++) {
+            buckets[i] = getBucket(column[selection[i]]);
         }
+        bucketBuilders.add(buckets, batch);
     }
 
     @Override
     public int size() {
-        return size;
+        return bucketBuilders.size();
     }
 
     @Override
-    public synchronized void build(Bucket[] buckets) {
+    public void build(Bucket[] buckets) {
         assert buckets.length == numBuckets : "length of the provided array must match numBuckets";
-        for (int i = 0; i < numBuckets; i++) {
-            try {
-                final StreamBucket.Builder builder = bucketBuilders.get(i);
-                buckets[i] = builder.build();
-                builder.reset();
-            } catch (IOException e) {
-                throw Throwables.propagate(e);
-            }
-        }
-        size = 0;
+        StreamBucket[] built = bucketBuilders.build();
+        System.arraycopy(built, 0, buckets, 0, numBuckets);
     }
 
     /**
      * get bucket number by doing modulo hashcode of the defined row-element
      */
     private int getBucket(Row row) {
-        int hash = hashCode(row.get(distributedByColumnIdx));
+        return getBucket(row.get(distributedByColumnIdx));
+    }
+
+    private int getBucket(@Nullable Object value) {
+        int hash = hashCode(value);
         if (hash == Integer.MIN_VALUE) {
             hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
         }
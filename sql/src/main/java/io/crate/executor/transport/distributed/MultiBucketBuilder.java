@@ -23,6 +23,7 @@ package io.crate.executor.transport.distributed;
 
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 
 /**
  * Builder used to build one or more buckets
@@ -34,6 +35,11 @@ public interface MultiBucketBuilder {
      */
     void add(Row row);
 
+    /**
+     * add all selected rows of the batch to the page
+     */
+    void add(RowBatch batch);
+
     /**
      * current number of rows within the page.
      * Will be reset to 0 on each build call.
@@ -0,0 +1,176 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.executor.transport.distributed;
+
+import com.google.common.base.Throwables;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
+import io.crate.executor.transport.StreamBucket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one set of {@link StreamBucket.Builder}s per thread which adds rows.
+ * <p>
+ * Upstreams only lock the set of the current thread to add a row, which is never contended
+ * except for the short moment in which {@link #build()} swaps the builders of that thread.
+ * The rows of all threads are concatenated into one bucket per bucketIdx on {@link #build()},
+ * the encoding of the rows happens outside of any lock.
+ * <p>
+ * Calls to {@link #build()} must not overlap.
+ */
+class ThreadLocalBucketBuilders {
+
+    private final Streamer<?>[] streamers;
+    private final int numBuckets;
+
+    /**
+     * Owned by this instance instead of using a {@link ThreadLocal}, so that the builders aren't
+     * kept alive by the (long living) pool threads once this instance isn't used anymore.
+     */
+    private final Map<Thread, Partition> partitions = new ConcurrentHashMap<>();
+
+    ThreadLocalBucketBuilders(Streamer<?>[] streamers, int numBuckets) {
+        this.streamers = streamers;
+        this.numBuckets = numBuckets;
+    }
+
+    private Partition threadPartition() {
+        Thread thread = Thread.currentThread();
+        Partition partition = partitions.get(thread);
+        if (partition == null) {
+            partition = new Partition();
+            partitions.put(thread, partition);
+        }
+        return partition;
+    }
+
+    void add(int bucketIdx, Row row) {
+        Partition partition = threadPartition();
+        try {
+            synchronized (partition) {
+                partition.builders[bucketIdx].add(row);
+                partition.size++;
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Adds all selected rows of the batch to the bucket with the given bucketIdx
+     */
+    void add(int bucketIdx, RowBatch batch) {
+        Partition partition = threadPartition();
+        try {
+            synchronized (partition) {
+                partition.builders[bucketIdx].add(batch);
+                partition.size += batch.numSelected();
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Adds all selected rows of the batch, the n-th selected row is added to the bucket bucketIdxs[n]
+     */
+    void add(int[] bucketIdxs, RowBatch batch) {
+        Partition partition = threadPartition();
+        int[] selection = batch.selection();
+        int numSelected = batch.numSelected();
+        try {
+            synchronized (partition) {
+                for (int i = 0; i < numSelected; i++) {
+                    partition.builders[bucketIdxs[i]].add(batch, selection[i]);
+                }
+                partition.size += numSelected;
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Partition partition : partitions.values()) {
+            size += partition.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return one bucket per bucketIdx containing the rows which have been added by all threads since the last build
+     */
+    StreamBucket[] build() {
+        List<List<StreamBucket>> parts = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            parts.add(new ArrayList<StreamBucket>(partitions.size()));
+        }
+        try {
+            for (Partition partition : partitions.values()) {
+                StreamBucket.Builder[] builders;
+                synchronized (partition) {
+                    if (partition.size == 0) {
+                        continue;
+                    }
+                    builders = partition.builders;
+                    partition.builders = partition.spareBuilders;
+                    partition.spareBuilders = builders;
+                    partition.size = 0;
+                }
+                for (int i = 0; i < numBuckets; i++) {
+                    parts.get(i).add(builders[i].build());
+                    builders[i].reset();
+                }
+            }
+            StreamBucket[] buckets = new StreamBucket[numBuckets];
+            for (int i = 0; i < numBuckets; i++) {
+                buckets[i] = StreamBucket.concat(streamers, parts.get(i));
+            }
+            return buckets;
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private class Partition {
+
+        private StreamBucket.Builder[] builders = newBuilders();
+        private StreamBucket.Builder[] spareBuilders = newBuilders();
+        private volatile int size = 0;
+
+        private StreamBucket.Builder[] newBuilders() {
+            StreamBucket.Builder[] builders = new StreamBucket.Builder[numBuckets];
+            for (int i = 0; i < numBuckets; i++) {
+                builders[i] = new StreamBucket.Builder(streamers, true);
+            }
+            return builders;
+        }
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.executor.transport.distributed;
 
 import io.crate.exceptions.ContextMissingException;
+import io.crate.executor.transport.ColumnarBucketCodec;
 import io.crate.executor.transport.DefaultTransportResponseHandler;
 import io.crate.executor.transport.NodeAction;
 import io.crate.executor.transport.NodeActionRequestHandler;
@@ -32,6 +33,8 @@ import io.crate.jobs.JobExecutionContext;
 import io.crate.jobs.PageBucketReceiver;
 import io.crate.operation.PageResultListener;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -47,6 +50,16 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
 
     public static final String DISTRIBUTED_RESULT_ACTION = "crate/sql/node/merge/add_rows";
 
+    /**
+     * Used by upstreams which have more than one page in-flight, the requests contain the sequence number of the page.
+     */
+    public static final String DISTRIBUTED_RESULT_PIPELINED_ACTION = "crate/sql/node/merge/add_rows_pipelined";
+
+    /**
+     * Node attribute of nodes which accept {@link #DISTRIBUTED_RESULT_PIPELINED_ACTION} requests
+     */
+    public static final String PIPELINING_NODE_ATTRIBUTE = "distributed_result_pipelining";
+
     /**
      * The request producer class can block the collectors which are running in the
      * <code>SEARCH</code> thread pool. To avoid dead locks, we must use a different thread pool
@@ -73,10 +86,25 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
             DistributedResultRequest.class,
             ThreadPool.Names.GENERIC,
             new NodeActionRequestHandler<DistributedResultRequest, DistributedResultResponse>(this) {});
+        transportService.registerRequestHandler(DISTRIBUTED_RESULT_PIPELINED_ACTION,
+            DistributedResultRequest::pipelined,
+            ThreadPool.Names.GENERIC,
+            new NodeActionRequestHandler<DistributedResultRequest, DistributedResultResponse>(this) {});
+    }
+
+    /**
+     * @return true if the node accepts {@link #DISTRIBUTED_RESULT_PIPELINED_ACTION} requests
+     */
+    public boolean pipeliningSupportedBy(String node) {
+        DiscoveryNode discoveryNode = transports.discoveryNode(node);
+        return discoveryNode != null
+               && Booleans.parseBoolean(discoveryNode.attributes().get(PIPELINING_NODE_ATTRIBUTE), false);
     }
 
     public void pushResult(String node, DistributedResultRequest request, ActionListener<DistributedResultResponse> listener) {
-        transports.sendRequest(DISTRIBUTED_RESULT_ACTION, node, request, listener,
+        request.columnarSupported(ColumnarBucketCodec.isSupportedBy(transports.discoveryNode(node)));
+        String action = request.isPipelined() ? DISTRIBUTED_RESULT_PIPELINED_ACTION : DISTRIBUTED_RESULT_ACTION;
+        transports.sendRequest(action, node, request, listener,
             new DefaultTransportResponseHandler<DistributedResultResponse>(listener, EXECUTOR_NAME) {
                 @Override
                 public DistributedResultResponse newInstance() {
@@ -122,11 +150,21 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
         Throwable throwable = request.throwable();
         if (throwable == null) {
             request.streamers(pageBucketReceiver.streamers());
-            pageBucketReceiver.setBucket(
-                request.bucketIdx(),
-                request.rows(),
-                request.isLast(),
-                new SendResponsePageResultListener(listener, request));
+            SendResponsePageResultListener pageResultListener = new SendResponsePageResultListener(listener, request);
+            if (request.isPipelined()) {
+                pageBucketReceiver.setBucket(
+                    request.bucketIdx(),
+                    request.pageIdx(),
+                    request.rows(),
+                    request.isLast(),
+                    pageResultListener);
+            } else {
+                pageBucketReceiver.setBucket(
+                    request.bucketIdx(),
+                    request.rows(),
+                    request.isLast(),
+                    pageResultListener);
+            }
         } else {
             if (request.isKilled()) {
                 pageBucketReceiver.killed(request.bucketIdx(), throwable);
@@ -324,7 +324,7 @@ public class ESGetTask extends JobTask {
                 FETCH_SOURCE_COLUMNS.contains(ref.ident().columnIdent())) {
                 return new FetchSourceContext(true);
             }
-            includes.add(ref.ident().columnIdent().name());
+            includes.add(ref.ident().columnIdent().fqn());
         }
         if (includes.size() > 0) {
             return new FetchSourceContext(includes.toArray(new String[includes.size()]));
@@ -22,6 +22,7 @@
 package io.crate.jobs;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.concurrent.CompletionListenable;
 
 import javax.annotation.Nullable;
@@ -50,6 +51,15 @@ public interface ExecutionSubContext extends CompletionListenable {
 
     int id();
 
+    /**
+     * The context on which the memory usage of this sub context is accounted.
+     * It is exposed in sys.operations; null if the sub context doesn't account its memory usage.
+     */
+    @Nullable
+    default RamAccountingContext ramAccountingContext() {
+        return null;
+    }
+
     /**
      * Hook to cleanup the resources of this context. This might be called at any time in the lifecycle of the context.
      */
@@ -141,7 +141,7 @@ public class JobExecutionContext implements CompletionListenable {
         for (int i = 0; i < orderedContextIds.size(); i++) {
             int id = orderedContextIds.get(i);
             ExecutionSubContext subContext = orderedContexts.get(i);
-            statsTables.operationStarted(id, jobId, subContext.name());
+            statsTables.operationStarted(id, jobId, subContext.name(), subContext.ramAccountingContext());
             try {
                 subContext.prepare();
             } catch (Exception e) {
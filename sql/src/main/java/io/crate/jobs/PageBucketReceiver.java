@@ -30,6 +30,12 @@ public interface PageBucketReceiver {
 
     void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener);
 
+    /**
+     * Like {@link #setBucket(int, Bucket, boolean, PageResultListener)} but used by upstreams which send
+     * further pages before the previous pages have been consumed. The buckets are applied in the order of pageIdx.
+     */
+    void setBucket(int bucketIdx, int pageIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener);
+
     void failure(int bucketIdx, Throwable throwable);
 
     void killed(int bucketIdx, Throwable throwable);
@@ -36,6 +36,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.List;
 import java.util.Locale;
 
 public class PageDownstreamContext extends AbstractExecutionSubContext implements DownstreamExecutionSubContext, PageBucketReceiver {
@@ -51,7 +52,12 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
     private final ArrayList<SettableFuture<Bucket>> bucketFutures;
     private final BitSet allFuturesSet;
     private final BitSet exhausted;
+    private final BitSet pipelinedUpstreams;
     private final ArrayList<PageResultListener> listeners = new ArrayList<>();
+    private final List<PendingBucket> pendingBuckets = new ArrayList<>();
+    private final int[] nextPageIdx;
+    private boolean pageConsuming = false;
+    private boolean applyingPendingBuckets = false;
 
     public PageDownstreamContext(ESLogger logger,
                                  String nodeName,
@@ -71,6 +77,8 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         bucketFutures = new ArrayList<>(numBuckets);
         allFuturesSet = new BitSet(numBuckets);
         exhausted = new BitSet(numBuckets);
+        pipelinedUpstreams = new BitSet(numBuckets);
+        nextPageIdx = new int[numBuckets];
         initBucketFutures();
         traceEnabled = logger.isTraceEnabled();
     }
@@ -96,33 +104,51 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
 
     @Override
     public void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
-        synchronized (listeners) {
-            listeners.add(pageResultListener);
-        }
+        traceLog("method=setBucket", bucketIdx);
         synchronized (lock) {
-            traceLog("method=setBucket", bucketIdx);
-            if (allFuturesSet.get(bucketIdx)) {
-                pageDownstream.fail(new IllegalStateException(String.format(Locale.ENGLISH,
-                    "Same bucket of a page set more than once. node=%s method=setBucket phaseId=%d bucket=%d",
-                    nodeName, id, bucketIdx)));
+            if (isDuplicate(bucketIdx)) {
+                failDuplicate("setBucket", bucketIdx);
                 return;
             }
+            addPendingBucket(new PendingBucket(bucketIdx, -1, rows, isLast, pageResultListener, null));
+        }
+    }
 
-            if (pageEmpty()) {
-                logger.trace("calling nextPage method=setBucket", bucketIdx);
-                pageDownstream.nextPage(new BucketPage(bucketFutures), new ResultListenerBridgingConsumeListener());
-            }
-            setExhaustedUpstreams();
+    @Override
+    public void setBucket(int bucketIdx, int pageIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
+        if (traceEnabled) {
+            logger.trace("method=setBucket phaseId={} bucket={} page={}", id, bucketIdx, pageIdx);
+        }
+        synchronized (lock) {
+            pipelinedUpstreams.set(bucketIdx);
+            addPendingBucket(new PendingBucket(bucketIdx, pageIdx, rows, isLast, pageResultListener, null));
+        }
+    }
 
-            if (isLast) {
-                exhausted.set(bucketIdx);
+    /**
+     * Upstreams which don't pipeline their pages send the next page only once the current one has been consumed,
+     * so a second bucket for the current page is a bug.
+     * Pipelined upstreams may send buckets of later pages, they are kept until their page is next.
+     */
+    private boolean isDuplicate(int bucketIdx) {
+        if (pipelinedUpstreams.get(bucketIdx)) {
+            return false;
+        }
+        if (allFuturesSet.get(bucketIdx)) {
+            return true;
+        }
+        for (PendingBucket pendingBucket : pendingBuckets) {
+            if (pendingBucket.bucketIdx == bucketIdx) {
+                return true;
             }
-            bucketFutures.get(bucketIdx).set(rows);
-            allFuturesSet.set(bucketIdx);
-
-            clearPageIfFull(bucketIdx);
         }
+        return false;
+    }
 
+    private void failDuplicate(String method, int bucketIdx) {
+        pageDownstream.fail(new IllegalStateException(String.format(Locale.ENGLISH,
+            "Same bucket of a page set more than once. node=%s method=%s phaseId=%d bucket=%d",
+            nodeName, method, id, bucketIdx)));
     }
 
     private void traceLog(String msg, int bucketIdx) {
@@ -141,43 +167,125 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
     public void failure(int bucketIdx, Throwable throwable) {
         traceLog("method=failure", bucketIdx, throwable);
         synchronized (lock) {
-            if (allFuturesSet.get(bucketIdx)) {
-                pageDownstream.fail(new IllegalStateException(String.format(Locale.ENGLISH,
-                    "Same bucket of a page set more than once. node=%s method=failure phaseId=%d bucket=%d",
-                    nodeName, id(), bucketIdx)));
+            if (isDuplicate(bucketIdx)) {
+                failDuplicate("failure", bucketIdx);
                 return;
             }
-            setBucketFailure(bucketIdx, throwable);
+            addPendingBucket(new PendingBucket(bucketIdx, -1, null, true, null, throwable));
         }
     }
 
     @Override
     public void killed(int bucketIdx, Throwable throwable) {
         traceLog("method=killed", bucketIdx, throwable);
+        addPendingBucket(new PendingBucket(bucketIdx, -1, null, true, null, throwable));
+    }
+
+    /**
+     * Buckets can't be applied immediately if the bucket of the current page has already been set
+     * or if the current page is complete but hasn't been consumed yet.
+     * This happens if a pipelined upstream has more than one page in-flight.
+     * Those buckets are kept until the page has been consumed.
+     */
+    private void addPendingBucket(PendingBucket pendingBucket) {
         synchronized (lock) {
+            pendingBuckets.add(pendingBucket);
+            applyPendingBuckets();
+        }
+    }
+
+    private void applyPendingBuckets() {
+        if (applyingPendingBuckets) {
+            // re-entered by a page that got consumed synchronously, the outer loop will continue
+            return;
+        }
+        applyingPendingBuckets = true;
+        try {
+            PendingBucket pendingBucket;
+            while ((pendingBucket = nextApplicableBucket()) != null) {
+                pendingBuckets.remove(pendingBucket);
+                applyBucket(pendingBucket);
+            }
+        } finally {
+            applyingPendingBuckets = false;
+        }
+    }
+
+    @Nullable
+    private PendingBucket nextApplicableBucket() {
+        if (pageConsuming && pageEmpty()) {
+            // page is complete, but the pageDownstream hasn't requested the next one yet
+            return null;
+        }
+        for (PendingBucket pendingBucket : pendingBuckets) {
+            int bucketIdx = pendingBucket.bucketIdx;
+            if (isExhausted(bucketIdx)) {
+                return pendingBucket;
+            }
             if (allFuturesSet.get(bucketIdx)) {
-                traceLog("method=killed future already set", bucketIdx);
-                return;
+                continue;
             }
-            setBucketFailure(bucketIdx, throwable);
+            if (pendingBucket.pageIdx > -1 && pendingBucket.pageIdx != nextPageIdx[bucketIdx]) {
+                continue;
+            }
+            return pendingBucket;
         }
+        return null;
     }
 
-    private void setBucketFailure(int bucketIdx, Throwable throwable) {
+    private void applyBucket(PendingBucket pendingBucket) {
+        int bucketIdx = pendingBucket.bucketIdx;
+        if (isExhausted(bucketIdx)) {
+            // upstream failed or already sent its last bucket
+            if (traceEnabled) {
+                logger.trace("bucket is exhausted, ignoring it. node={} phaseId={} bucket={}", nodeName, id, bucketIdx);
+            }
+            if (pendingBucket.listener != null) {
+                pendingBucket.listener.needMore(false);
+            }
+            return;
+        }
+        if (pendingBucket.pageIdx > -1) {
+            nextPageIdx[bucketIdx]++;
+        }
+        if (pendingBucket.listener != null) {
+            synchronized (listeners) {
+                listeners.add(pendingBucket.listener);
+            }
+        }
         // can't trigger failure on pageDownstream immediately as it would remove the context which the other
         // upstreams still require
         if (pageEmpty()) {
-            traceLog("calling nextPage. method=setBucketFailure", bucketIdx);
+            traceLog("calling nextPage method=applyBucket", bucketIdx);
+            pageConsuming = true;
             pageDownstream.nextPage(new BucketPage(bucketFutures), new ResultListenerBridgingConsumeListener());
         }
         setExhaustedUpstreams();
 
-        exhausted.set(bucketIdx);
-        bucketFutures.get(bucketIdx).setException(throwable);
+        if (pendingBucket.failure == null) {
+            if (pendingBucket.isLast) {
+                exhausted.set(bucketIdx);
+            }
+            bucketFutures.get(bucketIdx).set(pendingBucket.rows);
+        } else {
+            exhausted.set(bucketIdx);
+            bucketFutures.get(bucketIdx).setException(pendingBucket.failure);
+        }
         allFuturesSet.set(bucketIdx);
         clearPageIfFull(bucketIdx);
     }
 
+    private void discardPendingBuckets() {
+        synchronized (lock) {
+            for (PendingBucket pendingBucket : pendingBuckets) {
+                if (pendingBucket.listener != null) {
+                    pendingBucket.listener.needMore(false);
+                }
+            }
+            pendingBuckets.clear();
+        }
+    }
+
     private void clearPageIfFull(int bucketIdx) {
         if (allFuturesSet.cardinality() == numBuckets) {
             traceLog("page is full, clearing it", bucketIdx);
@@ -233,6 +341,11 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
         }
     }
 
+    @Override
+    public RamAccountingContext ramAccountingContext() {
+        return ramAccountingContext;
+    }
+
     @Override
     public String name() {
         return name;
@@ -276,7 +389,13 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
                 listeners.clear();
             }
             if (allExhausted) {
+                discardPendingBuckets();
                 PageDownstreamContext.this.close();
+                return;
+            }
+            synchronized (lock) {
+                pageConsuming = false;
+                applyPendingBuckets();
             }
         }
 
@@ -290,8 +409,33 @@ public class PageDownstreamContext extends AbstractExecutionSubContext implement
                     listener.needMore(false);
                 }
                 listeners.clear();
-                PageDownstreamContext.this.close();
             }
+            discardPendingBuckets();
+            PageDownstreamContext.this.close();
+        }
+    }
+
+    private static class PendingBucket {
+
+        private final int bucketIdx;
+        private final int pageIdx;
+        private final Bucket rows;
+        private final boolean isLast;
+        private final PageResultListener listener;
+        private final Throwable failure;
+
+        PendingBucket(int bucketIdx,
+                      int pageIdx,
+                      @Nullable Bucket rows,
+                      boolean isLast,
+                      @Nullable PageResultListener listener,
+                      @Nullable Throwable failure) {
+            this.bucketIdx = bucketIdx;
+            this.pageIdx = pageIdx;
+            this.rows = rows;
+            this.isLast = isLast;
+            this.listener = listener;
+            this.failure = failure;
         }
     }
 }
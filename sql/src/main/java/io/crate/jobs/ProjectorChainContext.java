@@ -40,6 +40,7 @@ public class ProjectorChainContext extends AbstractExecutionSubContext {
 
     private final String name;
     private final RowReceiver rowReceiver;
+    private final RamAccountingContext ramAccountingContext;
 
     public ProjectorChainContext(int id,
                                  String name,
@@ -50,6 +51,7 @@ public class ProjectorChainContext extends AbstractExecutionSubContext {
                                  RamAccountingContext ramAccountingContext) {
         super(id, LOGGER);
         this.name = name;
+        this.ramAccountingContext = ramAccountingContext;
         ListenableRowReceiver listenableRowReceiver = RowReceivers.listenableRowReceiver(rowReceiver);
         Futures.addCallback(listenableRowReceiver.finishFuture(), new FutureCallback<Void>() {
             @Override
@@ -82,6 +84,11 @@ public class ProjectorChainContext extends AbstractExecutionSubContext {
         return name;
     }
 
+    @Override
+    public RamAccountingContext ramAccountingContext() {
+        return ramAccountingContext;
+    }
+
     public RowReceiver rowReceiver() {
         return rowReceiver;
     }
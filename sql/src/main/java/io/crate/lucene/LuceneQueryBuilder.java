@@ -22,6 +22,8 @@
 package io.crate.lucene;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -113,6 +115,12 @@ public class LuceneQueryBuilder {
     private final static Visitor VISITOR = new Visitor();
     private final DocInputFactory docInputFactory;
 
+    /**
+     * Terms queries of set literals (the result of large IN (subquery) expressions) keyed by the identity of the
+     * literal. All shards of a node share the literals of a collect phase, so the query is only built once per node.
+     */
+    private final Cache<Literal, SetTermsQuery> setTermsQueries = CacheBuilder.newBuilder().weakKeys().build();
+
     @Inject
     public LuceneQueryBuilder(Functions functions) {
         docInputFactory = new DocInputFactory(functions, new LuceneReferenceResolver(null));
@@ -122,7 +130,7 @@ public class LuceneQueryBuilder {
                            MapperService mapperService,
                            IndexFieldDataService indexFieldDataService,
                            IndexCache indexCache) throws UnsupportedFeatureException {
-        Context ctx = new Context(docInputFactory, mapperService, indexFieldDataService, indexCache);
+        Context ctx = new Context(docInputFactory, mapperService, indexFieldDataService, indexCache, setTermsQueries);
         if (whereClause.noMatch()) {
             ctx.query = Queries.newMatchNoDocsQuery();
         } else if (!whereClause.hasQuery()) {
@@ -152,9 +160,23 @@ public class LuceneQueryBuilder {
         if (val instanceof Object[]) {
             return Stream.of((Object[])val).filter(Objects::nonNull).collect(Collectors.toList());
         }
+        if (val instanceof Set) {
+            return ((Set<?>) val).stream().filter(Objects::nonNull).collect(Collectors.toList());
+        }
         return (List) val;
     }
 
+    private static class SetTermsQuery {
+
+        private final MappedFieldType fieldType;
+        private final Query query;
+
+        SetTermsQuery(MappedFieldType fieldType, Query query) {
+            this.fieldType = fieldType;
+            this.query = query;
+        }
+    }
+
     public static class Context {
         Query query;
 
@@ -164,15 +186,18 @@ public class LuceneQueryBuilder {
         final MapperService mapperService;
         final IndexFieldDataService fieldDataService;
         final IndexCache indexCache;
+        private final Cache<Literal, SetTermsQuery> setTermsQueries;
 
         Context(DocInputFactory docInputFactory,
                 MapperService mapperService,
                 IndexFieldDataService fieldDataService,
-                IndexCache indexCache) {
+                IndexCache indexCache,
+                Cache<Literal, SetTermsQuery> setTermsQueries) {
             this.docInputFactory = docInputFactory;
             this.mapperService = mapperService;
             this.fieldDataService = fieldDataService;
             this.indexCache = indexCache;
+            this.setTermsQueries = setTermsQueries;
         }
 
         public Query query() {
@@ -217,6 +242,19 @@ public class LuceneQueryBuilder {
         MappedFieldType getFieldTypeOrNull(String fqColumnName) {
             return mapperService.smartNameFieldType(fqColumnName);
         }
+
+        /**
+         * Returns the terms query for the values of the set literal, re-using the query built for another shard if
+         * the field type matches.
+         */
+        Query setTermsQuery(MappedFieldType fieldType, Literal setLiteral) {
+            SetTermsQuery setTermsQuery = setTermsQueries.getIfPresent(setLiteral);
+            if (setTermsQuery == null || !setTermsQuery.fieldType.equals(fieldType)) {
+                setTermsQuery = new SetTermsQuery(fieldType, termsQuery(fieldType, asList(setLiteral)));
+                setTermsQueries.put(setLiteral, setTermsQuery);
+            }
+            return setTermsQuery.query;
+        }
     }
 
     public static String convertSqlLikeToLuceneWildcard(String wildcardString) {
@@ -347,7 +385,11 @@ public class LuceneQueryBuilder {
             @Override
             protected Query applyArrayLiteral(Reference reference, Literal arrayLiteral, Context context) throws IOException {
                 String columnName = reference.ident().columnIdent().fqn();
-                return termsQuery(context.getFieldTypeOrNull(columnName), asList(arrayLiteral));
+                MappedFieldType fieldType = context.getFieldTypeOrNull(columnName);
+                if (fieldType != null && arrayLiteral.value() instanceof Set) {
+                    return context.setTermsQuery(fieldType, arrayLiteral);
+                }
+                return termsQuery(fieldType, asList(arrayLiteral));
             }
         }
 
@@ -25,6 +25,7 @@ package io.crate.metadata;
 import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
+import io.crate.operation.Input;
 import io.crate.types.DataType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 
@@ -87,6 +88,29 @@ public class ReferenceToLiteralConverter extends ReplacingSymbolVisitor<Referenc
             return Literal.of(dataType, dataType.value(null));
         }
 
+        /**
+         * Like {@link #resolveReferenceValue(Reference)} but returns an input which reads the value of the
+         * reference from the values which are set when {@link Input#value()} is called.
+         */
+        public Input<?> inputFor(Reference reference) {
+            InputColumn inputColumn = referenceInputColumnMap.get(reference);
+            if (inputColumn == null) {
+                DataType dataType = reference.valueType();
+                Object value = dataType.value(null);
+                return () -> value;
+            }
+            DataType dataType = inputColumn.valueType();
+            int idx = inputColumn.index();
+            if (inputIsMap.get(idx)) {
+                ColumnIdent columnIdent = reference.ident().columnIdent().shiftRight();
+                assert columnIdent != null : "shifted ColumnIdent must not be null";
+                String path = columnIdent.fqn();
+                //noinspection unchecked
+                return () -> dataType.value(XContentMapValues.extractValue(path, (Map) values[idx]));
+            }
+            return () -> dataType.value(values[idx]);
+        }
+
     }
 
     public ReferenceToLiteralConverter() {
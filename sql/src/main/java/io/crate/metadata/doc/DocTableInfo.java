@@ -90,6 +90,7 @@ public class DocTableInfo implements TableInfo, ShardedTable {
     private final Set<Operation> supportedOperations;
 
     private final List<PartitionName> partitions;
+    private volatile PartitionIndex partitionIndex;
 
     private final boolean isAlias;
     private final boolean hasAutoGeneratedPrimaryKey;
@@ -371,6 +372,18 @@ public class DocTableInfo implements TableInfo, ShardedTable {
         return partitions;
     }
 
+    /**
+     * @return an index over the values of the {@linkplain #partitions()}, built on first use.
+     */
+    public PartitionIndex partitionIndex() {
+        PartitionIndex index = partitionIndex;
+        if (index == null) {
+            index = new PartitionIndex(partitionedByColumns, partitions);
+            partitionIndex = index;
+        }
+        return index;
+    }
+
     /**
      * returns <code>true</code> if this table is a partitioned table,
      * <code>false</code> otherwise
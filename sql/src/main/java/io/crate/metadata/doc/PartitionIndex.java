@@ -0,0 +1,200 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.doc;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.Reference;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Index over the values of the partitions of a partitioned table.
+ * <p>
+ * For every partition column the distinct values are kept sorted together with the partitions having that value.
+ * This allows to look up the partitions matching an equality or range condition using a binary search instead of
+ * evaluating the condition for every partition.
+ * </p>
+ * Partitions are identified by their position in the list of partitions the index has been built from.
+ * The index is built once per {@link DocTableInfo}, which is re-created if the partitions of a table change.
+ */
+public class PartitionIndex {
+
+    private final List<PartitionName> partitions;
+    private final Map<ColumnIdent, ColumnIndex> columns;
+
+    public PartitionIndex(List<Reference> partitionedByColumns, List<PartitionName> partitions) {
+        this.partitions = partitions;
+        this.columns = new HashMap<>(partitionedByColumns.size());
+        for (int i = 0; i < partitionedByColumns.size(); i++) {
+            Reference column = partitionedByColumns.get(i);
+            columns.put(column.ident().columnIdent(), new ColumnIndex(column.valueType(), partitions, i));
+        }
+    }
+
+    public int size() {
+        return partitions.size();
+    }
+
+    public PartitionName partition(int id) {
+        return partitions.get(id);
+    }
+
+    /**
+     * @return the type of the given partition column or null if the column isn't a partition column
+     */
+    @Nullable
+    public DataType type(ColumnIdent column) {
+        ColumnIndex columnIndex = columns.get(column);
+        return columnIndex == null ? null : columnIndex.type;
+    }
+
+    public BitSet all() {
+        BitSet all = new BitSet(partitions.size());
+        all.set(0, partitions.size());
+        return all;
+    }
+
+    /**
+     * @param value a value of the type of the column, must not be null.
+     * @return the partitions whose value of the partition column is equal to value
+     */
+    public BitSet equalTo(ColumnIdent column, Object value) {
+        return range(column, value, true, value, true);
+    }
+
+    /**
+     * @param lower the lower bound of the range or null if the range is unbounded
+     * @param upper the upper bound of the range or null if the range is unbounded
+     * @return the partitions whose value of the partition column is within the range, null values never match
+     */
+    public BitSet range(ColumnIdent column,
+                        @Nullable Object lower,
+                        boolean lowerInclusive,
+                        @Nullable Object upper,
+                        boolean upperInclusive) {
+        ColumnIndex columnIndex = columns.get(column);
+        assert columnIndex != null : "column " + column + " is not a partition column";
+        int from = lower == null ? 0 : columnIndex.lowerBound(lower, lowerInclusive);
+        int to = upper == null ? columnIndex.values.length : columnIndex.upperBound(upper, upperInclusive);
+        BitSet result = new BitSet(partitions.size());
+        for (int i = from; i < to; i++) {
+            for (int j = columnIndex.offsets[i]; j < columnIndex.offsets[i + 1]; j++) {
+                result.set(columnIndex.partitionIds[j]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the partitions whose value of the partition column is null
+     */
+    public BitSet isNull(ColumnIdent column) {
+        ColumnIndex columnIndex = columns.get(column);
+        assert columnIndex != null : "column " + column + " is not a partition column";
+        return (BitSet) columnIndex.nullPartitions.clone();
+    }
+
+    private static class ColumnIndex {
+
+        private final DataType type;
+        private final Comparator<Object> comparator;
+
+        /**
+         * sorted distinct values
+         */
+        private final Object[] values;
+
+        /**
+         * the partitions having the value values[i] are partitionIds[offsets[i]] until partitionIds[offsets[i + 1]]
+         */
+        private final int[] offsets;
+        private final int[] partitionIds;
+        private final BitSet nullPartitions = new BitSet();
+
+        @SuppressWarnings("unchecked")
+        ColumnIndex(final DataType type, List<PartitionName> partitions, int valuesIndex) {
+            this.type = type;
+            this.comparator = new Comparator<Object>() {
+                @Override
+                public int compare(Object o1, Object o2) {
+                    return type.compareValueTo(o1, o2);
+                }
+            };
+            TreeMap<Object, List<Integer>> partitionsByValue = new TreeMap<>(comparator);
+            int numNonNull = 0;
+            for (int i = 0; i < partitions.size(); i++) {
+                Object value = type.value(partitions.get(i).values().get(valuesIndex));
+                if (value == null) {
+                    nullPartitions.set(i);
+                    continue;
+                }
+                List<Integer> ids = partitionsByValue.get(value);
+                if (ids == null) {
+                    ids = new ArrayList<>(1);
+                    partitionsByValue.put(value, ids);
+                }
+                ids.add(i);
+                numNonNull++;
+            }
+            values = new Object[partitionsByValue.size()];
+            offsets = new int[partitionsByValue.size() + 1];
+            partitionIds = new int[numNonNull];
+            int i = 0;
+            int pos = 0;
+            for (Map.Entry<Object, List<Integer>> entry : partitionsByValue.entrySet()) {
+                values[i] = entry.getKey();
+                offsets[i] = pos;
+                for (Integer id : entry.getValue()) {
+                    partitionIds[pos++] = id;
+                }
+                i++;
+            }
+            offsets[i] = pos;
+        }
+
+        /**
+         * @return the position of the first value which is greater than (or equal to, if inclusive) the given value
+         */
+        int lowerBound(Object value, boolean inclusive) {
+            int pos = Arrays.binarySearch(values, value, comparator);
+            if (pos < 0) {
+                return -pos - 1;
+            }
+            return inclusive ? pos : pos + 1;
+        }
+
+        /**
+         * @return the position after the last value which is less than (or equal to, if inclusive) the given value
+         */
+        int upperBound(Object value, boolean inclusive) {
+            int pos = Arrays.binarySearch(values, value, comparator);
+            if (pos < 0) {
+                return -pos - 1;
+            }
+            return inclusive ? pos + 1 : pos;
+        }
+    }
+}
@@ -41,6 +41,7 @@ public class PgCatalogSchemaInfo implements SchemaInfo {
     public PgCatalogSchemaInfo(ClusterService clusterService) {
         this.tableInfoMap = ImmutableSortedMap.<String, TableInfo>naturalOrder()
             .put(PgTypeTable.IDENT.name(), new PgTypeTable(clusterService))
+            .put(PgStatsTable.IDENT.name(), new PgStatsTable(clusterService))
             .build();
     }
 
@@ -27,18 +27,33 @@ import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.RowCollectExpression;
 import io.crate.metadata.RowContextCollectorExpression;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
+import io.crate.planner.TableStatsService;
+import io.crate.planner.statistics.ColumnStats;
 import io.crate.protocols.postgres.types.PGType;
 import io.crate.protocols.postgres.types.PGTypes;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lucene.BytesRefs;
 
 import java.util.Map;
 
 public class PgCatalogTables {
 
+    private final TableStatsService tableStatsService;
+
+    @Inject
+    public PgCatalogTables(TableStatsService tableStatsService) {
+        this.tableStatsService = tableStatsService;
+    }
+
     public Iterable<PGType> typesGetter() {
         return PGTypes.pgTypes();
     }
 
+    public Iterable<ColumnStats> statsGetter() {
+        return tableStatsService.columnStats();
+    }
+
     public static Map<ColumnIdent, RowCollectExpressionFactory> pgTypeExpressions() {
         return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
             .put(PgTypeTable.Columns.OID, new RowCollectExpressionFactory() {
@@ -87,4 +102,86 @@ public class PgCatalogTables {
             })
             .build();
     }
+
+    public static Map<ColumnIdent, RowCollectExpressionFactory> pgStatsExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(PgStatsTable.Columns.SCHEMANAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.tableIdent().schema());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.TABLENAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.tableIdent().name());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.ATTNAME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return new BytesRef(row.column().sqlFqn());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.NULL_FRAC, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, Float>() {
+                        @Override
+                        public Float value() {
+                            return (float) row.nullFraction();
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.N_DISTINCT, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, Float>() {
+                        @Override
+                        public Float value() {
+                            return (float) row.approxDistinct();
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.MIN_VAL, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return BytesRefs.toBytesRef(row.min());
+                        }
+                    };
+                }
+            })
+            .put(PgStatsTable.Columns.MAX_VAL, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<ColumnStats, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return BytesRefs.toBytesRef(row.max());
+                        }
+                    };
+                }
+            })
+            .build();
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.pg_catalog;
+
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.TableIdent;
+import io.crate.metadata.table.ColumnRegistrar;
+import io.crate.metadata.table.StaticTableInfo;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterService;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+
+/**
+ * Exposes the column statistics gathered by the {@link io.crate.planner.TableStatsService},
+ * similar to the <code>pg_stats</code> view of PostgreSQL.
+ */
+public class PgStatsTable extends StaticTableInfo {
+
+    public static final TableIdent IDENT = new TableIdent(PgCatalogSchemaInfo.NAME, "pg_stats");
+    private final ClusterService clusterService;
+
+    static class Columns {
+        static final ColumnIdent SCHEMANAME = new ColumnIdent("schemaname");
+        static final ColumnIdent TABLENAME = new ColumnIdent("tablename");
+        static final ColumnIdent ATTNAME = new ColumnIdent("attname");
+        static final ColumnIdent NULL_FRAC = new ColumnIdent("null_frac");
+        static final ColumnIdent N_DISTINCT = new ColumnIdent("n_distinct");
+        static final ColumnIdent MIN_VAL = new ColumnIdent("min_val");
+        static final ColumnIdent MAX_VAL = new ColumnIdent("max_val");
+    }
+
+    public PgStatsTable(ClusterService clusterService) {
+        super(IDENT, new ColumnRegistrar(IDENT, RowGranularity.DOC)
+                .register("schemaname", DataTypes.STRING, null)
+                .register("tablename", DataTypes.STRING, null)
+                .register("attname", DataTypes.STRING, null)
+                .register("null_frac", DataTypes.FLOAT, null)
+                .register("n_distinct", DataTypes.FLOAT, null)
+                .register("min_val", DataTypes.STRING, null)
+                .register("max_val", DataTypes.STRING, null),
+            Collections.<ColumnIdent>emptyList());
+        this.clusterService = clusterService;
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return RowGranularity.DOC;
+    }
+
+    @Override
+    public Routing getRouting(WhereClause whereClause, @Nullable String preference) {
+        return Routing.forTableOnSingleNode(IDENT, clusterService.localNode().getId());
+    }
+}
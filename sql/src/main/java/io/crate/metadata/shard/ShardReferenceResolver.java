@@ -27,6 +27,7 @@ import io.crate.exceptions.UnhandledServerException;
 import io.crate.metadata.*;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.sys.SysShardsTableInfo;
+import io.crate.operation.collect.QueryResultCache;
 import io.crate.operation.reference.partitioned.PartitionedColumnExpression;
 import io.crate.operation.reference.sys.shard.*;
 import org.elasticsearch.cluster.ClusterService;
@@ -36,6 +37,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
 
 public class ShardReferenceResolver extends AbstractReferenceResolver {
@@ -44,7 +46,8 @@ public class ShardReferenceResolver extends AbstractReferenceResolver {
 
     public ShardReferenceResolver(ClusterService clusterService,
                                   Schemas schemas,
-                                  IndexShard indexShard) {
+                                  IndexShard indexShard,
+                                  @Nullable QueryResultCache queryResultCache) {
         ShardId shardId = indexShard.shardId();
         Index index = indexShard.indexService().index();
 
@@ -69,6 +72,8 @@ public class ShardReferenceResolver extends AbstractReferenceResolver {
             new ShardPartitionOrphanedExpression(shardId, clusterService));
         implementations.put(SysShardsTableInfo.ReferenceIdents.PATH, new ShardPathExpression(indexShard));
         implementations.put(SysShardsTableInfo.ReferenceIdents.BLOB_PATH, new LiteralReferenceImplementation<>(null));
+        implementations.put(SysShardsTableInfo.ReferenceIdents.QUERY_RESULT_CACHE,
+            new ShardQueryResultCacheExpression(queryResultCache));
         this.implementations.putAll(builder.build());
     }
 
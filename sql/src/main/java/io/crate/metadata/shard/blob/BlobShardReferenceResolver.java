@@ -56,5 +56,7 @@ public class BlobShardReferenceResolver extends AbstractReferenceResolver {
             new LiteralReferenceImplementation<>(false));
         implementations.put(SysShardsTableInfo.ReferenceIdents.PATH, new ShardPathExpression(indexShard));
         implementations.put(SysShardsTableInfo.ReferenceIdents.BLOB_PATH, new BlobShardBlobPathExpression(blobShard));
+        implementations.put(SysShardsTableInfo.ReferenceIdents.QUERY_RESULT_CACHE,
+            new ShardQueryResultCacheExpression(null));
     }
 }
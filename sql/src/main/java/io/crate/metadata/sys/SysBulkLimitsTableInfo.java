@@ -0,0 +1,83 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.*;
+import io.crate.metadata.table.ColumnRegistrar;
+import io.crate.metadata.table.StaticTableInfo;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterService;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+
+public class SysBulkLimitsTableInfo extends StaticTableInfo {
+
+    public static final TableIdent IDENT = new TableIdent(SysSchemaInfo.NAME, "bulk_limits");
+    private final ClusterService clusterService;
+
+    public static class Columns {
+        public final static ColumnIdent TARGET_NODE = new ColumnIdent("target_node");
+        public final static ColumnIdent CONCURRENCY_LIMIT = new ColumnIdent("concurrency_limit");
+        public final static ColumnIdent ACTIVE_REQUESTS = new ColumnIdent("active_requests");
+        public final static ColumnIdent QUEUED_REQUESTS = new ColumnIdent("queued_requests");
+        public final static ColumnIdent RETRIES = new ColumnIdent("retries");
+        public final static ColumnIdent REJECTIONS = new ColumnIdent("rejections");
+    }
+
+    private final TableColumn nodesTableColumn;
+
+    SysBulkLimitsTableInfo(ClusterService clusterService, SysNodesTableInfo sysNodesTableInfo) {
+        super(IDENT, new ColumnRegistrar(IDENT, RowGranularity.DOC)
+                .register(Columns.TARGET_NODE, DataTypes.STRING)
+                .register(Columns.CONCURRENCY_LIMIT, DataTypes.INTEGER)
+                .register(Columns.ACTIVE_REQUESTS, DataTypes.INTEGER)
+                .register(Columns.QUEUED_REQUESTS, DataTypes.INTEGER)
+                .register(Columns.RETRIES, DataTypes.LONG)
+                .register(Columns.REJECTIONS, DataTypes.LONG)
+                .putInfoOnly(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT)),
+            Collections.<ColumnIdent>emptyList());
+        this.clusterService = clusterService;
+        nodesTableColumn = sysNodesTableInfo.tableColumn();
+    }
+
+    @Nullable
+    @Override
+    public Reference getReference(ColumnIdent columnIdent) {
+        Reference info = super.getReference(columnIdent);
+        if (info == null) {
+            return nodesTableColumn.getReference(this.ident(), columnIdent);
+        }
+        return info;
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return RowGranularity.DOC;
+    }
+
+    @Override
+    public Routing getRouting(WhereClause whereClause, @Nullable String preference) {
+        return Routing.forTableOnAllNodes(IDENT, clusterService.state().nodes());
+    }
+}
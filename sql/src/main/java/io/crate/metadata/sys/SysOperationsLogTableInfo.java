@@ -48,6 +48,13 @@ public class SysOperationsLogTableInfo extends StaticTableInfo {
         public static final ColumnIdent STARTED = new ColumnIdent("started");
         public static final ColumnIdent ENDED = new ColumnIdent("ended");
         public static final ColumnIdent USED_BYTES = new ColumnIdent("used_bytes");
+        public static final ColumnIdent SPILLED_RUNS = new ColumnIdent("spilled_runs");
+        public static final ColumnIdent SPILLED_BYTES = new ColumnIdent("spilled_bytes");
+        public static final ColumnIdent FETCH_LATENCY = new ColumnIdent("fetch_latency");
+        public static final ColumnIdent FETCHED_DOCS_PER_SECOND = new ColumnIdent("fetched_docs_per_second");
+        public static final ColumnIdent PRUNED_ROWS = new ColumnIdent("pruned_rows");
+        public static final ColumnIdent PAUSED_COUNT = new ColumnIdent("paused_count");
+        public static final ColumnIdent PAUSED_TIME = new ColumnIdent("paused_time");
         public static final ColumnIdent ERROR = new ColumnIdent("error");
     }
 
@@ -62,6 +69,13 @@ public class SysOperationsLogTableInfo extends StaticTableInfo {
             .register(Columns.STARTED, DataTypes.TIMESTAMP)
             .register(Columns.ENDED, DataTypes.TIMESTAMP)
             .register(Columns.USED_BYTES, DataTypes.LONG)
+            .register(Columns.SPILLED_RUNS, DataTypes.LONG)
+            .register(Columns.SPILLED_BYTES, DataTypes.LONG)
+            .register(Columns.FETCH_LATENCY, DataTypes.LONG)
+            .register(Columns.FETCHED_DOCS_PER_SECOND, DataTypes.DOUBLE)
+            .register(Columns.PRUNED_ROWS, DataTypes.LONG)
+            .register(Columns.PAUSED_COUNT, DataTypes.LONG)
+            .register(Columns.PAUSED_TIME, DataTypes.LONG)
             .register(Columns.ERROR, DataTypes.STRING), Collections.<ColumnIdent>emptyList());
         this.clusterService = clusterService;
     }
@@ -45,6 +45,13 @@ public class SysOperationsTableInfo extends StaticTableInfo {
         public final static ColumnIdent NAME = new ColumnIdent("name");
         public final static ColumnIdent STARTED = new ColumnIdent("started");
         public final static ColumnIdent USED_BYTES = new ColumnIdent("used_bytes");
+        public final static ColumnIdent SPILLED_RUNS = new ColumnIdent("spilled_runs");
+        public final static ColumnIdent SPILLED_BYTES = new ColumnIdent("spilled_bytes");
+        public final static ColumnIdent FETCH_LATENCY = new ColumnIdent("fetch_latency");
+        public final static ColumnIdent FETCHED_DOCS_PER_SECOND = new ColumnIdent("fetched_docs_per_second");
+        public final static ColumnIdent PRUNED_ROWS = new ColumnIdent("pruned_rows");
+        public final static ColumnIdent PAUSED_COUNT = new ColumnIdent("paused_count");
+        public final static ColumnIdent PAUSED_TIME = new ColumnIdent("paused_time");
     }
 
     private final TableColumn nodesTableColumn;
@@ -57,6 +64,13 @@ public class SysOperationsTableInfo extends StaticTableInfo {
                 .register(Columns.NAME, DataTypes.STRING)
                 .register(Columns.STARTED, DataTypes.TIMESTAMP)
                 .register(Columns.USED_BYTES, DataTypes.LONG)
+                .register(Columns.SPILLED_RUNS, DataTypes.LONG)
+                .register(Columns.SPILLED_BYTES, DataTypes.LONG)
+                .register(Columns.FETCH_LATENCY, DataTypes.LONG)
+                .register(Columns.FETCHED_DOCS_PER_SECOND, DataTypes.DOUBLE)
+                .register(Columns.PRUNED_ROWS, DataTypes.LONG)
+                .register(Columns.PAUSED_COUNT, DataTypes.LONG)
+                .register(Columns.PAUSED_TIME, DataTypes.LONG)
                 .putInfoOnly(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT)),
             Collections.<ColumnIdent>emptyList());
         this.clusterService = clusterService;
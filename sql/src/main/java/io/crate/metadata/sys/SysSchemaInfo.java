@@ -56,6 +56,8 @@ public class SysSchemaInfo implements SchemaInfo {
             .put(SysRepositoriesTableInfo.IDENT.name(), new SysRepositoriesTableInfo(clusterService))
             .put(SysSnapshotsTableInfo.IDENT.name(), new SysSnapshotsTableInfo(clusterService))
             .put(SysSummitsTableInfo.IDENT.name(), new SysSummitsTableInfo(clusterService))
+            .put(SysStatementCacheTableInfo.IDENT.name(), new SysStatementCacheTableInfo(clusterService, sysNodesTableInfo))
+            .put(SysBulkLimitsTableInfo.IDENT.name(), new SysBulkLimitsTableInfo(clusterService, sysNodesTableInfo))
             .build();
     }
 
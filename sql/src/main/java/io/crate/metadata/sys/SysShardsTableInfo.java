@@ -91,6 +91,16 @@ public class SysShardsTableInfo extends StaticTableInfo {
 
         public static final ColumnIdent PATH = new ColumnIdent("path");
         public static final ColumnIdent BLOB_PATH = new ColumnIdent("blob_path");
+
+        public static final ColumnIdent QUERY_RESULT_CACHE = new ColumnIdent("query_result_cache");
+        public static final ColumnIdent QUERY_RESULT_CACHE_HITS =
+            new ColumnIdent("query_result_cache", ImmutableList.of("hits"));
+        public static final ColumnIdent QUERY_RESULT_CACHE_MISSES =
+            new ColumnIdent("query_result_cache", ImmutableList.of("misses"));
+        public static final ColumnIdent QUERY_RESULT_CACHE_EVICTIONS =
+            new ColumnIdent("query_result_cache", ImmutableList.of("evictions"));
+        public static final ColumnIdent QUERY_RESULT_CACHE_SIZE =
+            new ColumnIdent("query_result_cache", ImmutableList.of("size"));
     }
 
     public static class ReferenceIdents {
@@ -116,6 +126,7 @@ public class SysShardsTableInfo extends StaticTableInfo {
         public static final ReferenceIdent RECOVERY = new ReferenceIdent(IDENT, Columns.RECOVERY);
         public static final ReferenceIdent PATH = new ReferenceIdent(IDENT, Columns.PATH);
         public static final ReferenceIdent BLOB_PATH = new ReferenceIdent(IDENT, Columns.BLOB_PATH);
+        public static final ReferenceIdent QUERY_RESULT_CACHE = new ReferenceIdent(IDENT, Columns.QUERY_RESULT_CACHE);
     }
 
     private static final ImmutableList<ColumnIdent> PRIMARY_KEY = ImmutableList.of(
@@ -160,6 +171,12 @@ public class SysShardsTableInfo extends StaticTableInfo {
                 .register(Columns.RECOVERY_FILES_PERCENT, FloatType.INSTANCE)
                 .register(Columns.PATH, DataTypes.STRING)
                 .register(Columns.BLOB_PATH, DataTypes.STRING)
+
+                .register(Columns.QUERY_RESULT_CACHE, ObjectType.INSTANCE)
+                .register(Columns.QUERY_RESULT_CACHE_HITS, LongType.INSTANCE)
+                .register(Columns.QUERY_RESULT_CACHE_MISSES, LongType.INSTANCE)
+                .register(Columns.QUERY_RESULT_CACHE_EVICTIONS, LongType.INSTANCE)
+                .register(Columns.QUERY_RESULT_CACHE_SIZE, LongType.INSTANCE)
                 .putInfoOnly(SysNodesTableInfo.SYS_COL_IDENT, SysNodesTableInfo.tableColumnInfo(IDENT)),
             PRIMARY_KEY);
         this.service = service;
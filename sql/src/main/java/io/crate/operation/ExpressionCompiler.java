@@ -0,0 +1,747 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.operation;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.operation.operator.*;
+import io.crate.operation.predicate.IsNullPredicate;
+import io.crate.operation.predicate.NotPredicate;
+import io.crate.operation.scalar.arithmetic.*;
+import io.crate.types.*;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles trees of arithmetic, comparison and logical functions into evaluators which work on primitive values.
+ *
+ * <p>
+ *     The interpreted {@link io.crate.operation.aggregation.FunctionExpression} boxes the result of every function
+ *     and passes the arguments as {@code Input[]} to {@link io.crate.metadata.Scalar#evaluate(Input[])}.
+ *     The compiled evaluators of a tree work on {@code long}, {@code double} and three valued {@code int} values,
+ *     track nulls using a flag and evaluate {@code AND} and {@code OR} with short-circuit logic.
+ *     Only the result of the root is boxed.
+ * </p>
+ *
+ * <p>
+ *     Symbols which can't be compiled, e.g. input columns or other scalar functions, are created using the
+ *     interpreter and their values are converted.
+ * </p>
+ */
+public final class ExpressionCompiler {
+
+    /**
+     * node setting to disable the compilation of expressions
+     */
+    public static final String COMPILE_EXPRESSIONS_SETTING = "sql.expressions.compile";
+
+    private static final Set<String> ARITHMETIC_FUNCTIONS = ImmutableSet.of(
+        AddFunction.NAME, SubtractFunction.NAME, MultiplyFunction.NAME, DivideFunction.NAME, ModulusFunction.NAME);
+    private static final Set<String> COMPARISON_OPERATORS = ImmutableSet.of(
+        EqOperator.NAME, GtOperator.NAME, GteOperator.NAME, LtOperator.NAME, LteOperator.NAME);
+
+    private static final int KIND_LONG = 0;
+    private static final int KIND_DOUBLE = 1;
+    private static final int KIND_BOOLEAN = 2;
+    private static final int KIND_OTHER = 3;
+
+    private static final int ADD = 0;
+    private static final int SUBTRACT = 1;
+    private static final int MULTIPLY = 2;
+    private static final int DIVIDE = 3;
+    private static final int MODULUS = 4;
+
+    private static final int EQ = 0;
+    private static final int GT = 1;
+    private static final int GTE = 2;
+    private static final int LT = 3;
+    private static final int LTE = 4;
+
+    private static final int TRUE = 1;
+    private static final int FALSE = 0;
+    private static final int NULL = -1;
+
+    private final java.util.function.Function<Symbol, Input<?>> interpreter;
+
+    private ExpressionCompiler(java.util.function.Function<Symbol, Input<?>> interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    public static boolean isEnabled(Settings settings) {
+        return settings.getAsBoolean(COMPILE_EXPRESSIONS_SETTING, true);
+    }
+
+    /**
+     * @param interpreter used to create the inputs of all symbols within the tree which can't be compiled
+     * @return the compiled function or null if the function itself can't be compiled
+     */
+    @Nullable
+    public static Input<?> compile(Function function, java.util.function.Function<Symbol, Input<?>> interpreter) {
+        if (!isCompilable(function)) {
+            return null;
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler(interpreter);
+        switch (kindOf(function.valueType())) {
+            case KIND_LONG:
+                return new LongResult(compiler.toLong(function));
+            case KIND_DOUBLE:
+                return new DoubleResult(compiler.toDouble(function));
+            case KIND_BOOLEAN:
+                return new BooleanResult(compiler.toBool(function));
+            default:
+                return null;
+        }
+    }
+
+    private static int kindOf(DataType type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+                return KIND_LONG;
+            case FloatType.ID:
+            case DoubleType.ID:
+                return KIND_DOUBLE;
+            case BooleanType.ID:
+                return KIND_BOOLEAN;
+            default:
+                return KIND_OTHER;
+        }
+    }
+
+    private static boolean isNumeric(Symbol symbol) {
+        int kind = kindOf(symbol.valueType());
+        return kind == KIND_LONG || kind == KIND_DOUBLE;
+    }
+
+    private static boolean isBoolean(Symbol symbol) {
+        return kindOf(symbol.valueType()) == KIND_BOOLEAN;
+    }
+
+    private static boolean isCompilable(Symbol symbol) {
+        if (!(symbol instanceof Function)) {
+            return false;
+        }
+        Function function = (Function) symbol;
+        String name = function.info().ident().name();
+        List<Symbol> args = function.arguments();
+        if (ARITHMETIC_FUNCTIONS.contains(name)) {
+            return args.size() == 2 && isNumeric(function) && isNumeric(args.get(0)) && isNumeric(args.get(1));
+        }
+        if (COMPARISON_OPERATORS.contains(name)) {
+            // the interpreter compares the values using equals/compareTo which requires equal types
+            return args.size() == 2 && isNumeric(args.get(0)) &&
+                   args.get(0).valueType().equals(args.get(1).valueType());
+        }
+        switch (name) {
+            case AndOperator.NAME:
+            case OrOperator.NAME:
+                return args.size() == 2 && isBoolean(args.get(0)) && isBoolean(args.get(1));
+            case NotPredicate.NAME:
+                return args.size() == 1 && isBoolean(args.get(0));
+            case IsNullPredicate.NAME:
+                return args.size() == 1;
+            default:
+                return false;
+        }
+    }
+
+    private LongExpr toLong(Symbol symbol) {
+        if (isCompilable(symbol)) {
+            Function function = (Function) symbol;
+            List<Symbol> args = function.arguments();
+            return new LongArithmetic(
+                arithmeticOp(function.info().ident().name()), toLong(args.get(0)), toLong(args.get(1)));
+        }
+        if (symbol instanceof Literal) {
+            return new LongLiteral((Number) ((Literal) symbol).value());
+        }
+        return new LongInput(interpreter.apply(symbol));
+    }
+
+    private DoubleExpr toDouble(Symbol symbol) {
+        if (kindOf(symbol.valueType()) == KIND_LONG) {
+            return new LongToDouble(toLong(symbol));
+        }
+        if (isCompilable(symbol)) {
+            Function function = (Function) symbol;
+            List<Symbol> args = function.arguments();
+            return new DoubleArithmetic(
+                arithmeticOp(function.info().ident().name()), toDouble(args.get(0)), toDouble(args.get(1)));
+        }
+        if (symbol instanceof Literal) {
+            return new DoubleLiteral((Number) ((Literal) symbol).value());
+        }
+        return new DoubleInput(interpreter.apply(symbol));
+    }
+
+    private BoolExpr toBool(Symbol symbol) {
+        if (isCompilable(symbol)) {
+            Function function = (Function) symbol;
+            String name = function.info().ident().name();
+            List<Symbol> args = function.arguments();
+            switch (name) {
+                case AndOperator.NAME:
+                    return new And(toBool(args.get(0)), toBool(args.get(1)));
+                case OrOperator.NAME:
+                    return new Or(toBool(args.get(0)), toBool(args.get(1)));
+                case NotPredicate.NAME:
+                    return new Not(toBool(args.get(0)));
+                case IsNullPredicate.NAME:
+                    return toIsNull(args.get(0));
+                default:
+                    if (kindOf(args.get(0).valueType()) == KIND_LONG) {
+                        return new LongComparison(comparisonOp(name), toLong(args.get(0)), toLong(args.get(1)));
+                    }
+                    return new DoubleComparison(comparisonOp(name), toDouble(args.get(0)), toDouble(args.get(1)));
+            }
+        }
+        if (symbol instanceof Literal) {
+            Boolean value = (Boolean) ((Literal) symbol).value();
+            return new BoolLiteral(value == null ? NULL : (value ? TRUE : FALSE));
+        }
+        return new BoolInput(interpreter.apply(symbol));
+    }
+
+    private BoolExpr toIsNull(Symbol arg) {
+        switch (kindOf(arg.valueType())) {
+            case KIND_LONG:
+                return new LongIsNull(toLong(arg));
+            case KIND_DOUBLE:
+                return new DoubleIsNull(toDouble(arg));
+            case KIND_BOOLEAN:
+                return new BoolIsNull(toBool(arg));
+            default:
+                return new InputIsNull(interpreter.apply(arg));
+        }
+    }
+
+    /**
+     * Evaluates to a long value; {@link #isNull} is set by {@link #eval()}
+     */
+    abstract static class LongExpr {
+
+        boolean isNull;
+
+        abstract long eval();
+    }
+
+    /**
+     * Evaluates to a double value; {@link #isNull} is set by {@link #eval()}
+     */
+    abstract static class DoubleExpr {
+
+        boolean isNull;
+
+        abstract double eval();
+    }
+
+    /**
+     * Evaluates to {@link #TRUE}, {@link #FALSE} or {@link #NULL}
+     */
+    abstract static class BoolExpr {
+
+        abstract int eval();
+    }
+
+    private static final class LongLiteral extends LongExpr {
+
+        private final long value;
+
+        LongLiteral(@Nullable Number value) {
+            this.value = value == null ? 0L : value.longValue();
+            this.isNull = value == null;
+        }
+
+        @Override
+        long eval() {
+            return value;
+        }
+    }
+
+    private static final class LongInput extends LongExpr {
+
+        private final Input<?> input;
+
+        LongInput(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        long eval() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return 0L;
+            }
+            isNull = false;
+            return ((Number) value).longValue();
+        }
+    }
+
+    private static final class LongArithmetic extends LongExpr {
+
+        private final int op;
+        private final LongExpr left;
+        private final LongExpr right;
+
+        LongArithmetic(int op, LongExpr left, LongExpr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        long eval() {
+            long l = left.eval();
+            if (left.isNull) {
+                isNull = true;
+                return 0L;
+            }
+            long r = right.eval();
+            if (right.isNull) {
+                isNull = true;
+                return 0L;
+            }
+            isNull = false;
+            switch (op) {
+                case ADD:
+                    return l + r;
+                case SUBTRACT:
+                    return l - r;
+                case MULTIPLY:
+                    return l * r;
+                case DIVIDE:
+                    return l / r;
+                case MODULUS:
+                    return l % r;
+                default:
+                    throw new AssertionError("unsupported arithmetic operation " + op);
+            }
+        }
+    }
+
+    private static final class LongToDouble extends DoubleExpr {
+
+        private final LongExpr expr;
+
+        LongToDouble(LongExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        double eval() {
+            long value = expr.eval();
+            isNull = expr.isNull;
+            return (double) value;
+        }
+    }
+
+    private static final class DoubleLiteral extends DoubleExpr {
+
+        private final double value;
+
+        DoubleLiteral(@Nullable Number value) {
+            this.value = value == null ? 0.0d : value.doubleValue();
+            this.isNull = value == null;
+        }
+
+        @Override
+        double eval() {
+            return value;
+        }
+    }
+
+    private static final class DoubleInput extends DoubleExpr {
+
+        private final Input<?> input;
+
+        DoubleInput(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        double eval() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return 0.0d;
+            }
+            isNull = false;
+            return ((Number) value).doubleValue();
+        }
+    }
+
+    private static final class DoubleArithmetic extends DoubleExpr {
+
+        private final int op;
+        private final DoubleExpr left;
+        private final DoubleExpr right;
+
+        DoubleArithmetic(int op, DoubleExpr left, DoubleExpr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double eval() {
+            double l = left.eval();
+            if (left.isNull) {
+                isNull = true;
+                return 0.0d;
+            }
+            double r = right.eval();
+            if (right.isNull) {
+                isNull = true;
+                return 0.0d;
+            }
+            isNull = false;
+            switch (op) {
+                case ADD:
+                    return l + r;
+                case SUBTRACT:
+                    return l - r;
+                case MULTIPLY:
+                    return l * r;
+                case DIVIDE:
+                    return l / r;
+                case MODULUS:
+                    return l % r;
+                default:
+                    throw new AssertionError("unsupported arithmetic operation " + op);
+            }
+        }
+    }
+
+    private static int arithmeticOp(String name) {
+        switch (name) {
+            case AddFunction.NAME:
+                return ADD;
+            case SubtractFunction.NAME:
+                return SUBTRACT;
+            case MultiplyFunction.NAME:
+                return MULTIPLY;
+            case DivideFunction.NAME:
+                return DIVIDE;
+            case ModulusFunction.NAME:
+                return MODULUS;
+            default:
+                throw new IllegalArgumentException("not an arithmetic function: " + name);
+        }
+    }
+
+    private static int comparisonOp(String name) {
+        switch (name) {
+            case EqOperator.NAME:
+                return EQ;
+            case GtOperator.NAME:
+                return GT;
+            case GteOperator.NAME:
+                return GTE;
+            case LtOperator.NAME:
+                return LT;
+            case LteOperator.NAME:
+                return LTE;
+            default:
+                throw new IllegalArgumentException("not a comparison operator: " + name);
+        }
+    }
+
+    private static boolean matches(int op, int comparisonResult) {
+        switch (op) {
+            case EQ:
+                return comparisonResult == 0;
+            case GT:
+                return comparisonResult > 0;
+            case GTE:
+                return comparisonResult >= 0;
+            case LT:
+                return comparisonResult < 0;
+            case LTE:
+                return comparisonResult <= 0;
+            default:
+                throw new AssertionError("unsupported comparison operation " + op);
+        }
+    }
+
+    private static final class LongComparison extends BoolExpr {
+
+        private final int op;
+        private final LongExpr left;
+        private final LongExpr right;
+
+        LongComparison(int op, LongExpr left, LongExpr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval() {
+            long l = left.eval();
+            if (left.isNull) {
+                return NULL;
+            }
+            long r = right.eval();
+            if (right.isNull) {
+                return NULL;
+            }
+            return matches(op, Long.compare(l, r)) ? TRUE : FALSE;
+        }
+    }
+
+    private static final class DoubleComparison extends BoolExpr {
+
+        private final int op;
+        private final DoubleExpr left;
+        private final DoubleExpr right;
+
+        DoubleComparison(int op, DoubleExpr left, DoubleExpr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval() {
+            double l = left.eval();
+            if (left.isNull) {
+                return NULL;
+            }
+            double r = right.eval();
+            if (right.isNull) {
+                return NULL;
+            }
+            // Double.compare is consistent with Double.equals/compareTo used by the interpreter (NaN, -0.0)
+            return matches(op, Double.compare(l, r)) ? TRUE : FALSE;
+        }
+    }
+
+    private static final class And extends BoolExpr {
+
+        private final BoolExpr left;
+        private final BoolExpr right;
+
+        And(BoolExpr left, BoolExpr right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval() {
+            int l = left.eval();
+            if (l == FALSE) {
+                return FALSE;
+            }
+            int r = right.eval();
+            if (r == FALSE) {
+                return FALSE;
+            }
+            return l == NULL || r == NULL ? NULL : TRUE;
+        }
+    }
+
+    private static final class Or extends BoolExpr {
+
+        private final BoolExpr left;
+        private final BoolExpr right;
+
+        Or(BoolExpr left, BoolExpr right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int eval() {
+            int l = left.eval();
+            if (l == TRUE) {
+                return TRUE;
+            }
+            int r = right.eval();
+            if (r == TRUE) {
+                return TRUE;
+            }
+            return l == NULL || r == NULL ? NULL : FALSE;
+        }
+    }
+
+    private static final class Not extends BoolExpr {
+
+        private final BoolExpr expr;
+
+        Not(BoolExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        int eval() {
+            int value = expr.eval();
+            if (value == NULL) {
+                return NULL;
+            }
+            return value == TRUE ? FALSE : TRUE;
+        }
+    }
+
+    private static final class BoolLiteral extends BoolExpr {
+
+        private final int value;
+
+        BoolLiteral(int value) {
+            this.value = value;
+        }
+
+        @Override
+        int eval() {
+            return value;
+        }
+    }
+
+    private static final class BoolInput extends BoolExpr {
+
+        private final Input<?> input;
+
+        BoolInput(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        int eval() {
+            Boolean value = (Boolean) input.value();
+            if (value == null) {
+                return NULL;
+            }
+            return value ? TRUE : FALSE;
+        }
+    }
+
+    private static final class LongIsNull extends BoolExpr {
+
+        private final LongExpr expr;
+
+        LongIsNull(LongExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        int eval() {
+            expr.eval();
+            return expr.isNull ? TRUE : FALSE;
+        }
+    }
+
+    private static final class DoubleIsNull extends BoolExpr {
+
+        private final DoubleExpr expr;
+
+        DoubleIsNull(DoubleExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        int eval() {
+            expr.eval();
+            return expr.isNull ? TRUE : FALSE;
+        }
+    }
+
+    private static final class BoolIsNull extends BoolExpr {
+
+        private final BoolExpr expr;
+
+        BoolIsNull(BoolExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        int eval() {
+            return expr.eval() == NULL ? TRUE : FALSE;
+        }
+    }
+
+    private static final class InputIsNull extends BoolExpr {
+
+        private final Input<?> input;
+
+        InputIsNull(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        int eval() {
+            return input.value() == null ? TRUE : FALSE;
+        }
+    }
+
+    private static final class LongResult implements Input<Long> {
+
+        private final LongExpr expr;
+
+        LongResult(LongExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        public Long value() {
+            long value = expr.eval();
+            return expr.isNull ? null : value;
+        }
+    }
+
+    private static final class DoubleResult implements Input<Double> {
+
+        private final DoubleExpr expr;
+
+        DoubleResult(DoubleExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        public Double value() {
+            double value = expr.eval();
+            return expr.isNull ? null : value;
+        }
+    }
+
+    private static final class BooleanResult implements Input<Boolean> {
+
+        private final BoolExpr expr;
+
+        BooleanResult(BoolExpr expr) {
+            this.expr = expr;
+        }
+
+        @Override
+        public Boolean value() {
+            int value = expr.eval();
+            return value == NULL ? null : value == TRUE;
+        }
+    }
+}
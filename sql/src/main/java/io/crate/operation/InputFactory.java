@@ -88,7 +88,15 @@ public class InputFactory {
 
     public Context<CollectExpression<Row, ?>> ctxForInputColumns() {
         List<CollectExpression<Row, ?>> expressions = new ArrayList<>();
-        return new Context<>(expressions, new InputColumnVisitor(functions, expressions));
+        return new Context<>(expressions, new InputColumnVisitor(functions, expressions, false));
+    }
+
+    /**
+     * Like {@link #ctxForInputColumns()} but functions are compiled using the {@link ExpressionCompiler} where possible.
+     */
+    public Context<CollectExpression<Row, ?>> ctxForCompiledInputColumns() {
+        List<CollectExpression<Row, ?>> expressions = new ArrayList<>();
+        return new Context<>(expressions, new InputColumnVisitor(functions, expressions, true));
     }
 
     public Context<CollectExpression<Row, ?>> ctxForInputColumns(Iterable<? extends Symbol> symbols) {
@@ -166,10 +174,23 @@ public class InputFactory {
 
         private final List<CollectExpression<Row, ?>> expressions;
         private final IntObjectMap<InputCollectExpression> inputCollectExpressions = new IntObjectHashMap<>();
+        private final boolean compile;
 
-        InputColumnVisitor(Functions functions, List<CollectExpression<Row, ?>> expressions) {
+        InputColumnVisitor(Functions functions, List<CollectExpression<Row, ?>> expressions, boolean compile) {
             super(functions);
             this.expressions = expressions;
+            this.compile = compile;
+        }
+
+        @Override
+        public Input<?> visitFunction(io.crate.analyze.symbol.Function function, Void context) {
+            if (compile) {
+                Input<?> compiled = ExpressionCompiler.compile(function, symbol -> process(symbol, context));
+                if (compiled != null) {
+                    return compiled;
+                }
+            }
+            return super.visitFunction(function, context);
         }
 
         @Override
@@ -192,7 +213,7 @@ public class InputFactory {
         AggregationVisitor(Functions functions,
                            List<CollectExpression<Row, ?>> expressions,
                            List<AggregationContext> aggregationContexts) {
-            super(functions, expressions);
+            super(functions, expressions, false);
             this.aggregationContexts = aggregationContexts;
         }
 
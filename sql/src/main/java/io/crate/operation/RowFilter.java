@@ -38,14 +38,21 @@ public class RowFilter implements Predicate<Row> {
     private final Iterable<CollectExpression<Row, ?>> filterCollectExpressions;
 
     public static Predicate<Row> create(InputFactory inputFactory, @Nullable Symbol filterSymbol) {
+        return create(inputFactory, filterSymbol, false);
+    }
+
+    /**
+     * @param compile if true the filter is compiled using the {@link ExpressionCompiler} where possible
+     */
+    public static Predicate<Row> create(InputFactory inputFactory, @Nullable Symbol filterSymbol, boolean compile) {
         if (filterSymbol == null) {
             return Predicates.alwaysTrue();
         }
-        return new RowFilter(inputFactory, filterSymbol);
+        return new RowFilter(
+            compile ? inputFactory.ctxForCompiledInputColumns() : inputFactory.ctxForInputColumns(), filterSymbol);
     }
 
-    private RowFilter(InputFactory inputFactory, Symbol filterSymbol) {
-        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns();
+    private RowFilter(InputFactory.Context<CollectExpression<Row, ?>> ctx, Symbol filterSymbol) {
         //noinspection unchecked
         filterCondition = (Input) ctx.add(filterSymbol);
         filterCollectExpressions = ctx.expressions();
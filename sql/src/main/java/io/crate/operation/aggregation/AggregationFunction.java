@@ -21,6 +21,7 @@
 
 package io.crate.operation.aggregation;
 
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.analyze.symbol.Function;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.breaker.RamAccountingContext;
@@ -79,6 +80,16 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
 
     public abstract DataType partialType();
 
+    /**
+     * Creates an aggregator which keeps the states of many groups in primitive arrays, see {@link ColumnarAggregator}.
+     *
+     * @return the aggregator or null if the function doesn't support columnar states.
+     */
+    @Nullable
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        return null;
+    }
+
     @Override
     public Symbol normalizeSymbol(Function symbol, TransactionContext transactionContext) {
         return symbol;
@@ -0,0 +1,153 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation;
+
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.operation.Input;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * The columnar counterpart of {@link Aggregator}.
+ * <p>
+ * Instead of a state object per group the states of all groups are kept in primitive arrays owned by the
+ * aggregator and indexed by a dense group id. Aggregating a row therefore doesn't allocate.
+ * <p>
+ * The values returned by {@link #finishCollect(int)} are the same the {@link AggregationFunction} returns,
+ * partial states can be reduced by either implementation.
+ */
+public abstract class ColumnarAggregator {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    protected final Input[] inputs;
+    private final boolean fromPartial;
+    private final boolean toPartial;
+    private int capacity = 0;
+
+    protected ColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        switch (aggregation.fromStep()) {
+            case ITER:
+                fromPartial = false;
+                break;
+            case PARTIAL:
+                if (inputs.length > 1) {
+                    throw new UnsupportedOperationException("Aggregation from PARTIAL is only allowed with one input.");
+                }
+                fromPartial = true;
+                break;
+            case FINAL:
+                throw new UnsupportedOperationException("Can't start from FINAL");
+            default:
+                throw new UnsupportedOperationException(
+                    String.format(Locale.ENGLISH, "invalid from step %s", aggregation.fromStep().name()));
+        }
+        switch (aggregation.toStep()) {
+            case ITER:
+                throw new UnsupportedOperationException("Can't aggregate to ITER");
+            case PARTIAL:
+                toPartial = true;
+                break;
+            case FINAL:
+                toPartial = false;
+                break;
+            default:
+                throw new UnsupportedOperationException(
+                    String.format(Locale.ENGLISH, "invalid to step %s", aggregation.toStep().name()));
+        }
+        this.inputs = inputs;
+    }
+
+    /**
+     * Creates the state of a new group and aggregates the current row into it.
+     * Group ids must be assigned densely, starting at 0.
+     */
+    public void newGroup(int groupId) {
+        if (groupId >= capacity) {
+            int newCapacity = Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+            capacity = Math.max(newCapacity, groupId + 1);
+            grow(capacity);
+        }
+        processRow(groupId);
+    }
+
+    /**
+     * Aggregates the current row into the state of an existing group.
+     */
+    public void processRow(int groupId) {
+        if (fromPartial) {
+            reduce(groupId, inputs[0].value());
+        } else {
+            iterate(groupId);
+        }
+    }
+
+    /**
+     * @return the partial state or the final value of the group, depending on the aggregation step
+     */
+    public Object finishCollect(int groupId) {
+        return toPartial ? partialState(groupId) : finalValue(groupId);
+    }
+
+    /**
+     * @return the partial state of the group regardless of the aggregation step, e.g. to write it to disk
+     */
+    @Nullable
+    public Object partialResult(int groupId) {
+        return partialState(groupId);
+    }
+
+    /**
+     * @return estimated number of bytes the state of a single group requires
+     */
+    public abstract long bytesPerGroup();
+
+    /**
+     * Resizes the state arrays so that they can hold the given number of groups.
+     * The states of the new groups must be empty.
+     */
+    protected abstract void grow(int capacity);
+
+    /**
+     * Aggregates the values of the inputs into the state of the group.
+     */
+    protected abstract void iterate(int groupId);
+
+    /**
+     * Merges a partial state as created by the {@link AggregationFunction} into the state of the group.
+     */
+    protected abstract void reduce(int groupId, @Nullable Object partialState);
+
+    /**
+     * @return the state of the group in the form of the partial state of the {@link AggregationFunction}
+     */
+    @Nullable
+    protected abstract Object partialState(int groupId);
+
+    /**
+     * @return the final value of the group, equal to {@link AggregationFunction#terminatePartial}
+     */
+    @Nullable
+    protected abstract Object finalValue(int groupId);
+}
@@ -23,11 +23,13 @@ package io.crate.operation.aggregation.impl;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.Streamer;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypeFactory;
 import io.crate.types.DataTypes;
@@ -36,6 +38,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public class AverageAggregation extends AggregationFunction<AverageAggregation.AverageState, Double> {
 
@@ -202,4 +205,65 @@ public class AverageAggregation extends AggregationFunction<AverageAggregation.A
     public FunctionInfo info() {
         return info;
     }
+
+    @Override
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        return new ColumnarAverage(aggregation, inputs);
+    }
+
+    private static class ColumnarAverage extends ColumnarAggregator {
+
+        private double[] sums = new double[0];
+        private long[] counts = new long[0];
+
+        ColumnarAverage(Aggregation aggregation, Input... inputs) {
+            super(aggregation, inputs);
+        }
+
+        @Override
+        public long bytesPerGroup() {
+            return AverageStateType.INSTANCE.fixedSize();
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        protected void iterate(int groupId) {
+            Number value = (Number) inputs[0].value();
+            if (value != null) {
+                counts[groupId]++;
+                sums[groupId] += value.doubleValue();
+            }
+        }
+
+        @Override
+        protected void reduce(int groupId, Object partialState) {
+            if (partialState != null) {
+                AverageState state = (AverageState) partialState;
+                counts[groupId] += state.count;
+                sums[groupId] += state.sum;
+            }
+        }
+
+        @Override
+        protected Object partialState(int groupId) {
+            AverageState state = new AverageState();
+            state.sum = sums[groupId];
+            state.count = counts[groupId];
+            return state;
+        }
+
+        @Override
+        protected Object finalValue(int groupId) {
+            long count = counts[groupId];
+            if (count > 0) {
+                return sums[groupId] / count;
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.ColumnarAggregator;
+import io.crate.types.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Columnar states of {@link MinimumAggregation} and {@link MaximumAggregation} for numeric and timestamp types.
+ * Integral values are kept in a long[], floating point values in a double[]; both are converted back to the
+ * return type when the states are read.
+ */
+final class ColumnarMinMax extends ColumnarAggregator {
+
+    private final boolean max;
+    private final int typeId;
+    private final boolean floatingPoint;
+    private final BitSet hasValue = new BitSet();
+    private long[] longs = new long[0];
+    private double[] doubles = new double[0];
+
+    static boolean supports(DataType type) {
+        switch (type.id()) {
+            case DoubleType.ID:
+            case FloatType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    ColumnarMinMax(boolean max, DataType type, Aggregation aggregation, Input... inputs) {
+        super(aggregation, inputs);
+        assert supports(type) : "type " + type + " isn't supported";
+        this.max = max;
+        this.typeId = type.id();
+        this.floatingPoint = typeId == DoubleType.ID || typeId == FloatType.ID;
+    }
+
+    @Override
+    public long bytesPerGroup() {
+        return 8L;
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        if (floatingPoint) {
+            doubles = Arrays.copyOf(doubles, capacity);
+        } else {
+            longs = Arrays.copyOf(longs, capacity);
+        }
+    }
+
+    @Override
+    protected void iterate(int groupId) {
+        add(groupId, inputs[0].value());
+    }
+
+    @Override
+    protected void reduce(int groupId, Object partialState) {
+        add(groupId, partialState);
+    }
+
+    private void add(int groupId, Object value) {
+        if (value == null) {
+            return;
+        }
+        boolean first = !hasValue.get(groupId);
+        if (floatingPoint) {
+            double d = ((Number) value).doubleValue();
+            // Double.compare orders like Double.compareTo which is used by the non-columnar aggregation
+            if (first || (max ? Double.compare(d, doubles[groupId]) > 0 : Double.compare(d, doubles[groupId]) < 0)) {
+                doubles[groupId] = d;
+            }
+        } else {
+            long l = ((Number) value).longValue();
+            if (first || (max ? l > longs[groupId] : l < longs[groupId])) {
+                longs[groupId] = l;
+            }
+        }
+        if (first) {
+            hasValue.set(groupId);
+        }
+    }
+
+    @Override
+    protected Object partialState(int groupId) {
+        if (!hasValue.get(groupId)) {
+            return null;
+        }
+        switch (typeId) {
+            case DoubleType.ID:
+                return doubles[groupId];
+            case FloatType.ID:
+                return (float) doubles[groupId];
+            case IntegerType.ID:
+                return (int) longs[groupId];
+            case ShortType.ID:
+                return (short) longs[groupId];
+            case ByteType.ID:
+                return (byte) longs[groupId];
+            default:
+                return longs[groupId];
+        }
+    }
+
+    @Override
+    protected Object finalValue(int groupId) {
+        return partialState(groupId);
+    }
+}
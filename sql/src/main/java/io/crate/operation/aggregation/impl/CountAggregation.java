@@ -23,6 +23,7 @@ package io.crate.operation.aggregation.impl;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.Streamer;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.analyze.symbol.Function;
 import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.Symbol;
@@ -31,6 +32,7 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.metadata.*;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypeFactory;
 import io.crate.types.DataTypes;
@@ -39,6 +41,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 public class CountAggregation extends AggregationFunction<CountAggregation.LongState, Long> {
@@ -137,6 +140,56 @@ public class CountAggregation extends AggregationFunction<CountAggregation.LongS
         return state.value;
     }
 
+    @Override
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        return new ColumnarCount(aggregation, hasArgs, inputs);
+    }
+
+    private static class ColumnarCount extends ColumnarAggregator {
+
+        private final boolean hasArgs;
+        private long[] counts = new long[0];
+
+        ColumnarCount(Aggregation aggregation, boolean hasArgs, Input... inputs) {
+            super(aggregation, inputs);
+            this.hasArgs = hasArgs;
+        }
+
+        @Override
+        public long bytesPerGroup() {
+            return LongStateType.INSTANCE.fixedSize();
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        protected void iterate(int groupId) {
+            if (!hasArgs || inputs[0].value() != null) {
+                counts[groupId]++;
+            }
+        }
+
+        @Override
+        protected void reduce(int groupId, Object partialState) {
+            if (partialState != null) {
+                counts[groupId] += ((LongState) partialState).value;
+            }
+        }
+
+        @Override
+        protected Object partialState(int groupId) {
+            return new LongState(counts[groupId]);
+        }
+
+        @Override
+        protected Object finalValue(int groupId) {
+            return counts[groupId];
+        }
+    }
+
     public static class LongState implements Comparable<CountAggregation.LongState> {
 
         long value = 0L;
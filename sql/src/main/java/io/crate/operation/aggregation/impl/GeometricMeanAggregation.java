@@ -24,11 +24,13 @@ package io.crate.operation.aggregation.impl;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
 import io.crate.Streamer;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypeFactory;
 import io.crate.types.DataTypes;
@@ -41,6 +43,7 @@ import org.elasticsearch.common.io.stream.Streamable;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Arrays;
 
 public class GeometricMeanAggregation extends AggregationFunction<GeometricMeanAggregation.GeometricMeanState, Double> {
 
@@ -221,4 +224,68 @@ public class GeometricMeanAggregation extends AggregationFunction<GeometricMeanA
     public FunctionInfo info() {
         return info;
     }
+
+    @Override
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        return new ColumnarGeometricMean(aggregation, inputs);
+    }
+
+    private static class ColumnarGeometricMean extends ColumnarAggregator {
+
+        /**
+         * sums of the logarithms of the values
+         */
+        private double[] logSums = new double[0];
+        private long[] counts = new long[0];
+
+        ColumnarGeometricMean(Aggregation aggregation, Input... inputs) {
+            super(aggregation, inputs);
+        }
+
+        @Override
+        public long bytesPerGroup() {
+            return DataTypes.LONG.fixedSize() + DataTypes.DOUBLE.fixedSize();
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            logSums = Arrays.copyOf(logSums, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        protected void iterate(int groupId) {
+            Number value = (Number) inputs[0].value();
+            if (value != null) {
+                logSums[groupId] += FastMath.log(value.doubleValue());
+                counts[groupId]++;
+            }
+        }
+
+        @Override
+        protected void reduce(int groupId, Object partialState) {
+            if (partialState != null) {
+                GeometricMeanState state = (GeometricMeanState) partialState;
+                logSums[groupId] += state.value;
+                counts[groupId] += state.n;
+            }
+        }
+
+        @Override
+        protected Object partialState(int groupId) {
+            GeometricMeanState state = new GeometricMeanState();
+            state.value = logSums[groupId];
+            state.n = counts[groupId];
+            return state;
+        }
+
+        @Override
+        protected Object finalValue(int groupId) {
+            long n = counts[groupId];
+            if (n > 0) {
+                return FastMath.exp(logSums[groupId] / n);
+            }
+            return null;
+        }
+    }
 }
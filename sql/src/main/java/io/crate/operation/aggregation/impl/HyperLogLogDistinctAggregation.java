@@ -0,0 +1,169 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.aggregation.impl;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.hash.MurmurHash3;
+
+import java.util.Locale;
+
+/**
+ * Approximates the number of distinct values using a {@link HyperLogLogState}.
+ * <p>
+ * Unlike count(distinct x) the partial state has a fixed upper size, independent of the number of distinct values,
+ * and partial states of different shards or nodes are merged register by register.
+ * </p>
+ * An optional second argument defines the precision. Higher precisions are more accurate but use more memory.
+ */
+class HyperLogLogDistinctAggregation extends AggregationFunction<HyperLogLogState, Long> {
+
+    static final String NAME = "hyperloglog_distinct";
+
+    static {
+        DataTypes.register(HyperLogLogStateType.ID, HyperLogLogStateType.INSTANCE);
+    }
+
+    public static void register(AggregationImplModule mod) {
+        for (DataType<?> t : DataTypes.PRIMITIVE_TYPES) {
+            mod.register(new HyperLogLogDistinctAggregation(new FunctionInfo(
+                new FunctionIdent(NAME, ImmutableList.<DataType>of(t)), DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE)));
+            mod.register(new HyperLogLogDistinctAggregation(new FunctionInfo(
+                new FunctionIdent(NAME, ImmutableList.<DataType>of(t, DataTypes.INTEGER)), DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE)));
+            mod.register(new HyperLogLogDistinctAggregation(new FunctionInfo(
+                new FunctionIdent(NAME, ImmutableList.<DataType>of(t, DataTypes.LONG)), DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE)));
+        }
+    }
+
+    private final FunctionInfo info;
+
+    HyperLogLogDistinctAggregation(FunctionInfo info) {
+        this.info = info;
+    }
+
+    @Override
+    public FunctionInfo info() {
+        return info;
+    }
+
+    @Override
+    public HyperLogLogState newState(RamAccountingContext ramAccountingContext) {
+        HyperLogLogState state = new HyperLogLogState(HyperLogLogState.DEFAULT_PRECISION);
+        ramAccountingContext.addBytes(state.ramBytesUsed());
+        return state;
+    }
+
+    @Override
+    public HyperLogLogState iterate(RamAccountingContext ramAccountingContext,
+                                    HyperLogLogState state,
+                                    Input... args) throws CircuitBreakingException {
+        if (args.length > 1 && state.isEmpty()) {
+            state = initState(ramAccountingContext, state, args[1].value());
+        }
+        Object value = args[0].value();
+        if (value == null) {
+            return state;
+        }
+        long bytesBefore = state.ramBytesUsed();
+        state.add(hash(value));
+        long bytesAfter = state.ramBytesUsed();
+        if (bytesAfter != bytesBefore) {
+            ramAccountingContext.addBytes(bytesAfter - bytesBefore);
+        }
+        return state;
+    }
+
+    private static HyperLogLogState initState(RamAccountingContext ramAccountingContext,
+                                              HyperLogLogState state,
+                                              Object precisionValue) {
+        if (precisionValue == null) {
+            return state;
+        }
+        int precision = DataTypes.INTEGER.value(precisionValue);
+        if (precision == state.precision()) {
+            return state;
+        }
+        HyperLogLogState newState = new HyperLogLogState(precision);
+        ramAccountingContext.addBytes(newState.ramBytesUsed() - state.ramBytesUsed());
+        return newState;
+    }
+
+    static long hash(Object value) {
+        if (value instanceof BytesRef) {
+            BytesRef bytes = (BytesRef) value;
+            return MurmurHash3.hash128(bytes.bytes, bytes.offset, bytes.length, 0, new MurmurHash3.Hash128()).h1;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BitMixer.mix64(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+        if (value instanceof Number) {
+            return BitMixer.mix64(((Number) value).longValue());
+        }
+        if (value instanceof Boolean) {
+            return BitMixer.mix64((Boolean) value ? 1L : 0L);
+        }
+        throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+            "Cannot hash value of type %s", value.getClass().getSimpleName()));
+    }
+
+    @Override
+    public HyperLogLogState reduce(RamAccountingContext ramAccountingContext,
+                                   HyperLogLogState state1,
+                                   HyperLogLogState state2) {
+        if (state1.isEmpty()) {
+            return state2;
+        }
+        if (state2.isEmpty()) {
+            return state1;
+        }
+        long bytesBefore = state1.ramBytesUsed();
+        state1.merge(state2);
+        long bytesAfter = state1.ramBytesUsed();
+        if (bytesAfter != bytesBefore) {
+            ramAccountingContext.addBytes(bytesAfter - bytesBefore);
+        }
+        return state1;
+    }
+
+    @Override
+    public Long terminatePartial(RamAccountingContext ramAccountingContext, HyperLogLogState state) {
+        return state.cardinality();
+    }
+
+    @Override
+    public DataType partialType() {
+        return HyperLogLogStateType.INSTANCE;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.aggregation.impl;
+
+import com.carrotsearch.hppc.IntByteHashMap;
+import com.carrotsearch.hppc.cursors.IntByteCursor;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * HyperLogLog++ sketch used to estimate the number of distinct values.
+ * <p>
+ * The state starts in a sparse mode which keeps the registers of a 2^25 precision sketch in a hash map.
+ * Once the map needs more memory than the 2^precision byte registers of the dense mode, it is converted.
+ * Sketches of the same precision are merged register by register, see {@link #merge(HyperLogLogState)}.
+ * </p>
+ * Instead of the empirical bias correction of HLL++ the dense registers are evaluated using the improved raw
+ * estimator described by Otmar Ertl in "New cardinality estimation algorithms for HyperLogLog sketches", which
+ * is unbiased over the whole range of cardinalities. The sparse mode uses linear counting.
+ */
+class HyperLogLogState {
+
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 18;
+    static final int DEFAULT_PRECISION = 14;
+
+    private static final int SPARSE_PRECISION = 25;
+    private static final double SPARSE_REGISTERS = 1 << SPARSE_PRECISION;
+
+    private static final double ALPHA_INF = 0.5 / Math.log(2);
+
+    private static final int SHALLOW_SIZE = 32;
+
+    private final int precision;
+    private IntByteHashMap sparse;
+    private byte[] registers;
+
+    HyperLogLogState(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "precision must be between %d and %d, got: %d", MIN_PRECISION, MAX_PRECISION, precision));
+        }
+        this.precision = precision;
+        this.sparse = new IntByteHashMap();
+    }
+
+    int precision() {
+        return precision;
+    }
+
+    boolean isEmpty() {
+        return registers == null && sparse.isEmpty();
+    }
+
+    boolean isSparse() {
+        return registers == null;
+    }
+
+    /**
+     * @param hash a 64 bit hash of the value, the bits must be uniformly distributed
+     */
+    void add(long hash) {
+        if (registers == null) {
+            int index = (int) (hash >>> (64 - SPARSE_PRECISION));
+            byte runLength = (byte) (Long.numberOfLeadingZeros((hash << SPARSE_PRECISION) | (1L << 24)) + 1);
+            addSparse(index, runLength);
+        } else {
+            int index = (int) (hash >>> (64 - precision));
+            byte runLength = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+            if (registers[index] < runLength) {
+                registers[index] = runLength;
+            }
+        }
+    }
+
+    private void addSparse(int index, byte runLength) {
+        int slot = sparse.indexOf(index);
+        if (sparse.indexExists(slot)) {
+            if (sparse.indexGet(slot) < runLength) {
+                sparse.indexReplace(slot, runLength);
+            }
+        } else {
+            sparse.indexInsert(slot, index, runLength);
+            if (sparse.size() > (1 << precision) >>> 3) {
+                toDense();
+            }
+        }
+    }
+
+    private void toDense() {
+        registers = new byte[1 << precision];
+        for (IntByteCursor cursor : sparse) {
+            addDense(cursor.key, cursor.value);
+        }
+        sparse = null;
+    }
+
+    /**
+     * Adds a register of the sparse representation to the dense registers
+     */
+    private void addDense(int sparseIndex, byte sparseRunLength) {
+        int remainingBits = SPARSE_PRECISION - precision;
+        int index = sparseIndex >>> remainingBits;
+        int remainder = sparseIndex & ((1 << remainingBits) - 1);
+        byte runLength;
+        if (remainder == 0) {
+            runLength = (byte) (remainingBits + sparseRunLength);
+        } else {
+            runLength = (byte) (Integer.numberOfLeadingZeros(remainder) - (32 - remainingBits) + 1);
+        }
+        if (registers[index] < runLength) {
+            registers[index] = runLength;
+        }
+    }
+
+    void merge(HyperLogLogState other) {
+        if (precision != other.precision) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Cannot merge HyperLogLog states with different precisions: %d and %d", precision, other.precision));
+        }
+        if (other.registers == null) {
+            for (IntByteCursor cursor : other.sparse) {
+                if (registers == null) {
+                    addSparse(cursor.key, cursor.value);
+                } else {
+                    addDense(cursor.key, cursor.value);
+                }
+            }
+            return;
+        }
+        if (registers == null) {
+            toDense();
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long cardinality() {
+        if (registers == null) {
+            return Math.round(SPARSE_REGISTERS * Math.log(SPARSE_REGISTERS / (SPARSE_REGISTERS - sparse.size())));
+        }
+        int maxRunLength = 64 - precision;
+        int[] histogram = new int[maxRunLength + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double m = registers.length;
+        double z = m * tau(1.0 - histogram[maxRunLength + 1] / m);
+        for (int k = maxRunLength; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(ALPHA_INF * m * m / z);
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1.0;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double y = 1.0;
+        double z = 1.0 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= Math.pow(1.0 - x, 2) * y;
+        } while (z != previous);
+        return z / 3.0;
+    }
+
+    /**
+     * @return the estimated number of bytes used by this state
+     */
+    long ramBytesUsed() {
+        if (registers == null) {
+            return SHALLOW_SIZE + sparse.keys.length * 5L;
+        }
+        return SHALLOW_SIZE + registers.length;
+    }
+
+    static void write(HyperLogLogState state, StreamOutput out) throws IOException {
+        out.writeVInt(state.precision);
+        if (state.registers == null) {
+            out.writeBoolean(false);
+            out.writeVInt(state.sparse.size());
+            for (IntByteCursor cursor : state.sparse) {
+                out.writeVInt(cursor.key);
+                out.writeByte(cursor.value);
+            }
+        } else {
+            out.writeBoolean(true);
+            out.writeBytes(state.registers);
+        }
+    }
+
+    static HyperLogLogState read(StreamInput in) throws IOException {
+        HyperLogLogState state = new HyperLogLogState(in.readVInt());
+        if (in.readBoolean()) {
+            state.sparse = null;
+            state.registers = new byte[1 << state.precision];
+            in.readBytes(state.registers, 0, state.registers.length);
+        } else {
+            int size = in.readVInt();
+            state.sparse.ensureCapacity(size);
+            for (int i = 0; i < size; i++) {
+                state.sparse.put(in.readVInt(), in.readByte());
+            }
+        }
+        return state;
+    }
+}
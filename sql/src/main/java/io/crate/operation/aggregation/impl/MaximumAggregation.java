@@ -22,6 +22,7 @@
 package io.crate.operation.aggregation.impl;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
@@ -29,6 +30,7 @@ import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.FixedWidthType;
@@ -140,4 +142,13 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
     public Comparable terminatePartial(RamAccountingContext ramAccountingContext, Comparable state) {
         return state;
     }
+
+    @Override
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        DataType type = info.returnType();
+        if (ColumnarMinMax.supports(type)) {
+            return new ColumnarMinMax(true, type, aggregation, inputs);
+        }
+        return null;
+    }
 }
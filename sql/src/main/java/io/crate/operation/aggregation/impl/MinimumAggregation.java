@@ -22,6 +22,7 @@
 package io.crate.operation.aggregation.impl;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
@@ -30,6 +31,7 @@ import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.FixedWidthType;
@@ -139,4 +141,13 @@ public abstract class MinimumAggregation extends AggregationFunction<Comparable,
     public Comparable iterate(RamAccountingContext ramAccountingContext, Comparable state, Input... args) throws CircuitBreakingException {
         return reduce(ramAccountingContext, state, (Comparable) args[0].value());
     }
+
+    @Override
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        DataType type = info.returnType();
+        if (ColumnarMinMax.supports(type)) {
+            return new ColumnarMinMax(false, type, aggregation, inputs);
+        }
+        return null;
+    }
 }
@@ -22,15 +22,20 @@
 package io.crate.operation.aggregation.impl;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 public class SumAggregation extends AggregationFunction<Double, Double> {
 
     public static final String NAME = "sum";
@@ -85,4 +90,67 @@ public class SumAggregation extends AggregationFunction<Double, Double> {
     public FunctionInfo info() {
         return info;
     }
+
+    @Override
+    public ColumnarAggregator newColumnarAggregator(Aggregation aggregation, Input... inputs) {
+        return new ColumnarSum(aggregation, inputs);
+    }
+
+    private static class ColumnarSum extends ColumnarAggregator {
+
+        private double[] sums = new double[0];
+
+        /**
+         * groups which have seen a value, the sum of the others is null
+         */
+        private final BitSet hasValue = new BitSet();
+
+        ColumnarSum(Aggregation aggregation, Input... inputs) {
+            super(aggregation, inputs);
+        }
+
+        @Override
+        public long bytesPerGroup() {
+            return DataTypes.DOUBLE.fixedSize();
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+        }
+
+        @Override
+        protected void iterate(int groupId) {
+            Object value = inputs[0].value();
+            if (value != null) {
+                add(groupId, ((Number) value).doubleValue());
+            }
+        }
+
+        @Override
+        protected void reduce(int groupId, Object partialState) {
+            if (partialState != null) {
+                add(groupId, (Double) partialState);
+            }
+        }
+
+        private void add(int groupId, double value) {
+            if (hasValue.get(groupId)) {
+                sums[groupId] += value;
+            } else {
+                sums[groupId] = value;
+                hasValue.set(groupId);
+            }
+        }
+
+        @Override
+        protected Object partialState(int groupId) {
+            return hasValue.get(groupId) ? sums[groupId] : null;
+        }
+
+        @Override
+        protected Object finalValue(int groupId) {
+            return partialState(groupId);
+        }
+    }
 }
@@ -31,6 +31,7 @@ import io.crate.action.job.SharedShardContexts;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.AbstractExecutionSubContext;
 import io.crate.metadata.RowGranularity;
+import io.crate.operation.join.RuntimeFilter;
 import io.crate.operation.projectors.ListenableRowReceiver;
 import io.crate.operation.projectors.RepeatHandle;
 import io.crate.operation.projectors.RowReceiver;
@@ -64,6 +65,9 @@ public class JobCollectContext extends AbstractExecutionSubContext {
     private final ListenableRowReceiver listenableRowReceiver;
     private final String threadPoolName;
 
+    @Nullable
+    private final RuntimeFilter runtimeFilter;
+
     private Collection<CrateCollector> collectors;
 
     public JobCollectContext(final CollectPhase collectPhase,
@@ -72,11 +76,27 @@ public class JobCollectContext extends AbstractExecutionSubContext {
                              RamAccountingContext queryPhaseRamAccountingContext,
                              final RowReceiver rowReceiver,
                              SharedShardContexts sharedShardContexts) {
+        this(collectPhase, collectOperation, localNodeId, queryPhaseRamAccountingContext, rowReceiver,
+            sharedShardContexts, null);
+    }
+
+    /**
+     * @param runtimeFilter filter of a hash join which consumes the rows of this collect phase;
+     *                      doc collectors use it to skip rows without join partner
+     */
+    public JobCollectContext(final CollectPhase collectPhase,
+                             MapSideDataCollectOperation collectOperation,
+                             String localNodeId,
+                             RamAccountingContext queryPhaseRamAccountingContext,
+                             final RowReceiver rowReceiver,
+                             SharedShardContexts sharedShardContexts,
+                             @Nullable RuntimeFilter runtimeFilter) {
         super(collectPhase.phaseId(), LOGGER);
         this.collectPhase = collectPhase;
         this.collectOperation = collectOperation;
         this.queryPhaseRamAccountingContext = queryPhaseRamAccountingContext;
         this.sharedShardContexts = sharedShardContexts;
+        this.runtimeFilter = runtimeFilter;
 
         listenableRowReceiver = RowReceivers.listenableRowReceiver(rowReceiver);
         Futures.addCallback(listenableRowReceiver.finishFuture(), new FutureCallback<Void>() {
@@ -192,6 +212,11 @@ public class JobCollectContext extends AbstractExecutionSubContext {
         }, MoreExecutors.directExecutor());
     }
 
+    @Override
+    public RamAccountingContext ramAccountingContext() {
+        return queryPhaseRamAccountingContext;
+    }
+
     public RamAccountingContext queryPhaseRamAccountingContext() {
         return queryPhaseRamAccountingContext;
     }
@@ -200,6 +225,11 @@ public class JobCollectContext extends AbstractExecutionSubContext {
         return sharedShardContexts;
     }
 
+    @Nullable
+    public RuntimeFilter runtimeFilter() {
+        return runtimeFilter;
+    }
+
     @VisibleForTesting
     static String threadPoolName(CollectPhase phase, String localNodeId) {
         if (phase instanceof RoutedCollectPhase) {
@@ -41,6 +41,8 @@ import io.crate.operation.reference.doc.lucene.CollectorContext;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.operation.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
@@ -52,6 +54,7 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 import java.util.concurrent.Executor;
 
@@ -66,6 +69,9 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     private final DocInputFactory docInputFactory;
     private final FieldTypeLookup fieldTypeLookup;
 
+    @Nullable
+    private final QueryResultCache queryResultCache;
+
     public LuceneShardCollectorProvider(Schemas schemas,
                                         LuceneQueryBuilder luceneQueryBuilder,
                                         ClusterService clusterService,
@@ -75,10 +81,12 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                         Settings settings,
                                         TransportActionProvider transportActionProvider,
                                         BulkRetryCoordinatorPool bulkRetryCoordinatorPool,
-                                        IndexShard indexShard) {
-        super(clusterService, new ShardReferenceResolver(clusterService, schemas, indexShard), functions,
-            indexNameExpressionResolver, threadPool, settings, transportActionProvider, bulkRetryCoordinatorPool,
-            indexShard);
+                                        IndexShard indexShard,
+                                        @Nullable QueryResultCache queryResultCache) {
+        super(clusterService, new ShardReferenceResolver(clusterService, schemas, indexShard, queryResultCache),
+            functions, indexNameExpressionResolver, threadPool, settings, transportActionProvider,
+            bulkRetryCoordinatorPool, indexShard);
+        this.queryResultCache = queryResultCache;
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.threadPool = threadPool;
         this.indexShard = indexShard;
@@ -116,7 +124,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 getCollectorContext(sharedShardContext.readerId(), docCtx),
                 jobCollectContext.queryPhaseRamAccountingContext(),
                 docCtx.topLevelInputs(),
-                docCtx.expressions()
+                docCtx.expressions(),
+                jobCollectContext.runtimeFilter()
             );
         } catch (Throwable t) {
             searcher.close();
@@ -124,6 +133,25 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         }
     }
 
+    @Nullable
+    @Override
+    public QueryResultCache queryResultCache() {
+        return queryResultCache;
+    }
+
+    @Override
+    protected long readerVersion(JobCollectContext jobCollectContext) {
+        SharedShardContext sharedShardContext = jobCollectContext.sharedShardContexts().getOrCreateContext(indexShard.shardId());
+        // the searcher is already held by the job, so this doesn't open a new one
+        try (Engine.Searcher searcher = sharedShardContext.acquireSearcher()) {
+            IndexReader reader = searcher.reader();
+            if (reader instanceof DirectoryReader) {
+                return ((DirectoryReader) reader).getVersion();
+            }
+            return -1L;
+        }
+    }
+
     @Override
     public OrderedDocCollector getOrderedCollector(RoutedCollectPhase phase,
                                                    SharedShardContext sharedShardContext,
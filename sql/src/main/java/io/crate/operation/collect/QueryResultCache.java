@@ -0,0 +1,339 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import com.google.common.base.Predicate;
+import io.crate.Streamer;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.SymbolVisitors;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.operation.projectors.ForwardingRowReceiver;
+import io.crate.operation.projectors.RepeatHandle;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.planner.node.dql.RoutedCollectPhase;
+import io.crate.planner.projection.FilterProjection;
+import io.crate.planner.projection.GroupProjection;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.ProjectionType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A cache for the results of the shard-level projections of a single shard.
+ * <p>
+ * Entries are keyed by the parts of a {@link RoutedCollectPhase} which determine the result on a shard
+ * (everything except the job and routing information) and are only valid for the reader version they
+ * have been computed with. As soon as a newer reader version is seen (e.g. after a refresh) all entries are dropped.
+ * <p>
+ * The results are kept as serialized {@link StreamBucket}s and accounted against the
+ * {@link CrateCircuitBreakerService#QUERY_RESULT_CACHE} breaker. If adding an entry would exceed the limit of the
+ * breaker the least recently used entries are evicted.
+ */
+public class QueryResultCache {
+
+    public static final String ENABLED_SETTING = "indices.query_result_cache.enabled";
+    public static final boolean DEFAULT_ENABLED = false;
+
+    private static final ESLogger LOGGER = Loggers.getLogger(QueryResultCache.class);
+
+    private static final Set<ProjectionType> CACHEABLE_PROJECTIONS = EnumSet.of(
+        ProjectionType.AGGREGATION,
+        ProjectionType.GROUP,
+        ProjectionType.FILTER,
+        ProjectionType.TOPN
+    );
+
+    private static final Predicate<Symbol> IS_NON_DETERMINISTIC = new Predicate<Symbol>() {
+        @Override
+        public boolean apply(@Nullable Symbol input) {
+            return input instanceof Function &&
+                   !((Function) input).info().features().contains(FunctionInfo.Feature.DETERMINISTIC);
+        }
+    };
+
+    private final CrateCircuitBreakerService breakerService;
+    private final LinkedHashMap<BytesRef, StreamBucket> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private CircuitBreaker breaker;
+    private long readerVersion = -1L;
+    private long sizeInBytes = 0L;
+    private long hits = 0L;
+    private long misses = 0L;
+    private long evictions = 0L;
+
+    public QueryResultCache(CrateCircuitBreakerService breakerService) {
+        this.breakerService = breakerService;
+        this.breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_RESULT_CACHE);
+    }
+
+    /**
+     * @return true if the result of the shard projections doesn't depend on anything but the
+     * collect phase and the shard contents.
+     */
+    public static boolean isCacheable(RoutedCollectPhase collectPhase, Collection<? extends Projection> shardProjections) {
+        if (shardProjections.isEmpty() || Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.DOCID)) {
+            return false;
+        }
+        for (Symbol symbol : collectPhase.toCollect()) {
+            if (SymbolVisitors.any(IS_NON_DETERMINISTIC, symbol)) {
+                return false;
+            }
+        }
+        if (collectPhase.whereClause().hasQuery() &&
+            SymbolVisitors.any(IS_NON_DETERMINISTIC, collectPhase.whereClause().query())) {
+            return false;
+        }
+        for (Projection projection : shardProjections) {
+            if (!CACHEABLE_PROJECTIONS.contains(projection.projectionType())) {
+                return false;
+            }
+            List<Symbol> symbols = new ArrayList<>(projection.outputs());
+            if (projection instanceof FilterProjection) {
+                symbols.add(((FilterProjection) projection).query());
+            } else if (projection instanceof GroupProjection) {
+                symbols.addAll(((GroupProjection) projection).keys());
+            }
+            for (Symbol symbol : symbols) {
+                if (SymbolVisitors.any(IS_NON_DETERMINISTIC, symbol)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the key for the result of the shard projections of the given (shard-normalized) collect phase.
+     */
+    public static BytesRef key(RoutedCollectPhase collectPhase, Collection<? extends Projection> shardProjections) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        Symbols.toStream(collectPhase.toCollect(), out);
+        RowGranularity.toStream(collectPhase.maxRowGranularity(), out);
+        collectPhase.whereClause().writeTo(out);
+        out.writeVInt(shardProjections.size());
+        for (Projection projection : shardProjections) {
+            Projection.toStream(projection, out);
+        }
+        return out.bytes().toBytesRef();
+    }
+
+    /**
+     * @return the cached result or null if there is no entry for the key and reader version
+     */
+    @Nullable
+    public synchronized StreamBucket get(BytesRef key, long readerVersion) {
+        if (readerVersion > this.readerVersion) {
+            onNewReaderVersion(readerVersion);
+        }
+        StreamBucket bucket = readerVersion == this.readerVersion ? entries.get(key) : null;
+        if (bucket == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Adds an entry to the cache. If the entry doesn't fit into the cache even after evicting all other entries it
+     * is not cached at all.
+     */
+    public synchronized void put(BytesRef key, long readerVersion, StreamBucket bucket) {
+        if (readerVersion > this.readerVersion) {
+            onNewReaderVersion(readerVersion);
+        } else if (readerVersion < this.readerVersion) {
+            // result of an outdated reader
+            return;
+        }
+        CircuitBreaker currentBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_RESULT_CACHE);
+        if (currentBreaker != breaker) {
+            // breaker settings have changed, the accounted bytes belong to the old breaker
+            clear();
+            breaker = currentBreaker;
+        }
+        long bytes = bucket.sizeInBytes() + key.length;
+        while (true) {
+            try {
+                breaker.addEstimateBytesAndMaybeBreak(bytes, CrateCircuitBreakerService.QUERY_RESULT_CACHE);
+                break;
+            } catch (CircuitBreakingException e) {
+                if (!evictEldest()) {
+                    LOGGER.trace("Result with {} bytes is too large for the query result cache", bytes);
+                    return;
+                }
+            }
+        }
+        StreamBucket previous = entries.put(key, bucket);
+        sizeInBytes += bytes;
+        if (previous != null) {
+            release(previous.sizeInBytes() + key.length);
+        }
+    }
+
+    /**
+     * Removes all entries and releases the accounted bytes.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        breaker.addWithoutBreaking(-sizeInBytes);
+        sizeInBytes = 0L;
+    }
+
+    /**
+     * The maximum number of bytes a single result may have to be cacheable.
+     */
+    public synchronized long maxEntrySizeInBytes() {
+        long limit = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_RESULT_CACHE).getLimit();
+        return limit < 0 ? Long.MAX_VALUE : limit;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Creates a RowReceiver which forwards all rows to the given rowReceiver and caches them once it is finished.
+     * The result isn't cached if the rowReceiver stops early, if the upstream fails or if it exceeds
+     * {@link #maxEntrySizeInBytes()}.
+     */
+    public RowReceiver newCachingRowReceiver(RowReceiver rowReceiver,
+                                             BytesRef key,
+                                             long readerVersion,
+                                             Streamer<?>[] streamers) {
+        return new CachingRowReceiver(rowReceiver, key, readerVersion, streamers);
+    }
+
+    private void onNewReaderVersion(long readerVersion) {
+        clear();
+        this.readerVersion = readerVersion;
+    }
+
+    private boolean evictEldest() {
+        Iterator<Map.Entry<BytesRef, StreamBucket>> it = entries.entrySet().iterator();
+        if (!it.hasNext()) {
+            return false;
+        }
+        Map.Entry<BytesRef, StreamBucket> eldest = it.next();
+        it.remove();
+        release(eldest.getValue().sizeInBytes() + eldest.getKey().length);
+        evictions++;
+        return true;
+    }
+
+    private void release(long bytes) {
+        breaker.addWithoutBreaking(-bytes);
+        sizeInBytes -= bytes;
+    }
+
+    private class CachingRowReceiver extends ForwardingRowReceiver {
+
+        private final BytesRef key;
+        private final long readerVersion;
+        private final long maxSizeInBytes;
+
+        @Nullable
+        private volatile StreamBucket.Builder builder;
+
+        CachingRowReceiver(RowReceiver rowReceiver, BytesRef key, long readerVersion, Streamer<?>[] streamers) {
+            super(rowReceiver);
+            this.key = key;
+            this.readerVersion = readerVersion;
+            this.maxSizeInBytes = maxEntrySizeInBytes();
+            this.builder = new StreamBucket.Builder(streamers);
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            StreamBucket.Builder currentBuilder = this.builder;
+            if (currentBuilder != null) {
+                try {
+                    currentBuilder.add(row);
+                    if (currentBuilder.sizeInBytes() > maxSizeInBytes) {
+                        this.builder = null;
+                    }
+                } catch (IOException e) {
+                    this.builder = null;
+                }
+            }
+            Result result = super.setNextRow(row);
+            if (result == Result.STOP) {
+                // the upstream won't emit all rows, so the result is incomplete
+                this.builder = null;
+            }
+            return result;
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatHandle) {
+            StreamBucket.Builder currentBuilder = this.builder;
+            if (currentBuilder != null) {
+                try {
+                    put(key, readerVersion, currentBuilder.build());
+                } catch (IOException e) {
+                    LOGGER.debug("Couldn't cache query result", e);
+                }
+                // a repeat emits the same rows again
+                this.builder = null;
+            }
+            super.finish(repeatHandle);
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            this.builder = null;
+            super.fail(throwable);
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            this.builder = null;
+            super.kill(throwable);
+        }
+    }
+}
@@ -22,9 +22,13 @@
 
 package io.crate.operation.collect;
 
+import com.google.common.collect.Iterables;
+import io.crate.Streamer;
 import io.crate.action.job.SharedShardContext;
 import io.crate.analyze.EvaluatingNormalizer;
+import io.crate.analyze.symbol.Symbols;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.metadata.AbstractReferenceResolver;
 import io.crate.metadata.Functions;
@@ -38,6 +42,7 @@ import io.crate.operation.projectors.*;
 import io.crate.planner.node.dql.RoutedCollectPhase;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.Projections;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
@@ -46,6 +51,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -141,6 +147,17 @@ public abstract class ShardCollectorProvider {
                 projectorFactory,
                 shardProjections
             );
+            QueryResultCache cache = queryResultCache();
+            if (cache != null
+                && !normalizedCollectNode.whereClause().noMatch()
+                && QueryResultCache.isCacheable(normalizedCollectNode, shardProjections)) {
+                // must be called after getBuilder so that the version matches the reader used to collect
+                long readerVersion = readerVersion(jobCollectContext);
+                if (readerVersion >= 0) {
+                    return getCachingBuilder(
+                        cache, readerVersion, normalizedCollectNode, shardProjections, builder, chainBuilder);
+                }
+            }
             return rowReceiver -> {
                 FlatProjectorChain chain = chainBuilder.build(rowReceiver);
                 return builder.build(chain.firstProjector());
@@ -148,6 +165,52 @@ public abstract class ShardCollectorProvider {
         }
     }
 
+    private static CrateCollector.Builder getCachingBuilder(QueryResultCache cache,
+                                                            long readerVersion,
+                                                            RoutedCollectPhase collectPhase,
+                                                            Collection<? extends Projection> shardProjections,
+                                                            CrateCollector.Builder builder,
+                                                            FlatProjectorChain.Builder chainBuilder) throws IOException {
+        BytesRef key = QueryResultCache.key(collectPhase, shardProjections);
+        StreamBucket cachedResult = cache.get(key, readerVersion);
+        if (cachedResult != null) {
+            return RowsCollector.builder(cachedResult);
+        }
+        Projection lastProjection = Iterables.getLast(shardProjections);
+        Streamer<?>[] streamers = Symbols.streamerArray(lastProjection.outputs());
+        return rowReceiver -> {
+            FlatProjectorChain chain = chainBuilder.build(
+                cache.newCachingRowReceiver(rowReceiver, key, readerVersion, streamers));
+            return builder.build(chain.firstProjector());
+        };
+    }
+
+    /**
+     * The cache for the results of the shard projections or null if results of this shard are not cached.
+     */
+    @Nullable
+    public QueryResultCache queryResultCache() {
+        return null;
+    }
+
+    /**
+     * The version of the reader which is used to collect from the shard within the given job or -1 if it is unknown.
+     * Only called if {@link #queryResultCache()} returns a cache.
+     */
+    protected long readerVersion(JobCollectContext jobCollectContext) {
+        return -1L;
+    }
+
+    /**
+     * Called once the shard is closed.
+     */
+    public void close() {
+        QueryResultCache cache = queryResultCache();
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     protected abstract CrateCollector.Builder getBuilder(RoutedCollectPhase collectPhase,
                                                          Set<Requirement> downstreamRequirements,
                                                          JobCollectContext jobCollectContext);
@@ -25,15 +25,19 @@ package io.crate.operation.collect.collectors;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.CollectionFinishedEarlyException;
 import io.crate.operation.collect.CollectionPauseException;
 import io.crate.operation.collect.CrateCollector;
+import io.crate.operation.join.RuntimeFilter;
+import io.crate.operation.projectors.BatchRowReceiver;
 import io.crate.operation.projectors.ExecutorResumeHandle;
 import io.crate.operation.projectors.RepeatHandle;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.doc.lucene.CollectorContext;
+import io.crate.operation.reference.doc.lucene.DocValuesBlock;
 import io.crate.operation.reference.doc.lucene.LuceneCollectorExpression;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.*;
@@ -61,10 +65,13 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
     private final Query query;
     private final RowReceiver rowReceiver;
     private final Collection<? extends LuceneCollectorExpression<?>> expressions;
+    private final LuceneDocCollector docCollector;
     private final SimpleCollector luceneCollector;
     private final State state = new State();
     private final ExecutorResumeHandle resumeable;
+    private final ExecutorResumeHandle finishResumeable;
     private final boolean doScores;
+    private boolean useBlocks = false;
 
     public static class Builder implements CrateCollector.Builder {
 
@@ -78,6 +85,8 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         private final RamAccountingContext ramAccountingContext;
         private final List<Input<?>> inputs;
         private final Collection<? extends LuceneCollectorExpression<?>> expressions;
+        @Nullable
+        private final RuntimeFilter runtimeFilter;
 
         public Builder(ShardId shardId,
                        IndexSearcher indexSearcher,
@@ -89,6 +98,21 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                        RamAccountingContext ramAccountingContext,
                        List<Input<?>> inputs,
                        Collection<? extends LuceneCollectorExpression<?>> expressions) {
+            this(shardId, indexSearcher, query, minScore, executor, doScores, collectorContext, ramAccountingContext,
+                inputs, expressions, null);
+        }
+
+        public Builder(ShardId shardId,
+                       IndexSearcher indexSearcher,
+                       Query query,
+                       Float minScore,
+                       Executor executor,
+                       boolean doScores,
+                       CollectorContext collectorContext,
+                       RamAccountingContext ramAccountingContext,
+                       List<Input<?>> inputs,
+                       Collection<? extends LuceneCollectorExpression<?>> expressions,
+                       @Nullable RuntimeFilter runtimeFilter) {
             this.shardId = shardId;
             this.indexSearcher = indexSearcher;
             this.query = query;
@@ -99,6 +123,7 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             this.ramAccountingContext = ramAccountingContext;
             this.inputs = inputs;
             this.expressions = expressions;
+            this.runtimeFilter = runtimeFilter;
         }
 
         @Override
@@ -114,7 +139,8 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                 ramAccountingContext,
                 rowReceiver,
                 inputs,
-                expressions
+                expressions,
+                runtimeFilter
             );
         }
     }
@@ -130,6 +156,25 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                              RowReceiver rowReceiver,
                              List<Input<?>> inputs,
                              Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(shardId, indexSearcher, query, minScore, executor, doScores, collectorContext, ramAccountingContext,
+            rowReceiver, inputs, expressions, null);
+    }
+
+    /**
+     * @param runtimeFilter filter of the hash join consuming the rows; rows which don't pass it are skipped
+     */
+    public CrateDocCollector(ShardId shardId,
+                             IndexSearcher indexSearcher,
+                             Query query,
+                             Float minScore,
+                             Executor executor,
+                             boolean doScores,
+                             CollectorContext collectorContext,
+                             RamAccountingContext ramAccountingContext,
+                             RowReceiver rowReceiver,
+                             List<Input<?>> inputs,
+                             Collection<? extends LuceneCollectorExpression<?>> expressions,
+                             @Nullable RuntimeFilter runtimeFilter) {
         this.shardId = shardId;
         this.indexSearcher = indexSearcher;
         this.query = query;
@@ -137,13 +182,15 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         this.rowReceiver = rowReceiver;
         this.expressions = expressions;
         this.doScores = doScores || minScore != null;
-        SimpleCollector collector = new LuceneDocCollector(
+        docCollector = new LuceneDocCollector(
             ramAccountingContext,
             rowReceiver,
             this.doScores,
-            new InputRow(inputs),
-            expressions
+            inputs,
+            expressions,
+            runtimeFilter
         );
+        SimpleCollector collector = docCollector;
         if (minScore != null) {
             collector = new MinimumScoreCollector(collector, minScore);
         }
@@ -155,6 +202,12 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                 innerCollect(state.collector, state.weight, state.leaveIt, state.bulkScorer, state.leaf);
             }
         });
+        this.finishResumeable = new ExecutorResumeHandle(executor, new Runnable() {
+            @Override
+            public void run() {
+                finishCollect();
+            }
+        });
     }
 
     private void debugLog(String message) {
@@ -178,6 +231,9 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         SimpleCollector collector = luceneCollector;
         if (collectorContext.visitor().required()) {
             collector = new FieldVisitorCollector(collector, collectorContext.visitor());
+        } else {
+            // without stored fields and scores all outputs can be read in blocks if they are doc values columns
+            useBlocks = !doScores && docCollector.supportsBlocks();
         }
 
         Weight weight;
@@ -202,6 +258,10 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         try {
             if (collectLeaves(collector, weight, leavesIt, scorer, leaf) == RowReceiver.Result.PAUSE) {
                 traceLog("paused collect");
+            } else if (docCollector.flushRemaining() == RowReceiver.Result.PAUSE) {
+                traceLog("paused collect after last batch");
+                docCollector.reportPrunedRows();
+                rowReceiver.pauseProcessed(finishResumeable);
             } else {
                 finishCollect();
             }
@@ -214,11 +274,13 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
 
     private void fail(Throwable t) {
         debugLog("finished collect with failure");
+        docCollector.reportPrunedRows();
         rowReceiver.fail(t);
     }
 
     private void finishCollect() {
         debugLog("finished collect");
+        docCollector.reportPrunedRows();
         rowReceiver.finish(this);
     }
 
@@ -238,7 +300,11 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             if (scorer == null) {
                 continue;
             }
-            bulkScorer = new DefaultBulkScorer(scorer);
+            if (useBlocks) {
+                bulkScorer = new BlockBulkScorer(scorer.iterator(), docCollector);
+            } else {
+                bulkScorer = new DefaultBulkScorer(scorer);
+            }
             if (processScorer(leafCollector, leaf, bulkScorer)) return RowReceiver.Result.PAUSE;
         }
         return RowReceiver.Result.CONTINUE;
@@ -250,6 +316,7 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         } catch (CollectionPauseException e) {
             state.leaf = leaf;
             state.bulkScorer = scorer;
+            docCollector.reportPrunedRows();
             rowReceiver.pauseProcessed(resumeable);
             return true;
         }
@@ -266,6 +333,7 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
     public void repeat() {
         debugLog("repeat collect");
         Iterator<LeafReaderContext> iterator = indexSearcher.getTopReaderContext().leaves().iterator();
+        docCollector.resetBatch();
         innerCollect(state.collector, state.weight, iterator, null, null);
     }
 
@@ -277,24 +345,91 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
         LeafReaderContext leaf;
     }
 
+    /**
+     * Emits the collected documents either row by row or, if the rowReceiver is a {@link BatchRowReceiver},
+     * in batches.
+     * <p>
+     * The batch size starts small and is doubled on every batch up to {@link #MAX_BATCH_SIZE}, so that
+     * queries with a small limit don't read many more documents than they need.
+     * <p>
+     * If all inputs are doc values columns the documents can also be collected in blocks using
+     * {@link #collectBlocks(DocIdSetIterator, Bits)}: The doc ids of a block are read from the iterator first,
+     * then the values of each column are read for the whole block using {@link DocValuesBlock}s.
+     * <p>
+     * If a {@link RuntimeFilter} is given, documents which don't pass it are skipped before they are emitted.
+     */
     private static class LuceneDocCollector extends SimpleCollector {
 
+        private static final int INITIAL_BATCH_SIZE = 16;
+        private static final int MAX_BATCH_SIZE = 1024;
+
         private final RamAccountingContext ramAccountingContext;
         private final RowReceiver rowReceiver;
         private final boolean doScores;
         private final Row inputRow;
         private final LuceneCollectorExpression[] expressions;
 
+        @Nullable
+        private final BatchRowReceiver batchReceiver;
+        private final Input<?>[] inputs;
+        private final RowBatch batch;
+        private int batchSize = INITIAL_BATCH_SIZE;
+        private int numBuffered = 0;
+
+        @Nullable
+        private final DocValuesBlock[] blocks;
+        private final int[] blockDocs;
+        private final Row blockRow = new BlockRow();
+        private int numBlockDocs = 0;
+        private int blockPos = 0;
+
+        @Nullable
+        private final RuntimeFilter runtimeFilter;
+        private long prunedRows = 0;
+
         LuceneDocCollector(RamAccountingContext ramAccountingContext,
                            RowReceiver rowReceiver,
                            boolean doScores,
-                           Row inputRow,
-                           Collection<? extends LuceneCollectorExpression<?>> expressions) {
+                           List<Input<?>> inputs,
+                           Collection<? extends LuceneCollectorExpression<?>> expressions,
+                           @Nullable RuntimeFilter runtimeFilter) {
             this.ramAccountingContext = ramAccountingContext;
             this.rowReceiver = rowReceiver;
             this.doScores = doScores;
-            this.inputRow = inputRow;
+            this.inputRow = new InputRow(inputs);
             this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
+            this.inputs = inputs.toArray(new Input[0]);
+            if (rowReceiver instanceof BatchRowReceiver) {
+                batchReceiver = (BatchRowReceiver) rowReceiver;
+                batch = new RowBatch(inputs.size(), MAX_BATCH_SIZE);
+            } else {
+                batchReceiver = null;
+                batch = null;
+            }
+            blocks = newBlocks(this.inputs);
+            blockDocs = blocks == null ? null : new int[MAX_BATCH_SIZE];
+            this.runtimeFilter = runtimeFilter;
+        }
+
+        @Nullable
+        private static DocValuesBlock[] newBlocks(Input<?>[] inputs) {
+            DocValuesBlock[] blocks = new DocValuesBlock[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                Input<?> input = inputs[i];
+                if (!(input instanceof LuceneCollectorExpression)) {
+                    return null;
+                }
+                DocValuesBlock block = ((LuceneCollectorExpression<?>) input).newBlock(MAX_BATCH_SIZE);
+                if (block == null) {
+                    return null;
+                }
+                blocks[i] = block;
+            }
+            return blocks;
+        }
+
+        boolean supportsBlocks() {
+            return blocks != null;
         }
 
 
@@ -318,7 +453,24 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             for (LuceneCollectorExpression<?> expression : expressions) {
                 expression.setNextDocId(doc);
             }
-            RowReceiver.Result result = rowReceiver.setNextRow(inputRow);
+            if (runtimeFilter != null && !runtimeFilter.mightContain(inputs)) {
+                prunedRows++;
+                return;
+            }
+            RowReceiver.Result result;
+            if (batchReceiver == null) {
+                result = rowReceiver.setNextRow(inputRow);
+            } else {
+                // the expressions create new values per document, so they can be buffered without copying them
+                for (int i = 0; i < inputs.length; i++) {
+                    batch.column(i)[numBuffered] = inputs[i].value();
+                }
+                numBuffered++;
+                if (numBuffered < batchSize) {
+                    return;
+                }
+                result = flush();
+            }
             switch (result) {
                 case CONTINUE:
                     return;
@@ -330,6 +482,137 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
             throw new AssertionError("Unrecognized setNextRow result: " + result);
         }
 
+        private RowReceiver.Result flush() {
+            batch.size(numBuffered);
+            numBuffered = 0;
+            batchSize = Math.min(batchSize << 1, MAX_BATCH_SIZE);
+            return batchReceiver.setNextBatch(batch);
+        }
+
+        /**
+         * Emits the documents which are still buffered once all leaves have been collected.
+         */
+        RowReceiver.Result flushRemaining() {
+            if (numBuffered == 0) {
+                return RowReceiver.Result.CONTINUE;
+            }
+            return flush();
+        }
+
+        /**
+         * Reports the rows skipped since the last call to the runtime filter
+         */
+        void reportPrunedRows() {
+            if (runtimeFilter != null) {
+                runtimeFilter.addPrunedRows(prunedRows);
+                prunedRows = 0;
+            }
+        }
+
+        void resetBatch() {
+            numBuffered = 0;
+            numBlockDocs = 0;
+            blockPos = 0;
+            batchSize = INITIAL_BATCH_SIZE;
+        }
+
+        /**
+         * Collects the matching documents of the current reader in blocks.
+         * If the receiver pauses the remaining documents of the current block are emitted on the next call.
+         */
+        void collectBlocks(DocIdSetIterator iterator, @Nullable Bits acceptDocs) throws IOException {
+            while (blockPos < numBlockDocs || nextBlock(iterator, acceptDocs)) {
+                RowReceiver.Result result = emitBlock();
+                switch (result) {
+                    case CONTINUE:
+                        continue;
+                    case PAUSE:
+                        throw CollectionPauseException.INSTANCE;
+                    case STOP:
+                        throw CollectionFinishedEarlyException.INSTANCE;
+                    default:
+                        throw new AssertionError("Unrecognized setNextRow result: " + result);
+                }
+            }
+        }
+
+        private boolean nextBlock(DocIdSetIterator iterator, @Nullable Bits acceptDocs) throws IOException {
+            numBlockDocs = 0;
+            blockPos = 0;
+            if (iterator.docID() == DocIdSetIterator.NO_MORE_DOCS) {
+                return false;
+            }
+            int doc;
+            while (numBlockDocs < batchSize && (doc = iterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                if (acceptDocs == null || acceptDocs.get(doc)) {
+                    blockDocs[numBlockDocs] = doc;
+                    numBlockDocs++;
+                }
+            }
+            if (numBlockDocs == 0) {
+                return false;
+            }
+            checkCircuitBreaker();
+            for (DocValuesBlock block : blocks) {
+                block.load(blockDocs, numBlockDocs);
+            }
+            batchSize = Math.min(batchSize << 1, MAX_BATCH_SIZE);
+            return true;
+        }
+
+        private RowReceiver.Result emitBlock() {
+            if (batchReceiver == null) {
+                while (blockPos < numBlockDocs) {
+                    if (runtimeFilter != null && !runtimeFilter.mightContain(blocks, blockPos)) {
+                        prunedRows++;
+                        blockPos++;
+                        continue;
+                    }
+                    RowReceiver.Result result = rowReceiver.setNextRow(blockRow);
+                    blockPos++;
+                    if (result != RowReceiver.Result.CONTINUE) {
+                        return result;
+                    }
+                }
+                return RowReceiver.Result.CONTINUE;
+            }
+            int size = runtimeFilter == null ? copyBlock() : copyFilteredBlock();
+            blockPos = numBlockDocs;
+            if (size == 0) {
+                return RowReceiver.Result.CONTINUE;
+            }
+            batch.size(size);
+            return batchReceiver.setNextBatch(batch);
+        }
+
+        private int copyBlock() {
+            int size = numBlockDocs - blockPos;
+            for (int c = 0; c < blocks.length; c++) {
+                DocValuesBlock block = blocks[c];
+                Object[] column = batch.column(c);
+                for (int i = 0; i < size; i++) {
+                    column[i] = block.get(blockPos + i);
+                }
+            }
+            return size;
+        }
+
+        private int copyFilteredBlock() {
+            assert runtimeFilter != null : "runtimeFilter must not be null";
+            int size = 0;
+            for (int pos = blockPos; pos < numBlockDocs; pos++) {
+                if (!runtimeFilter.mightContain(blocks, pos)) {
+                    prunedRows++;
+                    continue;
+                }
+                for (int c = 0; c < blocks.length; c++) {
+                    batch.column(c)[size] = blocks[c].get(pos);
+                }
+                size++;
+            }
+            return size;
+        }
+
         private void checkCircuitBreaker() throws CircuitBreakingException {
             if (ramAccountingContext != null && ramAccountingContext.trippedBreaker()) {
                 // stop collecting because breaker limit was reached
@@ -347,6 +630,57 @@ public class CrateDocCollector implements CrateCollector, RepeatHandle {
                 expression.setNextReader(context);
             }
         }
+
+        /**
+         * Row view on the values of the current position of the current block
+         */
+        private class BlockRow implements Row {
+
+            @Override
+            public int size() {
+                return blocks.length;
+            }
+
+            @Override
+            public Object get(int index) {
+                return blocks[index].get(blockPos);
+            }
+
+            @Override
+            public Object[] materialize() {
+                Object[] cells = new Object[blocks.length];
+                for (int i = 0; i < blocks.length; i++) {
+                    cells[i] = blocks[i].get(blockPos);
+                }
+                return cells;
+            }
+        }
+    }
+
+    /**
+     * BulkScorer which collects the documents in blocks, see {@link LuceneDocCollector#collectBlocks(DocIdSetIterator, Bits)}
+     */
+    private static class BlockBulkScorer extends BulkScorer {
+
+        private final DocIdSetIterator iterator;
+        private final LuceneDocCollector collector;
+
+        BlockBulkScorer(DocIdSetIterator iterator, LuceneDocCollector collector) {
+            this.iterator = iterator;
+            this.collector = collector;
+        }
+
+        @Override
+        public int score(LeafCollector leafCollector, Bits acceptDocs, int min, int max) throws IOException {
+            // the leafCollector has already been set to the current reader, the values are read by the blocks
+            collector.collectBlocks(iterator, acceptDocs);
+            return DocIdSetIterator.NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost() {
+            return iterator.cost();
+        }
     }
 
     private static class DefaultBulkScorer extends BulkScorer {
@@ -22,6 +22,7 @@
 package io.crate.operation.collect.files;
 
 import com.google.common.base.Predicate;
+import com.google.common.io.ByteStreams;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -44,5 +45,25 @@ public interface FileInput {
 
     InputStream getStream(URI uri) throws IOException;
 
+    /**
+     * Like {@link #getStream(URI)} but the returned stream starts at the given byte offset.
+     * Implementations should override this if they can seek without reading the skipped bytes.
+     */
+    default InputStream getStream(URI uri, long position) throws IOException {
+        InputStream stream = getStream(uri);
+        if (stream != null && position > 0) {
+            ByteStreams.skipFully(stream, position);
+        }
+        return stream;
+    }
+
+    /**
+     * @return the size of the file in bytes or -1 if it is unknown.
+     * Only files with a known size can be divided into ranges which are read concurrently.
+     */
+    default long size(URI uri) throws IOException {
+        return -1L;
+    }
+
     boolean sharedStorageDefault();
 }
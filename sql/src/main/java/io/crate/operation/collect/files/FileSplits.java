@@ -0,0 +1,329 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The files a node has to read for a COPY FROM, shared by the {@link FileReadingCollector}s of that node.
+ * <p>
+ * The files are listed by the first collector which asks for a split. If more than one collector is reading,
+ * large uncompressed files are divided into byte ranges so that they can be read concurrently.
+ * Compressed files and files of unknown size are always read as a whole.
+ */
+public class FileSplits {
+
+    private static final long DEFAULT_MIN_SPLIT_SIZE = 32 * 1024 * 1024;
+
+    private static final Pattern HAS_GLOBS_PATTERN = Pattern.compile("(.*)[^\\\\]\\*.*");
+    private static final Predicate<URI> MATCH_ALL_PREDICATE = new Predicate<URI>() {
+        @Override
+        public boolean apply(@Nullable URI input) {
+            return true;
+        }
+    };
+
+    private final List<UriWithGlob> fileUris;
+    private final Map<String, FileInputFactory> fileInputFactories;
+    private final boolean compressed;
+    private final Boolean shared;
+    private final int numReaders;
+    private final int readerNumber;
+    private final int numCollectors;
+    private final long minSplitSize;
+
+    private final Queue<Split> splits = new ArrayDeque<>();
+    private boolean listed = false;
+    private volatile boolean stopped = false;
+
+    /**
+     * @param numReaders    the number of nodes reading the files
+     * @param readerNumber  the index of this node within the readers
+     * @param numCollectors the number of collectors on this node which share these splits
+     */
+    public FileSplits(Collection<String> fileUris,
+                      @Nullable String compression,
+                      Map<String, FileInputFactory> fileInputFactories,
+                      Boolean shared,
+                      int numReaders,
+                      int readerNumber,
+                      int numCollectors) {
+        this(fileUris, compression, fileInputFactories, shared, numReaders, readerNumber, numCollectors,
+            DEFAULT_MIN_SPLIT_SIZE);
+    }
+
+    FileSplits(Collection<String> fileUris,
+               @Nullable String compression,
+               Map<String, FileInputFactory> fileInputFactories,
+               Boolean shared,
+               int numReaders,
+               int readerNumber,
+               int numCollectors,
+               long minSplitSize) {
+        this.fileUris = getUrisWithGlob(fileUris);
+        this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
+        this.fileInputFactories = fileInputFactories;
+        this.shared = shared;
+        this.numReaders = numReaders;
+        this.readerNumber = readerNumber;
+        this.numCollectors = numCollectors;
+        this.minSplitSize = minSplitSize;
+    }
+
+    /**
+     * A file or a byte range of a file.
+     * A line belongs to the range in which its first byte is located.
+     */
+    static class Split {
+
+        final FileInput fileInput;
+        final URI uri;
+        final long start;
+        /**
+         * exclusive, -1 if the file is read until its end
+         */
+        final long end;
+
+        Split(FileInput fileInput, URI uri, long start, long end) {
+            this.fileInput = fileInput;
+            this.uri = uri;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean isWholeFile() {
+            return start == 0 && end == -1;
+        }
+    }
+
+    public boolean compressed() {
+        return compressed;
+    }
+
+    /**
+     * @return true if the splits are read by more than one collector
+     */
+    public boolean concurrent() {
+        return numCollectors > 1;
+    }
+
+    /**
+     * Returns the next split to read or null if there are none left or the splits have been {@link #stop() stopped}.
+     * Lists the files on the first call.
+     */
+    @Nullable
+    synchronized Split next() throws IOException {
+        if (stopped) {
+            return null;
+        }
+        if (!listed) {
+            listed = true;
+            listSplits();
+        }
+        return splits.poll();
+    }
+
+    /**
+     * Prevents any further splits from being handed out, e.g. because the downstream doesn't need more rows or
+     * a collector failed.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    boolean stopped() {
+        return stopped;
+    }
+
+    private void listSplits() throws IOException {
+        for (UriWithGlob fileUri : fileUris) {
+            FileInput fileInput = getFileInput(fileUri.uri);
+            Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
+            for (URI uri : getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate)) {
+                addSplits(fileInput, uri);
+            }
+        }
+    }
+
+    private void addSplits(FileInput fileInput, URI uri) throws IOException {
+        long size = -1;
+        if (numCollectors > 1 && !compressed) {
+            size = fileInput.size(uri);
+        }
+        int numSplits = (int) Math.min(numCollectors, size / minSplitSize);
+        if (numSplits < 2) {
+            splits.add(new Split(fileInput, uri, 0, -1));
+            return;
+        }
+        long splitSize = size / numSplits;
+        long start = 0;
+        for (int i = 0; i < numSplits - 1; i++) {
+            splits.add(new Split(fileInput, uri, start, start + splitSize));
+            start += splitSize;
+        }
+        splits.add(new Split(fileInput, uri, start, size));
+    }
+
+    private static class UriWithGlob {
+        final URI uri;
+        final URI preGlobUri;
+        @Nullable
+        final Predicate<URI> globPredicate;
+
+        public UriWithGlob(URI uri, URI preGlobUri, Predicate<URI> globPredicate) {
+            this.uri = uri;
+            this.preGlobUri = preGlobUri;
+            this.globPredicate = globPredicate;
+        }
+    }
+
+    private List<UriWithGlob> getUrisWithGlob(Collection<String> fileUris) {
+        List<UriWithGlob> uris = new ArrayList<>(fileUris.size());
+        for (String fileUri : fileUris) {
+            URI uri = toURI(fileUri);
+
+            URI preGlobUri = null;
+            Predicate<URI> globPredicate = null;
+            Matcher hasGlobMatcher = HAS_GLOBS_PATTERN.matcher(uri.toString());
+            if (hasGlobMatcher.matches()) {
+                if (fileUri.startsWith("/") || fileUri.startsWith("file://")) {
+                    /*
+                     * Substitute a symlink with the real path.
+                     * The wildcard needs to be maintained, though, because it is used to generate the matcher.
+                     * Take the part before the wildcard (*) and try to resolved the real path.
+                     * If the part before the wildcard contains a part of the filename (e.g. /tmp/foo_*.json) then use the
+                     * parent directory of this filename to resolved the real path.
+                     * Then replace this part with the real path and generate the URI.
+                     */
+                    Path oldPath = Paths.get(toURI(hasGlobMatcher.group(1)));
+                    if (!Files.isDirectory(oldPath)) {
+                        oldPath = oldPath.getParent();
+                    }
+                    String oldPathAsString;
+                    String newPathAsString;
+                    try {
+                        oldPathAsString = oldPath.toUri().toString();
+                        newPathAsString = oldPath.toRealPath().toUri().toString();
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    String resolvedFileUrl = uri.toString().replace(oldPathAsString, newPathAsString);
+                    uri = toURI(resolvedFileUrl);
+                    preGlobUri = toURI(newPathAsString);
+                } else {
+                    preGlobUri = URI.create(hasGlobMatcher.group(1));
+                }
+                globPredicate = new GlobPredicate(uri);
+            }
+
+            uris.add(new UriWithGlob(uri, preGlobUri, globPredicate));
+        }
+        return uris;
+    }
+
+    private static URI toURI(String fileUri) {
+        if (fileUri.startsWith("/")) {
+            // using Paths.get().toUri instead of new URI(...) as it also encodes umlauts and other special characters
+            return Paths.get(fileUri).toUri();
+        } else {
+            URI uri = URI.create(fileUri);
+            if (uri.getScheme() == null) {
+                throw new IllegalArgumentException("relative fileURIs are not allowed");
+            }
+            if (uri.getScheme().equals("file") && !uri.getSchemeSpecificPart().startsWith("///")) {
+                throw new IllegalArgumentException("Invalid fileURI");
+            }
+            return uri;
+        }
+    }
+
+    @Nullable
+    private FileInput getFileInput(URI fileUri) throws IOException {
+        FileInputFactory fileInputFactory = fileInputFactories.get(fileUri.getScheme());
+        if (fileInputFactory != null) {
+            return fileInputFactory.create();
+        }
+        return new URLFileInput(fileUri);
+    }
+
+    private static List<URI> getUris(FileInput fileInput, URI fileUri, URI preGlobUri, Predicate<URI> uriPredicate) throws IOException {
+        List<URI> uris;
+        if (preGlobUri != null) {
+            uris = fileInput.listUris(preGlobUri, uriPredicate);
+        } else if (uriPredicate.apply(fileUri)) {
+            uris = ImmutableList.of(fileUri);
+        } else {
+            uris = ImmutableList.of();
+        }
+        return uris;
+    }
+
+    private Predicate<URI> generateUriPredicate(FileInput fileInput, @Nullable Predicate<URI> globPredicate) {
+        Predicate<URI> moduloPredicate;
+        boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
+        if (sharedStorage) {
+            moduloPredicate = new Predicate<URI>() {
+                @Override
+                public boolean apply(URI input) {
+                    int hash = input.hashCode();
+                    if (hash == Integer.MIN_VALUE) {
+                        hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
+                    }
+                    return Math.abs(hash) % numReaders == readerNumber;
+                }
+            };
+        } else {
+            moduloPredicate = MATCH_ALL_PREDICATE;
+        }
+
+        if (globPredicate != null) {
+            return Predicates.and(moduloPredicate, globPredicate);
+        }
+        return moduloPredicate;
+    }
+
+    private static class GlobPredicate implements Predicate<URI> {
+        private final Pattern globPattern;
+
+        public GlobPredicate(URI fileUri) {
+            this.globPattern = Pattern.compile(Globs.toUnixRegexPattern(fileUri.toString()));
+        }
+
+        @Override
+        public boolean apply(@Nullable URI input) {
+            return input != null && globPattern.matcher(input.toString()).matches();
+        }
+    }
+}
@@ -81,6 +81,28 @@ public class LocalFsFileInput implements FileInput {
         }
     }
 
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        File file = new File(uri);
+        FileInputStream stream;
+        try {
+            stream = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        stream.getChannel().position(position);
+        return stream;
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        Path path = Paths.get(uri);
+        if (Files.isRegularFile(path)) {
+            return Files.size(path);
+        }
+        return -1L;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
@@ -0,0 +1,134 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect.files;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a byte range of a file.
+ * <p>
+ * A line belongs to the range in which its first byte is located: The last line of a range is read past the end
+ * of the range and, unless the range starts at the beginning of the file, the line which started in the
+ * previous range is skipped. To detect whether the range starts with a new line the stream must be positioned
+ * one byte before the start of the range.
+ * <p>
+ * Lines are terminated by {@code \n} or {@code \r\n} and returned as (UTF-8) bytes without the terminator.
+ */
+class RangeLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final long start;
+    private final long end;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPos = 0;
+    private int bufferLength = 0;
+    private byte[] line = new byte[256];
+    private long position;
+    private boolean positioned = false;
+
+    /**
+     * @param in    stream positioned at {@code max(0, start - 1)}
+     * @param start the first byte of the range
+     * @param end   the end of the range (exclusive)
+     */
+    RangeLineReader(InputStream in, long start, long end) {
+        this.in = in;
+        this.start = start;
+        this.end = end;
+        this.position = Math.max(0, start - 1);
+    }
+
+    /**
+     * @return the next line of the range or null if there are no more lines which start within the range
+     */
+    @Nullable
+    byte[] readLine() throws IOException {
+        if (!positioned) {
+            positioned = true;
+            if (start > 0 && readRawLine() < 0) {
+                return null;
+            }
+        }
+        if (position >= end) {
+            return null;
+        }
+        int length = readRawLine();
+        if (length < 0) {
+            return null;
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Reads the next line into {@link #line}
+     *
+     * @return the length of the line without its terminator or -1 if the end of the stream has been reached
+     */
+    private int readRawLine() throws IOException {
+        int length = 0;
+        boolean terminated = false;
+        while (!terminated) {
+            if (bufferPos == bufferLength) {
+                bufferLength = in.read(buffer, 0, buffer.length);
+                bufferPos = 0;
+                if (bufferLength <= 0) {
+                    bufferLength = 0;
+                    if (length == 0) {
+                        return -1;
+                    }
+                    break;
+                }
+            }
+            int lineEnd = bufferPos;
+            while (lineEnd < bufferLength && buffer[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int chunk = lineEnd - bufferPos;
+            if (lineEnd < bufferLength) {
+                terminated = true;
+                position++;
+            }
+            if (length + chunk > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length << 1, length + chunk));
+            }
+            System.arraycopy(buffer, bufferPos, line, length, chunk);
+            length += chunk;
+            position += chunk;
+            bufferPos = terminated ? lineEnd + 1 : lineEnd;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
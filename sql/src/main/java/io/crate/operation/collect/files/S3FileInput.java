@@ -22,7 +22,9 @@
 package io.crate.operation.collect.files;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.google.common.base.Predicate;
@@ -54,9 +56,7 @@ public class S3FileInput implements FileInput {
     @Override
     public List<URI> listUris(URI uri, Predicate<URI> uriPredicate) throws IOException {
         String bucketName = uri.getHost();
-        if (client == null) {
-            client = clientBuilder.client(uri);
-        }
+        AmazonS3 client = client(uri);
         String prefix = uri.getPath().length() > 1 ? uri.getPath().substring(1) : "";
         List<URI> uris = new ArrayList<>();
         ObjectListing list = client.listObjects(bucketName, prefix);
@@ -87,9 +87,7 @@ public class S3FileInput implements FileInput {
 
     @Override
     public InputStream getStream(URI uri) throws IOException {
-        if (client == null) {
-            client = clientBuilder.client(uri);
-        }
+        AmazonS3 client = client(uri);
         S3Object object = client.getObject(uri.getHost(), uri.getPath().substring(1));
 
         if (object != null) {
@@ -98,6 +96,41 @@ public class S3FileInput implements FileInput {
         return null;
     }
 
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        AmazonS3 client = client(uri);
+        GetObjectRequest request = new GetObjectRequest(uri.getHost(), uri.getPath().substring(1));
+        if (position > 0) {
+            // S3 responds with the remainder of the object if the end of the range is past its end
+            request.setRange(position, Long.MAX_VALUE - 1);
+        }
+        S3Object object = client.getObject(request);
+        if (object != null) {
+            return object.getObjectContent();
+        }
+        return null;
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        AmazonS3 client = client(uri);
+        ObjectMetadata metadata = client.getObjectMetadata(uri.getHost(), uri.getPath().substring(1));
+        if (metadata == null) {
+            return -1L;
+        }
+        return metadata.getContentLength();
+    }
+
+    /**
+     * The splits of a file may be read concurrently using the same FileInput.
+     */
+    private synchronized AmazonS3 client(URI uri) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        return client;
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return true;
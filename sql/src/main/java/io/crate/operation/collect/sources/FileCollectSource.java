@@ -31,7 +31,10 @@ import io.crate.operation.collect.CrateCollector;
 import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.files.FileInputFactory;
 import io.crate.operation.collect.files.FileReadingCollector;
+import io.crate.operation.collect.files.FileSplits;
 import io.crate.operation.collect.files.LineCollectorExpression;
+import io.crate.operation.projectors.MultiUpstreamRowReceiver;
+import io.crate.operation.projectors.Requirement;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
 import io.crate.planner.node.dql.CollectPhase;
@@ -41,6 +44,8 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 
 import java.util.*;
 
@@ -50,38 +55,59 @@ public class FileCollectSource implements CollectSource {
     private final ClusterService clusterService;
     private final Map<String, FileInputFactory> fileInputFactoryMap;
     private final InputFactory inputFactory;
+    private final int maxConcurrentCollectors;
 
     @Inject
-    public FileCollectSource(Functions functions, ClusterService clusterService, Map<String, FileInputFactory> fileInputFactoryMap) {
+    public FileCollectSource(Settings settings,
+                             Functions functions,
+                             ClusterService clusterService,
+                             Map<String, FileInputFactory> fileInputFactoryMap) {
         this.fileInputFactoryMap = fileInputFactoryMap;
         inputFactory = new InputFactory(functions);
         this.clusterService = clusterService;
+        // the collectors run in the percolate thread pool which has one thread per processor
+        this.maxConcurrentCollectors = EsExecutors.boundedNumberOfProcessors(settings);
     }
 
     @Override
     public Collection<CrateCollector> getCollectors(CollectPhase collectPhase, RowReceiver downstream, JobCollectContext jobCollectContext) {
         FileUriCollectPhase fileUriCollectPhase = (FileUriCollectPhase) collectPhase;
-        InputFactory.Context<LineCollectorExpression<?>> ctx =
-            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
-        ctx.add(collectPhase.toCollect());
 
         String[] readers = fileUriCollectPhase.nodeIds().toArray(
             new String[fileUriCollectPhase.nodeIds().size()]);
         Arrays.sort(readers);
 
+        // MultiUpstreamRowReceiver doesn't support repeat
+        int numCollectors = downstream.requirements().contains(Requirement.REPEAT) ? 1 : maxConcurrentCollectors;
         List<String> fileUris;
         fileUris = targetUriToStringList(fileUriCollectPhase.targetUri());
-        return ImmutableList.of(new FileReadingCollector(
+        FileSplits fileSplits = new FileSplits(
             fileUris,
-            ctx.topLevelInputs(),
-            ctx.expressions(),
-            downstream,
             fileUriCollectPhase.compression(),
             fileInputFactoryMap,
             fileUriCollectPhase.sharedStorage(),
             readers.length,
-            Arrays.binarySearch(readers, clusterService.state().nodes().getLocalNodeId())
-        ));
+            Arrays.binarySearch(readers, clusterService.state().nodes().getLocalNodeId()),
+            numCollectors
+        );
+        if (numCollectors == 1) {
+            return ImmutableList.of(createCollector(collectPhase, downstream, fileSplits));
+        }
+        // each collector reads and parses the lines of its splits concurrently,
+        // the MultiUpstreamRowReceiver synchronizes the downstream
+        MultiUpstreamRowReceiver multiUpstreamRowReceiver = new MultiUpstreamRowReceiver(downstream);
+        List<CrateCollector> collectors = new ArrayList<>(numCollectors);
+        for (int i = 0; i < numCollectors; i++) {
+            collectors.add(createCollector(collectPhase, multiUpstreamRowReceiver.newRowReceiver(), fileSplits));
+        }
+        return collectors;
+    }
+
+    private CrateCollector createCollector(CollectPhase collectPhase, RowReceiver downstream, FileSplits fileSplits) {
+        InputFactory.Context<LineCollectorExpression<?>> ctx =
+            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
+        ctx.add(collectPhase.toCollect());
+        return new FileReadingCollector(ctx.topLevelInputs(), ctx.expressions(), downstream, fileSplits);
     }
 
     private static List<String> targetUriToStringList(Symbol targetUri) {
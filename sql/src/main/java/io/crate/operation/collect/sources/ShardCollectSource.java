@@ -33,6 +33,7 @@ import io.crate.analyze.OrderBy;
 import io.crate.analyze.symbol.Symbols;
 import io.crate.blob.v2.BlobIndicesService;
 import io.crate.blob.v2.BlobShard;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.core.collections.Buckets;
 import io.crate.core.collections.Row;
 import io.crate.exceptions.UnhandledServerException;
@@ -127,6 +128,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
     private final Map<ShardId, ShardCollectorProvider> shards = new ConcurrentHashMap<>();
     private final Functions functions;
     private final LuceneQueryBuilder luceneQueryBuilder;
+    private final CrateCircuitBreakerService breakerService;
+    private final boolean queryResultCacheEnabled;
 
 
     @Inject
@@ -144,7 +147,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
                               SystemCollectSource systemCollectSource,
                               NodeSysExpression nodeSysExpression,
                               IndicesLifecycle indicesLifecycle,
-                              BlobIndicesService blobIndicesService) {
+                              BlobIndicesService blobIndicesService,
+                              CrateCircuitBreakerService breakerService) {
         super(settings);
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.schemas = schemas;
@@ -159,6 +163,9 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         this.executor = MoreExecutors.listeningDecorator((ExecutorService) threadPool.executor(ThreadPool.Names.SEARCH));
         this.blobIndicesService = blobIndicesService;
         this.functions = functions;
+        this.breakerService = breakerService;
+        this.queryResultCacheEnabled = settings.getAsBoolean(
+            QueryResultCache.ENABLED_SETTING, QueryResultCache.DEFAULT_ENABLED);
         NodeSysReferenceResolver referenceResolver = new NodeSysReferenceResolver(nodeSysExpression);
         nodeNormalizer = new EvaluatingNormalizer(
             functions,
@@ -196,7 +203,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
             } else {
                 provider = new LuceneShardCollectorProvider(
                     schemas, luceneQueryBuilder, clusterService, functions, indexNameExpressionResolver, threadPool,
-                    settings, transportActionProvider, bulkRetryCoordinatorPool, indexShard);
+                    settings, transportActionProvider, bulkRetryCoordinatorPool, indexShard,
+                    queryResultCacheEnabled ? new QueryResultCache(breakerService) : null);
             }
             shards.put(indexShard.shardId(), provider);
 
@@ -206,12 +214,17 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
             logger.debug("removing shard upon close in {} shard={} numShards={}", ShardCollectSource.this, shardId, shards.size());
             assert shards.containsKey(shardId) : "shard entry missing upon close";
-            shards.remove(shardId);
+            ShardCollectorProvider provider = shards.remove(shardId);
+            if (provider != null) {
+                provider.close();
+            }
         }
 
         @Override
         public void beforeIndexShardDeleted(ShardId shardId, Settings indexSettings) {
-            if (shards.remove(shardId) != null) {
+            ShardCollectorProvider provider = shards.remove(shardId);
+            if (provider != null) {
+                provider.close();
                 logger.debug("removed shard upon delete in {} shard={} remainingShards={}", ShardCollectSource.this, shardId, shards.size());
             } else {
                 logger.debug("shard not found upon delete in {} shard={} remainingShards={}", ShardCollectSource.this, shardId, shards.size());
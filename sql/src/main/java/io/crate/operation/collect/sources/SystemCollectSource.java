@@ -24,6 +24,7 @@ package io.crate.operation.collect.sources;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import io.crate.action.sql.StatementCache;
 import io.crate.analyze.EvaluatingNormalizer;
 import io.crate.core.collections.Row;
 import io.crate.metadata.Functions;
@@ -31,6 +32,7 @@ import io.crate.metadata.ReplaceMode;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.information.*;
 import io.crate.metadata.pg_catalog.PgCatalogTables;
+import io.crate.metadata.pg_catalog.PgStatsTable;
 import io.crate.metadata.pg_catalog.PgTypeTable;
 import io.crate.metadata.sys.*;
 import io.crate.operation.InputFactory;
@@ -49,6 +51,7 @@ import io.crate.operation.reference.sys.repositories.SysRepositoriesService;
 import io.crate.operation.reference.sys.snapshot.SysSnapshots;
 import io.crate.planner.node.dql.CollectPhase;
 import io.crate.planner.node.dql.RoutedCollectPhase;
+import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 
@@ -82,7 +85,9 @@ public class SystemCollectSource implements CollectSource {
                                Set<SysNodeCheck> sysNodeChecks,
                                SysRepositoriesService sysRepositoriesService,
                                SysSnapshots sysSnapshots,
-                               PgCatalogTables pgCatalogTables) {
+                               PgCatalogTables pgCatalogTables,
+                               StatementCache statementCache,
+                               BulkRetryCoordinatorPool bulkRetryCoordinatorPool) {
         this.clusterService = clusterService;
         inputFactory = new InputFactory(functions);
         this.functions = functions;
@@ -105,7 +110,10 @@ public class SystemCollectSource implements CollectSource {
             .put(SysRepositoriesTableInfo.IDENT.fqn(), sysRepositoriesService::repositoriesGetter)
             .put(SysSnapshotsTableInfo.IDENT.fqn(), sysSnapshots::snapshotsGetter)
             .put(SysSummitsTableInfo.IDENT.fqn(), new SummitsIterable()::summitsGetter)
+            .put(SysStatementCacheTableInfo.IDENT.fqn(), statementCache::statsGetter)
+            .put(SysBulkLimitsTableInfo.IDENT.fqn(), bulkRetryCoordinatorPool::statsGetter)
             .put(PgTypeTable.IDENT.fqn(), pgCatalogTables::typesGetter)
+            .put(PgStatsTable.IDENT.fqn(), pgCatalogTables::statsGetter)
             .build();
     }
 
@@ -23,6 +23,7 @@
 package io.crate.operation.collect.stats;
 
 import com.twitter.jsr166e.LongAdder;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
 import io.crate.operation.reference.sys.operation.OperationContext;
@@ -116,10 +117,61 @@ public class StatsTables {
     }
 
     public void operationStarted(int operationId, UUID jobId, String name) {
+        operationStarted(operationId, jobId, name, null);
+    }
+
+    /**
+     * @param ramAccountingContext the context the operation accounts its memory usage on,
+     *                             used to expose its spill statistics
+     */
+    public void operationStarted(int operationId,
+                                 UUID jobId,
+                                 String name,
+                                 @Nullable RamAccountingContext ramAccountingContext) {
         if (isEnabled()) {
             operationsTable.put(
                 uniqueOperationId(operationId, jobId),
-                new OperationContext(operationId, jobId, name, System.currentTimeMillis()));
+                new OperationContext(operationId, jobId, name, System.currentTimeMillis(), ramAccountingContext));
+        }
+    }
+
+    /**
+     * Adds to the number of documents a fetch operation has loaded, used to expose its fetch latency and rate.
+     */
+    public void operationFetchedDocs(int operationId, UUID jobId, long docs) {
+        if (!isEnabled()) {
+            return;
+        }
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.addFetchedDocs(docs);
+        }
+    }
+
+    /**
+     * Adds to the number of rows a collect operation has skipped because of a runtime join filter.
+     */
+    public void operationPrunedRows(int operationId, UUID jobId, long rows) {
+        if (!isEnabled()) {
+            return;
+        }
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.addPrunedRows(rows);
+        }
+    }
+
+    /**
+     * Records that an operation has been paused for {@code nanos} waiting for downstream nodes to acknowledge
+     * the pages it has sent.
+     */
+    public void operationPaused(int operationId, UUID jobId, long nanos) {
+        if (!isEnabled()) {
+            return;
+        }
+        OperationContext operationContext = operationsTable.get(uniqueOperationId(operationId, jobId));
+        if (operationContext != null) {
+            operationContext.addPausedTime(nanos);
         }
     }
 
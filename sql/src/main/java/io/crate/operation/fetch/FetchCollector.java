@@ -25,6 +25,9 @@ package io.crate.operation.fetch;
 import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.cursors.IntCursor;
 import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.core.collections.RowN;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
@@ -36,8 +39,20 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Loads the values of documents of one reader.
+ * <p>
+ * The documents are visited in doc id order so that the stored fields and doc values of each segment are
+ * read sequentially and every segment is switched to only once. The rows are put back into the order in which
+ * the doc ids have been requested, which is the order the {@link io.crate.operation.projectors.fetch.FetchProjector}
+ * expects.
+ * <p>
+ * The loaded rows are accounted against the {@link RamAccountingContext} of the fetch context, the caller
+ * releases them once the rows have been encoded into a bucket.
+ */
 class FetchCollector {
 
     private final CollectorFieldsVisitor fieldsVisitor;
@@ -45,16 +60,22 @@ class FetchCollector {
     private final LuceneCollectorExpression[] collectorExpressions;
     private final InputRow row;
     private final Streamer<?>[] streamers;
+    private final SizeEstimator<Object>[] sizeEstimators;
+    private final RamAccountingContext ramAccountingContext;
     private final List<LeafReaderContext> readerContexts;
 
     FetchCollector(List<LuceneCollectorExpression<?>> collectorExpressions,
                    Streamer<?>[] streamers,
+                   SizeEstimator<Object>[] sizeEstimators,
+                   RamAccountingContext ramAccountingContext,
                    Engine.Searcher searcher,
                    IndexFieldDataService indexFieldDataService,
                    int readerId) {
         // use toArray to avoid iterator allocations in docIds loop
         this.collectorExpressions = collectorExpressions.toArray(new LuceneCollectorExpression[0]);
         this.streamers = streamers;
+        this.sizeEstimators = sizeEstimators;
+        this.ramAccountingContext = ramAccountingContext;
         this.readerContexts = searcher.searcher().getIndexReader().leaves();
         this.fieldsVisitor = new CollectorFieldsVisitor(this.collectorExpressions.length);
         CollectorContext collectorContext = new CollectorContext(indexFieldDataService, fieldsVisitor, readerId);
@@ -66,25 +87,100 @@ class FetchCollector {
 
     }
 
+    private void setNextReader(LeafReaderContext readerContext) throws IOException {
+        for (LuceneCollectorExpression e : collectorExpressions) {
+            e.setNextReader(readerContext);
+        }
+    }
+
     private void setNextDocId(LeafReaderContext readerContext, int doc) throws IOException {
         if (visitorEnabled) {
             fieldsVisitor.reset();
             readerContext.reader().document(doc, fieldsVisitor);
         }
         for (LuceneCollectorExpression e : collectorExpressions) {
-            e.setNextReader(readerContext);
             e.setNextDocId(doc);
         }
     }
 
     public StreamBucket collect(IntContainer docIds) throws IOException {
-        StreamBucket.Builder builder = new StreamBucket.Builder(streamers);
-        for (IntCursor cursor : docIds) {
-            int docId = cursor.value;
-            int readerIndex = ReaderUtil.subIndex(docId, readerContexts);
-            LeafReaderContext subReaderContext = readerContexts.get(readerIndex);
+        long[] sortedDocs = sortDocIds(docIds);
+        Object[][] rows = new Object[sortedDocs.length][];
+        long accountedBytes = 0L;
+        try {
+            accountedBytes = collect(sortedDocs, 0, sortedDocs.length, rows);
+            return toBucket(streamers, rows);
+        } finally {
+            ramAccountingContext.releaseBytes(accountedBytes);
+        }
+    }
+
+    /**
+     * Loads the documents {@code sortedDocs[from]} to {@code sortedDocs[to - 1]} and stores each row at its
+     * requested position in {@code rows}.
+     *
+     * @param sortedDocs the doc ids together with their positions as created by {@link #sortDocIds(IntContainer)}
+     * @return the number of bytes which have been accounted for the loaded rows
+     * @throws org.elasticsearch.common.breaker.CircuitBreakingException if the loaded rows trip the circuit breaker
+     */
+    long collect(long[] sortedDocs, int from, int to, Object[][] rows) throws IOException {
+        LeafReaderContext subReaderContext = null;
+        int maxDoc = -1;
+        long accountedBytes = 0L;
+        for (int i = from; i < to; i++) {
+            int docId = docId(sortedDocs[i]);
+            if (docId >= maxDoc) {
+                subReaderContext = readerContexts.get(ReaderUtil.subIndex(docId, readerContexts));
+                maxDoc = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+                setNextReader(subReaderContext);
+            }
             setNextDocId(subReaderContext, docId - subReaderContext.docBase);
-            builder.add(row);
+            Object[] cells = row.materialize();
+            long rowBytes = estimateSize(cells);
+            accountedBytes += rowBytes;
+            rows[position(sortedDocs[i])] = cells;
+            ramAccountingContext.addBytes(rowBytes);
+        }
+        return accountedBytes;
+    }
+
+    private long estimateSize(Object[] cells) {
+        long rowBytes = 16L + cells.length * 8L; // array header + references
+        for (int i = 0; i < cells.length; i++) {
+            rowBytes += sizeEstimators[i].estimateSize(cells[i]);
+        }
+        return rowBytes;
+    }
+
+    /**
+     * Sorts the docIds ascending. Each entry of the result contains the doc id in the upper and its position
+     * within {@code docIds} in the lower 32 bits.
+     */
+    static long[] sortDocIds(IntContainer docIds) {
+        long[] sortedDocs = new long[docIds.size()];
+        int position = 0;
+        for (IntCursor cursor : docIds) {
+            sortedDocs[position] = ((long) cursor.value << 32) | position;
+            position++;
+        }
+        Arrays.sort(sortedDocs);
+        return sortedDocs;
+    }
+
+    static int docId(long sortedDoc) {
+        return (int) (sortedDoc >>> 32);
+    }
+
+    static int position(long sortedDoc) {
+        return (int) sortedDoc;
+    }
+
+    static StreamBucket toBucket(Streamer<?>[] streamers, Object[][] rows) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, true);
+        RowN rowN = new RowN(streamers.length);
+        for (Object[] cells : rows) {
+            rowN.cells(cells);
+            builder.add(rowN);
         }
         return builder.build();
     }
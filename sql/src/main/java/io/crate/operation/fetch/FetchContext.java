@@ -25,6 +25,7 @@ import com.carrotsearch.hppc.IntObjectHashMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import io.crate.action.job.SharedShardContext;
 import io.crate.action.job.SharedShardContexts;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.AbstractExecutionSubContext;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.Reference;
@@ -39,6 +40,7 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -50,6 +52,7 @@ public class FetchContext extends AbstractExecutionSubContext {
     private final FetchPhase phase;
     private final String localNodeId;
     private final SharedShardContexts sharedShardContexts;
+    private final RamAccountingContext ramAccountingContext;
     private final TreeMap<Integer, TableIdent> tableIdents = new TreeMap<>();
     private final Iterable<? extends Routing> routingIterable;
     private final Map<TableIdent, Collection<Reference>> toFetch;
@@ -58,11 +61,13 @@ public class FetchContext extends AbstractExecutionSubContext {
     public FetchContext(FetchPhase phase,
                         String localNodeId,
                         SharedShardContexts sharedShardContexts,
+                        RamAccountingContext ramAccountingContext,
                         Iterable<? extends Routing> routingIterable) {
         super(phase.phaseId(), LOGGER);
         this.phase = phase;
         this.localNodeId = localNodeId;
         this.sharedShardContexts = sharedShardContexts;
+        this.ramAccountingContext = ramAccountingContext;
         this.routingIterable = routingIterable;
         this.toFetch = new HashMap<>(phase.tableIndices().size());
     }
@@ -75,6 +80,14 @@ public class FetchContext extends AbstractExecutionSubContext {
         return isKilled;
     }
 
+    /**
+     * Accounts the rows which are loaded by fetch requests until they have been encoded into a bucket
+     */
+    @Override
+    public RamAccountingContext ramAccountingContext() {
+        return ramAccountingContext;
+    }
+
     @Override
     public void innerPrepare() {
         HashMap<String, TableIdent> index2TableIdent = new HashMap<>();
@@ -140,9 +153,15 @@ public class FetchContext extends AbstractExecutionSubContext {
         }
     }
 
+    @Override
+    protected void innerClose(@Nullable Throwable t) {
+        future.bytesUsed(ramAccountingContext.totalBytes());
+    }
+
     @Override
     protected void innerKill(@Nonnull Throwable t) {
         isKilled.set(true);
+        future.bytesUsed(ramAccountingContext.totalBytes());
     }
 
     @Override
@@ -150,6 +169,7 @@ public class FetchContext extends AbstractExecutionSubContext {
         for (IntObjectCursor<Engine.Searcher> cursor : searchers) {
             cursor.value.close();
         }
+        ramAccountingContext.close();
     }
 
     @Override
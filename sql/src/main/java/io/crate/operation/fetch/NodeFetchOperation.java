@@ -31,6 +31,8 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.crate.Streamer;
 import io.crate.analyze.symbol.Symbols;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.exceptions.Exceptions;
 import io.crate.executor.transport.StreamBucket;
 import io.crate.jobs.JobContextService;
@@ -51,24 +53,38 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class NodeFetchOperation {
 
+    /**
+     * Readers with less docs to fetch than this are not split across multiple threads
+     */
+    private static final int MIN_DOCS_PER_SPLIT = 1_000;
+
     private final Executor executor;
+    private final int maxSplitsPerReader;
     private final StatsTables statsTables;
     private final JobContextService jobContextService;
 
     private static class TableFetchInfo {
 
         private final Streamer<?>[] streamers;
+        private final SizeEstimator<Object>[] sizeEstimators;
         private final Collection<Reference> refs;
         private final FetchContext fetchContext;
 
+        @SuppressWarnings("unchecked")
         TableFetchInfo(Collection<Reference> refs, FetchContext fetchContext) {
             this.refs = refs;
             this.fetchContext = fetchContext;
             this.streamers = Symbols.streamerArray(refs);
+            this.sizeEstimators = new SizeEstimator[refs.size()];
+            int i = 0;
+            for (Reference ref : refs) {
+                sizeEstimators[i++] = SizeEstimatorFactory.createOrEstimate(ref.valueType());
+            }
         }
 
         FetchCollector createCollector(int readerId) {
@@ -81,6 +97,8 @@ public class NodeFetchOperation {
             return new FetchCollector(
                 exprs,
                 streamers,
+                sizeEstimators,
+                fetchContext.ramAccountingContext(),
                 fetchContext.searcher(readerId),
                 indexService.fieldData(),
                 readerId
@@ -90,6 +108,7 @@ public class NodeFetchOperation {
 
     public NodeFetchOperation(ThreadPool threadPool, StatsTables statsTables, JobContextService jobContextService) {
         executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        maxSplitsPerReader = Math.max(1, threadPool.info(ThreadPool.Names.SEARCH).getMax());
         this.statsTables = statsTables;
         this.jobContextService = jobContextService;
     }
@@ -114,7 +133,7 @@ public class NodeFetchOperation {
             Futures.addCallback(resultFuture, new CloseContextCallback(fetchContext));
         }
         try {
-            doFetch(fetchContext, resultFuture, docIdsToFetch);
+            doFetch(jobId, phaseId, fetchContext, resultFuture, docIdsToFetch);
         } catch (Throwable t) {
             resultFuture.setException(t);
         }
@@ -155,75 +174,148 @@ public class NodeFetchOperation {
         return result;
     }
 
-    private void doFetch(FetchContext fetchContext,
+    private void doFetch(UUID jobId,
+                         int phaseId,
+                         FetchContext fetchContext,
                          SettableFuture<IntObjectMap<StreamBucket>> resultFuture,
                          IntObjectMap<? extends IntContainer> toFetch) throws Exception {
 
         final IntObjectHashMap<StreamBucket> fetched = new IntObjectHashMap<>(toFetch.size());
         HashMap<TableIdent, TableFetchInfo> tableFetchInfos = getTableFetchInfos(fetchContext);
         final AtomicReference<Throwable> lastThrowable = new AtomicReference<>(null);
-        final AtomicInteger threadLatch = new AtomicInteger(toFetch.size());
 
+        List<ReaderFetch> readerFetches = new ArrayList<>(toFetch.size());
+        int numSplits = 0;
         for (IntObjectCursor<? extends IntContainer> toFetchCursor : toFetch) {
             final int readerId = toFetchCursor.key;
-            final IntContainer docIds = toFetchCursor.value;
-
             TableIdent ident = fetchContext.tableIdent(readerId);
             final TableFetchInfo tfi = tableFetchInfos.get(ident);
             assert tfi != null : "tfi must not be null";
 
-            CollectRunnable runnable = new CollectRunnable(
-                tfi.createCollector(readerId),
-                docIds,
-                fetched,
-                readerId,
-                lastThrowable,
-                threadLatch,
-                resultFuture,
-                fetchContext.isKilled()
-            );
-            try {
-                executor.execute(runnable);
-            } catch (EsRejectedExecutionException | RejectedExecutionException e) {
-                runnable.run();
+            ReaderFetch readerFetch = new ReaderFetch(
+                readerId, tfi, FetchCollector.sortDocIds(toFetchCursor.value), maxSplitsPerReader);
+            readerFetches.add(readerFetch);
+            numSplits += readerFetch.numSplits;
+        }
+
+        if (numSplits == 0) {
+            resultFuture.set(fetched);
+            return;
+        }
+        // the latch must account for all splits before the first one is started
+        final AtomicInteger threadLatch = new AtomicInteger(numSplits);
+        for (ReaderFetch readerFetch : readerFetches) {
+            for (int split = 0; split < readerFetch.numSplits; split++) {
+                CollectRunnable runnable = new CollectRunnable(
+                    readerFetch,
+                    split,
+                    fetched,
+                    lastThrowable,
+                    threadLatch,
+                    resultFuture,
+                    fetchContext.isKilled(),
+                    jobId,
+                    phaseId,
+                    statsTables
+                );
+                try {
+                    executor.execute(runnable);
+                } catch (EsRejectedExecutionException | RejectedExecutionException e) {
+                    runnable.run();
+                }
             }
         }
     }
 
+    /**
+     * The docs to fetch from one reader, sorted by doc id.
+     * Large readers are split into ranges of consecutive docs which are loaded concurrently, each by its own
+     * {@link FetchCollector}. The rows are written into {@link #rows} at their requested position, so the
+     * bucket can be built in the requested order once the last split has finished. The bytes accounted for the
+     * rows are released as soon as the bucket has been built.
+     */
+    private static class ReaderFetch {
+
+        private final int readerId;
+        private final TableFetchInfo tableFetchInfo;
+        private final long[] sortedDocs;
+        private final Object[][] rows;
+        private final int numSplits;
+        private final AtomicInteger pendingSplits;
+        private final AtomicLong accountedBytes = new AtomicLong(0L);
+
+        ReaderFetch(int readerId, TableFetchInfo tableFetchInfo, long[] sortedDocs, int maxSplits) {
+            this.readerId = readerId;
+            this.tableFetchInfo = tableFetchInfo;
+            this.sortedDocs = sortedDocs;
+            this.rows = new Object[sortedDocs.length][];
+            this.numSplits = Math.max(1, Math.min(maxSplits, sortedDocs.length / MIN_DOCS_PER_SPLIT));
+            this.pendingSplits = new AtomicInteger(numSplits);
+        }
+
+        int from(int split) {
+            return (int) ((long) sortedDocs.length * split / numSplits);
+        }
+
+        int to(int split) {
+            return from(split + 1);
+        }
+    }
+
     private static class CollectRunnable implements Runnable {
-        private final FetchCollector collector;
-        private final IntContainer docIds;
+        private final ReaderFetch readerFetch;
+        private final int split;
         private final IntObjectHashMap<StreamBucket> fetched;
-        private final int readerId;
         private final AtomicReference<Throwable> lastThrowable;
         private final AtomicInteger threadLatch;
         private final SettableFuture<IntObjectMap<StreamBucket>> resultFuture;
         private final AtomicBoolean contextKilledRef;
+        private final UUID jobId;
+        private final int phaseId;
+        private final StatsTables statsTables;
 
-        CollectRunnable(FetchCollector collector,
-                        IntContainer docIds,
+        CollectRunnable(ReaderFetch readerFetch,
+                        int split,
                         IntObjectHashMap<StreamBucket> fetched,
-                        int readerId,
                         AtomicReference<Throwable> lastThrowable,
                         AtomicInteger threadLatch,
                         SettableFuture<IntObjectMap<StreamBucket>> resultFuture,
-                        AtomicBoolean contextKilledRef) {
-            this.collector = collector;
-            this.docIds = docIds;
+                        AtomicBoolean contextKilledRef,
+                        UUID jobId,
+                        int phaseId,
+                        StatsTables statsTables) {
+            this.readerFetch = readerFetch;
+            this.split = split;
             this.fetched = fetched;
-            this.readerId = readerId;
             this.lastThrowable = lastThrowable;
             this.threadLatch = threadLatch;
             this.resultFuture = resultFuture;
             this.contextKilledRef = contextKilledRef;
+            this.jobId = jobId;
+            this.phaseId = phaseId;
+            this.statsTables = statsTables;
         }
 
         @Override
         public void run() {
             try {
-                StreamBucket bucket = collector.collect(docIds);
-                synchronized (fetched) {
-                    fetched.put(readerId, bucket);
+                int from = readerFetch.from(split);
+                int to = readerFetch.to(split);
+                FetchCollector collector = readerFetch.tableFetchInfo.createCollector(readerFetch.readerId);
+                readerFetch.accountedBytes.addAndGet(
+                    collector.collect(readerFetch.sortedDocs, from, to, readerFetch.rows));
+                statsTables.operationFetchedDocs(phaseId, jobId, to - from);
+                if (readerFetch.pendingSplits.decrementAndGet() == 0) {
+                    StreamBucket bucket;
+                    try {
+                        bucket = FetchCollector.toBucket(readerFetch.tableFetchInfo.streamers, readerFetch.rows);
+                    } finally {
+                        readerFetch.tableFetchInfo.fetchContext.ramAccountingContext().releaseBytes(
+                            readerFetch.accountedBytes.get());
+                    }
+                    synchronized (fetched) {
+                        fetched.put(readerFetch.readerId, bucket);
+                    }
                 }
             } catch (Exception e) {
                 lastThrowable.set(e);
@@ -0,0 +1,539 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.core.collections.RowNull;
+import io.crate.operation.Input;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.*;
+import io.crate.planner.node.dql.join.JoinType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Push based hash join for equi-joins:
+ * <pre>
+ *     for (rightRow in right) {
+ *         table[key(rightRow)].add(rightRow)
+ *     }
+ *     for (leftRow in left) {
+ *         for (rightRow in table[key(leftRow)]) {
+ *             emit(left + right)
+ *         }
+ *         if (leftJoin && noRightRowMatched) {
+ *             emitWithRightAsNull
+ *         }
+ *     }
+ * </pre>
+ * <p>
+ * The right side is the build side: its rows are hashed by their join keys and kept in memory,
+ * which is accounted on the {@link RamAccountingContext}. The left side is the probe side and is streamed.
+ * In contrast to the {@link NestedLoopOperation} the right side doesn't have to be repeated for every left row.
+ * <p>
+ * Only INNER and LEFT joins are supported. A row with a null join key never matches, as <code>null = x</code>
+ * is never true.
+ * <p>
+ * <h2>Implementation details:</h2>
+ * <p>
+ * Both upstreams start concurrently. If the left side emits a row before the right side has finished,
+ * the row is kept and the left upstream is paused. {@link #pendingSignals} counts down once the right side
+ * has finished and once the left side has either been paused or finished; whoever counts it down to 0 continues.
+ */
+public class HashJoinOperation implements JoinOperation {
+
+    private final static ESLogger LOGGER = Loggers.getLogger(HashJoinOperation.class);
+
+    private final SettableFuture<Void> completionFuture = SettableFuture.create();
+
+    private final int phaseId;
+    private final RowReceiver downstream;
+    private final JoinType joinType;
+    private final RamAccountingContext ramAccountingContext;
+    private final ProbeRowReceiver left;
+    private final BuildRowReceiver right;
+
+    @Nullable
+    private final RuntimeFilter runtimeFilter;
+
+    private final Map<Object, List<Object[]>> table = new HashMap<>();
+    private final AtomicInteger pendingSignals = new AtomicInteger(2);
+    private long accountedBytes = 0;
+
+    private volatile boolean buildFinished = false;
+    private volatile boolean stop = false;
+    private volatile Throwable upstreamFailure;
+
+    /**
+     * @param leftKeys         inputs which evaluate the join keys of a left row
+     * @param leftExpressions  expressions used by <code>leftKeys</code>
+     * @param rightKeys        inputs which evaluate the join keys of a right row;
+     *                         the i-th right key is compared with the i-th left key
+     * @param rightExpressions expressions used by <code>rightKeys</code>
+     */
+    public HashJoinOperation(int phaseId,
+                             RowReceiver rowReceiver,
+                             RamAccountingContext ramAccountingContext,
+                             JoinType joinType,
+                             List<? extends Input<?>> leftKeys,
+                             Iterable<? extends CollectExpression<Row, ?>> leftExpressions,
+                             List<? extends Input<?>> rightKeys,
+                             Iterable<? extends CollectExpression<Row, ?>> rightExpressions,
+                             int rightNumOutputs) {
+        this(phaseId, rowReceiver, ramAccountingContext, joinType, leftKeys, leftExpressions,
+            rightKeys, rightExpressions, rightNumOutputs, null);
+    }
+
+    /**
+     * @param runtimeFilter filter which is published once the build side has finished; used by the collector of the
+     *                      left side to skip rows without join partner. Must only be used for INNER joins.
+     */
+    public HashJoinOperation(int phaseId,
+                             RowReceiver rowReceiver,
+                             RamAccountingContext ramAccountingContext,
+                             JoinType joinType,
+                             List<? extends Input<?>> leftKeys,
+                             Iterable<? extends CollectExpression<Row, ?>> leftExpressions,
+                             List<? extends Input<?>> rightKeys,
+                             Iterable<? extends CollectExpression<Row, ?>> rightExpressions,
+                             int rightNumOutputs,
+                             @Nullable RuntimeFilter runtimeFilter) {
+        Preconditions.checkArgument(joinType == JoinType.INNER || joinType == JoinType.LEFT,
+            "hash join doesn't support join type %s", joinType);
+        Preconditions.checkArgument(!leftKeys.isEmpty() && leftKeys.size() == rightKeys.size(),
+            "hash join requires the same number of left and right join keys");
+        Preconditions.checkArgument(runtimeFilter == null || joinType == JoinType.INNER,
+            "a runtime filter can only be used for inner joins");
+        this.phaseId = phaseId;
+        this.downstream = rowReceiver;
+        this.ramAccountingContext = ramAccountingContext;
+        this.joinType = joinType;
+        this.runtimeFilter = runtimeFilter;
+        left = new ProbeRowReceiver(new JoinKeys(leftKeys, leftExpressions), rightNumOutputs);
+        right = new BuildRowReceiver(new JoinKeys(rightKeys, rightExpressions), rightNumOutputs);
+    }
+
+    @Override
+    public ListenableFuture<?> completionFuture() {
+        return completionFuture;
+    }
+
+    @Override
+    public ListenableRowReceiver leftRowReceiver() {
+        return left;
+    }
+
+    @Override
+    public ListenableRowReceiver rightRowReceiver() {
+        return right;
+    }
+
+    private void signal() {
+        if (pendingSignals.decrementAndGet() == 0) {
+            LOGGER.trace("phase={} method=signal probeFinished={}", phaseId, left.probeFinished);
+            if (left.probeFinished) {
+                finishDownstream();
+            } else {
+                left.resumeAfterBuild();
+            }
+        }
+    }
+
+    private void finishDownstream() {
+        releaseTable();
+        Throwable failure = upstreamFailure;
+        if (failure == null) {
+            downstream.finish(RepeatHandle.UNSUPPORTED);
+            completionFuture.set(null);
+            left.finished.set(null);
+            right.finished.set(null);
+        } else {
+            downstream.fail(failure);
+            completionFuture.setException(failure);
+            left.finished.setException(failure);
+            right.finished.setException(failure);
+        }
+    }
+
+    private void kill(Throwable throwable) {
+        stop = true;
+        Throwable uf = upstreamFailure; // local variable to avoid multiple volatile reads
+        if (uf != null) {
+            throwable = uf; // prefer original upstream failure over kill exception
+        }
+        left.finished.setException(throwable);
+        right.finished.setException(throwable);
+        downstream.kill(throwable);
+        completionFuture.setException(throwable);
+    }
+
+    private void releaseTable() {
+        table.clear();
+        ramAccountingContext.releaseBytes(accountedBytes);
+        accountedBytes = 0;
+    }
+
+    /**
+     * Rough estimate of the memory used by a row of the build side, including the reference within the table
+     */
+    private static long estimateSize(Object[] cells) {
+        long bytes = 16L + cells.length * 8L + 8L; // array header + references + reference within the table
+        for (Object cell : cells) {
+            if (cell == null) {
+                continue;
+            }
+            if (cell instanceof BytesRef) {
+                bytes += 40L + ((BytesRef) cell).length;
+            } else if (cell instanceof Number || cell instanceof Boolean) {
+                bytes += 16L;
+            } else {
+                bytes += 64L;
+            }
+        }
+        return bytes;
+    }
+
+    private static class JoinKeys {
+
+        private final List<? extends Input<?>> inputs;
+        private final Iterable<? extends CollectExpression<Row, ?>> expressions;
+
+        JoinKeys(List<? extends Input<?>> inputs, Iterable<? extends CollectExpression<Row, ?>> expressions) {
+            this.inputs = inputs;
+            this.expressions = expressions;
+        }
+
+        /**
+         * @return the key of the row or null if any of the key values is null
+         */
+        @Nullable
+        Object keyOf(Row row) {
+            for (CollectExpression<Row, ?> expression : expressions) {
+                expression.setNextRow(row);
+            }
+            if (inputs.size() == 1) {
+                return inputs.get(0).value();
+            }
+            Object[] values = new Object[inputs.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = inputs.get(i).value();
+                if (value == null) {
+                    return null;
+                }
+                values[i] = value;
+            }
+            return Arrays.asList(values);
+        }
+    }
+
+    private class BuildRowReceiver implements ListenableRowReceiver {
+
+        final SettableFuture<Void> finished = SettableFuture.create();
+        private final JoinKeys keys;
+        private final RowN row;
+
+        BuildRowReceiver(JoinKeys keys, int numOutputs) {
+            this.keys = keys;
+            this.row = new RowN(numOutputs);
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            if (stop) {
+                return Result.STOP;
+            }
+            Object[] cells = row.materialize();
+            this.row.cells(cells);
+            Object key = keys.keyOf(this.row);
+            if (key == null) {
+                return Result.CONTINUE;
+            }
+            long bytes = estimateSize(cells);
+            ramAccountingContext.addBytes(bytes);
+            accountedBytes += bytes;
+
+            List<Object[]> rows = table.get(key);
+            if (rows == null) {
+                rows = new ArrayList<>(1);
+                table.put(key, rows);
+            }
+            rows.add(cells);
+            return Result.CONTINUE;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeable) {
+            throw new IllegalStateException("The build side of a hash join is never paused");
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatable) {
+            LOGGER.trace("phase={} side=right method=finish numKeys={}", phaseId, table.size());
+            if (runtimeFilter != null) {
+                runtimeFilter.publish(table.keySet());
+            }
+            buildFinished = true;
+            signal();
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            LOGGER.trace("phase={} side=right method=fail error={}", phaseId, throwable);
+            upstreamFailure = throwable;
+            stop = true;
+            buildFinished = true;
+            signal();
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            HashJoinOperation.this.kill(throwable);
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return Requirements.NO_REQUIREMENTS;
+        }
+
+        @Override
+        public ListenableFuture<Void> finishFuture() {
+            return finished;
+        }
+    }
+
+    private class ProbeRowReceiver implements ListenableRowReceiver {
+
+        final SettableFuture<Void> finished = SettableFuture.create();
+        private final JoinKeys keys;
+        private final CombinedRow combinedRow = new CombinedRow();
+        private final RowN matchedRow;
+        private final Row rightNullRow;
+
+        /*
+         * the following fields are only modified by the left upstream or by the thread which counted down
+         * pendingSignals after the left upstream has signaled, so they don't have to be volatile.
+         */
+        boolean probeFinished = false;
+        private boolean signaled = false;
+        private boolean waitingForBuild = false;
+        private Row pendingRow;
+        private ResumeHandle pendingResumeHandle;
+
+        // matches which haven't been emitted because the downstream paused
+        private List<Object[]> remainingMatches;
+        private int nextMatch;
+
+        ProbeRowReceiver(JoinKeys keys, int rightNumOutputs) {
+            this.keys = keys;
+            this.matchedRow = new RowN(rightNumOutputs);
+            this.rightNullRow = new RowNull(rightNumOutputs);
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            if (stop) {
+                return Result.STOP;
+            }
+            if (!buildFinished) {
+                LOGGER.trace("phase={} side=left method=setNextRow action=waitForBuild->pause", phaseId);
+                pendingRow = new RowN(row.materialize());
+                waitingForBuild = true;
+                return Result.PAUSE;
+            }
+            return probe(row);
+        }
+
+        private Result probe(Row row) {
+            Object key = keys.keyOf(row);
+            List<Object[]> matches = key == null ? null : table.get(key);
+            if (matches == null) {
+                if (joinType == JoinType.LEFT) {
+                    combinedRow.outerRow = row;
+                    combinedRow.innerRow = rightNullRow;
+                    return emit(combinedRow);
+                }
+                return Result.CONTINUE;
+            }
+            combinedRow.outerRow = row;
+            combinedRow.innerRow = matchedRow;
+            return emitMatches(matches, 0);
+        }
+
+        private Result emitMatches(List<Object[]> matches, int from) {
+            for (int i = from; i < matches.size(); i++) {
+                matchedRow.cells(matches.get(i));
+                Result result = emit(combinedRow);
+                if (result == Result.PAUSE && i + 1 < matches.size()) {
+                    remainingMatches = matches;
+                    nextMatch = i + 1;
+                    // the upstream might re-use the row once it's resumed
+                    combinedRow.outerRow = new RowN(combinedRow.outerRow.materialize());
+                }
+                if (result != Result.CONTINUE) {
+                    return result;
+                }
+            }
+            return Result.CONTINUE;
+        }
+
+        private Result emit(Row row) {
+            Result result = downstream.setNextRow(row);
+            if (result == Result.STOP) {
+                stop = true;
+            }
+            return result;
+        }
+
+        @Override
+        public void pauseProcessed(ResumeHandle resumeable) {
+            if (waitingForBuild) {
+                waitingForBuild = false;
+                pendingResumeHandle = resumeable;
+                signaled = true;
+                signal();
+            } else {
+                pauseDownstream(resumeable);
+            }
+        }
+
+        private void pauseDownstream(ResumeHandle resumeable) {
+            if (remainingMatches == null) {
+                // no matches left, so the downstream can resume the upstream directly
+                downstream.pauseProcessed(resumeable);
+            } else {
+                downstream.pauseProcessed(new RemainingMatchesResumeHandle(resumeable));
+            }
+        }
+
+        /**
+         * called once the build side has finished while the left upstream is paused
+         */
+        void resumeAfterBuild() {
+            Row row = pendingRow;
+            ResumeHandle resumeHandle = pendingResumeHandle;
+            pendingRow = null;
+            pendingResumeHandle = null;
+            if (stop) {
+                // resume so that the upstream receives the STOP
+                resumeHandle.resume(false);
+                return;
+            }
+            Result result;
+            try {
+                result = probe(row);
+            } catch (Throwable t) {
+                failAndResume(t, resumeHandle);
+                return;
+            }
+            if (result == Result.PAUSE) {
+                pauseDownstream(resumeHandle);
+            } else {
+                resumeHandle.resume(false);
+            }
+        }
+
+        private void failAndResume(Throwable t, ResumeHandle resumeHandle) {
+            upstreamFailure = t;
+            stop = true;
+            // the upstream receives a STOP and calls finish which then fails the downstream
+            resumeHandle.resume(false);
+        }
+
+        @Override
+        public void finish(RepeatHandle repeatable) {
+            LOGGER.trace("phase={} side=left method=finish", phaseId);
+            doFinish();
+        }
+
+        @Override
+        public void fail(Throwable throwable) {
+            LOGGER.trace("phase={} side=left method=fail error={}", phaseId, throwable);
+            upstreamFailure = throwable;
+            stop = true;
+            doFinish();
+        }
+
+        private void doFinish() {
+            probeFinished = true;
+            if (signaled) {
+                finishDownstream();
+            } else {
+                signaled = true;
+                signal();
+            }
+        }
+
+        @Override
+        public void kill(Throwable throwable) {
+            HashJoinOperation.this.kill(throwable);
+        }
+
+        @Override
+        public Set<Requirement> requirements() {
+            return downstream.requirements();
+        }
+
+        @Override
+        public ListenableFuture<Void> finishFuture() {
+            return finished;
+        }
+
+        private class RemainingMatchesResumeHandle implements ResumeHandle {
+
+            private final ResumeHandle delegate;
+
+            RemainingMatchesResumeHandle(ResumeHandle delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void resume(boolean async) {
+                List<Object[]> matches = remainingMatches;
+                remainingMatches = null;
+                if (!stop) {
+                    Result result;
+                    try {
+                        result = emitMatches(matches, nextMatch);
+                    } catch (Throwable t) {
+                        failAndResume(t, delegate);
+                        return;
+                    }
+                    if (result == Result.PAUSE) {
+                        pauseDownstream(delegate);
+                        return;
+                    }
+                }
+                delegate.resume(async);
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import io.crate.operation.Input;
+import io.crate.operation.reference.doc.lucene.DocValuesBlock;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * A filter over the join keys of the build side of a {@link HashJoinOperation} which is used by the collector of
+ * the probe side to skip rows which can't have a join partner.
+ * <p>
+ * The filter consists of a bloom filter over the hashes of all keys and, for a single integral key,
+ * the min and max key. It may have false positives but never false negatives.
+ * Until the build side has finished the filter is not published and every row might match.
+ */
+public class RuntimeFilter {
+
+    /**
+     * Above this number of keys the filter isn't built as it's unlikely to prune many rows but uses a lot of memory
+     */
+    static final int MAX_KEYS = 4 * 1024 * 1024;
+
+    // ~1% false positive probability
+    private static final int BITS_PER_KEY = 10;
+    private static final int NUM_HASHES = 7;
+
+    private final int[] keyPositions;
+    private final LongConsumer prunedRowsListener;
+
+    @Nullable
+    private volatile Filter filter;
+
+    /**
+     * @param keyPositions       the positions of the join keys within the rows of the probe side;
+     *                           the order must match the order of the keys of the build side
+     * @param prunedRowsListener called with the number of rows a collector has skipped
+     */
+    public RuntimeFilter(int[] keyPositions, LongConsumer prunedRowsListener) {
+        this.keyPositions = keyPositions;
+        this.prunedRowsListener = prunedRowsListener;
+    }
+
+    /**
+     * Builds the filter from the keys of the build side and makes it visible to the probe side.
+     *
+     * @param keys the keys as used by the {@link HashJoinOperation}:
+     *             a single value or a {@link List} of values if there are multiple join keys
+     */
+    void publish(Collection<Object> keys) {
+        if (keys.size() > MAX_KEYS) {
+            return;
+        }
+        filter = new Filter(keys);
+    }
+
+    public boolean isPublished() {
+        return filter != null;
+    }
+
+    /**
+     * @param row the inputs of a row of the probe side
+     * @return false if the row can't have a join partner
+     */
+    public boolean mightContain(Input<?>[] row) {
+        Filter filter = this.filter;
+        if (filter == null) {
+            return true;
+        }
+        if (keyPositions.length == 1) {
+            return filter.mightContain(row[keyPositions[0]].value());
+        }
+        int hash = 1;
+        for (int keyPosition : keyPositions) {
+            Object value = row[keyPosition].value();
+            if (value == null) {
+                return false;
+            }
+            hash = 31 * hash + value.hashCode();
+        }
+        return filter.mightContainHash(hash);
+    }
+
+    /**
+     * @param blocks the doc values blocks of the probe side
+     * @param pos    the position of the row within the blocks
+     * @return false if the row can't have a join partner
+     */
+    public boolean mightContain(DocValuesBlock[] blocks, int pos) {
+        Filter filter = this.filter;
+        if (filter == null) {
+            return true;
+        }
+        if (keyPositions.length == 1) {
+            return filter.mightContain(blocks[keyPositions[0]].get(pos));
+        }
+        int hash = 1;
+        for (int keyPosition : keyPositions) {
+            Object value = blocks[keyPosition].get(pos);
+            if (value == null) {
+                return false;
+            }
+            hash = 31 * hash + value.hashCode();
+        }
+        return filter.mightContainHash(hash);
+    }
+
+    /**
+     * Reports the number of rows which have been skipped because of this filter
+     */
+    public void addPrunedRows(long rows) {
+        prunedRowsListener.accept(rows);
+    }
+
+    private static final class Filter {
+
+        private final long[] bits;
+        private final long numBits;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private boolean hasRange = true;
+
+        Filter(Collection<Object> keys) {
+            numBits = Math.max(64L, (long) keys.size() * BITS_PER_KEY);
+            bits = new long[(int) ((numBits + 63) >>> 6)];
+            for (Object key : keys) {
+                // multiple keys are lists, their hashCode is computed the same way as in mightContain
+                add(key.hashCode());
+                if (hasRange && isIntegral(key)) {
+                    long value = ((Number) key).longValue();
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                } else {
+                    hasRange = false;
+                }
+            }
+        }
+
+        private static boolean isIntegral(Object key) {
+            return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+        }
+
+        private void add(int hashCode) {
+            long hash = mix(hashCode);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= NUM_HASHES; i++) {
+                long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(@Nullable Object key) {
+            if (key == null) {
+                return false;
+            }
+            if (hasRange && isIntegral(key)) {
+                long value = ((Number) key).longValue();
+                if (value < min || value > max) {
+                    return false;
+                }
+            }
+            return mightContainHash(key.hashCode());
+        }
+
+        boolean mightContainHash(int hashCode) {
+            long hash = mix(hashCode);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= NUM_HASHES; i++) {
+                long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * spreads the bits of a hashCode, as the hashCode of small numbers is the number itself
+         */
+        private static long mix(int hashCode) {
+            long h = hashCode * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+            h *= 0xC2B2AE3D27D4EB4FL;
+            return h ^ (h >>> 29);
+        }
+    }
+}
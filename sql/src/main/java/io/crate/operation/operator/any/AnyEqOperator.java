@@ -32,6 +32,9 @@ import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.SetType;
 
+import java.util.Map;
+import java.util.Set;
+
 public class AnyEqOperator extends AnyOperator {
 
     public static final String NAME = OPERATOR_PREFIX + ComparisonExpression.Type.EQUAL.getValue();
@@ -66,6 +69,19 @@ public class AnyEqOperator extends AnyOperator {
         return comparisonResult == 0;
     }
 
+    @Override
+    protected Boolean doEvaluate(Object left, Iterable<?> rightIterable) {
+        if (rightIterable instanceof Set && !(left instanceof Map)) {
+            // e.g. the result of a IN (subquery), use a hash lookup instead of comparing all values
+            Set<?> set = (Set<?>) rightIterable;
+            if (set.contains(left)) {
+                return true;
+            }
+            return set.contains(null) ? null : false;
+        }
+        return super.doEvaluate(left, rightIterable);
+    }
+
     @Override
     public String operator(Function function) {
         return "= ANY";
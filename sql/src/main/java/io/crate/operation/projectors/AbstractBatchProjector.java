@@ -0,0 +1,44 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.projectors;
+
+/**
+ * Base class for projectors which can process batches, see {@link BatchRowReceiver}.
+ * Batches are sent to the downstream using {@link #forwarder}, which also works if the downstream only supports
+ * single rows.
+ */
+public abstract class AbstractBatchProjector extends AbstractProjector implements BatchRowReceiver {
+
+    protected BatchForwarder forwarder;
+
+    @Override
+    public void downstream(RowReceiver rowReceiver) {
+        super.downstream(rowReceiver);
+        forwarder = new BatchForwarder(rowReceiver);
+    }
+
+    @Override
+    public void pauseProcessed(ResumeHandle resumeable) {
+        downstream.pauseProcessed(forwarder.resumeHandle(resumeable));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.RowBatch;
+
+/**
+ * Forwards batches to a downstream.
+ * <p>
+ * If the downstream is a {@link BatchRowReceiver} the batch is passed on as is, otherwise its selected rows are sent
+ * one by one. If the downstream pauses in the middle of a batch, the remaining rows are remembered and sent by the
+ * {@link ResumeHandle} returned from {@link #resumeHandle(ResumeHandle)} before the upstream is resumed.
+ * <p>
+ * Usage within a {@link BatchRowReceiver}:
+ * <pre>
+ *     public Result setNextBatch(RowBatch batch) {
+ *         // filter or transform the batch
+ *         return forwarder.forward(batch);
+ *     }
+ *
+ *     public void pauseProcessed(ResumeHandle resumeHandle) {
+ *         downstream.pauseProcessed(forwarder.resumeHandle(resumeHandle));
+ *     }
+ * </pre>
+ */
+public class BatchForwarder {
+
+    private final RowReceiver downstream;
+    private final BatchRowReceiver batchDownstream;
+
+    private RowBatch pending;
+    private int pendingPos;
+    private boolean stopped = false;
+
+    public BatchForwarder(RowReceiver downstream) {
+        this.downstream = downstream;
+        this.batchDownstream = downstream instanceof BatchRowReceiver ? (BatchRowReceiver) downstream : null;
+    }
+
+    public RowReceiver.Result forward(RowBatch batch) {
+        if (stopped) {
+            return RowReceiver.Result.STOP;
+        }
+        if (batchDownstream != null) {
+            return batchDownstream.setNextBatch(batch);
+        }
+        pending = batch;
+        pendingPos = 0;
+        return sendPending();
+    }
+
+    private RowReceiver.Result sendPending() {
+        RowBatch batch = pending;
+        int[] selection = batch.selection();
+        int numSelected = batch.numSelected();
+        while (pendingPos < numSelected) {
+            RowReceiver.Result result = downstream.setNextRow(batch.row(selection[pendingPos]));
+            pendingPos++;
+            switch (result) {
+                case CONTINUE:
+                    continue;
+                case PAUSE:
+                    if (pendingPos == numSelected) {
+                        pending = null;
+                    }
+                    return RowReceiver.Result.PAUSE;
+                case STOP:
+                    pending = null;
+                    stopped = true;
+                    return RowReceiver.Result.STOP;
+                default:
+                    throw new AssertionError("Unrecognized setNextRow result: " + result);
+            }
+        }
+        pending = null;
+        return RowReceiver.Result.CONTINUE;
+    }
+
+    /**
+     * @return a resumeHandle which has to be passed to the downstream instead of the resumeHandle of the upstream.
+     */
+    public ResumeHandle resumeHandle(final ResumeHandle upstream) {
+        if (pending == null) {
+            return upstream;
+        }
+        return new ResumeHandle() {
+            @Override
+            public void resume(boolean async) {
+                RowReceiver.Result result = sendPending();
+                if (result == RowReceiver.Result.PAUSE) {
+                    downstream.pauseProcessed(resumeHandle(upstream));
+                } else {
+                    // on STOP the upstream receives STOP on its next batch
+                    upstream.resume(async);
+                }
+            }
+        };
+    }
+}
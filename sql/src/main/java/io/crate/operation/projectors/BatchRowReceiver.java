@@ -0,0 +1,55 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.core.collections.RowBatch;
+
+/**
+ * A {@link RowReceiver} which can also receive rows in batches.
+ * <p>
+ * Upstreams which produce rows in batches should check if their downstream is a {@link BatchRowReceiver} and use
+ * {@link #setNextBatch(RowBatch)} in that case. Rows of a batch must not be mixed with rows sent using
+ * {@link #setNextRow(io.crate.core.collections.Row)}: an upstream uses either one or the other.
+ * <p>
+ * Downstreams which only support {@link #setNextRow(io.crate.core.collections.Row)} are fed by a
+ * {@link BatchForwarder}, so projectors can be migrated one by one.
+ */
+public interface BatchRowReceiver extends RowReceiver {
+
+    /**
+     * Feed the receiver with the selected rows of the batch.
+     * <p>
+     * The receiver may change the selection of the batch but must not modify its columns.
+     * The batch is re-used by the upstream after this method returned, unless PAUSE is returned.
+     * <p>
+     * Results:
+     * <ul>
+     * <li>CONTINUE: all selected rows have been consumed</li>
+     * <li>PAUSE: the upstream must call {@link #pauseProcessed(ResumeHandle)} and must not touch the batch until
+     * it is resumed. Rows of the batch which haven't been consumed yet are consumed before the upstream is
+     * resumed.</li>
+     * <li>STOP: the receiver doesn't need any more rows, the upstream has to call finish/fail</li>
+     * </ul>
+     */
+    Result setNextBatch(RowBatch batch);
+}
@@ -25,6 +25,7 @@ import com.google.common.collect.Lists;
 import io.crate.Streamer;
 import io.crate.executor.transport.distributed.*;
 import io.crate.operation.NodeOperation;
+import io.crate.operation.collect.stats.StatsTables;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.node.ExecutionPhases;
 import io.crate.planner.node.StreamerVisitor;
@@ -37,24 +38,36 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
 
 @Singleton
 public class DistributingDownstreamFactory extends AbstractComponent {
 
+    /**
+     * number of pages which may be sent to a downstream node before the upstream waits for a response.
+     */
+    public static final String MAX_IN_FLIGHT_PAGES_SETTING = "distributed.max_in_flight_pages";
+    public static final int DEFAULT_MAX_IN_FLIGHT_PAGES = 2;
+
     private final ClusterService clusterService;
     private final TransportDistributedResultAction transportDistributedResultAction;
+    private final StatsTables statsTables;
     private final ESLogger distributingDownstreamLogger;
+    private final int maxInFlightPages;
 
     @Inject
     public DistributingDownstreamFactory(Settings settings,
                                          ClusterService clusterService,
-                                         TransportDistributedResultAction transportDistributedResultAction) {
+                                         TransportDistributedResultAction transportDistributedResultAction,
+                                         StatsTables statsTables) {
         super(settings);
         this.clusterService = clusterService;
         this.transportDistributedResultAction = transportDistributedResultAction;
+        this.statsTables = statsTables;
         distributingDownstreamLogger = Loggers.getLogger(DistributingDownstream.class, settings);
+        maxInFlightPages = Math.max(1, settings.getAsInt(MAX_IN_FLIGHT_PAGES_SETTING, DEFAULT_MAX_IN_FLIGHT_PAGES));
     }
 
     public RowReceiver create(NodeOperation nodeOperation,
@@ -71,6 +84,7 @@ public class DistributingDownstreamFactory extends AbstractComponent {
         Collections.sort(server);
         int bucketIdx = Math.max(server.indexOf(clusterService.localNode().getId()), 0);
 
+        int phaseId = nodeOperation.executionPhase().phaseId();
         MultiBucketBuilder multiBucketBuilder;
         switch (distributionInfo.distributionType()) {
             case MODULO:
@@ -98,7 +112,21 @@ public class DistributingDownstreamFactory extends AbstractComponent {
             nodeOperation.downstreamNodes(),
             transportDistributedResultAction,
             streamers,
-            pageSize
+            pageSize,
+            maxInFlightPages(nodeOperation.downstreamNodes()),
+            pausedNanos -> statsTables.operationPaused(phaseId, jobId, pausedNanos)
         );
     }
+
+    /**
+     * Nodes running an older version can only handle one page at a time
+     */
+    private int maxInFlightPages(Collection<String> downstreamNodeIds) {
+        for (String nodeId : downstreamNodeIds) {
+            if (!transportDistributedResultAction.pipeliningSupportedBy(nodeId)) {
+                return 1;
+            }
+        }
+        return maxInFlightPages;
+    }
 }
@@ -23,8 +23,9 @@ package io.crate.operation.projectors;
 
 import com.google.common.base.Predicate;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 
-class FilterProjector extends AbstractProjector {
+class FilterProjector extends AbstractBatchProjector {
 
     private final Predicate<Row> rowFilterPredicate;
 
@@ -40,6 +41,25 @@ class FilterProjector extends AbstractProjector {
         return Result.CONTINUE;
     }
 
+    @Override
+    public Result setNextBatch(RowBatch batch) {
+        int[] selection = batch.selection();
+        int numSelected = batch.numSelected();
+        int numMatching = 0;
+        for (int i = 0; i < numSelected; i++) {
+            int pos = selection[i];
+            if (rowFilterPredicate.apply(batch.row(pos))) {
+                selection[numMatching] = pos;
+                numMatching++;
+            }
+        }
+        if (numMatching == 0) {
+            return Result.CONTINUE;
+        }
+        batch.numSelected(numMatching);
+        return forwarder.forward(batch);
+    }
+
     @Override
     public void finish(RepeatHandle repeatHandle) {
         downstream.finish(repeatHandle);
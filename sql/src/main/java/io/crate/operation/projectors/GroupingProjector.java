@@ -21,39 +21,71 @@
 
 package io.crate.operation.projectors;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.cursors.IntIntCursor;
+import com.carrotsearch.hppc.cursors.LongIntCursor;
 import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
+import io.crate.Streamer;
+import io.crate.analyze.symbol.Aggregation;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.core.collections.RowN;
 import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.Aggregator;
+import io.crate.operation.aggregation.ColumnarAggregator;
 import io.crate.operation.collect.CollectExpression;
-import io.crate.types.DataType;
-import io.crate.types.DataTypes;
-import org.elasticsearch.common.breaker.CircuitBreakingException;
+import io.crate.types.*;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.unit.ByteSizeValue;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static io.crate.operation.projectors.RowReceiver.Result.CONTINUE;
 import static io.crate.operation.projectors.RowReceiver.Result.STOP;
 
-public class GroupingProjector extends AbstractProjector {
+public class GroupingProjector extends AbstractProjector implements BatchRowReceiver {
 
 
     private static final ESLogger logger = Loggers.getLogger(GroupingProjector.class);
     private final RamAccountingContext ramAccountingContext;
 
-    private final Grouper grouper;
+    private final List<? extends DataType> keyTypes;
+    private final List<Input<?>> keyInputs;
+    private final CollectExpression[] collectExpressions;
+    private final AggregationContext[] aggregations;
+    private final Aggregator[] aggregators;
+    private final GroupingStrategy strategy;
+    private final boolean columnarStates;
+
+    private final long spillThreshold;
+    @Nullable
+    private final Supplier<Path> spillDirectory;
+    private long grouperStartBytes;
+    private SpilledPartitions spilledPartitions = null;
+    private volatile IterableRowEmitter mergeEmitter = null;
+
+    private Grouper grouper;
     private EnumSet<Requirement> requirements;
     private boolean killed = false;
 
@@ -62,11 +94,64 @@ public class GroupingProjector extends AbstractProjector {
                              CollectExpression[] collectExpressions,
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext,
+            GroupingStrategy.forKeyTypes(keyTypes));
+    }
+
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             GroupingStrategy strategy) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext, strategy, true);
+    }
+
+    /**
+     * @param columnarStates if true and all aggregations support it, the specialized groupers keep the
+     *                       aggregation states in primitive arrays, see {@link ColumnarAggregator}.
+     */
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             GroupingStrategy strategy,
+                             boolean columnarStates) {
+        this(keyTypes, keyInputs, collectExpressions, aggregations, ramAccountingContext, strategy, columnarStates,
+            0L, null);
+    }
+
+    /**
+     * @param spillThreshold once the groups exceed this number of bytes they are written to disk, partitioned by the
+     *                       hash of their keys, and merged partition by partition on finish.
+     *                       A value <= 0 disables spilling.
+     * @param spillDirectory directory in which the spilled partitions are stored
+     */
+    public GroupingProjector(List<? extends DataType> keyTypes,
+                             List<Input<?>> keyInputs,
+                             CollectExpression[] collectExpressions,
+                             AggregationContext[] aggregations,
+                             RamAccountingContext ramAccountingContext,
+                             GroupingStrategy strategy,
+                             boolean columnarStates,
+                             long spillThreshold,
+                             @Nullable Supplier<Path> spillDirectory) {
         assert keyTypes.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(keyTypes) : "must have a known type for each key input";
+        Preconditions.checkArgument(spillThreshold <= 0 || spillDirectory != null,
+            "spilling requires a spill directory");
         this.ramAccountingContext = ramAccountingContext;
+        this.keyTypes = keyTypes;
+        this.keyInputs = keyInputs;
+        this.collectExpressions = collectExpressions;
+        this.aggregations = aggregations;
+        this.strategy = strategy;
+        this.columnarStates = columnarStates;
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
 
-        Aggregator[] aggregators = new Aggregator[aggregations.length];
+        aggregators = new Aggregator[aggregations.length];
         for (int i = 0; i < aggregations.length; i++) {
             aggregators[i] = new Aggregator(
                 ramAccountingContext,
@@ -75,14 +160,64 @@ public class GroupingProjector extends AbstractProjector {
                 aggregations[i].inputs()
             );
         }
+        grouper = createGrouper();
+        grouperStartBytes = ramAccountingContext.totalBytes();
+    }
 
-        if (keyInputs.size() == 1) {
-            grouper = new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators);
-        } else {
-            grouper = new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
+    /**
+     * creates a new, empty grouper; the columnar states are owned by the grouper, the aggregators can be shared
+     */
+    private Grouper createGrouper() {
+        GroupStates groupStates = null;
+        if (strategy != GroupingStrategy.GENERIC) {
+            ColumnarAggregator[] columnarAggregators = columnarStates ? columnarAggregators(aggregations) : null;
+            if (columnarAggregators == null) {
+                groupStates = new ObjectGroupStates(aggregators);
+            } else {
+                groupStates = new ColumnarGroupStates(columnarAggregators);
+            }
+        }
+        switch (strategy) {
+            case LONG:
+                assert keyInputs.size() == 1 : "LONG grouping strategy requires exactly one key";
+                return new LongKeyGrouper(keyInputs.get(0), false, collectExpressions, groupStates);
+            case DOUBLE:
+                assert keyInputs.size() == 1 : "DOUBLE grouping strategy requires exactly one key";
+                return new LongKeyGrouper(keyInputs.get(0), true, collectExpressions, groupStates);
+            case INT:
+                assert keyInputs.size() == 1 : "INT grouping strategy requires exactly one key";
+                return new IntKeyGrouper(keyInputs.get(0), collectExpressions, groupStates);
+            case BYTES_REF:
+                assert keyInputs.size() == 1 : "BYTES_REF grouping strategy requires exactly one key";
+                return new BytesRefKeyGrouper(keyInputs.get(0), collectExpressions, groupStates);
+            case FIXED_WIDTH:
+                return new PackedKeyGrouper(keyInputs, keyTypes, collectExpressions, groupStates);
+            case GENERIC:
+                if (keyInputs.size() == 1) {
+                    return new SingleKeyGrouper(keyInputs.get(0), keyTypes.get(0), collectExpressions, aggregators);
+                }
+                return new ManyKeyGrouper(keyInputs, keyTypes, collectExpressions, aggregators);
+            default:
+                throw new AssertionError("Unsupported grouping strategy: " + strategy);
         }
     }
 
+    /**
+     * @return the columnar aggregators or null if any of the aggregations doesn't support columnar states
+     */
+    @Nullable
+    private static ColumnarAggregator[] columnarAggregators(AggregationContext[] aggregations) {
+        ColumnarAggregator[] columnarAggregators = new ColumnarAggregator[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            columnarAggregators[i] = aggregations[i].function().newColumnarAggregator(
+                aggregations[i].symbol(), aggregations[i].inputs());
+            if (columnarAggregators[i] == null) {
+                return null;
+            }
+        }
+        return columnarAggregators;
+    }
+
     private static boolean allTypesKnown(List<? extends DataType> keyTypes) {
         return Iterables.all(keyTypes, new Predicate<DataType>() {
             @Override
@@ -98,25 +233,207 @@ public class GroupingProjector extends AbstractProjector {
         if (killed) {
             return STOP;
         }
-        return grouper.setNextRow(row);
+        Result result = grouper.setNextRow(row);
+        if (spillThreshold > 0 && ramAccountingContext.totalBytes() - grouperStartBytes >= spillThreshold) {
+            spill();
+        }
+        return result;
+    }
+
+    @Override
+    public Result setNextBatch(RowBatch batch) {
+        int[] selection = batch.selection();
+        int numSelected = batch.numSelected();
+        for (int i = 0; i < numSelected; i++) {
+            Result result = setNextRow(batch.row(selection[i]));
+            // grouping never pauses, so all rows are consumed unless it stops
+            if (result != CONTINUE) {
+                return result;
+            }
+        }
+        return CONTINUE;
+    }
+
+    /**
+     * writes the groups as partial states to disk and continues with an empty grouper
+     */
+    private void spill() {
+        try {
+            writePartitions();
+        } catch (IOException e) {
+            closeSpilledPartitions();
+            throw Throwables.propagate(e);
+        }
+        ramAccountingContext.releaseBytes(ramAccountingContext.totalBytes() - grouperStartBytes);
+        grouper = createGrouper();
+        grouperStartBytes = ramAccountingContext.totalBytes();
+    }
+
+    /**
+     * Deletes the spilled partitions, if any. The first spill may fail before they have been created.
+     */
+    private void closeSpilledPartitions() {
+        SpilledPartitions partitions = spilledPartitions;
+        if (partitions != null) {
+            partitions.close();
+        }
+    }
+
+    private void writePartitions() throws IOException {
+        if (spilledPartitions == null) {
+            Streamer<?>[] streamers = new Streamer[keyTypes.size() + aggregations.length];
+            for (int i = 0; i < keyTypes.size(); i++) {
+                streamers[i] = keyTypes.get(i).streamer();
+            }
+            for (int i = 0; i < aggregations.length; i++) {
+                streamers[keyTypes.size() + i] = aggregations[i].function().partialType().streamer();
+            }
+            spilledPartitions = new SpilledPartitions(spillDirectory.get(), streamers, keyTypes.size());
+        }
+        for (long fileBytes : spilledPartitions.write(grouper.partialGroups())) {
+            ramAccountingContext.addSpilledRun(fileBytes);
+        }
+        try {
+            grouper.close();
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
     }
 
     @Override
     public void finish(RepeatHandle repeatHandle) {
-        grouper.finish();
+        if (spilledPartitions == null) {
+            grouper.finish();
+        } else {
+            try {
+                writePartitions();
+            } catch (IOException e) {
+                closeSpilledPartitions();
+                downstream.fail(e);
+                return;
+            }
+            ramAccountingContext.releaseBytes(ramAccountingContext.totalBytes() - grouperStartBytes);
+            mergeEmitter = createMergingRowEmitter();
+            mergeEmitter.run();
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("grouping operation size is: {}", new ByteSizeValue(ramAccountingContext.totalBytes()));
         }
     }
 
+    /**
+     * Merges the spilled groups one partition after another and emits them. The partition files are deleted once
+     * the downstream is done.
+     */
+    private IterableRowEmitter createMergingRowEmitter() {
+        final PartitionMerger merger = new PartitionMerger();
+        RowReceiver closingReceiver = new ForwardingRowReceiver(downstream) {
+            @Override
+            public void finish(RepeatHandle repeatHandle) {
+                closeSpilledPartitions();
+                super.finish(repeatHandle);
+            }
+
+            @Override
+            public void fail(Throwable throwable) {
+                closeSpilledPartitions();
+                super.fail(throwable);
+            }
+
+            @Override
+            public void kill(Throwable throwable) {
+                closeSpilledPartitions();
+                super.kill(throwable);
+            }
+        };
+        Iterable<Row> rows = () -> Iterators.concat(merger);
+        return new IterableRowEmitter(closingReceiver, rows);
+    }
+
+    /**
+     * Provides the merged groups of one partition after another; the memory used by a partition is released once
+     * the next one is merged.
+     */
+    private class PartitionMerger extends AbstractIterator<Iterator<Row>> {
+
+        private final int numKeys = keyTypes.size();
+        private final RowN row = new RowN(numKeys + aggregations.length);
+        private int partition = 0;
+        private long partitionBytes = 0;
+
+        @Override
+        protected Iterator<Row> computeNext() {
+            ramAccountingContext.releaseBytes(partitionBytes);
+            partitionBytes = 0;
+            if (partition >= SpilledPartitions.NUM_PARTITIONS) {
+                return endOfData();
+            }
+            Collection<Object[]> groups = merge(spilledPartitions.read(partition));
+            partition++;
+            return Iterators.transform(groups.iterator(), new Function<Object[], Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable Object[] cells) {
+                    assert cells != null : "cells must not be null";
+                    for (int i = 0; i < aggregations.length; i++) {
+                        if (aggregations[i].symbol().toStep() == Aggregation.Step.FINAL) {
+                            //noinspection unchecked
+                            cells[numKeys + i] = aggregations[i].function().terminatePartial(
+                                ramAccountingContext, cells[numKeys + i]);
+                        }
+                    }
+                    row.cells(cells);
+                    return row;
+                }
+            });
+        }
+
+        /**
+         * reduces the partial states of groups with equal keys
+         */
+        @SuppressWarnings("unchecked")
+        private Collection<Object[]> merge(Iterator<Object[]> partitionRows) {
+            Map<List<Object>, Object[]> groups = new HashMap<>();
+            while (partitionRows.hasNext()) {
+                Object[] cells = partitionRows.next();
+                List<Object> key = Arrays.asList(cells).subList(0, numKeys);
+                Object[] group = groups.get(key);
+                if (group == null) {
+                    groups.put(key, cells);
+                    // 36 bytes map entry + array header and references; the states are accounted by reduce
+                    long bytes = RamAccountingContext.roundUp(52L + 8L * cells.length + 16L * aggregations.length);
+                    ramAccountingContext.addBytes(bytes);
+                    partitionBytes += bytes;
+                } else {
+                    for (int i = 0; i < aggregations.length; i++) {
+                        int idx = numKeys + i;
+                        group[idx] = aggregations[i].function().reduce(ramAccountingContext, group[idx], cells[idx]);
+                    }
+                }
+            }
+            return groups.values();
+        }
+    }
+
     @Override
     public void kill(Throwable throwable) {
         killed = true;
-        grouper.kill(throwable);
+        if (spilledPartitions == null) {
+            grouper.kill(throwable);
+            return;
+        }
+        IterableRowEmitter emitter = mergeEmitter;
+        if (emitter == null) {
+            closeSpilledPartitions();
+            downstream.kill(throwable);
+        } else {
+            emitter.kill(throwable);
+        }
     }
 
     @Override
     public void fail(Throwable throwable) {
+        closeSpilledPartitions();
         downstream.fail(throwable);
     }
 
@@ -158,6 +475,11 @@ public class GroupingProjector extends AbstractProjector {
 
         void finish();
 
+        /**
+         * @return the groups with the partial states of the aggregations behind the keys; the row is re-used
+         */
+        Iterator<Row> partialGroups();
+
         void kill(Throwable t);
     }
 
@@ -229,6 +551,22 @@ public class GroupingProjector extends AbstractProjector {
             rowEmitter.run();
         }
 
+        @Override
+        public Iterator<Row> partialGroups() {
+            final Object[] cells = new Object[1 + aggregators.length];
+            final RowN row = new RowN(cells);
+            return Iterators.transform(result.entrySet().iterator(), new Function<Map.Entry<Object, Object[]>, Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable Map.Entry<Object, Object[]> input) {
+                    assert input != null : "input must not be null";
+                    cells[0] = input.getKey();
+                    System.arraycopy(input.getValue(), 0, cells, 1, aggregators.length);
+                    return row;
+                }
+            });
+        }
+
         @Override
         public void kill(Throwable t) {
             IterableRowEmitter emitter = rowEmitter;
@@ -328,6 +666,26 @@ public class GroupingProjector extends AbstractProjector {
             rowEmitter.run();
         }
 
+        @Override
+        public Iterator<Row> partialGroups() {
+            final int numKeys = keyInputs.size();
+            final Object[] cells = new Object[numKeys + aggregators.length];
+            final RowN row = new RowN(cells);
+            Iterator<Map.Entry<List<Object>, Object[]>> entries = result.entrySet().iterator();
+            return Iterators.transform(entries, new Function<Map.Entry<List<Object>, Object[]>, Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable Map.Entry<List<Object>, Object[]> input) {
+                    assert input != null : "input must not be null";
+                    for (int i = 0; i < numKeys; i++) {
+                        cells[i] = input.getKey().get(i);
+                    }
+                    System.arraycopy(input.getValue(), 0, cells, numKeys, aggregators.length);
+                    return row;
+                }
+            });
+        }
+
         @Override
         public void kill(Throwable t) {
             IterableRowEmitter emitter = rowEmitter;
@@ -344,6 +702,594 @@ public class GroupingProjector extends AbstractProjector {
         }
     }
 
+    /**
+     * The aggregation states of the groups of a {@link SpecializedGrouper}, addressed by dense group ids.
+     */
+    private interface GroupStates {
+
+        /**
+         * creates the states of a new group and aggregates the current row into them
+         *
+         * @return the id of the new group
+         */
+        int newGroup();
+
+        /**
+         * aggregates the current row into the states of an existing group
+         */
+        void processRow(int groupId);
+
+        /**
+         * set the aggregation results of the group into the cells, starting at offset
+         *
+         * @param partial if true the partial states are set regardless of the aggregation steps
+         */
+        void setResults(int groupId, Object[] cells, int offset, boolean partial);
+
+        int numAggregations();
+
+        void close();
+    }
+
+    /**
+     * Keeps an Object[] with a state object per aggregation for each group.
+     */
+    private class ObjectGroupStates implements GroupStates {
+
+        private final Aggregator[] aggregators;
+        private final List<Object[]> states = new ArrayList<>();
+
+        ObjectGroupStates(Aggregator[] aggregators) {
+            this.aggregators = aggregators;
+        }
+
+        @Override
+        public int newGroup() {
+            Object[] groupStates = new Object[aggregators.length];
+            for (int i = 0; i < aggregators.length; i++) {
+                Object state = aggregators[i].prepareState();
+                groupStates[i] = aggregators[i].processRow(state);
+            }
+            states.add(groupStates);
+            // 8 bytes list slot + 16 bytes array header + 8 bytes per state reference
+            ramAccountingContext.addBytes(RamAccountingContext.roundUp(24L + 8L * aggregators.length));
+            return states.size() - 1;
+        }
+
+        @Override
+        public void processRow(int groupId) {
+            Object[] groupStates = states.get(groupId);
+            for (int i = 0; i < aggregators.length; i++) {
+                groupStates[i] = aggregators[i].processRow(groupStates[i]);
+            }
+        }
+
+        @Override
+        public void setResults(int groupId, Object[] cells, int offset, boolean partial) {
+            Object[] groupStates = states.get(groupId);
+            if (partial) {
+                System.arraycopy(groupStates, 0, cells, offset, groupStates.length);
+                return;
+            }
+            for (int i = 0; i < groupStates.length; i++) {
+                cells[offset + i] = aggregators[i].finishCollect(groupStates[i]);
+            }
+        }
+
+        @Override
+        public int numAggregations() {
+            return aggregators.length;
+        }
+
+        @Override
+        public void close() {
+            states.clear();
+        }
+    }
+
+    /**
+     * Keeps the states in primitive arrays owned by {@link ColumnarAggregator}s, so aggregating a row doesn't allocate.
+     */
+    private class ColumnarGroupStates implements GroupStates {
+
+        private final ColumnarAggregator[] aggregators;
+        private final long bytesPerGroup;
+        private int numGroups = 0;
+
+        ColumnarGroupStates(ColumnarAggregator[] aggregators) {
+            this.aggregators = aggregators;
+            long bytes = 0;
+            for (ColumnarAggregator aggregator : aggregators) {
+                bytes += aggregator.bytesPerGroup();
+            }
+            this.bytesPerGroup = RamAccountingContext.roundUp(bytes);
+        }
+
+        @Override
+        public int newGroup() {
+            int groupId = numGroups;
+            for (ColumnarAggregator aggregator : aggregators) {
+                aggregator.newGroup(groupId);
+            }
+            numGroups++;
+            ramAccountingContext.addBytes(bytesPerGroup);
+            return groupId;
+        }
+
+        @Override
+        public void processRow(int groupId) {
+            for (ColumnarAggregator aggregator : aggregators) {
+                aggregator.processRow(groupId);
+            }
+        }
+
+        @Override
+        public void setResults(int groupId, Object[] cells, int offset, boolean partial) {
+            for (int i = 0; i < aggregators.length; i++) {
+                ColumnarAggregator aggregator = aggregators[i];
+                cells[offset + i] = partial ? aggregator.partialResult(groupId) : aggregator.finishCollect(groupId);
+            }
+        }
+
+        @Override
+        public int numAggregations() {
+            return aggregators.length;
+        }
+
+        @Override
+        public void close() {
+            // the state arrays are owned by the aggregators and released together with them
+        }
+    }
+
+    /**
+     * Base for the groupers with a key table specialized on the key types.
+     * The key tables map each key to a dense group id which addresses the aggregation states in {@link #states}.
+     * Rows with a null key are aggregated into the group {@link #nullKeyGroupId} as the primitive tables can't hold
+     * null keys.
+     */
+    private abstract class SpecializedGrouper implements Grouper {
+
+        private static final int NO_GROUP = -1;
+
+        final GroupStates states;
+        final CollectExpression[] collectExpressions;
+        final int numKeys;
+        int nullKeyGroupId = NO_GROUP;
+        private IterableRowEmitter rowEmitter = null;
+
+        SpecializedGrouper(int numKeys, CollectExpression[] collectExpressions, GroupStates states) {
+            this.numKeys = numKeys;
+            this.collectExpressions = collectExpressions;
+            this.states = states;
+        }
+
+        @Override
+        public Result setNextRow(Row row) {
+            for (CollectExpression collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            aggregate();
+            return CONTINUE;
+        }
+
+        /**
+         * read the key inputs and update the states of the group
+         */
+        abstract void aggregate();
+
+        /**
+         * @return an iterator over all groups with a key, it must be possible to create more than one iterator
+         */
+        abstract Iterator<Row> groups(Object[] cells, RowN row, boolean partial);
+
+        void aggregateNullKey() {
+            if (nullKeyGroupId == NO_GROUP) {
+                nullKeyGroupId = states.newGroup();
+            } else {
+                states.processRow(nullKeyGroupId);
+            }
+        }
+
+        /**
+         * set the aggregation results of the group into the cells, behind the keys
+         */
+        Row toRow(int groupId, Object[] cells, RowN row, boolean partial) {
+            states.setResults(groupId, cells, numKeys, partial);
+            row.cells(cells);
+            return row;
+        }
+
+        /**
+         * @return an iterator over all groups including the one of the null key
+         */
+        private Iterator<Row> allGroups(final Object[] cells, final RowN row, final boolean partial) {
+            Iterator<Row> groups = groups(cells, row, partial);
+            if (nullKeyGroupId == NO_GROUP) {
+                return groups;
+            }
+            return Iterators.concat(groups, new AbstractIterator<Row>() {
+
+                boolean emitted = false;
+
+                @Override
+                protected Row computeNext() {
+                    if (emitted) {
+                        return endOfData();
+                    }
+                    emitted = true;
+                    Arrays.fill(cells, 0, numKeys, null);
+                    return toRow(nullKeyGroupId, cells, row, partial);
+                }
+            });
+        }
+
+        @Override
+        public void finish() {
+            rowEmitter = new IterableRowEmitter(downstream, new Iterable<Row>() {
+
+                final RowN row = new RowN(numKeys + states.numAggregations());
+                final Object[] cells = new Object[row.size()];
+
+                @Override
+                public Iterator<Row> iterator() {
+                    return allGroups(cells, row, false);
+                }
+            });
+            rowEmitter.run();
+        }
+
+        @Override
+        public Iterator<Row> partialGroups() {
+            RowN row = new RowN(numKeys + states.numAggregations());
+            return allGroups(new Object[row.size()], row, true);
+        }
+
+        @Override
+        public void kill(Throwable t) {
+            IterableRowEmitter emitter = rowEmitter;
+            if (emitter == null) {
+                downstream.kill(t);
+            } else {
+                emitter.kill(t);
+            }
+        }
+
+        @Override
+        public void close() throws Exception {
+            nullKeyGroupId = NO_GROUP;
+            states.close();
+        }
+    }
+
+    /**
+     * Grouper for a single long key. Double keys are stored using their raw long bits which matches the
+     * semantics of {@link Double#equals(Object)}.
+     */
+    private class LongKeyGrouper extends SpecializedGrouper {
+
+        private final LongIntHashMap groupIds = new LongIntHashMap();
+        private final Input keyInput;
+        private final boolean keyIsDouble;
+
+        LongKeyGrouper(Input keyInput,
+                       boolean keyIsDouble,
+                       CollectExpression[] collectExpressions,
+                       GroupStates states) {
+            super(1, collectExpressions, states);
+            this.keyInput = keyInput;
+            this.keyIsDouble = keyIsDouble;
+        }
+
+        @Override
+        void aggregate() {
+            Object keyValue = keyInput.value();
+            if (keyValue == null) {
+                aggregateNullKey();
+                return;
+            }
+            long key;
+            if (keyIsDouble) {
+                key = Double.doubleToLongBits(((Number) keyValue).doubleValue());
+            } else {
+                key = ((Number) keyValue).longValue();
+            }
+            int idx = groupIds.indexOf(key);
+            if (groupIds.indexExists(idx)) {
+                states.processRow(groupIds.indexGet(idx));
+            } else {
+                groupIds.indexInsert(idx, key, states.newGroup());
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(16L)); // 8 bytes key + 4 bytes group id + load factor headroom
+            }
+        }
+
+        @Override
+        Iterator<Row> groups(final Object[] cells, final RowN row, final boolean partial) {
+            return Iterators.transform(groupIds.iterator(), new Function<LongIntCursor, Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable LongIntCursor input) {
+                    assert input != null : "input must not be null";
+                    cells[0] = keyIsDouble ? Double.longBitsToDouble(input.key) : input.key;
+                    return toRow(input.value, cells, row, partial);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws Exception {
+            super.close();
+            groupIds.clear();
+        }
+    }
+
+    private class IntKeyGrouper extends SpecializedGrouper {
+
+        private final IntIntHashMap groupIds = new IntIntHashMap();
+        private final Input keyInput;
+
+        IntKeyGrouper(Input keyInput, CollectExpression[] collectExpressions, GroupStates states) {
+            super(1, collectExpressions, states);
+            this.keyInput = keyInput;
+        }
+
+        @Override
+        void aggregate() {
+            Object keyValue = keyInput.value();
+            if (keyValue == null) {
+                aggregateNullKey();
+                return;
+            }
+            int key = ((Number) keyValue).intValue();
+            int idx = groupIds.indexOf(key);
+            if (groupIds.indexExists(idx)) {
+                states.processRow(groupIds.indexGet(idx));
+            } else {
+                groupIds.indexInsert(idx, key, states.newGroup());
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(12L)); // 4 bytes key + 4 bytes group id + load factor headroom
+            }
+        }
+
+        @Override
+        Iterator<Row> groups(final Object[] cells, final RowN row, final boolean partial) {
+            return Iterators.transform(groupIds.iterator(), new Function<IntIntCursor, Row>() {
+                @Nullable
+                @Override
+                public Row apply(@Nullable IntIntCursor input) {
+                    assert input != null : "input must not be null";
+                    cells[0] = input.key;
+                    return toRow(input.value, cells, row, partial);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws Exception {
+            super.close();
+            groupIds.clear();
+        }
+    }
+
+    /**
+     * Grouper for a single string key.
+     * The key bytes are copied into the block pool of a {@link BytesRefHash} which assigns a dense id to each key;
+     * the group ids are looked up by that id.
+     */
+    private class BytesRefKeyGrouper extends SpecializedGrouper {
+
+        /**
+         * BytesRefHash can't store keys which don't fit into a single block, these go into {@link #largeKeys}
+         */
+        private static final int MAX_ARENA_KEY_LENGTH = ByteBlockPool.BYTE_BLOCK_SIZE - 2;
+
+        private final BytesRefHash hash = new BytesRefHash();
+        private final IntArrayList groupIds = new IntArrayList();
+        private final Map<BytesRef, Integer> largeKeys = new HashMap<>();
+        private final Input keyInput;
+
+        BytesRefKeyGrouper(Input keyInput, CollectExpression[] collectExpressions, GroupStates states) {
+            super(1, collectExpressions, states);
+            this.keyInput = keyInput;
+        }
+
+        @Override
+        void aggregate() {
+            BytesRef key = (BytesRef) keyInput.value();
+            if (key == null) {
+                aggregateNullKey();
+                return;
+            }
+            if (key.length > MAX_ARENA_KEY_LENGTH) {
+                aggregateLargeKey(key);
+                return;
+            }
+            int id = hash.add(key);
+            if (id < 0) {
+                states.processRow(groupIds.get(-1 - id));
+            } else {
+                groupIds.add(states.newGroup());
+                // key bytes + 2 bytes length prefix + 4 bytes id + 8 bytes hash slot and group id
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(key.length + 22L));
+            }
+        }
+
+        private void aggregateLargeKey(BytesRef key) {
+            Integer groupId = largeKeys.get(key);
+            if (groupId == null) {
+                largeKeys.put(BytesRef.deepCopyOf(key), states.newGroup());
+                ramAccountingContext.addBytes(RamAccountingContext.roundUp(key.length + 36L));
+            } else {
+                states.processRow(groupId);
+            }
+        }
+
+        @Override
+        Iterator<Row> groups(final Object[] cells, final RowN row, final boolean partial) {
+            Iterator<Row> arenaGroups = new AbstractIterator<Row>() {
+
+                final int numIds = hash.size();
+                int id = 0;
+
+                @Override
+                protected Row computeNext() {
+                    if (id >= numIds) {
+                        return endOfData();
+                    }
+                    // the returned BytesRef points into the block pool, so the key bytes aren't copied
+                    cells[0] = hash.get(id, new BytesRef());
+                    Row next = toRow(groupIds.get(id), cells, row, partial);
+                    id++;
+                    return next;
+                }
+            };
+            if (largeKeys.isEmpty()) {
+                return arenaGroups;
+            }
+            return Iterators.concat(arenaGroups,
+                Iterators.transform(largeKeys.entrySet().iterator(), new Function<Map.Entry<BytesRef, Integer>, Row>() {
+                    @Nullable
+                    @Override
+                    public Row apply(@Nullable Map.Entry<BytesRef, Integer> input) {
+                        assert input != null : "input must not be null";
+                        cells[0] = input.getKey();
+                        return toRow(input.getValue(), cells, row, partial);
+                    }
+                }));
+        }
+
+        @Override
+        public void close() throws Exception {
+            super.close();
+            hash.close();
+            groupIds.clear();
+            largeKeys.clear();
+        }
+    }
+
+    /**
+     * Grouper for one or more keys of fixed width types.
+     * The key values are packed into a long[] of the number of keys + 1, the last long is a bitmask which
+     * marks the keys that are null.
+     */
+    private class PackedKeyGrouper extends SpecializedGrouper {
+
+        private final PackedKeyHashTable<Integer> groupIds;
+        private final List<Input<?>> keyInputs;
+        private final int[] keyTypeIds;
+        private final long[] spareKey;
+        private final long entryBytes;
+
+        PackedKeyGrouper(List<Input<?>> keyInputs,
+                         List<? extends DataType> keyTypes,
+                         CollectExpression[] collectExpressions,
+                         GroupStates states) {
+            super(keyInputs.size(), collectExpressions, states);
+            assert keyInputs.size() <= GroupingStrategy.MAX_FIXED_WIDTH_KEYS : "too many keys to pack the null bitmask";
+            this.keyInputs = keyInputs;
+            this.keyTypeIds = new int[keyTypes.size()];
+            for (int i = 0; i < keyTypeIds.length; i++) {
+                DataType keyType = keyTypes.get(i);
+                assert GroupingStrategy.isPackable(keyType) : "key type " + keyType + " can't be packed into a long";
+                keyTypeIds[i] = keyType.id();
+            }
+            this.groupIds = new PackedKeyHashTable<>(numKeys + 1);
+            this.spareKey = new long[numKeys + 1];
+            this.entryBytes = RamAccountingContext.roundUp(groupIds.bytesPerSlot() + 8L); // + load factor headroom
+        }
+
+        @Override
+        void aggregate() {
+            long nullMask = 0L;
+            for (int i = 0; i < numKeys; i++) {
+                Object value = keyInputs.get(i).value();
+                if (value == null) {
+                    nullMask |= 1L << i;
+                    spareKey[i] = 0L;
+                } else {
+                    spareKey[i] = pack(keyTypeIds[i], value);
+                }
+            }
+            spareKey[numKeys] = nullMask;
+
+            Integer groupId = groupIds.get(spareKey);
+            if (groupId == null) {
+                groupIds.putNew(spareKey, states.newGroup());
+                ramAccountingContext.addBytes(entryBytes);
+            } else {
+                states.processRow(groupId);
+            }
+        }
+
+        @Override
+        Iterator<Row> groups(final Object[] cells, final RowN row, final boolean partial) {
+            final long[] key = new long[numKeys + 1];
+            return new AbstractIterator<Row>() {
+
+                final int capacity = groupIds.capacity();
+                int slot = 0;
+
+                @Override
+                protected Row computeNext() {
+                    while (slot < capacity) {
+                        Integer groupId = groupIds.valueAt(slot);
+                        if (groupId != null) {
+                            groupIds.keyAt(slot, key);
+                            slot++;
+                            long nullMask = key[numKeys];
+                            for (int i = 0; i < numKeys; i++) {
+                                cells[i] = (nullMask & (1L << i)) == 0 ? unpack(keyTypeIds[i], key[i]) : null;
+                            }
+                            return toRow(groupId, cells, row, partial);
+                        }
+                        slot++;
+                    }
+                    return endOfData();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws Exception {
+            super.close();
+            groupIds.clear();
+        }
+    }
+
+    private static long pack(int typeId, Object value) {
+        switch (typeId) {
+            case DoubleType.ID:
+                return Double.doubleToLongBits(((Number) value).doubleValue());
+            case FloatType.ID:
+                return Float.floatToIntBits(((Number) value).floatValue());
+            case BooleanType.ID:
+                return ((Boolean) value) ? 1L : 0L;
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    private static Object unpack(int typeId, long value) {
+        switch (typeId) {
+            case LongType.ID:
+            case TimestampType.ID:
+                return value;
+            case IntegerType.ID:
+                return (int) value;
+            case ShortType.ID:
+                return (short) value;
+            case ByteType.ID:
+                return (byte) value;
+            case BooleanType.ID:
+                return value == 1L;
+            case DoubleType.ID:
+                return Double.longBitsToDouble(value);
+            case FloatType.ID:
+                return Float.intBitsToFloat((int) value);
+            default:
+                throw new AssertionError("Unsupported key type id: " + typeId);
+        }
+    }
+
     @Override
     public Set<Requirement> requirements() {
         if (requirements == null) {
@@ -0,0 +1,121 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import io.crate.types.*;
+
+import java.util.List;
+
+/**
+ * Describes which key table the {@link GroupingProjector} uses to look up the aggregation states of a group.
+ * <p>
+ * The specialized strategies avoid boxing and {@link java.util.ArrayList#equals(Object)} calls on the hot path;
+ * {@link #GENERIC} is the fallback which works for every key type.
+ */
+public enum GroupingStrategy {
+
+    /**
+     * single long or timestamp key, backed by an open-addressing long map
+     */
+    LONG,
+
+    /**
+     * single integer key, backed by an open-addressing int map
+     */
+    INT,
+
+    /**
+     * single double key, backed by an open-addressing long map over the raw bits of the value
+     */
+    DOUBLE,
+
+    /**
+     * single string key, backed by a hash of BytesRefs which stores the key bytes in a shared arena
+     */
+    BYTES_REF,
+
+    /**
+     * one or more keys which all have a fixed width primitive type.
+     * The keys are packed into longs and stored in a flat array.
+     */
+    FIXED_WIDTH,
+
+    /**
+     * HashMap with boxed keys
+     */
+    GENERIC;
+
+    /**
+     * Maximum number of keys supported by {@link #FIXED_WIDTH}; the null-ness of the keys is stored as a bitmask
+     * within a single long.
+     */
+    static final int MAX_FIXED_WIDTH_KEYS = 64;
+
+    public static GroupingStrategy forKeyTypes(List<? extends DataType> keyTypes) {
+        if (keyTypes.size() == 1) {
+            switch (keyTypes.get(0).id()) {
+                case LongType.ID:
+                case TimestampType.ID:
+                    return LONG;
+                case IntegerType.ID:
+                    return INT;
+                case DoubleType.ID:
+                    return DOUBLE;
+                case StringType.ID:
+                case IpType.ID:
+                    return BYTES_REF;
+            }
+        }
+        if (keyTypes.size() <= MAX_FIXED_WIDTH_KEYS && allPackable(keyTypes)) {
+            return FIXED_WIDTH;
+        }
+        return GENERIC;
+    }
+
+    private static boolean allPackable(List<? extends DataType> keyTypes) {
+        for (DataType keyType : keyTypes) {
+            if (!isPackable(keyType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if values of the type are {@link FixedWidthType} and fit into a single long.
+     */
+    static boolean isPackable(DataType type) {
+        switch (type.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+            case BooleanType.ID:
+            case DoubleType.ID:
+            case FloatType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -23,6 +23,7 @@
 package io.crate.operation.projectors;
 
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.collect.CollectExpression;
@@ -35,15 +36,18 @@ import java.util.List;
  * <p>
  * Differs from {@link SimpleTopNProjector} in that it does not apply any limit or offset.
  */
-public class InputRowProjector extends AbstractProjector {
+public class InputRowProjector extends AbstractBatchProjector {
 
     protected final InputRow inputRow;
     protected final Iterable<? extends CollectExpression<Row, ?>> collectExpressions;
+    private final Input<?>[] inputs;
+    private RowBatch outputBatch;
 
     public InputRowProjector(List<Input<?>> inputs,
                              Iterable<? extends CollectExpression<Row, ?>> collectExpressions) {
         this.collectExpressions = collectExpressions;
         this.inputRow = new InputRow(inputs);
+        this.inputs = inputs.toArray(new Input<?>[0]);
     }
 
     @Override
@@ -54,6 +58,38 @@ public class InputRowProjector extends AbstractProjector {
         return downstream.setNextRow(this.inputRow);
     }
 
+    @Override
+    public Result setNextBatch(RowBatch batch) {
+        return forwardBatch(batch, 0, batch.numSelected());
+    }
+
+    /**
+     * Evaluates the inputs for the selected rows from {@code from} (inclusive) to {@code to} (exclusive)
+     * and sends the results as one batch to the downstream.
+     */
+    protected Result forwardBatch(RowBatch batch, int from, int to) {
+        if (from >= to) {
+            return Result.CONTINUE;
+        }
+        if (outputBatch == null || outputBatch.capacity() < batch.capacity()) {
+            outputBatch = new RowBatch(inputs.length, batch.capacity());
+        }
+        int[] selection = batch.selection();
+        int outPos = 0;
+        for (int i = from; i < to; i++) {
+            Row row = batch.row(selection[i]);
+            for (CollectExpression<Row, ?> collectExpression : collectExpressions) {
+                collectExpression.setNextRow(row);
+            }
+            for (int c = 0; c < inputs.length; c++) {
+                outputBatch.column(c)[outPos] = inputs[c].value();
+            }
+            outPos++;
+        }
+        outputBatch.size(outPos);
+        return forwarder.forward(outputBatch);
+    }
+
     @Override
     public void finish(RepeatHandle repeatable) {
         downstream.finish(repeatable);
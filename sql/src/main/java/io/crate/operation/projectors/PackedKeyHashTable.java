@@ -0,0 +1,188 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table with composite keys of a fixed number of longs.
+ * <p>
+ * All keys are stored back to back in a single long array, so a lookup only compares primitives
+ * and inserting a key doesn't allocate.
+ * The values are looked up with linear probing; a slot is empty if its value is null.
+ */
+final class PackedKeyHashTable<V> {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int width;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    PackedKeyHashTable(int width) {
+        this(width, DEFAULT_CAPACITY);
+    }
+
+    PackedKeyHashTable(int width, int expectedSize) {
+        assert width > 0 : "width must be greater than 0";
+        this.width = width;
+        allocate(capacityFor(expectedSize));
+    }
+
+    int width() {
+        return width;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of slots; used together with {@link #valueAt(int)} and {@link #keyAt(int, long[])} to iterate
+     * over the table.
+     */
+    int capacity() {
+        return values.length;
+    }
+
+    /**
+     * @return the value associated with the key or null
+     */
+    @SuppressWarnings("unchecked")
+    V get(long[] key) {
+        int slot = slot(key);
+        return (V) values[slot];
+    }
+
+    /**
+     * Adds the key with the given value. The key must not already be present in the table.
+     * The key array is copied and can be re-used by the caller.
+     */
+    void putNew(long[] key, V value) {
+        assert value != null : "value must not be null";
+        int slot = slot(key);
+        assert values[slot] == null : "key must not be present";
+        System.arraycopy(key, 0, keys, slot * width, width);
+        values[slot] = value;
+        size++;
+        if (size > resizeAt) {
+            resize();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    void keyAt(int slot, long[] dest) {
+        System.arraycopy(keys, slot * width, dest, 0, width);
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * estimated number of bytes an additional slot requires
+     */
+    long bytesPerSlot() {
+        return width * 8L + 8L;
+    }
+
+    private int slot(long[] key) {
+        int slot = hash(key, 0) & mask;
+        while (values[slot] != null && !keyEquals(key, slot)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(long[] key, int slot) {
+        int offset = slot * width;
+        for (int i = 0; i < width; i++) {
+            if (keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(long[] source, int offset) {
+        long h = 0;
+        for (int i = 0; i < width; i++) {
+            h = 31 * h + source[offset + i];
+        }
+        return mix(h);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldValues.length << 1);
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            Object value = oldValues[oldSlot];
+            if (value == null) {
+                continue;
+            }
+            int oldOffset = oldSlot * width;
+            int slot = hash(oldKeys, oldOffset) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(oldKeys, oldOffset, keys, slot * width, width);
+            values[slot] = value;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * width];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)));
+        if (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * finalization step of murmur3 to spread the bits of the hash over the lower bits used for the slot.
+     */
+    private static int mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
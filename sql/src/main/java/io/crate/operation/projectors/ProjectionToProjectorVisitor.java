@@ -41,6 +41,7 @@ import io.crate.metadata.TransactionContext;
 import io.crate.metadata.expressions.WritableExpression;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.AggregationContext;
+import io.crate.operation.ExpressionCompiler;
 import io.crate.operation.Input;
 import io.crate.operation.InputFactory;
 import io.crate.operation.RowFilter;
@@ -51,6 +52,7 @@ import io.crate.operation.projectors.fetch.TransportFetchOperation;
 import io.crate.operation.projectors.sorting.OrderingByPosition;
 import io.crate.operation.reference.sys.RowContextReferenceResolver;
 import io.crate.planner.projection.*;
+import io.crate.types.DataType;
 import io.crate.types.StringType;
 import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.action.bulk.BulkShardProcessor;
@@ -79,6 +81,7 @@ public class ProjectionToProjectorVisitor
     private final BulkRetryCoordinatorPool bulkRetryCoordinatorPool;
     private final InputFactory inputFactory;
     private final EvaluatingNormalizer normalizer;
+    private final boolean compileExpressions;
 
     @Nullable
     private final ShardId shardId;
@@ -103,6 +106,7 @@ public class ProjectionToProjectorVisitor
         this.inputFactory = inputFactory;
         this.normalizer = normalizer;
         this.shardId = shardId;
+        this.compileExpressions = ExpressionCompiler.isEnabled(settings);
     }
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -159,12 +163,19 @@ public class ProjectionToProjectorVisitor
                 projection.offset()
             );
         }
+        List<DataType> rowTypes = new ArrayList<>(inputs.size());
+        rowTypes.addAll(Symbols.extractTypes(projection.outputs()));
+        rowTypes.addAll(Symbols.extractTypes(projection.orderBy()));
         return new SortingProjector(
             inputs,
             ctx.expressions(),
             numOutputs,
             OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
-            projection.offset()
+            projection.offset(),
+            context.ramAccountingContext,
+            rowTypes,
+            SpillSettings.sortSpillThreshold(settings),
+            SpillSettings.spillDirectory(settings)
         );
     }
 
@@ -181,7 +192,10 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector visitEvalProjection(EvalProjection projection, Context context) {
-        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(projection.outputs());
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = compileExpressions
+            ? inputFactory.ctxForCompiledInputColumns()
+            : inputFactory.ctxForInputColumns();
+        ctx.add(projection.outputs());
         return new InputRowProjector(ctx.topLevelInputs(), ctx.expressions());
     }
 
@@ -193,12 +207,17 @@ public class ProjectionToProjectorVisitor
         ctx.add(projection.values());
 
         List<Input<?>> keyInputs = ctx.topLevelInputs();
+        List<DataType> keyTypes = Symbols.extractTypes(projection.keys());
         return new GroupingProjector(
-            Symbols.extractTypes(projection.keys()),
+            keyTypes,
             keyInputs,
             Iterables.toArray(ctx.expressions(), CollectExpression.class),
             ctx.aggregations().toArray(new AggregationContext[0]),
-            context.ramAccountingContext
+            context.ramAccountingContext,
+            GroupingStrategy.forKeyTypes(keyTypes),
+            true,
+            SpillSettings.groupBySpillThreshold(settings),
+            SpillSettings.spillDirectory(settings)
         );
     }
 
@@ -343,7 +362,7 @@ public class ProjectionToProjectorVisitor
 
     @Override
     public Projector visitFilterProjection(FilterProjection projection, Context context) {
-        Predicate<Row> rowFilter = RowFilter.create(inputFactory, projection.query());
+        Predicate<Row> rowFilter = RowFilter.create(inputFactory, projection.query(), compileExpressions);
         return new FilterProjector(rowFilter);
     }
 
@@ -23,6 +23,7 @@ package io.crate.operation.projectors;
 
 import com.google.common.base.Preconditions;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
 
@@ -67,4 +68,27 @@ public class SimpleTopNProjector extends InputRowProjector {
         }
         throw new AssertionError("Unrecognized setNextRow result: " + result);
     }
+
+    @Override
+    public Result setNextBatch(RowBatch batch) {
+        if (toCollect < 1) {
+            return Result.STOP;
+        }
+        int numSelected = batch.numSelected();
+        int from = Math.min(remainingOffset, numSelected);
+        remainingOffset -= from;
+        int to = from + Math.min(toCollect, numSelected - from);
+        toCollect -= to - from;
+        Result result = forwardBatch(batch, from, to);
+        switch (result) {
+            case PAUSE:
+                return result;
+            case CONTINUE:
+                return toCollect < 1 ? Result.STOP : Result.CONTINUE;
+            case STOP:
+                toCollect = -1;
+                return Result.STOP;
+        }
+        throw new AssertionError("Unrecognized setNextBatch result: " + result);
+    }
 }
@@ -22,19 +22,35 @@
 package io.crate.operation.projectors;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Ordering;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.core.collections.CollectionBucket;
 import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
 import io.crate.operation.Input;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.projectors.sorting.SpilledRuns;
+import io.crate.types.DataType;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Sort rows by ordering criteria and process given offset before emitting.
  * <p>
  * Compared to {@link SortingTopNProjector} this projector does not support limiting,
  * while the {@link SortingTopNProjector} does not work WITHOUT a limit.
+ * <p>
+ * If a spill threshold is given and the rows buffered in memory exceed it, the rows are sorted and written to disk
+ * as a run. On finish all runs are merged with the remaining in-memory rows.
  */
 class SortingProjector extends AbstractProjector {
 
@@ -48,6 +64,15 @@ class SortingProjector extends AbstractProjector {
     private final List<Object[]> rows = new ArrayList<>();
     private IterableRowEmitter rowEmitter = null;
 
+    @Nullable
+    private final RamAccountingContext ramAccountingContext;
+    private final SizeEstimator<Object>[] sizeEstimators;
+    private final Streamer<?>[] streamers;
+    private final long spillThreshold;
+    private final Supplier<Path> spillDirectory;
+    private long bufferedBytes = 0;
+    private SpilledRuns spilledRuns = null;
+
     /**
      * @param inputs             contains output {@link io.crate.operation.Input}s and orderBy {@link io.crate.operation.Input}s
      * @param collectExpressions gathered from outputs and orderBy inputs
@@ -60,12 +85,46 @@ class SortingProjector extends AbstractProjector {
                      int numOutputs,
                      Ordering<Object[]> ordering,
                      int offset) {
+        this(inputs, collectExpressions, numOutputs, ordering, offset, null, Collections.<DataType>emptyList(), 0L, null);
+    }
+
+    /**
+     * @param ramAccountingContext context on which the memory of the buffered rows is accounted
+     * @param rowTypes             the types of the <code>inputs</code>
+     * @param spillThreshold       the rows are written to disk once they exceed this number of bytes.
+     *                             A value <= 0 disables spilling.
+     * @param spillDirectory       directory in which the spilled runs are stored
+     */
+    @SuppressWarnings("unchecked")
+    SortingProjector(Collection<? extends Input<?>> inputs,
+                     Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
+                     int numOutputs,
+                     Ordering<Object[]> ordering,
+                     int offset,
+                     @Nullable RamAccountingContext ramAccountingContext,
+                     List<? extends DataType> rowTypes,
+                     long spillThreshold,
+                     @Nullable Supplier<Path> spillDirectory) {
         Preconditions.checkArgument(offset >= 0, "invalid offset %s", offset);
+        Preconditions.checkArgument(spillThreshold <= 0 || rowTypes.size() == inputs.size(),
+            "spilling requires a type for each input");
+        Preconditions.checkArgument(spillThreshold <= 0 || spillDirectory != null,
+            "spilling requires a spill directory");
         this.numOutputs = numOutputs;
         this.inputs = inputs;
         this.collectExpressions = collectExpressions;
         this.ordering = ordering;
         this.offset = offset;
+        this.ramAccountingContext = ramAccountingContext;
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+        this.sizeEstimators = new SizeEstimator[rowTypes.size()];
+        this.streamers = new Streamer[rowTypes.size()];
+        for (int i = 0; i < rowTypes.size(); i++) {
+            DataType type = rowTypes.get(i);
+            sizeEstimators[i] = SizeEstimatorFactory.createOrEstimate(type);
+            streamers[i] = type.streamer();
+        }
     }
 
     @Override
@@ -79,19 +138,100 @@ class SortingProjector extends AbstractProjector {
             newRow[i++] = input.value();
         }
         rows.add(newRow);
+        if (sizeEstimators.length > 0) {
+            accountRow(newRow);
+        }
         return Result.CONTINUE;
     }
 
+    private void accountRow(Object[] row) {
+        long rowBytes = 16L + row.length * 8L; // array header + references
+        for (int i = 0; i < row.length; i++) {
+            rowBytes += sizeEstimators[i].estimateSize(row[i]);
+        }
+        bufferedBytes += rowBytes;
+        if (ramAccountingContext != null) {
+            ramAccountingContext.addBytes(rowBytes);
+        }
+        if (spillThreshold > 0 && bufferedBytes >= spillThreshold) {
+            spill();
+        }
+    }
+
+    private void spill() {
+        Collections.sort(rows, Collections.reverseOrder(ordering));
+        if (spilledRuns == null) {
+            spilledRuns = new SpilledRuns(spillDirectory.get(), streamers);
+        }
+        long bytesWritten;
+        try {
+            bytesWritten = spilledRuns.write(rows);
+        } catch (IOException e) {
+            spilledRuns.close();
+            throw Throwables.propagate(e);
+        }
+        rows.clear();
+        if (ramAccountingContext != null) {
+            ramAccountingContext.releaseBytes(bufferedBytes);
+            ramAccountingContext.addSpilledRun(bytesWritten);
+        }
+        bufferedBytes = 0;
+    }
+
     @Override
     public void finish(RepeatHandle repeatHandle) {
         // sort, we must reverse the order (back to original one) because order was reserved for used on queues
         Collections.sort(rows, Collections.reverseOrder(ordering));
 
         // emit
-        rowEmitter = createRowEmitter();
+        if (spilledRuns == null) {
+            rowEmitter = createRowEmitter();
+        } else {
+            try {
+                rowEmitter = createMergingRowEmitter();
+            } catch (IOException e) {
+                spilledRuns.close();
+                downstream.fail(e);
+                return;
+            }
+        }
         rowEmitter.run();
     }
 
+    /**
+     * Emits the rows of all spilled runs and the in-memory rows in order. The run files are deleted once the
+     * downstream is done.
+     */
+    private IterableRowEmitter createMergingRowEmitter() throws IOException {
+        final Iterator<Object[]> sortedRows = spilledRuns.merge(ordering.reverse(), rows);
+        Iterators.advance(sortedRows, offset);
+        final RowN row = new RowN(numOutputs);
+        Iterable<Row> rowIterable = () -> Iterators.transform(sortedRows, input -> {
+            row.cells(input);
+            return row;
+        });
+        RowReceiver closingReceiver = new ForwardingRowReceiver(downstream) {
+            @Override
+            public void finish(RepeatHandle repeatHandle) {
+                spilledRuns.close();
+                super.finish(repeatHandle);
+            }
+
+            @Override
+            public void fail(Throwable throwable) {
+                spilledRuns.close();
+                super.fail(throwable);
+            }
+
+            @Override
+            public void kill(Throwable throwable) {
+                spilledRuns.close();
+                super.kill(throwable);
+            }
+        };
+        return new IterableRowEmitter(closingReceiver, rowIterable);
+    }
+
     private IterableRowEmitter createRowEmitter() {
         CollectionBucket collectionBucket;
         // process offset
@@ -108,6 +248,9 @@ class SortingProjector extends AbstractProjector {
     public void kill(Throwable throwable) {
         IterableRowEmitter emitter = rowEmitter;
         if (emitter == null) {
+            if (spilledRuns != null) {
+                spilledRuns.close();
+            }
             downstream.kill(throwable);
         } else {
             emitter.kill(throwable);
@@ -116,6 +259,9 @@ class SortingProjector extends AbstractProjector {
 
     @Override
     public void fail(Throwable t) {
+        if (spilledRuns != null) {
+            spilledRuns.close();
+        }
         downstream.fail(t);
     }
 
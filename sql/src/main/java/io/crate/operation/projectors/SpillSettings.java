@@ -0,0 +1,78 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Node settings of projectors which can write intermediate results to disk if they exceed a memory threshold.
+ */
+public final class SpillSettings {
+
+    /**
+     * memory a sorting projector may use before it writes sorted runs to disk; a value <= 0 disables spilling.
+     */
+    public static final String SORT_SPILL_THRESHOLD_SETTING = "spill.sort.threshold";
+    public static final String DEFAULT_SORT_SPILL_THRESHOLD = "10%";
+
+    /**
+     * memory the groups of a grouping projector may use before they are written to disk;
+     * a value <= 0 disables spilling.
+     */
+    public static final String GROUP_BY_SPILL_THRESHOLD_SETTING = "spill.group_by.threshold";
+    public static final String DEFAULT_GROUP_BY_SPILL_THRESHOLD = "10%";
+
+    /**
+     * directory for the spill files; defaults to the "spill" folder within the first data path of the node.
+     */
+    public static final String SPILL_PATH_SETTING = "spill.path";
+    private static final String DEFAULT_SPILL_DIRECTORY_NAME = "spill";
+
+    private SpillSettings() {
+    }
+
+    public static long sortSpillThreshold(Settings settings) {
+        return settings.getAsMemory(SORT_SPILL_THRESHOLD_SETTING, DEFAULT_SORT_SPILL_THRESHOLD).getBytes();
+    }
+
+    public static long groupBySpillThreshold(Settings settings) {
+        return settings.getAsMemory(GROUP_BY_SPILL_THRESHOLD_SETTING, DEFAULT_GROUP_BY_SPILL_THRESHOLD).getBytes();
+    }
+
+    /**
+     * The directory is only resolved once it's needed, as resolving the data path requires a fully configured node
+     */
+    public static Supplier<Path> spillDirectory(final Settings settings) {
+        return () -> {
+            String path = settings.get(SPILL_PATH_SETTING);
+            if (path != null) {
+                return Paths.get(path);
+            }
+            return new Environment(settings).dataFiles()[0].resolve(DEFAULT_SPILL_DIRECTORY_NAME);
+        };
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.carrotsearch.hppc.BitMixer;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Groups which have been written to temporary files, partitioned by the hash of their keys.
+ * <p>
+ * Each call to {@link #write(Iterator)} creates a file for every partition which receives groups. A row consists
+ * of the keys followed by the partial aggregation states, written using the {@link Streamer}s of their types.
+ * As the same keys always end up in the same partition, the partitions can be merged one after another.
+ */
+final class SpilledPartitions implements Closeable {
+
+    static final int PARTITION_BITS = 4;
+    static final int NUM_PARTITIONS = 1 << PARTITION_BITS;
+
+    private static final ESLogger LOGGER = Loggers.getLogger(SpilledPartitions.class);
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String FILE_PREFIX = "group-";
+    private static final String FILE_SUFFIX = ".partition";
+
+    private final Path directory;
+    private final Streamer<?>[] streamers;
+    private final int numKeys;
+    private final List<List<Path>> partitionFiles = new ArrayList<>(NUM_PARTITIONS);
+    private final List<Closeable> openInputs = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * @param streamers streamers of the keys followed by those of the partial aggregation states
+     * @param numKeys   number of leading columns which form the key of a group
+     */
+    SpilledPartitions(Path directory, Streamer<?>[] streamers, int numKeys) {
+        this.directory = directory;
+        this.streamers = streamers;
+        this.numKeys = numKeys;
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            partitionFiles.add(new ArrayList<Path>());
+        }
+    }
+
+    /**
+     * writes the groups into one new file per partition
+     *
+     * @return the sizes of the written files
+     */
+    long[] write(Iterator<Row> groups) throws IOException {
+        Files.createDirectories(directory);
+        Path[] files = new Path[NUM_PARTITIONS];
+        OutputStreamStreamOutput[] outputs = new OutputStreamStreamOutput[NUM_PARTITIONS];
+        try {
+            while (groups.hasNext()) {
+                Row row = groups.next();
+                int partition = partition(row);
+                OutputStreamStreamOutput out = outputs[partition];
+                if (out == null) {
+                    Path file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+                    files[partition] = file;
+                    partitionFiles.get(partition).add(file);
+                    out = new OutputStreamStreamOutput(
+                        new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+                    outputs[partition] = out;
+                }
+                out.writeBoolean(true);
+                for (int i = 0; i < streamers.length; i++) {
+                    streamers[i].writeValueTo(out, row.get(i));
+                }
+            }
+            for (OutputStreamStreamOutput out : outputs) {
+                if (out != null) {
+                    out.writeBoolean(false);
+                }
+            }
+        } finally {
+            IOUtils.close(outputs);
+        }
+
+        long[] sizes = new long[NUM_PARTITIONS];
+        int numFiles = 0;
+        for (Path file : files) {
+            if (file != null) {
+                sizes[numFiles] = Files.size(file);
+                numFiles++;
+            }
+        }
+        return Arrays.copyOf(sizes, numFiles);
+    }
+
+    private int partition(Row row) {
+        int hash = 1;
+        for (int i = 0; i < numKeys; i++) {
+            hash = 31 * hash + Objects.hashCode(row.get(i));
+        }
+        // use the high bits, the low bits are used by the hash map the partition is merged into
+        return BitMixer.mix32(hash) >>> (32 - PARTITION_BITS);
+    }
+
+    /**
+     * Reads the groups of all files of the partition. A new array is created for every group.
+     */
+    Iterator<Object[]> read(int partition) {
+        final Iterator<Path> files = partitionFiles.get(partition).iterator();
+        return new AbstractIterator<Object[]>() {
+
+            StreamInput in = null;
+
+            @Override
+            protected Object[] computeNext() {
+                try {
+                    while (true) {
+                        if (in == null) {
+                            if (!files.hasNext()) {
+                                return endOfData();
+                            }
+                            in = open(files.next());
+                        }
+                        if (in.readBoolean()) {
+                            Object[] row = new Object[streamers.length];
+                            for (int i = 0; i < streamers.length; i++) {
+                                row[i] = streamers[i].readValueFrom(in);
+                            }
+                            return row;
+                        }
+                        in.close();
+                        in = null;
+                    }
+                } catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * closes all open inputs and deletes the partition files. Can be called more than once.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Closeable openInput : openInputs) {
+            try {
+                openInput.close();
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't close spilled partition", e);
+            }
+        }
+        openInputs.clear();
+        for (List<Path> files : partitionFiles) {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.warn("Couldn't delete spilled partition {}", e, file);
+                }
+            }
+            files.clear();
+        }
+    }
+
+    private synchronized StreamInput open(Path file) throws IOException {
+        StreamInput in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        openInputs.add(in);
+        return in;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.projectors.sorting;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Ordering;
+import io.crate.Streamer;
+import io.crate.operation.merge.KeyIterable;
+import io.crate.operation.merge.SortedPagingIterator;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Sorted runs of rows which have been written to temporary files.
+ * <p>
+ * Each file uses the same encoding as a {@link io.crate.executor.transport.StreamBucket}: the number of rows
+ * followed by the cells written with the {@link Streamer}s of the columns.
+ * {@link #merge(Ordering, Collection)} reads the runs back and merges them with the rows still kept in memory.
+ */
+public class SpilledRuns implements Closeable {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(SpilledRuns.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String FILE_PREFIX = "sort-";
+    private static final String FILE_SUFFIX = ".run";
+
+    private final Path directory;
+    private final Streamer<?>[] streamers;
+    private final List<Path> files = new ArrayList<>();
+    private final List<Closeable> openInputs = new ArrayList<>();
+    private boolean closed = false;
+
+    public SpilledRuns(Path directory, Streamer<?>[] streamers) {
+        this.directory = directory;
+        this.streamers = streamers;
+    }
+
+    /**
+     * write the rows, which must already be sorted, into a new run file
+     *
+     * @return the number of bytes written
+     */
+    public long write(Collection<Object[]> sortedRows) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+        files.add(file);
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+             OutputStreamStreamOutput out = new OutputStreamStreamOutput(os)) {
+            out.writeVInt(sortedRows.size());
+            for (Object[] row : sortedRows) {
+                for (int i = 0; i < streamers.length; i++) {
+                    streamers[i].writeValueTo(out, row[i]);
+                }
+            }
+        }
+        return Files.size(file);
+    }
+
+    public int numRuns() {
+        return files.size();
+    }
+
+    /**
+     * Merge all runs and the given rows, which must be sorted as well, into a single sorted iterator.
+     * The runs are read lazily, so at most one row per run is held in memory.
+     *
+     * @param ordering ordering in which the rows are emitted
+     */
+    public Iterator<Object[]> merge(Ordering<Object[]> ordering, Collection<Object[]> sortedInMemoryRows) throws IOException {
+        List<KeyIterable<Integer, Object[]>> runs = new ArrayList<>(files.size() + 1);
+        for (int i = 0; i < files.size(); i++) {
+            runs.add(new KeyIterable<>(i, new RunIterable(files.get(i))));
+        }
+        runs.add(new KeyIterable<Integer, Object[]>(files.size(), sortedInMemoryRows));
+
+        SortedPagingIterator<Integer, Object[]> mergeIterator = new SortedPagingIterator<>(ordering, false);
+        mergeIterator.merge(runs);
+        mergeIterator.finish();
+        return mergeIterator;
+    }
+
+    /**
+     * closes all open inputs and deletes the run files. Can be called more than once.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Closeable openInput : openInputs) {
+            try {
+                openInput.close();
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't close spilled sort run", e);
+            }
+        }
+        openInputs.clear();
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't delete spilled sort run {}", e, file);
+            }
+        }
+        files.clear();
+    }
+
+    private synchronized StreamInput open(Path file) throws IOException {
+        StreamInput in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+        openInputs.add(in);
+        return in;
+    }
+
+    private class RunIterable implements Iterable<Object[]> {
+
+        private final Path file;
+
+        RunIterable(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public Iterator<Object[]> iterator() {
+            final StreamInput in;
+            final int numRows;
+            try {
+                in = open(file);
+                numRows = in.readVInt();
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+            return new AbstractIterator<Object[]>() {
+
+                int pos = 0;
+
+                @Override
+                protected Object[] computeNext() {
+                    if (pos >= numRows) {
+                        return endOfData();
+                    }
+                    pos++;
+                    Object[] row = new Object[streamers.length];
+                    try {
+                        for (int i = 0; i < streamers.length; i++) {
+                            row[i] = streamers[i].readValueFrom(in);
+                        }
+                    } catch (IOException e) {
+                        throw Throwables.propagate(e);
+                    }
+                    return row;
+                }
+            };
+        }
+    }
+}
@@ -64,6 +64,21 @@ public class ByteColumnReference extends LuceneCollectorExpression<Byte> {
         values = DocValues.getSortedNumeric(context.reader(), columnName);
     }
 
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.Numeric(columnName, capacity) {
+            @Override
+            SortedNumericDocValues docValues() {
+                return values;
+            }
+
+            @Override
+            public Byte get(int idx) {
+                return exists[idx] ? (byte) longs[idx] : null;
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
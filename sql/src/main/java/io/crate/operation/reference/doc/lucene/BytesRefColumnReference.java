@@ -70,6 +70,16 @@ public class BytesRefColumnReference extends FieldCacheExpression<IndexOrdinalsF
         values = indexFieldData.load(context).getOrdinalsValues();
     }
 
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.Ordinals(columnName, capacity) {
+            @Override
+            RandomAccessOrds docValues() {
+                return values;
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
@@ -0,0 +1,177 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.doc.lucene;
+
+import io.crate.exceptions.GroupByOnArrayUnsupportedException;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+
+/**
+ * The values of one column for a block of documents.
+ * <p>
+ * A block reads the doc values of all documents of the block at once into primitive arrays, which avoids calling
+ * {@link LuceneCollectorExpression#setNextDocId(int)} and {@link LuceneCollectorExpression#value()} on every
+ * expression for every document. Blocks are created using {@link LuceneCollectorExpression#newBlock(int)} and read
+ * from the reader which has been passed to the last
+ * {@link LuceneCollectorExpression#setNextReader(org.apache.lucene.index.LeafReaderContext)} call of the expression.
+ */
+public abstract class DocValuesBlock {
+
+    final String columnName;
+
+    DocValuesBlock(String columnName) {
+        this.columnName = columnName;
+    }
+
+    /**
+     * Reads the values of the given documents.
+     *
+     * @param docs    the segment local doc ids in ascending order
+     * @param numDocs the number of valid entries of docs
+     */
+    public abstract void load(int[] docs, int numDocs);
+
+    /**
+     * @return the value of the n-th document of the last {@link #load(int[], int)} call
+     */
+    public abstract Object get(int idx);
+
+    /**
+     * Block of a column stored as {@link SortedNumericDocValues}, the raw long values are kept in {@link #longs}.
+     */
+    abstract static class Numeric extends DocValuesBlock {
+
+        final long[] longs;
+        final boolean[] exists;
+
+        Numeric(String columnName, int capacity) {
+            super(columnName);
+            longs = new long[capacity];
+            exists = new boolean[capacity];
+        }
+
+        abstract SortedNumericDocValues docValues();
+
+        @Override
+        public void load(int[] docs, int numDocs) {
+            SortedNumericDocValues values = docValues();
+            for (int i = 0; i < numDocs; i++) {
+                values.setDocument(docs[i]);
+                switch (values.count()) {
+                    case 0:
+                        exists[i] = false;
+                        break;
+                    case 1:
+                        longs[i] = values.valueAt(0);
+                        exists[i] = true;
+                        break;
+                    default:
+                        throw new GroupByOnArrayUnsupportedException(columnName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Block of a column stored as {@link SortedNumericDoubleValues}, the values are kept in {@link #doubles}.
+     */
+    abstract static class FloatingPoint extends DocValuesBlock {
+
+        final double[] doubles;
+        final boolean[] exists;
+
+        FloatingPoint(String columnName, int capacity) {
+            super(columnName);
+            doubles = new double[capacity];
+            exists = new boolean[capacity];
+        }
+
+        abstract SortedNumericDoubleValues docValues();
+
+        @Override
+        public void load(int[] docs, int numDocs) {
+            SortedNumericDoubleValues values = docValues();
+            for (int i = 0; i < numDocs; i++) {
+                values.setDocument(docs[i]);
+                switch (values.count()) {
+                    case 0:
+                        exists[i] = false;
+                        break;
+                    case 1:
+                        doubles[i] = values.valueAt(0);
+                        exists[i] = true;
+                        break;
+                    default:
+                        throw new GroupByOnArrayUnsupportedException(columnName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Block of a column stored as ordinals. The ordinals of a block are read first and then resolved to their terms,
+     * documents which don't have a value are resolved to null.
+     */
+    abstract static class Ordinals extends DocValuesBlock {
+
+        private final long[] ords;
+        private final BytesRef[] terms;
+
+        Ordinals(String columnName, int capacity) {
+            super(columnName);
+            ords = new long[capacity];
+            terms = new BytesRef[capacity];
+        }
+
+        abstract RandomAccessOrds docValues();
+
+        @Override
+        public void load(int[] docs, int numDocs) {
+            RandomAccessOrds values = docValues();
+            for (int i = 0; i < numDocs; i++) {
+                values.setDocument(docs[i]);
+                switch (values.cardinality()) {
+                    case 0:
+                        ords[i] = -1L;
+                        break;
+                    case 1:
+                        ords[i] = values.ordAt(0);
+                        break;
+                    default:
+                        throw new GroupByOnArrayUnsupportedException(columnName);
+                }
+            }
+            for (int i = 0; i < numDocs; i++) {
+                long ord = ords[i];
+                terms[i] = ord == -1L ? null : BytesRef.deepCopyOf(values.lookupOrd(ord));
+            }
+        }
+
+        @Override
+        public BytesRef get(int idx) {
+            return terms[idx];
+        }
+    }
+}
@@ -65,6 +65,21 @@ public class DoubleColumnReference extends FieldCacheExpression<IndexNumericFiel
         values = indexFieldData.load(context).getDoubleValues();
     }
 
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.FloatingPoint(columnName, capacity) {
+            @Override
+            SortedNumericDoubleValues docValues() {
+                return values;
+            }
+
+            @Override
+            public Double get(int idx) {
+                return exists[idx] ? doubles[idx] : null;
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
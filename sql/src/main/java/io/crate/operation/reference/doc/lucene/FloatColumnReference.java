@@ -65,6 +65,21 @@ public class FloatColumnReference extends FieldCacheExpression<IndexNumericField
         values = indexFieldData.load(context).getDoubleValues();
     }
 
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.FloatingPoint(columnName, capacity) {
+            @Override
+            SortedNumericDoubleValues docValues() {
+                return values;
+            }
+
+            @Override
+            public Float get(int idx) {
+                return exists[idx] ? (float) doubles[idx] : null;
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
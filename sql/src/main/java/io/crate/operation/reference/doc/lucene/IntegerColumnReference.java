@@ -64,6 +64,21 @@ public class IntegerColumnReference extends LuceneCollectorExpression<Integer> {
         values = DocValues.getSortedNumeric(context.reader(), columnName);
     }
 
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.Numeric(columnName, capacity) {
+            @Override
+            SortedNumericDocValues docValues() {
+                return values;
+            }
+
+            @Override
+            public Integer get(int idx) {
+                return exists[idx] ? (int) longs[idx] : null;
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
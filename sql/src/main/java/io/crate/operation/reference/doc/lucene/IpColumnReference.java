@@ -65,4 +65,19 @@ public class IpColumnReference extends LuceneCollectorExpression<BytesRef> {
         super.setNextReader(context);
         values = DocValues.getSortedNumeric(context.reader(), columnName);
     }
+
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.Numeric(columnName, capacity) {
+            @Override
+            SortedNumericDocValues docValues() {
+                return values;
+            }
+
+            @Override
+            public BytesRef get(int idx) {
+                return exists[idx] ? new BytesRef(IpFieldMapper.longToIp(longs[idx])) : null;
+            }
+        };
+    }
 }
@@ -25,6 +25,7 @@ import io.crate.operation.Input;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Scorer;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 
 /**
@@ -52,6 +53,15 @@ public abstract class LuceneCollectorExpression<ReturnType> implements Input<Ret
 
     }
 
+    /**
+     * @return a block which reads the values of this expression for many documents at once or null if the
+     * expression doesn't support it.
+     */
+    @Nullable
+    public DocValuesBlock newBlock(int capacity) {
+        return null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,223 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import com.google.common.base.Throwables;
+import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.fieldvisitor.JustSourceFieldsVisitor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the values of the _source of the current document to the expressions of a collect.
+ * <p>
+ * Expressions register the paths they're going to read in {@link LuceneCollectorExpression#startCollect}.
+ * The source of a document is then parsed at most once and only the registered paths are materialized,
+ * all other sub-trees are skipped by the parser.
+ * <p>
+ * If the {@link CollectorFieldsVisitor} is required it is loaded for each document by the collector and its source
+ * is used, otherwise the source is read from the stored fields.
+ */
+public class SelectiveSourceLookup {
+
+    private final CollectorFieldsVisitor fieldsVisitor;
+    private final PathNode root = new PathNode();
+
+    private LeafReader reader;
+    private int docId = -1;
+    private Map<String, Object> source;
+
+    SelectiveSourceLookup(CollectorFieldsVisitor fieldsVisitor) {
+        this.fieldsVisitor = fieldsVisitor;
+    }
+
+    /**
+     * Registers a path, the elements of the path are separated by dots.
+     */
+    public void register(String path) {
+        PathNode node = root;
+        for (String element : Strings.splitStringToArray(path, '.')) {
+            node = node.children.computeIfAbsent(element, k -> new PathNode());
+        }
+        node.complete = true;
+        docId = -1;
+    }
+
+    /**
+     * Registers the whole source
+     */
+    public void registerAll() {
+        root.complete = true;
+        docId = -1;
+    }
+
+    public void setSegmentAndDocument(LeafReaderContext context, int doc) {
+        if (reader == context.reader() && docId == doc) {
+            return;
+        }
+        reader = context.reader();
+        docId = doc;
+        source = null;
+    }
+
+    /**
+     * @return the source of the current document. Contains only the registered paths unless
+     * {@link #registerAll()} has been called.
+     */
+    public Map<String, Object> sourceAsMap() {
+        if (source == null) {
+            try {
+                source = parse(loadSource());
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+        return source;
+    }
+
+    /**
+     * @param path a registered path, the elements of the path are separated by dots.
+     */
+    public Object extractValue(String path) {
+        return XContentMapValues.extractValue(path, sourceAsMap());
+    }
+
+    private BytesReference loadSource() throws IOException {
+        if (fieldsVisitor.required()) {
+            return fieldsVisitor.source();
+        }
+        JustSourceFieldsVisitor sourceFieldsVisitor = new JustSourceFieldsVisitor();
+        reader.document(docId, sourceFieldsVisitor);
+        return sourceFieldsVisitor.source();
+    }
+
+    @Nullable
+    Map<String, Object> parse(@Nullable BytesReference bytes) throws IOException {
+        if (bytes == null) {
+            return null;
+        }
+        if (root.complete) {
+            return XContentHelper.convertToMap(bytes, false).v2();
+        }
+        try (XContentParser parser = XContentHelper.createParser(bytes)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                return null;
+            }
+            return readObject(parser, root);
+        }
+    }
+
+    private static Map<String, Object> readObject(XContentParser parser, PathNode node) throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            PathNode child = node.children.get(name);
+            if (child == null) {
+                if (name.indexOf('.') < 0) {
+                    parser.skipChildren();
+                    continue;
+                }
+                // a key containing dots might be matched by a path, see XContentMapValues.extractValue
+                map.put(name, readValue(parser, token));
+            } else if (child.complete) {
+                map.put(name, readValue(parser, token));
+            } else {
+                map.put(name, readPartialValue(parser, token, child));
+            }
+        }
+        assert token == XContentParser.Token.END_OBJECT : "expected END_OBJECT but got " + token;
+        return map;
+    }
+
+    private static Object readPartialValue(XContentParser parser, XContentParser.Token token, PathNode node) throws IOException {
+        if (token == XContentParser.Token.START_OBJECT) {
+            return readObject(parser, node);
+        }
+        if (token == XContentParser.Token.START_ARRAY) {
+            // paths are resolved within each element of an array
+            List<Object> list = new ArrayList<>();
+            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                list.add(readPartialValue(parser, token, node));
+            }
+            return list;
+        }
+        return readValue(parser, token);
+    }
+
+    /**
+     * Reads a value the same way {@link XContentParser#map()} does
+     */
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                switch (parser.numberType()) {
+                    case INT:
+                        return parser.intValue();
+                    case LONG:
+                        return parser.longValue();
+                    case FLOAT:
+                        return parser.floatValue();
+                    case DOUBLE:
+                        return parser.doubleValue();
+                    default:
+                        return parser.numberValue();
+                }
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    private static class PathNode {
+
+        final Map<String, PathNode> children = new HashMap<>();
+        /**
+         * true if the whole sub-tree is required
+         */
+        boolean complete = false;
+    }
+}
@@ -64,6 +64,21 @@ public class ShortColumnReference extends LuceneCollectorExpression<Short> {
         values = DocValues.getSortedNumeric(context.reader(), columnName);
     }
 
+    @Override
+    public DocValuesBlock newBlock(int capacity) {
+        return new DocValuesBlock.Numeric(columnName, capacity) {
+            @Override
+            SortedNumericDocValues docValues() {
+                return values;
+            }
+
+            @Override
+            public Short get(int idx) {
+                return exists[idx] ? (short) longs[idx] : null;
+            }
+        };
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null)
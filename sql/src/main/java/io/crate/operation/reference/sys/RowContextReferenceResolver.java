@@ -24,11 +24,13 @@ package io.crate.operation.reference.sys;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import io.crate.action.sql.StatementCache;
 import io.crate.metadata.*;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
 import io.crate.metadata.expressions.WriteableRowContextExpression;
 import io.crate.metadata.information.*;
 import io.crate.metadata.pg_catalog.PgCatalogTables;
+import io.crate.metadata.pg_catalog.PgStatsTable;
 import io.crate.metadata.pg_catalog.PgTypeTable;
 import io.crate.metadata.sys.*;
 import io.crate.operation.collect.files.SummitsContext;
@@ -45,6 +47,7 @@ import io.crate.operation.reference.sys.repositories.SysRepository;
 import io.crate.operation.reference.sys.shard.unassigned.UnassignedShardsExpressionFactories;
 import io.crate.operation.reference.sys.snapshot.SysSnapshot;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.bulk.BulkRetryCoordinatorPool;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.BytesRefs;
 
@@ -72,6 +75,8 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
         tableFactories.put(SysRepositoriesTableInfo.IDENT, getSysRepositoriesExpressions());
         tableFactories.put(SysSnapshotsTableInfo.IDENT, getSysSnapshotsExpressions());
         tableFactories.put(SysSummitsTableInfo.IDENT, getSummitsExpressions());
+        tableFactories.put(SysStatementCacheTableInfo.IDENT, getStatementCacheExpressions());
+        tableFactories.put(SysBulkLimitsTableInfo.IDENT, getBulkLimitsExpressions());
 
         tableFactories.put(InformationSchemataTableInfo.IDENT, InformationSchemaExpressionFactories.schemataFactories());
         tableFactories.put(InformationRoutinesTableInfo.IDENT, InformationSchemaExpressionFactories.routineFactories());
@@ -85,6 +90,7 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
         tableFactories.put(SysShardsTableInfo.IDENT, UnassignedShardsExpressionFactories.getSysShardsTableInfoFactories());
 
         tableFactories.put(PgTypeTable.IDENT, PgCatalogTables.pgTypeExpressions());
+        tableFactories.put(PgStatsTable.IDENT, PgCatalogTables.pgStatsExpressions());
     }
 
     private Map<ColumnIdent, RowCollectExpressionFactory> getSysOperationLogExpressions() {
@@ -148,6 +154,83 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                     };
                 }
             })
+            .put(SysOperationsLogTableInfo.Columns.SPILLED_RUNS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.spilledRuns();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.SPILLED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.spilledBytes();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.FETCH_LATENCY, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.fetchLatency();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.FETCHED_DOCS_PER_SECOND, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.fetchedDocsPerSecond();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.PRUNED_ROWS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.prunedRows();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.PAUSED_COUNT, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.pausedCount();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsLogTableInfo.Columns.PAUSED_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContextLog, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.pausedTime();
+                        }
+                    };
+                }
+            })
             .put(SysOperationsLogTableInfo.Columns.ERROR, new RowCollectExpressionFactory() {
                 @Override
                 public RowCollectExpression create() {
@@ -233,6 +316,83 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
                     };
                 }
             })
+            .put(SysOperationsTableInfo.Columns.SPILLED_RUNS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.spilledRuns();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.SPILLED_BYTES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.spilledBytes();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.FETCH_LATENCY, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.fetchLatency();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.FETCHED_DOCS_PER_SECOND, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Double>() {
+                        @Override
+                        public Double value() {
+                            return row.fetchedDocsPerSecond();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.PRUNED_ROWS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.prunedRows();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.PAUSED_COUNT, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.pausedCount();
+                        }
+                    };
+                }
+            })
+            .put(SysOperationsTableInfo.Columns.PAUSED_TIME, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<OperationContext, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.pausedTime();
+                        }
+                    };
+                }
+            })
             .build();
     }
 
@@ -593,6 +753,126 @@ public class RowContextReferenceResolver implements ReferenceResolver<RowCollect
             .build();
     }
 
+    private static Map<ColumnIdent, RowCollectExpressionFactory> getStatementCacheExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(SysStatementCacheTableInfo.Columns.SIZE, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.size;
+                        }
+                    };
+                }
+            })
+            .put(SysStatementCacheTableInfo.Columns.HITS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.hits;
+                        }
+                    };
+                }
+            })
+            .put(SysStatementCacheTableInfo.Columns.MISSES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.misses;
+                        }
+                    };
+                }
+            })
+            .put(SysStatementCacheTableInfo.Columns.EVICTIONS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<StatementCache.Stats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.evictions;
+                        }
+                    };
+                }
+            })
+            .build();
+    }
+
+    private static Map<ColumnIdent, RowCollectExpressionFactory> getBulkLimitsExpressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
+            .put(SysBulkLimitsTableInfo.Columns.TARGET_NODE, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<BulkRetryCoordinatorPool.NodeStats, BytesRef>() {
+                        @Override
+                        public BytesRef value() {
+                            return BytesRefs.toBytesRef(row.nodeId);
+                        }
+                    };
+                }
+            })
+            .put(SysBulkLimitsTableInfo.Columns.CONCURRENCY_LIMIT, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<BulkRetryCoordinatorPool.NodeStats, Integer>() {
+                        @Override
+                        public Integer value() {
+                            return row.stats.limit;
+                        }
+                    };
+                }
+            })
+            .put(SysBulkLimitsTableInfo.Columns.ACTIVE_REQUESTS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<BulkRetryCoordinatorPool.NodeStats, Integer>() {
+                        @Override
+                        public Integer value() {
+                            return row.stats.activeOperations;
+                        }
+                    };
+                }
+            })
+            .put(SysBulkLimitsTableInfo.Columns.QUEUED_REQUESTS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<BulkRetryCoordinatorPool.NodeStats, Integer>() {
+                        @Override
+                        public Integer value() {
+                            return row.stats.pendingOperations;
+                        }
+                    };
+                }
+            })
+            .put(SysBulkLimitsTableInfo.Columns.RETRIES, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<BulkRetryCoordinatorPool.NodeStats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.stats.retries;
+                        }
+                    };
+                }
+            })
+            .put(SysBulkLimitsTableInfo.Columns.REJECTIONS, new RowCollectExpressionFactory() {
+                @Override
+                public RowCollectExpression create() {
+                    return new RowContextCollectorExpression<BulkRetryCoordinatorPool.NodeStats, Long>() {
+                        @Override
+                        public Long value() {
+                            return row.stats.rejections;
+                        }
+                    };
+                }
+            })
+            .build();
+    }
+
     private static Map<ColumnIdent, RowCollectExpressionFactory> getSummitsExpressions() {
         return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory>builder()
             .put(SysSummitsTableInfo.Columns.MOUNTAIN, new RowCollectExpressionFactory() {
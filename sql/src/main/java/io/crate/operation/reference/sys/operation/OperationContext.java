@@ -21,8 +21,13 @@
 
 package io.crate.operation.reference.sys.operation;
 
+import io.crate.breaker.RamAccountingContext;
+
+import javax.annotation.Nullable;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class OperationContext {
 
@@ -32,11 +37,124 @@ public class OperationContext {
     public final long started;
     public long usedBytes;
 
+    @Nullable
+    private final RamAccountingContext ramAccountingContext;
+
+    /**
+     * -1 if the operation doesn't fetch documents
+     */
+    private final AtomicLong fetchedDocs = new AtomicLong(-1L);
+
+    /**
+     * -1 if the operation doesn't use a runtime filter
+     */
+    private final AtomicLong prunedRows = new AtomicLong(-1L);
+
+    /**
+     * -1 if the operation hasn't been paused waiting for downstream nodes
+     */
+    private final AtomicLong pausedCount = new AtomicLong(-1L);
+    private final AtomicLong pausedNanos = new AtomicLong(0L);
+
     public OperationContext(int id, UUID jobId, String name, long started) {
+        this(id, jobId, name, started, null);
+    }
+
+    public OperationContext(int id,
+                            UUID jobId,
+                            String name,
+                            long started,
+                            @Nullable RamAccountingContext ramAccountingContext) {
         this.id = id;
         this.jobId = jobId;
         this.name = name;
         this.started = started;
+        this.ramAccountingContext = ramAccountingContext;
+    }
+
+    public long spilledRuns() {
+        return ramAccountingContext == null ? 0L : ramAccountingContext.spilledRuns();
+    }
+
+    public long spilledBytes() {
+        return ramAccountingContext == null ? 0L : ramAccountingContext.spilledBytes();
+    }
+
+    public void addFetchedDocs(long docs) {
+        fetchedDocs.compareAndSet(-1L, 0L);
+        fetchedDocs.addAndGet(docs);
+    }
+
+    public void addPrunedRows(long rows) {
+        prunedRows.compareAndSet(-1L, 0L);
+        prunedRows.addAndGet(rows);
+    }
+
+    /**
+     * @return the number of rows skipped by a runtime join filter or null if the operation doesn't use one
+     */
+    @Nullable
+    public Long prunedRows() {
+        long rows = prunedRows.get();
+        return rows < 0 ? null : rows;
+    }
+
+    public void addPausedTime(long nanos) {
+        pausedNanos.addAndGet(nanos);
+        pausedCount.compareAndSet(-1L, 0L);
+        pausedCount.incrementAndGet();
+    }
+
+    /**
+     * @return how often the operation has been paused waiting for downstream nodes to acknowledge its pages
+     *         or null if it hasn't been paused
+     */
+    @Nullable
+    public Long pausedCount() {
+        long count = pausedCount.get();
+        return count < 0 ? null : count;
+    }
+
+    /**
+     * @return the milliseconds the operation has been paused waiting for downstream nodes to acknowledge its pages
+     *         or null if it hasn't been paused
+     */
+    @Nullable
+    public Long pausedTime() {
+        if (pausedCount.get() < 0) {
+            return null;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(pausedNanos.get());
+    }
+
+    /**
+     * @return the milliseconds the fetch operation is running or null if the operation doesn't fetch documents
+     */
+    @Nullable
+    public Long fetchLatency() {
+        return fetchLatency(System.currentTimeMillis());
+    }
+
+    @Nullable
+    public Double fetchedDocsPerSecond() {
+        return fetchedDocsPerSecond(System.currentTimeMillis());
+    }
+
+    @Nullable
+    Long fetchLatency(long ended) {
+        if (fetchedDocs.get() < 0) {
+            return null;
+        }
+        return ended - started;
+    }
+
+    @Nullable
+    Double fetchedDocsPerSecond(long ended) {
+        long docs = fetchedDocs.get();
+        if (docs < 0) {
+            return null;
+        }
+        return docs * 1000.0 / Math.max(1L, ended - started);
     }
 
     @Override
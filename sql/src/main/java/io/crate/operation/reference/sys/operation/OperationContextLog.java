@@ -66,6 +66,39 @@ public class OperationContextLog implements ContextLog {
         return operationContext.usedBytes;
     }
 
+    public long spilledRuns() {
+        return operationContext.spilledRuns();
+    }
+
+    public long spilledBytes() {
+        return operationContext.spilledBytes();
+    }
+
+    @Nullable
+    public Long fetchLatency() {
+        return operationContext.fetchLatency(ended);
+    }
+
+    @Nullable
+    public Double fetchedDocsPerSecond() {
+        return operationContext.fetchedDocsPerSecond(ended);
+    }
+
+    @Nullable
+    public Long prunedRows() {
+        return operationContext.prunedRows();
+    }
+
+    @Nullable
+    public Long pausedCount() {
+        return operationContext.pausedCount();
+    }
+
+    @Nullable
+    public Long pausedTime() {
+        return operationContext.pausedTime();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
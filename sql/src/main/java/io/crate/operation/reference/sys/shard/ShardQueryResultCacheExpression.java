@@ -0,0 +1,57 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.reference.sys.shard;
+
+import io.crate.operation.collect.QueryResultCache;
+import io.crate.operation.reference.NestedObjectExpression;
+
+import javax.annotation.Nullable;
+
+public class ShardQueryResultCacheExpression extends NestedObjectExpression {
+
+    private static final String HITS = "hits";
+    private static final String MISSES = "misses";
+    private static final String EVICTIONS = "evictions";
+    private static final String SIZE = "size";
+
+    /**
+     * @param cache the cache of the shard or null if the query result cache is disabled or not supported
+     *              by the shard. All values are null in that case.
+     */
+    public ShardQueryResultCacheExpression(@Nullable QueryResultCache cache) {
+        addChildImplementations(cache);
+    }
+
+    private void addChildImplementations(@Nullable final QueryResultCache cache) {
+        if (cache == null) {
+            childImplementations.put(HITS, new LiteralReferenceImplementation<Long>(null));
+            childImplementations.put(MISSES, new LiteralReferenceImplementation<Long>(null));
+            childImplementations.put(EVICTIONS, new LiteralReferenceImplementation<Long>(null));
+            childImplementations.put(SIZE, new LiteralReferenceImplementation<Long>(null));
+        } else {
+            childImplementations.put(HITS, cache::hits);
+            childImplementations.put(MISSES, cache::misses);
+            childImplementations.put(EVICTIONS, cache::evictions);
+            childImplementations.put(SIZE, cache::sizeInBytes);
+        }
+    }
+}
@@ -196,6 +196,22 @@ public class UnassignedShardsExpressionFactories {
                     };
                 }
             })
+            .put(SysShardsTableInfo.Columns.QUERY_RESULT_CACHE, new RowCollectExpressionFactory() {
+                @Override
+                public RowContextCollectorExpression create() {
+                    return new RowContextCollectorExpression() {
+                        @Override
+                        public Object value() {
+                            return null;
+                        }
+
+                        @Override
+                        public ReferenceImplementation getChildImplementation(String name) {
+                            return this;
+                        }
+                    };
+                }
+            })
             .build();
     }
 }
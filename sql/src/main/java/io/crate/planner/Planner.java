@@ -159,6 +159,15 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                 planner, clusterService, subJobId, consumingPlanner, normalizer, transactionContext, 2, 2));
         }
 
+        /**
+         * Plans a sub-select whose complete result is required (no soft limit and no paging)
+         */
+        public Plan planSubselect(AnalyzedStatement statement) {
+            UUID subJobId = UUID.randomUUID();
+            return planner.process(statement, new Planner.Context(
+                planner, clusterService, subJobId, consumingPlanner, normalizer, transactionContext, 0, 0));
+        }
+
         void applySoftLimit(QuerySpec querySpec) {
             if (softLimit != 0 && !querySpec.limit().isPresent()) {
                 querySpec.limit(Optional.of(Literal.of((long) softLimit)));
@@ -48,7 +48,12 @@ public class SubqueryPlanner {
     private void planSubquery(SelectSymbol selectSymbol) {
         AnalyzedRelation relation = selectSymbol.relation();
         SelectAnalyzedStatement selectAnalyzedStatement = new SelectAnalyzedStatement(((QueriedRelation) relation));
-        Plan subPlan = plannerContext.planSingleRowSubselect(selectAnalyzedStatement);
+        Plan subPlan;
+        if (selectSymbol.resultType() == SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES) {
+            subPlan = plannerContext.planSubselect(selectAnalyzedStatement);
+        } else {
+            subPlan = plannerContext.planSingleRowSubselect(selectAnalyzedStatement);
+        }
         subQueries.put(subPlan, selectSymbol);
     }
 
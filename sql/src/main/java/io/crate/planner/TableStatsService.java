@@ -26,13 +26,20 @@ package io.crate.planner;
 import com.carrotsearch.hppc.ObjectLongHashMap;
 import com.carrotsearch.hppc.ObjectLongMap;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.action.sql.Option;
 import io.crate.action.sql.SQLOperations;
 import io.crate.core.collections.Row;
+import io.crate.executor.transport.TransportColumnStatsAction;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.settings.CrateSettings;
+import io.crate.planner.statistics.ColumnStats;
+import io.crate.planner.statistics.ColumnStatsSketch;
 import io.crate.types.DataType;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -47,8 +54,12 @@ import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Singleton
 public class TableStatsService extends AbstractComponent implements NodeSettingsService.Listener, Runnable {
@@ -60,9 +71,11 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
 
     private final ClusterService clusterService;
     private final Provider<SQLOperations> sqlOperationsProvider;
+    private final Provider<TransportColumnStatsAction> columnStatsActionProvider;
     private final ThreadPool threadPool;
     private final TableStatsResultReceiver resultReceiver;
     private volatile ObjectLongMap<TableIdent> tableStats = null;
+    private volatile Map<TableIdent, Map<ColumnIdent, ColumnStats>> columnStats = Collections.emptyMap();
     private TimeValue initialRefreshInterval;
     @VisibleForTesting
     ThreadPool.Cancellable refreshScheduledTask = null;
@@ -74,11 +87,13 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
                              ThreadPool threadPool,
                              ClusterService clusterService,
                              NodeSettingsService nodeSettingsService,
-                             Provider<SQLOperations> sqlOperationsProvider) {
+                             Provider<SQLOperations> sqlOperationsProvider,
+                             Provider<TransportColumnStatsAction> columnStatsActionProvider) {
         super(settings);
         this.threadPool = threadPool;
         this.clusterService = clusterService;
         this.sqlOperationsProvider = sqlOperationsProvider;
+        this.columnStatsActionProvider = columnStatsActionProvider;
         initialRefreshInterval = extractRefreshInterval(settings);
         lastRefreshInterval = initialRefreshInterval;
         refreshScheduledTask = scheduleRefresh(initialRefreshInterval);
@@ -111,6 +126,122 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
         } catch (Throwable t) {
             logger.error("error retrieving table stats", t);
         }
+        refreshColumnStats();
+    }
+
+    /**
+     * Gathers the column statistics of all tables from the primary shards.
+     * This happens periodically together with the table stats refresh.
+     *
+     * @return a future which is completed once the new statistics are in place on this node.
+     *         Its result is null as there is no meaningful row count.
+     */
+    public ListenableFuture<Long> refreshColumnStats() {
+        final SettableFuture<Long> result = SettableFuture.create();
+        if (!canCollectColumnStats()) {
+            result.set(null);
+            return result;
+        }
+        collectColumnStats(new ActionListener<Map<TableIdent, Map<ColumnIdent, ColumnStats>>>() {
+            @Override
+            public void onResponse(Map<TableIdent, Map<ColumnIdent, ColumnStats>> newColumnStats) {
+                setColumnStats(newColumnStats);
+                result.set(null);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                result.setException(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Gathers the column statistics of all tables like {@link #refreshColumnStats()} does and publishes them
+     * to all nodes, so that statements planned on any node use them. Used by ANALYZE.
+     *
+     * @return a future which is completed once all nodes use the new statistics.
+     *         Its result is null as there is no meaningful row count.
+     */
+    public ListenableFuture<Long> analyze() {
+        final SettableFuture<Long> result = SettableFuture.create();
+        if (!canCollectColumnStats()) {
+            result.set(null);
+            return result;
+        }
+        collectColumnStats(new ActionListener<Map<TableIdent, Map<ColumnIdent, ColumnStats>>>() {
+            @Override
+            public void onResponse(Map<TableIdent, Map<ColumnIdent, ColumnStats>> newColumnStats) {
+                columnStatsActionProvider.get().publish(newColumnStats, new ActionListener<Void>() {
+                    @Override
+                    public void onResponse(Void aVoid) {
+                        result.set(null);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        logger.error("error publishing column stats", e);
+                        result.setException(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                result.setException(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return false if the local node isn't fully available yet and no statistics can be gathered
+     */
+    private boolean canCollectColumnStats() {
+        if (clusterService.localNode() == null) {
+            logger.debug("Could not retrieve column stats. localNode is not fully available yet.");
+            return false;
+        }
+        return true;
+    }
+
+    private void collectColumnStats(final ActionListener<Map<TableIdent, Map<ColumnIdent, ColumnStats>>> listener) {
+        columnStatsActionProvider.get().broadcast(new ActionListener<Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>>>() {
+            @Override
+            public void onResponse(Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> sketches) {
+                listener.onResponse(toColumnStats(sketches));
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                logger.error("error retrieving column stats", e);
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    private static Map<TableIdent, Map<ColumnIdent, ColumnStats>> toColumnStats(
+        Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> sketches) {
+
+        Map<TableIdent, Map<ColumnIdent, ColumnStats>> stats = new HashMap<>(sketches.size());
+        for (Map.Entry<TableIdent, Map<ColumnIdent, ColumnStatsSketch>> tableEntry : sketches.entrySet()) {
+            Map<ColumnIdent, ColumnStats> columns = new HashMap<>(tableEntry.getValue().size());
+            for (Map.Entry<ColumnIdent, ColumnStatsSketch> columnEntry : tableEntry.getValue().entrySet()) {
+                try (ColumnStatsSketch sketch = columnEntry.getValue()) {
+                    columns.put(columnEntry.getKey(), sketch.toColumnStats(tableEntry.getKey(), columnEntry.getKey()));
+                }
+            }
+            stats.put(tableEntry.getKey(), columns);
+        }
+        return stats;
+    }
+
+    /**
+     * Replaces the column statistics of this node, e.g. with those published by the node which handled an ANALYZE.
+     */
+    public void setColumnStats(Map<TableIdent, Map<ColumnIdent, ColumnStats>> newColumnStats) {
+        columnStats = newColumnStats;
     }
 
     private void setTableStats(ObjectLongMap<TableIdent> newTableStats) {
@@ -164,6 +295,30 @@ public class TableStatsService extends AbstractComponent implements NodeSettings
         return -1;
     }
 
+    /**
+     * Returns the statistics of a column or null if there are none (yet).
+     * <p>
+     * Like {@link #numDocs(TableIdent)} this is a cached value which is periodically updated.
+     * </p>
+     */
+    @Nullable
+    public ColumnStats columnStats(TableIdent tableIdent, ColumnIdent column) {
+        Map<ColumnIdent, ColumnStats> tableColumns = columnStats.get(tableIdent);
+        if (tableColumns == null) {
+            return null;
+        }
+        return tableColumns.get(column);
+    }
+
+    /**
+     * Returns the statistics of all columns of all tables
+     */
+    public Iterable<ColumnStats> columnStats() {
+        return columnStats.values().stream()
+            .flatMap(tableColumns -> tableColumns.values().stream())
+            .collect(Collectors.toList());
+    }
+
     @Override
     public void onRefreshSettings(Settings settings) {
         TimeValue newRefreshInterval = extractRefreshInterval(settings);
@@ -50,7 +50,7 @@ public class ConsumingPlanner {
         consumers.add(new InsertFromSubQueryConsumer());
         consumers.add(new QueryAndFetchConsumer());
         consumers.add(new MultiSourceAggregationConsumer(functions));
-        consumers.add(new ManyTableConsumer());
+        consumers.add(new ManyTableConsumer(tableStatsService));
         consumers.add(new NestedLoopConsumer(clusterService, functions, tableStatsService));
     }
 
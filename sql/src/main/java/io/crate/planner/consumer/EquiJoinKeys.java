@@ -0,0 +1,138 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.planner.consumer;
+
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
+import io.crate.types.*;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The join keys of a join condition which is a conjunction of <code>=</code> comparisons
+ * between a column of the left relation and a column of the right relation.
+ * <p>
+ * Such a join can be executed as hash join, see {@link io.crate.operation.join.HashJoinOperation}.
+ */
+final class EquiJoinKeys {
+
+    private final List<Symbol> leftKeys = new ArrayList<>();
+    private final List<Symbol> rightKeys = new ArrayList<>();
+
+    private EquiJoinKeys() {
+    }
+
+    /**
+     * @param joinCondition  join condition with {@link InputColumn}s; the first <code>numLeftOutputs</code> columns
+     *                       belong to the left relation, the remaining ones to the right relation.
+     * @return the keys or null if the join condition contains anything else than the comparisons of columns
+     */
+    @Nullable
+    static EquiJoinKeys of(@Nullable Symbol joinCondition, int numLeftOutputs) {
+        if (joinCondition == null) {
+            return null;
+        }
+        EquiJoinKeys keys = new EquiJoinKeys();
+        if (keys.add(joinCondition, numLeftOutputs)) {
+            return keys;
+        }
+        return null;
+    }
+
+    /**
+     * join keys as {@link InputColumn}s of the left rows
+     */
+    List<Symbol> leftKeys() {
+        return leftKeys;
+    }
+
+    /**
+     * join keys as {@link InputColumn}s of the right rows
+     */
+    List<Symbol> rightKeys() {
+        return rightKeys;
+    }
+
+    private boolean add(Symbol condition, int numLeftOutputs) {
+        if (!(condition instanceof Function)) {
+            return false;
+        }
+        Function function = (Function) condition;
+        String name = function.info().ident().name();
+        if (name.equals(AndOperator.NAME)) {
+            return add(function.arguments().get(0), numLeftOutputs) && add(function.arguments().get(1), numLeftOutputs);
+        }
+        if (!name.equals(EqOperator.NAME)) {
+            return false;
+        }
+        Symbol arg1 = function.arguments().get(0);
+        Symbol arg2 = function.arguments().get(1);
+        if (!(arg1 instanceof InputColumn) || !(arg2 instanceof InputColumn)) {
+            return false;
+        }
+        InputColumn col1 = (InputColumn) arg1;
+        InputColumn col2 = (InputColumn) arg2;
+        if (!col1.valueType().equals(col2.valueType()) || !isHashable(col1.valueType())) {
+            return false;
+        }
+        if (col1.index() < numLeftOutputs && col2.index() >= numLeftOutputs) {
+            addKeys(col1, col2, numLeftOutputs);
+            return true;
+        }
+        if (col2.index() < numLeftOutputs && col1.index() >= numLeftOutputs) {
+            addKeys(col2, col1, numLeftOutputs);
+            return true;
+        }
+        // both columns are from the same relation
+        return false;
+    }
+
+    private void addKeys(InputColumn leftColumn, InputColumn rightColumn, int numLeftOutputs) {
+        leftKeys.add(leftColumn);
+        rightKeys.add(new InputColumn(rightColumn.index() - numLeftOutputs, rightColumn.valueType()));
+    }
+
+    /**
+     * Values of these types are equal if their {@link Object#equals(Object)} is true.
+     * Floating point types are excluded as <code>NaN = NaN</code> is false but {@link Double#equals(Object)} is true.
+     */
+    private static boolean isHashable(DataType type) {
+        switch (type.id()) {
+            case StringType.ID:
+            case IpType.ID:
+            case BooleanType.ID:
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -32,22 +32,28 @@ import io.crate.exceptions.ValidationException;
 import io.crate.metadata.ReplaceMode;
 import io.crate.metadata.ReplacingSymbolVisitor;
 import io.crate.operation.operator.AndOperator;
+import io.crate.operation.operator.EqOperator;
 import io.crate.planner.Plan;
+import io.crate.planner.TableStatsService;
+import io.crate.planner.statistics.CardinalityEstimator;
 import io.crate.sql.tree.QualifiedName;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 public class ManyTableConsumer implements Consumer {
 
     private static final ESLogger LOGGER = Loggers.getLogger(ManyTableConsumer.class);
 
+    private static final ToDoubleFunction<List<QualifiedName>> NO_JOIN_COST = permutation -> 0.0;
+
     private final Visitor visitor;
 
-    ManyTableConsumer() {
-        this.visitor = new Visitor();
+    ManyTableConsumer(TableStatsService tableStatsService) {
+        this.visitor = new Visitor(new CardinalityEstimator(tableStatsService));
     }
 
     @Override
@@ -69,6 +75,18 @@ public class ManyTableConsumer implements Consumer {
                                                            Set<? extends Set<QualifiedName>> implicitJoinedRelations,
                                                            List<JoinPair> joinPairs,
                                                            Collection<QualifiedName> preSorted) {
+        return orderByJoinConditions(relations, implicitJoinedRelations, joinPairs, preSorted, NO_JOIN_COST);
+    }
+
+    /**
+     * like {@link #orderByJoinConditions(Collection, Set, List, Collection)}, but if several orders allow the same
+     * number of join condition push downs, the one with the lowest joinCost is used.
+     */
+    static Collection<QualifiedName> orderByJoinConditions(Collection<QualifiedName> relations,
+                                                           Set<? extends Set<QualifiedName>> implicitJoinedRelations,
+                                                           List<JoinPair> joinPairs,
+                                                           Collection<QualifiedName> preSorted,
+                                                           ToDoubleFunction<List<QualifiedName>> joinCost) {
         if (relations.size() == preSorted.size()) {
             return preSorted;
         }
@@ -84,6 +102,7 @@ public class ManyTableConsumer implements Consumer {
         Set<QualifiedName> outerJoinRelations = JoinPairs.outerJoinRelations(joinPairs);
         Collection<QualifiedName> bestOrder = null;
         int best = -1;
+        double bestCost = Double.MAX_VALUE;
         outerloop:
         for (List<QualifiedName> permutation : Collections2.permutations(relations)) {
             if (!preSorted.equals(permutation.subList(0, preSorted.size()))) {
@@ -111,11 +130,13 @@ public class ManyTableConsumer implements Consumer {
                     joinPushDowns += 1;
                 }
             }
-            if (joinPushDowns == relations.size() - 1) {
-                return permutation;
+            if (joinPushDowns < best) {
+                continue;
             }
-            if (joinPushDowns > best) {
+            double cost = joinCost.applyAsDouble(permutation);
+            if (joinPushDowns > best || cost < bestCost) {
                 best = joinPushDowns;
+                bestCost = cost;
                 bestOrder = permutation;
             }
         }
@@ -137,13 +158,15 @@ public class ManyTableConsumer implements Consumer {
     }
 
     private static Collection<QualifiedName> getOrderedRelationNames(MultiSourceSelect statement,
-                                                                     Set<? extends Set<QualifiedName>> relationPairs) {
+                                                                     Map<Set<QualifiedName>, Symbol> splitQuery,
+                                                                     ToDoubleFunction<List<QualifiedName>> joinCost) {
         Collection<QualifiedName> orderedRelations = ImmutableList.of();
         Optional<OrderBy> orderBy = statement.querySpec().orderBy();
         if (orderBy.isPresent()) {
             orderedRelations = getNamesFromOrderBy(orderBy.get());
         }
-        return orderByJoinConditions(statement.sources().keySet(), relationPairs, statement.joinPairs(), orderedRelations);
+        return orderByJoinConditions(
+            statement.sources().keySet(), splitQuery.keySet(), statement.joinPairs(), orderedRelations, joinCost);
     }
 
     /**
@@ -182,13 +205,25 @@ public class ManyTableConsumer implements Consumer {
      * </code>
      */
     static TwoTableJoin buildTwoTableJoinTree(MultiSourceSelect mss) {
+        return buildTwoTableJoinTree(mss, null);
+    }
+
+    /**
+     * @param estimator used to pick the cheapest join order if several orders allow the same number of join
+     *                  condition push downs. The order isn't cost based if null.
+     */
+    static TwoTableJoin buildTwoTableJoinTree(MultiSourceSelect mss, @Nullable CardinalityEstimator estimator) {
         Map<Set<QualifiedName>, Symbol> splitQuery = ImmutableMap.of();
         if (mss.querySpec().where().hasQuery()) {
             splitQuery = QuerySplitter.split(mss.querySpec().where().query());
             mss.querySpec().where(WhereClause.MATCH_ALL);
         }
 
-        Collection<QualifiedName> orderedRelationNames = getOrderedRelationNames(mss, splitQuery.keySet());
+        ToDoubleFunction<List<QualifiedName>> joinCost = NO_JOIN_COST;
+        if (estimator != null) {
+            joinCost = EstimatedJoinCost.create(mss, splitQuery.values(), estimator);
+        }
+        Collection<QualifiedName> orderedRelationNames = getOrderedRelationNames(mss, splitQuery, joinCost);
         Iterator<QualifiedName> it = orderedRelationNames.iterator();
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("relations={} orderedRelations={}", mss.sources().keySet(), orderedRelationNames);
@@ -328,7 +363,7 @@ public class ManyTableConsumer implements Consumer {
 
     static TwoTableJoin twoTableJoin(MultiSourceSelect mss) {
         assert mss.sources().size() == 2 : "number of mss.sources() must be 2";
-        Iterator<QualifiedName> it = getOrderedRelationNames(mss, ImmutableSet.of()).iterator();
+        Iterator<QualifiedName> it = getOrderedRelationNames(mss, ImmutableMap.of(), NO_JOIN_COST).iterator();
         QualifiedName left = it.next();
         QualifiedName right = it.next();
         JoinPair joinPair = JoinPairs.ofRelationsWithMergedConditions(left, right, mss.joinPairs(), true);
@@ -352,8 +387,148 @@ public class ManyTableConsumer implements Consumer {
         );
     }
 
+    /**
+     * Estimates the cost of a left-deep join tree as the sum of the estimated number of rows of all intermediate
+     * results plus the rows of each relation which is added on the right side.
+     * <p>
+     * The number of rows of a join is estimated as |left| * |right| * selectivity, where the selectivity of
+     * an equi-join condition is 1 / max(distinct values of both join columns).
+     * </p>
+     */
+    private static class EstimatedJoinCost implements ToDoubleFunction<List<QualifiedName>> {
+
+        private final Map<QualifiedName, Long> rows;
+        private final Map<Set<QualifiedName>, Double> selectivities;
+
+        private EstimatedJoinCost(Map<QualifiedName, Long> rows, Map<Set<QualifiedName>, Double> selectivities) {
+            this.rows = rows;
+            this.selectivities = selectivities;
+        }
+
+        /**
+         * @return a cost function for the relations of mss or {@link #NO_JOIN_COST} if the number of rows of one
+         *         of the relations is unknown.
+         */
+        static ToDoubleFunction<List<QualifiedName>> create(MultiSourceSelect mss,
+                                                            Collection<Symbol> implicitJoinConditions,
+                                                            CardinalityEstimator estimator) {
+            Map<QualifiedName, Long> rows = new HashMap<>(mss.sources().size());
+            for (Map.Entry<QualifiedName, RelationSource> entry : mss.sources().entrySet()) {
+                RelationSource source = entry.getValue();
+                long numRows = estimator.estimateRows(source.relation(), source.querySpec().where());
+                if (numRows == CardinalityEstimator.UNKNOWN) {
+                    return NO_JOIN_COST;
+                }
+                rows.put(entry.getKey(), numRows);
+            }
+
+            List<Symbol> conditions = new ArrayList<>();
+            for (JoinPair joinPair : mss.joinPairs()) {
+                if (joinPair.condition() != null) {
+                    addConjunctions(joinPair.condition(), conditions);
+                }
+            }
+            for (Symbol condition : implicitJoinConditions) {
+                addConjunctions(condition, conditions);
+            }
+
+            Map<Set<QualifiedName>, Double> selectivities = new HashMap<>();
+            Set<QualifiedName> names = new HashSet<>();
+            for (Symbol condition : conditions) {
+                names.clear();
+                QualifiedNameCounter.INSTANCE.process(condition, names);
+                if (names.size() != 2) {
+                    continue;
+                }
+                Set<QualifiedName> pair = ImmutableSet.copyOf(names);
+                double selectivity = selectivity(condition, mss, rows, estimator);
+                Double existing = selectivities.get(pair);
+                selectivities.put(pair, existing == null ? selectivity : existing * selectivity);
+            }
+            return new EstimatedJoinCost(rows, selectivities);
+        }
+
+        private static void addConjunctions(Symbol symbol, List<Symbol> conjunctions) {
+            if (symbol instanceof io.crate.analyze.symbol.Function
+                && ((io.crate.analyze.symbol.Function) symbol).info().ident().name().equals(AndOperator.NAME)) {
+                for (Symbol argument : ((io.crate.analyze.symbol.Function) symbol).arguments()) {
+                    addConjunctions(argument, conjunctions);
+                }
+            } else {
+                conjunctions.add(symbol);
+            }
+        }
+
+        private static double selectivity(Symbol condition,
+                                          MultiSourceSelect mss,
+                                          Map<QualifiedName, Long> rows,
+                                          CardinalityEstimator estimator) {
+            if (condition instanceof io.crate.analyze.symbol.Function
+                && ((io.crate.analyze.symbol.Function) condition).info().ident().name().equals(EqOperator.NAME)) {
+                List<Symbol> args = ((io.crate.analyze.symbol.Function) condition).arguments();
+                if (args.get(0) instanceof RelationColumn && args.get(1) instanceof RelationColumn) {
+                    long leftDistinct = distinctValues((RelationColumn) args.get(0), mss, rows, estimator);
+                    long rightDistinct = distinctValues((RelationColumn) args.get(1), mss, rows, estimator);
+                    return 1.0 / Math.max(1L, Math.max(leftDistinct, rightDistinct));
+                }
+            }
+            return estimator.selectivity(condition);
+        }
+
+        /**
+         * Without column statistics each row is assumed to have a distinct value (e.g. a primary key)
+         */
+        private static long distinctValues(RelationColumn relationColumn,
+                                           MultiSourceSelect mss,
+                                           Map<QualifiedName, Long> rows,
+                                           CardinalityEstimator estimator) {
+            long numRows = rows.get(relationColumn.relationName());
+            QuerySpec querySpec = mss.sources().get(relationColumn.relationName()).querySpec();
+            Symbol column = querySpec.outputs().get(relationColumn.index());
+            long distinct = estimator.estimateDistinct(column);
+            if (distinct == CardinalityEstimator.UNKNOWN) {
+                return numRows;
+            }
+            return Math.min(distinct, numRows);
+        }
+
+        @Override
+        public double applyAsDouble(List<QualifiedName> permutation) {
+            Set<QualifiedName> joined = new HashSet<>();
+            Set<QualifiedName> pair = new HashSet<>(2);
+            QualifiedName first = permutation.get(0);
+            joined.add(first);
+            double joinedRows = rows.get(first);
+            double cost = 0.0;
+            for (int i = 1; i < permutation.size(); i++) {
+                QualifiedName right = permutation.get(i);
+                double rightRows = rows.get(right);
+                double selectivity = 1.0;
+                for (QualifiedName left : joined) {
+                    pair.clear();
+                    pair.add(left);
+                    pair.add(right);
+                    Double pairSelectivity = selectivities.get(pair);
+                    if (pairSelectivity != null) {
+                        selectivity *= pairSelectivity;
+                    }
+                }
+                joinedRows = joinedRows * rightRows * selectivity;
+                cost += joinedRows + rightRows;
+                joined.add(right);
+            }
+            return cost;
+        }
+    }
+
     private static class Visitor extends RelationPlanningVisitor {
 
+        private final CardinalityEstimator estimator;
+
+        Visitor(CardinalityEstimator estimator) {
+            this.estimator = estimator;
+        }
+
         @Override
         public Plan visitMultiSourceSelect(MultiSourceSelect mss, ConsumerContext context) {
             if (isUnsupportedStatement(mss, context)) return null;
@@ -361,7 +536,7 @@ public class ManyTableConsumer implements Consumer {
             if (mss.sources().size() == 2) {
                 return planSubRelation(context, twoTableJoin(mss));
             }
-            return planSubRelation(context, buildTwoTableJoinTree(mss));
+            return planSubRelation(context, buildTwoTableJoinTree(mss, estimator));
         }
 
 
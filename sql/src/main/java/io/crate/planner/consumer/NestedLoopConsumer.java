@@ -28,7 +28,6 @@ import io.crate.analyze.relations.*;
 import io.crate.analyze.symbol.*;
 import io.crate.exceptions.ValidationException;
 import io.crate.metadata.Functions;
-import io.crate.metadata.TableIdent;
 import io.crate.operation.projectors.TopN;
 import io.crate.planner.*;
 import io.crate.planner.distribution.DistributionInfo;
@@ -40,6 +39,7 @@ import io.crate.planner.projection.FilterProjection;
 import io.crate.planner.projection.Projection;
 import io.crate.planner.projection.builder.InputCreatingVisitor;
 import io.crate.planner.projection.builder.ProjectionBuilder;
+import io.crate.planner.statistics.CardinalityEstimator;
 import io.crate.sql.tree.QualifiedName;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.logging.ESLogger;
@@ -80,14 +80,14 @@ class NestedLoopConsumer implements Consumer {
 
         private final ClusterService clusterService;
         private final Functions functions;
-        private final TableStatsService tableStatsService;
+        private final CardinalityEstimator cardinalityEstimator;
 
         public Visitor(ClusterService clusterService,
                        Functions functions,
                        TableStatsService tableStatsService) {
             this.clusterService = clusterService;
             this.functions = functions;
-            this.tableStatsService = tableStatsService;
+            this.cardinalityEstimator = new CardinalityEstimator(tableStatsService);
         }
 
         @Override
@@ -98,10 +98,12 @@ class NestedLoopConsumer implements Consumer {
             final Map<Symbol, Symbol> symbolMap = new HashMap<>();
             QueriedRelation left;
             QueriedRelation right;
+            int numLeftOutputs;
             try {
                 left = SubRelationConverter.INSTANCE.process(statement.left().relation(), statement.left());
                 right = SubRelationConverter.INSTANCE.process(statement.right().relation(), statement.right());
                 addOutputsAndSymbolMap(statement.left().querySpec().outputs(), statement.leftName(), nlOutputs, symbolMap);
+                numLeftOutputs = nlOutputs.size();
                 addOutputsAndSymbolMap(statement.right().querySpec().outputs(), statement.rightName(), nlOutputs, symbolMap);
             } catch (ValidationException e) {
                 context.validationException(e);
@@ -246,6 +248,10 @@ class NestedLoopConsumer implements Consumer {
                 joinCondition = InputCreatingVisitor.INSTANCE.process(joinCondition, inputVisitorContext);
                 assert joinCondition instanceof Function : "Only function symbols are valid join conditions";
             }
+            EquiJoinKeys equiJoinKeys = null;
+            if (joinType == JoinType.INNER || joinType == JoinType.LEFT) {
+                equiJoinKeys = EquiJoinKeys.of(joinCondition, numLeftOutputs);
+            }
 
             List<Symbol> postNLOutputs = Lists.newArrayList(querySpec.outputs());
             if (orderByBeforeSplit != null && isDistributed) {
@@ -271,18 +277,21 @@ class NestedLoopConsumer implements Consumer {
             );
             projections.add(topN);
 
+            // left and right might have been swapped above, but the phase receives the rows in the order of nlOutputs
             NestedLoopPhase nl = new NestedLoopPhase(
                 context.plannerContext().jobId(),
                 context.plannerContext().nextExecutionPhaseId(),
-                isDistributed ? "distributed-nested-loop" : "nested-loop",
+                phaseName(isDistributed, equiJoinKeys != null),
                 projections,
                 leftMerge,
                 rightMerge,
                 nlExecutionNodes,
                 joinType,
                 joinCondition,
-                left.querySpec().outputs().size(),
-                right.querySpec().outputs().size()
+                numLeftOutputs,
+                nlOutputs.size() - numLeftOutputs,
+                equiJoinKeys == null ? Collections.emptyList() : equiJoinKeys.leftKeys(),
+                equiJoinKeys == null ? Collections.emptyList() : equiJoinKeys.rightKeys()
             );
             if (isDistributed) {
                 return new NestedLoop(
@@ -299,6 +308,11 @@ class NestedLoopConsumer implements Consumer {
             }
         }
 
+        private static String phaseName(boolean isDistributed, boolean isHashJoin) {
+            String name = isHashJoin ? "hash-join" : "nested-loop";
+            return isDistributed ? "distributed-" + name : name;
+        }
+
         private void addOutputsAndSymbolMap(Iterable<? extends Symbol> outputs,
                                             QualifiedName name,
                                             List<RelationColumn> nlOutputs,
@@ -311,26 +325,25 @@ class NestedLoopConsumer implements Consumer {
             }
         }
 
+        /**
+         * Compares the estimated number of rows of both relations, which takes the filter of the relations into
+         * account and not only the number of docs of the tables.
+         */
         private boolean isLeftSmallerThanRight(QueriedRelation qrLeft, QueriedRelation qrRight) {
             if (qrLeft instanceof QueriedTableRelation && qrRight instanceof QueriedTableRelation) {
-                return isLeftSmallerThanRight(
-                    ((QueriedTableRelation) qrLeft).tableRelation().tableInfo().ident(),
-                    ((QueriedTableRelation) qrRight).tableRelation().tableInfo().ident()
-                );
+                long leftRows = estimateRows((QueriedTableRelation) qrLeft);
+                long rightRows = estimateRows((QueriedTableRelation) qrRight);
+                if (leftRows < rightRows) {
+                    LOGGER.debug("Right relation is larger with an estimated {} rows (left has {}). " +
+                                 "Will change left plan to broadcast its result", rightRows, leftRows);
+                    return true;
+                }
             }
             return false;
         }
 
-        private boolean isLeftSmallerThanRight(TableIdent leftIdent, TableIdent rightIdent) {
-            long leftNumDocs = tableStatsService.numDocs(leftIdent);
-            long rightNumDocs = tableStatsService.numDocs(rightIdent);
-
-            if (leftNumDocs < rightNumDocs) {
-                LOGGER.debug("Right table is larger with {} docs (left has {}. Will change left plan to broadcast its result",
-                    rightNumDocs, leftNumDocs);
-                return true;
-            }
-            return false;
+        private long estimateRows(QueriedTableRelation relation) {
+            return cardinalityEstimator.estimateRows(relation.tableRelation(), relation.querySpec().where());
         }
 
         private static boolean isMergePhaseNeeded(Collection<String> executionNodes,
@@ -38,6 +38,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
@@ -56,6 +57,8 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
     private Symbol joinCondition;
     private int numLeftOutputs;
     private int numRightOutputs;
+    private List<Symbol> leftJoinKeys = Collections.emptyList();
+    private List<Symbol> rightJoinKeys = Collections.emptyList();
 
     public NestedLoopPhase() {
     }
@@ -71,7 +74,31 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
                            @Nullable Symbol joinCondition,
                            int numLeftOutputs,
                            int numRightOutputs) {
+        this(jobId, executionNodeId, name, projections, leftMergePhase, rightMergePhase, executionNodes, joinType,
+            joinCondition, numLeftOutputs, numRightOutputs, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * @param leftJoinKeys  if not empty the join is executed as hash join instead of a nested loop.
+     *                      Contains the join keys as {@link io.crate.analyze.symbol.InputColumn}s of the left rows.
+     * @param rightJoinKeys join keys as {@link io.crate.analyze.symbol.InputColumn}s of the right rows;
+     *                      the i-th right key is compared with the i-th left key
+     */
+    public NestedLoopPhase(UUID jobId,
+                           int executionNodeId,
+                           String name,
+                           List<Projection> projections,
+                           @Nullable MergePhase leftMergePhase,
+                           @Nullable MergePhase rightMergePhase,
+                           Collection<String> executionNodes,
+                           JoinType joinType,
+                           @Nullable Symbol joinCondition,
+                           int numLeftOutputs,
+                           int numRightOutputs,
+                           List<Symbol> leftJoinKeys,
+                           List<Symbol> rightJoinKeys) {
         super(jobId, executionNodeId, name, projections);
+        assert leftJoinKeys.size() == rightJoinKeys.size() : "left and right must have the same number of join keys";
         Projection lastProjection = Iterables.getLast(projections, null);
         assert lastProjection != null : "lastProjection must not be null";
         outputTypes = Symbols.extractTypes(lastProjection.outputs());
@@ -82,6 +109,8 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         this.joinCondition = joinCondition;
         this.numLeftOutputs = numLeftOutputs;
         this.numRightOutputs = numRightOutputs;
+        this.leftJoinKeys = leftJoinKeys;
+        this.rightJoinKeys = rightJoinKeys;
     }
 
     @Override
@@ -125,6 +154,21 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         return numRightOutputs;
     }
 
+    public List<Symbol> leftJoinKeys() {
+        return leftJoinKeys;
+    }
+
+    public List<Symbol> rightJoinKeys() {
+        return rightJoinKeys;
+    }
+
+    /**
+     * @return true if the join is executed by building a hash table of the right rows
+     */
+    public boolean isHashJoin() {
+        return !leftJoinKeys.isEmpty();
+    }
+
     @Override
     public <C, R> R accept(ExecutionPhaseVisitor<C, R> visitor, C context) {
         return visitor.visitNestedLoopPhase(this, context);
@@ -158,6 +202,8 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         joinType = JoinType.values()[in.readVInt()];
         numLeftOutputs = in.readVInt();
         numRightOutputs = in.readVInt();
+        leftJoinKeys = Symbols.listFromStream(in);
+        rightJoinKeys = Symbols.listFromStream(in);
     }
 
     @Override
@@ -198,6 +244,8 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
         out.writeVInt(joinType.ordinal());
         out.writeVInt(numLeftOutputs);
         out.writeVInt(numRightOutputs);
+        Symbols.toStream(leftJoinKeys, out);
+        Symbols.toStream(rightJoinKeys, out);
     }
 
     @Override
@@ -207,6 +255,8 @@ public class NestedLoopPhase extends AbstractProjectionsPhase implements Upstrea
             .add("name", name())
             .add("joinType", joinType)
             .add("joinCondition", joinCondition)
+            .add("leftJoinKeys", leftJoinKeys)
+            .add("rightJoinKeys", rightJoinKeys)
             .add("outputTypes", outputTypes)
             .add("jobId", jobId())
             .add("executionNodes", executionNodes);
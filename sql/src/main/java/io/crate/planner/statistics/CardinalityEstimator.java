@@ -0,0 +1,222 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.statistics;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.symbol.*;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.operation.operator.*;
+import io.crate.operation.operator.any.AnyEqOperator;
+import io.crate.operation.predicate.IsNullPredicate;
+import io.crate.operation.predicate.NotPredicate;
+import io.crate.planner.TableStatsService;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Estimates the number of rows of relations and the selectivity of filters
+ * based on the statistics gathered by the {@link TableStatsService}.
+ * <p>
+ * If there are no column statistics, fixed default selectivities are used.
+ * </p>
+ */
+public class CardinalityEstimator {
+
+    public static final long UNKNOWN = -1L;
+
+    static final double DEFAULT_EQ_SELECTIVITY = 0.005;
+    static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+    static final double DEFAULT_SELECTIVITY = 0.5;
+
+    private final TableStatsService tableStatsService;
+    private final SelectivityVisitor selectivityVisitor = new SelectivityVisitor();
+
+    public CardinalityEstimator(TableStatsService tableStatsService) {
+        this.tableStatsService = tableStatsService;
+    }
+
+    /**
+     * @return the estimated number of rows the relation returns after the where clause has been applied
+     *         or {@link #UNKNOWN} if the relation isn't a doc table or there are no stats for it
+     */
+    public long estimateRows(AnalyzedRelation relation, WhereClause where) {
+        if (!(relation instanceof AbstractTableRelation)) {
+            return UNKNOWN;
+        }
+        Object tableInfo = ((AbstractTableRelation) relation).tableInfo();
+        if (!(tableInfo instanceof DocTableInfo)) {
+            return UNKNOWN;
+        }
+        long numDocs = tableStatsService.numDocs(((DocTableInfo) tableInfo).ident());
+        if (numDocs <= 0) {
+            return numDocs;
+        }
+        if (where.noMatch()) {
+            return 0L;
+        }
+        if (!where.hasQuery()) {
+            return numDocs;
+        }
+        return Math.max(1L, Math.round(numDocs * selectivity(where.query())));
+    }
+
+    /**
+     * @return the estimated number of distinct values of a column or {@link #UNKNOWN}
+     */
+    public long estimateDistinct(Symbol symbol) {
+        ColumnStats stats = columnStats(symbol);
+        if (stats == null) {
+            return UNKNOWN;
+        }
+        return Math.max(1L, stats.approxDistinct());
+    }
+
+    /**
+     * @return the estimated fraction (0.0 - 1.0) of rows matching the given query
+     */
+    public double selectivity(Symbol query) {
+        Double selectivity = selectivityVisitor.process(query, null);
+        if (selectivity == null) {
+            return DEFAULT_SELECTIVITY;
+        }
+        return Math.min(1.0, Math.max(0.0, selectivity));
+    }
+
+    @Nullable
+    private ColumnStats columnStats(Symbol symbol) {
+        Reference reference = null;
+        if (symbol instanceof Reference) {
+            reference = (Reference) symbol;
+        } else if (symbol instanceof Field) {
+            AnalyzedRelation relation = ((Field) symbol).relation();
+            if (relation instanceof AbstractTableRelation) {
+                reference = ((AbstractTableRelation) relation).resolveField((Field) symbol);
+            }
+        }
+        if (reference == null) {
+            return null;
+        }
+        return tableStatsService.columnStats(reference.ident().tableIdent(), reference.ident().columnIdent());
+    }
+
+    private double eqSelectivity(Symbol column) {
+        ColumnStats stats = columnStats(column);
+        if (stats == null) {
+            return DEFAULT_EQ_SELECTIVITY;
+        }
+        return (1.0 - stats.nullFraction()) / Math.max(1L, stats.approxDistinct());
+    }
+
+    private double rangeSelectivity(Symbol column, Object value, boolean lowerThan) {
+        ColumnStats stats = columnStats(column);
+        if (stats == null
+            || !(value instanceof Number)
+            || !(stats.min() instanceof Number)
+            || !(stats.max() instanceof Number)) {
+            return DEFAULT_RANGE_SELECTIVITY;
+        }
+        double min = ((Number) stats.min()).doubleValue();
+        double max = ((Number) stats.max()).doubleValue();
+        if (max <= min) {
+            return DEFAULT_RANGE_SELECTIVITY;
+        }
+        double fraction = Math.min(1.0, Math.max(0.0, (((Number) value).doubleValue() - min) / (max - min)));
+        return (1.0 - stats.nullFraction()) * (lowerThan ? fraction : 1.0 - fraction);
+    }
+
+    private class SelectivityVisitor extends SymbolVisitor<Void, Double> {
+
+        @Override
+        public Double visitLiteral(Literal symbol, Void context) {
+            return Boolean.TRUE.equals(symbol.value()) ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double visitFunction(Function function, Void context) {
+            List<Symbol> args = function.arguments();
+            switch (function.info().ident().name()) {
+                case AndOperator.NAME:
+                    return selectivity(args.get(0)) * selectivity(args.get(1));
+
+                case OrOperator.NAME:
+                    double left = selectivity(args.get(0));
+                    double right = selectivity(args.get(1));
+                    return left + right - left * right;
+
+                case NotPredicate.NAME:
+                    return 1.0 - selectivity(args.get(0));
+
+                case IsNullPredicate.NAME:
+                    ColumnStats stats = columnStats(args.get(0));
+                    return stats == null ? DEFAULT_EQ_SELECTIVITY : stats.nullFraction();
+
+                case EqOperator.NAME:
+                    if (args.get(1) instanceof Literal) {
+                        return eqSelectivity(args.get(0));
+                    }
+                    if (args.get(0) instanceof Literal) {
+                        return eqSelectivity(args.get(1));
+                    }
+                    return DEFAULT_EQ_SELECTIVITY;
+
+                case AnyEqOperator.NAME:
+                    if (args.get(1) instanceof Literal && ((Literal) args.get(1)).value() instanceof Object[]) {
+                        int numValues = ((Object[]) ((Literal) args.get(1)).value()).length;
+                        return numValues * eqSelectivity(args.get(0));
+                    }
+                    return DEFAULT_SELECTIVITY;
+
+                case LtOperator.NAME:
+                case LteOperator.NAME:
+                    return comparisonSelectivity(args, true);
+
+                case GtOperator.NAME:
+                case GteOperator.NAME:
+                    return comparisonSelectivity(args, false);
+
+                default:
+                    return DEFAULT_SELECTIVITY;
+            }
+        }
+
+        private double comparisonSelectivity(List<Symbol> args, boolean lowerThan) {
+            if (args.get(1) instanceof Literal) {
+                return rangeSelectivity(args.get(0), ((Literal) args.get(1)).value(), lowerThan);
+            }
+            if (args.get(0) instanceof Literal) {
+                // 5 < x is x > 5
+                return rangeSelectivity(args.get(1), ((Literal) args.get(0)).value(), !lowerThan);
+            }
+            return DEFAULT_RANGE_SELECTIVITY;
+        }
+
+        @Override
+        protected Double visitSymbol(Symbol symbol, Void context) {
+            return DEFAULT_SELECTIVITY;
+        }
+    }
+}
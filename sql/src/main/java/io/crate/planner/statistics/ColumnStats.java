@@ -0,0 +1,149 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.statistics;
+
+import io.crate.Streamer;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Statistics of a single column of a table, merged over all primary shards of the table.
+ * <p>
+ * All values are estimates. They are gathered periodically by the {@link io.crate.planner.TableStatsService}
+ * and may lag behind the actual contents of the table.
+ * </p>
+ */
+public final class ColumnStats {
+
+    private final TableIdent tableIdent;
+    private final ColumnIdent column;
+    private final DataType type;
+    private final double nullFraction;
+    private final long approxDistinct;
+    private final Object min;
+    private final Object max;
+
+    public ColumnStats(TableIdent tableIdent,
+                       ColumnIdent column,
+                       DataType type,
+                       double nullFraction,
+                       long approxDistinct,
+                       @Nullable Object min,
+                       @Nullable Object max) {
+        this.tableIdent = tableIdent;
+        this.column = column;
+        this.type = type;
+        this.nullFraction = nullFraction;
+        this.approxDistinct = approxDistinct;
+        this.min = min;
+        this.max = max;
+    }
+
+    public static ColumnStats fromStream(StreamInput in) throws IOException {
+        TableIdent tableIdent = TableIdent.fromStream(in);
+        ColumnIdent column = ColumnIdent.fromStream(in);
+        DataType type = DataTypes.fromStream(in);
+        double nullFraction = in.readDouble();
+        long approxDistinct = in.readVLong();
+        Streamer<?> streamer = type.streamer();
+        Object min = in.readBoolean() ? streamer.readValueFrom(in) : null;
+        Object max = in.readBoolean() ? streamer.readValueFrom(in) : null;
+        return new ColumnStats(tableIdent, column, type, nullFraction, approxDistinct, min, max);
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        tableIdent.writeTo(out);
+        column.writeTo(out);
+        DataTypes.toStream(type, out);
+        out.writeDouble(nullFraction);
+        out.writeVLong(approxDistinct);
+        Streamer<?> streamer = type.streamer();
+        out.writeBoolean(min != null);
+        if (min != null) {
+            streamer.writeValueTo(out, min);
+        }
+        out.writeBoolean(max != null);
+        if (max != null) {
+            streamer.writeValueTo(out, max);
+        }
+    }
+
+    public TableIdent tableIdent() {
+        return tableIdent;
+    }
+
+    public ColumnIdent column() {
+        return column;
+    }
+
+    public DataType type() {
+        return type;
+    }
+
+    /**
+     * fraction of rows (0.0 - 1.0) which don't contain a value for this column
+     */
+    public double nullFraction() {
+        return nullFraction;
+    }
+
+    /**
+     * estimated number of distinct non-null values
+     */
+    public long approxDistinct() {
+        return approxDistinct;
+    }
+
+    /**
+     * the smallest value of the column or null if unknown (e.g. the column is empty or has no ordering)
+     */
+    @Nullable
+    public Object min() {
+        return min;
+    }
+
+    /**
+     * the largest value of the column or null if unknown (e.g. the column is empty or has no ordering)
+     */
+    @Nullable
+    public Object max() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats{" + tableIdent.fqn() + "." + column.sqlFqn() +
+               ", nullFraction=" + nullFraction +
+               ", approxDistinct=" + approxDistinct +
+               ", min=" + min +
+               ", max=" + max +
+               '}';
+    }
+}
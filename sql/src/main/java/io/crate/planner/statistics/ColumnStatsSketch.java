@@ -0,0 +1,255 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.statistics;
+
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.Streamer;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.types.*;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Mergeable statistics of a single column.
+ * <p>
+ * A sketch is built per shard by reading the terms dictionary of the column - no documents are loaded.
+ * Sketches of different shards (and nodes) are merged using {@link #merge(ColumnStatsSketch)} and
+ * finally converted into {@link ColumnStats} using {@link #toColumnStats(TableIdent, ColumnIdent)}.
+ * </p>
+ * The number of distinct values is tracked using a HyperLogLog++ sketch, which makes the merged result
+ * independent of how values are distributed across shards.
+ */
+public class ColumnStatsSketch implements Streamable, Releasable {
+
+    /**
+     * 2^10 registers, ~3% relative error. Good enough for planning and small enough to be sent around.
+     */
+    private static final int PRECISION = 10;
+
+    private DataType type;
+    private long numDocs;
+    private long numDocsWithValue;
+    private HyperLogLogPlusPlus distinctValues;
+    private Object min;
+    private Object max;
+
+    private final MurmurHash3.Hash128 hash128 = new MurmurHash3.Hash128();
+
+    public ColumnStatsSketch() {
+    }
+
+    public ColumnStatsSketch(DataType type) {
+        assert isSupported(type) : "type " + type + " is not supported";
+        this.type = type;
+        this.distinctValues = new HyperLogLogPlusPlus(PRECISION, BigArrays.NON_RECYCLING_INSTANCE, 1);
+    }
+
+    /**
+     * @return true if statistics can be gathered for columns of the given type
+     */
+    public static boolean isSupported(DataType type) {
+        switch (type.id()) {
+            case StringType.ID:
+            case BooleanType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+            case IpType.ID:
+            case DoubleType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+            case FloatType.ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Add the values of the field from the given reader to this sketch.
+     */
+    public void collect(IndexReader reader, String fieldName) throws IOException {
+        numDocs += reader.maxDoc();
+        Terms terms = MultiFields.getTerms(reader, fieldName);
+        if (terms == null) {
+            return;
+        }
+        int docCount = terms.getDocCount();
+        numDocsWithValue += docCount == -1 ? reader.maxDoc() : docCount;
+
+        switch (type.id()) {
+            case StringType.ID:
+                collectBytes(terms);
+                updateMinMax(BytesRef.deepCopyOf(terms.getMin()), BytesRef.deepCopyOf(terms.getMax()));
+                break;
+            case BooleanType.ID:
+                collectBytes(terms);
+                break;
+            case IpType.ID:
+                collectLongs(terms);
+                break;
+            case LongType.ID:
+            case TimestampType.ID:
+                collectLongs(terms);
+                updateMinMax(NumericUtils.getMinLong(terms), NumericUtils.getMaxLong(terms));
+                break;
+            case DoubleType.ID:
+                collectLongs(terms);
+                updateMinMax(
+                    NumericUtils.sortableLongToDouble(NumericUtils.getMinLong(terms)),
+                    NumericUtils.sortableLongToDouble(NumericUtils.getMaxLong(terms)));
+                break;
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+                collectInts(terms);
+                updateMinMax(NumericUtils.getMinInt(terms), NumericUtils.getMaxInt(terms));
+                break;
+            case FloatType.ID:
+                collectInts(terms);
+                updateMinMax(
+                    NumericUtils.sortableIntToFloat(NumericUtils.getMinInt(terms)),
+                    NumericUtils.sortableIntToFloat(NumericUtils.getMaxInt(terms)));
+                break;
+            default:
+                throw new IllegalStateException("Cannot collect column statistics for type " + type);
+        }
+    }
+
+    private void collectBytes(Terms terms) throws IOException {
+        TermsEnum termsEnum = terms.iterator();
+        BytesRef term;
+        while ((term = termsEnum.next()) != null) {
+            MurmurHash3.hash128(term.bytes, term.offset, term.length, 0, hash128);
+            distinctValues.collect(0, hash128.h1);
+        }
+    }
+
+    /**
+     * numeric fields are indexed with multiple precisions, only the full precision terms are distinct values
+     */
+    private void collectLongs(Terms terms) throws IOException {
+        TermsEnum termsEnum = NumericUtils.filterPrefixCodedLongs(terms.iterator());
+        BytesRef term;
+        while ((term = termsEnum.next()) != null) {
+            distinctValues.collect(0, BitMixer.mix64(NumericUtils.prefixCodedToLong(term)));
+        }
+    }
+
+    private void collectInts(Terms terms) throws IOException {
+        TermsEnum termsEnum = NumericUtils.filterPrefixCodedInts(terms.iterator());
+        BytesRef term;
+        while ((term = termsEnum.next()) != null) {
+            distinctValues.collect(0, BitMixer.mix64(NumericUtils.prefixCodedToInt(term)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateMinMax(@Nullable Object newMin, @Nullable Object newMax) {
+        if (newMin != null) {
+            newMin = type.value(newMin);
+            if (min == null || type.compareValueTo(newMin, min) < 0) {
+                min = newMin;
+            }
+        }
+        if (newMax != null) {
+            newMax = type.value(newMax);
+            if (max == null || type.compareValueTo(newMax, max) > 0) {
+                max = newMax;
+            }
+        }
+    }
+
+    public void merge(ColumnStatsSketch other) {
+        assert type.equals(other.type) : "cannot merge sketches of different types";
+        numDocs += other.numDocs;
+        numDocsWithValue += other.numDocsWithValue;
+        distinctValues.merge(0, other.distinctValues, 0);
+        updateMinMax(other.min, other.max);
+    }
+
+    public ColumnStats toColumnStats(TableIdent tableIdent, ColumnIdent column) {
+        double nullFraction = numDocs == 0 ? 0.0 : 1.0 - ((double) numDocsWithValue / numDocs);
+        return new ColumnStats(
+            tableIdent,
+            column,
+            type,
+            Math.max(0.0, nullFraction),
+            distinctValues.cardinality(0),
+            min,
+            max
+        );
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        type = DataTypes.fromStream(in);
+        numDocs = in.readVLong();
+        numDocsWithValue = in.readVLong();
+        distinctValues = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+        Streamer<?> streamer = type.streamer();
+        if (in.readBoolean()) {
+            min = streamer.readValueFrom(in);
+        }
+        if (in.readBoolean()) {
+            max = streamer.readValueFrom(in);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        DataTypes.toStream(type, out);
+        out.writeVLong(numDocs);
+        out.writeVLong(numDocsWithValue);
+        distinctValues.writeTo(0, out);
+        Streamer<?> streamer = type.streamer();
+        out.writeBoolean(min != null);
+        if (min != null) {
+            streamer.writeValueTo(out, min);
+        }
+        out.writeBoolean(max != null);
+        if (max != null) {
+            streamer.writeValueTo(out, max);
+        }
+    }
+
+    @Override
+    public void close() {
+        distinctValues.close();
+    }
+}
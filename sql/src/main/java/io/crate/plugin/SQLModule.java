@@ -23,6 +23,7 @@ package io.crate.plugin;
 
 import io.crate.action.sql.DDLStatementDispatcher;
 import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.StatementCache;
 import io.crate.metadata.FulltextAnalyzerResolver;
 import io.crate.protocols.postgres.PostgresNetty;
 import org.elasticsearch.common.inject.AbstractModule;
@@ -35,6 +36,7 @@ public class SQLModule extends AbstractModule {
         bind(DDLStatementDispatcher.class).asEagerSingleton();
         bind(FulltextAnalyzerResolver.class).asEagerSingleton();
         bind(PostgresNetty.class).asEagerSingleton();
+        bind(StatementCache.class).asEagerSingleton();
         bind(SQLOperations.class).asEagerSingleton();
     }
 }
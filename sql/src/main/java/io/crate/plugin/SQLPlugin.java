@@ -28,7 +28,9 @@ import io.crate.breaker.CircuitBreakerModule;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.cluster.gracefulstop.DecommissionAllocationDecider;
 import io.crate.cluster.gracefulstop.DecommissioningService;
+import io.crate.executor.transport.ColumnarBucketCodec;
 import io.crate.executor.transport.TransportExecutorModule;
+import io.crate.executor.transport.distributed.TransportDistributedResultAction;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobModule;
 import io.crate.jobs.transport.NodeDisconnectJobMonitorService;
@@ -94,6 +96,12 @@ public class SQLPlugin extends Plugin {
         // partitions explicitly
         settingsBuilder.put("action.auto_create_index", false);
 
+        // announce that this node is able to read columnar encoded buckets
+        settingsBuilder.put("node." + ColumnarBucketCodec.NODE_ATTRIBUTE, true);
+
+        // announce that this node accepts pages of upstreams which have more than one page in-flight
+        settingsBuilder.put("node." + TransportDistributedResultAction.PIPELINING_NODE_ATTRIBUTE, true);
+
         return settingsBuilder.build();
     }
 
@@ -169,6 +177,8 @@ public class SQLPlugin extends Plugin {
 
         clusterModule.registerClusterDynamicSetting(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_LIMIT_SETTING, Validator.MEMORY_SIZE);
         clusterModule.registerClusterDynamicSetting(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_OVERHEAD_SETTING, Validator.NON_NEGATIVE_DOUBLE);
+        clusterModule.registerClusterDynamicSetting(CrateCircuitBreakerService.QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING, Validator.MEMORY_SIZE);
+        clusterModule.registerClusterDynamicSetting(CrateCircuitBreakerService.QUERY_RESULT_CACHE_CIRCUIT_BREAKER_OVERHEAD_SETTING, Validator.NON_NEGATIVE_DOUBLE);
 
         clusterModule.registerClusterDynamicSetting("crate.internal.decommission.*", Validator.EMPTY);
 
@@ -22,11 +22,16 @@
 
 package io.crate.protocols.postgres;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.core.collections.Row;
 import io.crate.exceptions.Exceptions;
 import io.crate.types.DataType;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,6 +39,12 @@ import java.util.List;
 
 class ResultSetReceiver extends BaseResultReceiver {
 
+    /**
+     * DataRow messages are collected into a buffer which is written to the channel once it exceeds this size
+     * (or if the batch / result is complete) instead of doing a write per row.
+     */
+    static final int FLUSH_THRESHOLD = 32 * 1024;
+
     private final String query;
     private final Channel channel;
     private final List<? extends DataType> columnTypes;
@@ -43,6 +54,12 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     private long rowCount = 0;
 
+    @Nullable
+    private ChannelBuffer buffer = null;
+
+    @Nullable
+    private ChannelFuture lastWriteFuture = null;
+
     ResultSetReceiver(String query,
                       Channel channel,
                       List<? extends DataType> columnTypes,
@@ -56,23 +73,54 @@ class ResultSetReceiver extends BaseResultReceiver {
     @Override
     public void setNextRow(Row row) {
         rowCount++;
-        Messages.sendDataRow(channel, row, columnTypes, formatCodes);
+        if (buffer == null) {
+            buffer = ChannelBuffers.dynamicBuffer(FLUSH_THRESHOLD);
+        }
+        Messages.writeDataRow(buffer, row, columnTypes, formatCodes);
+        if (buffer.readableBytes() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    /**
+     * If the channel isn't writable the outbound queue is full; rows are only accepted again once all
+     * pending writes have completed.
+     */
+    @Nullable
+    @Override
+    public ListenableFuture<?> readyFuture() {
+        if (channel.isWritable() || lastWriteFuture == null || lastWriteFuture.isDone()) {
+            return null;
+        }
+        final SettableFuture<Void> ready = SettableFuture.create();
+        lastWriteFuture.addListener(future -> ready.set(null));
+        return ready;
+    }
+
+    private void flush() {
+        if (buffer != null && buffer.readable()) {
+            lastWriteFuture = channel.write(buffer);
+        }
+        buffer = null;
     }
 
     @Override
     public void batchFinished() {
+        flush();
         Messages.sendPortalSuspended(channel);
         Messages.sendReadyForQuery(channel);
     }
 
     @Override
     public void allFinished() {
+        flush();
         Messages.sendCommandComplete(channel, query, rowCount);
         super.allFinished();
     }
 
     @Override
     public void fail(@Nonnull Throwable throwable) {
+        flush();
         Messages.sendErrorResponse(channel, Exceptions.createSQLActionException(throwable));
         super.fail(throwable);
     }
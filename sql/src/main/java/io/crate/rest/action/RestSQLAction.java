@@ -34,10 +34,12 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.http.netty.NettyHttpRequest;
 import org.elasticsearch.rest.*;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.*;
@@ -119,9 +121,7 @@ public class RestSQLAction extends BaseRestHandler {
                     = new RestRowCountReceiver(channel, startTime, request.paramAsBoolean("types", false));
                 session.execute(UNNAMED, 1, resultReceiver);
             } else {
-                ResultReceiver resultReceiver =
-                    new RestResultSetReceiver(channel, outputFields, startTime, request.paramAsBoolean("types", false));
-                session.execute(UNNAMED, 0, resultReceiver);
+                session.execute(UNNAMED, 0, createResultSetReceiver(request, channel, outputFields, startTime));
             }
             session.sync();
         } catch (Throwable t) {
@@ -129,6 +129,24 @@ public class RestSQLAction extends BaseRestHandler {
         }
     }
 
+    private static ResultReceiver createResultSetReceiver(RestRequest request,
+                                                          RestChannel channel,
+                                                          List<Field> outputFields,
+                                                          long startTime) throws IOException {
+        boolean includeTypes = request.paramAsBoolean("types", false);
+        if (request.paramAsBoolean("stream", false) && request instanceof NettyHttpRequest) {
+            NettyHttpRequest nettyRequest = (NettyHttpRequest) request;
+            return new RestStreamingResultSetReceiver(
+                channel,
+                nettyRequest.getChannel(),
+                nettyRequest.request().getProtocolVersion(),
+                outputFields,
+                startTime,
+                includeTypes);
+        }
+        return new RestResultSetReceiver(channel, outputFields, startTime, includeTypes);
+    }
+
     private void executeBulkRequest(SQLXContentSourceContext context, final RestRequest request, final RestChannel channel) {
         SQLOperations.Session session = sqlOperations.createSession(
             request.header(REQUEST_HEADER_SCHEMA),
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.rest.action;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.analyze.symbol.Field;
+import io.crate.core.collections.Row;
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestStatus;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.handler.codec.http.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static io.crate.exceptions.Exceptions.createSQLActionException;
+
+/**
+ * ResultReceiver which writes the result as HTTP chunks while the rows are received, instead of building
+ * the whole response in memory.
+ * <p>
+ * Results which fit into a single chunk are sent as regular response.
+ * Once the first chunk has been written the status code can't be changed anymore; if an error occurs after that
+ * the connection is closed without sending the last chunk.
+ * <p>
+ * The connection is always closed after a chunked response has been sent because the chunks are written
+ * directly to the netty channel, bypassing any HTTP pipelining.
+ * <p>
+ * Once the receiver failed, further rows and the finish are ignored so that only one response is sent.
+ */
+class RestStreamingResultSetReceiver extends BaseResultReceiver {
+
+    private static final ESLogger LOGGER = Loggers.getLogger(RestStreamingResultSetReceiver.class);
+
+    static final int FLUSH_THRESHOLD = 32 * 1024;
+
+    private final RestChannel restChannel;
+    private final Channel channel;
+    private final HttpVersion httpVersion;
+    private final List<Field> outputFields;
+    private final long startTime;
+    private final ChunkOutputStream out = new ChunkOutputStream();
+    private final ResultToXContentBuilder builder;
+
+    private long rowCount;
+    private boolean chunkedResponseStarted = false;
+    private boolean failed = false;
+
+    @Nullable
+    private ChannelFuture lastWriteFuture = null;
+
+    RestStreamingResultSetReceiver(RestChannel restChannel,
+                                   Channel channel,
+                                   HttpVersion httpVersion,
+                                   List<Field> outputFields,
+                                   long startTime,
+                                   boolean includeTypesOnResponse) throws IOException {
+        this.restChannel = restChannel;
+        this.channel = channel;
+        this.httpVersion = httpVersion;
+        this.outputFields = outputFields;
+        this.startTime = startTime;
+        builder = ResultToXContentBuilder.builder(XContentFactory.jsonBuilder(out));
+        builder.cols(outputFields);
+        if (includeTypesOnResponse) {
+            builder.colTypes(outputFields);
+        }
+        builder.startRows();
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        if (failed) {
+            return;
+        }
+        try {
+            builder.addRow(row, outputFields.size());
+            rowCount++;
+            // the builder flushes into the output stream whenever its own buffer is full
+            if (out.size() >= FLUSH_THRESHOLD) {
+                builder.flush();
+                writeChunk();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * If the channel isn't writable the outbound queue is full; rows are only accepted again once all
+     * pending chunks have been written.
+     */
+    @Nullable
+    @Override
+    public ListenableFuture<?> readyFuture() {
+        if (channel.isWritable() || lastWriteFuture == null || lastWriteFuture.isDone()) {
+            return null;
+        }
+        final SettableFuture<Void> ready = SettableFuture.create();
+        lastWriteFuture.addListener(future -> ready.set(null));
+        return ready;
+    }
+
+    private void writeChunk() {
+        if (!chunkedResponseStarted) {
+            chunkedResponseStarted = true;
+            HttpResponse response = new DefaultHttpResponse(httpVersion, HttpResponseStatus.OK);
+            response.headers().set(HttpHeaders.Names.CONTENT_TYPE, XContentType.JSON.restContentType());
+            response.headers().set(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+            response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
+            response.setChunked(true);
+            channel.write(response);
+        }
+        if (out.size() > 0) {
+            lastWriteFuture = channel.write(new DefaultHttpChunk(out.take()));
+        }
+    }
+
+    @Override
+    public void allFinished() {
+        if (failed) {
+            return;
+        }
+        try {
+            builder.finishRows()
+                .rowCount(rowCount)
+                .duration(startTime)
+                .build()
+                .flush();
+            if (chunkedResponseStarted) {
+                writeChunk();
+                channel.write(HttpChunk.LAST_CHUNK).addListener(ChannelFutureListener.CLOSE);
+            } else {
+                restChannel.sendResponse(new BytesRestResponse(
+                    RestStatus.OK, XContentType.JSON.restContentType(), new ChannelBufferBytesReference(out.take())));
+            }
+            super.allFinished();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        if (failed) {
+            return;
+        }
+        failed = true;
+        try {
+            if (chunkedResponseStarted) {
+                LOGGER.warn("failure after streaming the response started, closing the connection", t);
+                channel.close();
+            } else {
+                restChannel.sendResponse(new CrateThrowableRestResponse(restChannel, createSQLActionException(t)));
+            }
+        } catch (Throwable e) {
+            LOGGER.error("failed to send failure response", e);
+        } finally {
+            super.fail(t);
+        }
+    }
+
+    /**
+     * OutputStream which hands out its buffer in {@link #take()} and continues with a new one so that the
+     * taken buffer can be passed to netty without copying.
+     */
+    private static class ChunkOutputStream extends OutputStream {
+
+        private ChannelBuffer buffer = newBuffer();
+
+        private static ChannelBuffer newBuffer() {
+            return ChannelBuffers.dynamicBuffer(FLUSH_THRESHOLD + 8 * 1024);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.writeBytes(b, off, len);
+        }
+
+        int size() {
+            return buffer.readableBytes();
+        }
+
+        ChannelBuffer take() {
+            ChannelBuffer taken = buffer;
+            buffer = newBuffer();
+            return taken;
+        }
+    }
+}
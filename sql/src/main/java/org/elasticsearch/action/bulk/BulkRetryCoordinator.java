@@ -33,129 +33,216 @@ import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.Locale;
-import java.util.Queue;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
- * coordinates bulk operation retries for one node
+ * Limits the number of concurrent bulk requests sent to one node and retries rejected requests.
+ * <p>
+ * The limit is adapted using AIMD (additive increase, multiplicative decrease):
+ * Each successful response increases the limit by <code>1 / limit</code>, so it grows by about one per
+ * round-trip of all concurrent requests. A rejected execution ({@link EsRejectedExecutionException})
+ * or a response which took a lot longer than the average response halves the limit. Like TCP does,
+ * the limit is decreased at most once for all requests which have been sent before the last decrease.
+ * <p>
+ * Requests above the limit are queued and sent once other requests to the node have finished.
+ * Rejected requests are retried with an exponential backoff.
+ * As every node has its own coordinator, requests to other nodes aren't affected by an overloaded node.
  */
 public class BulkRetryCoordinator {
 
     private static final ESLogger LOGGER = Loggers.getLogger(BulkRetryCoordinator.class);
 
-    private final ReadWriteLock retryLock;
+    static final int INITIAL_LIMIT = 32;
+    static final int MIN_LIMIT = 1;
+    static final int MAX_LIMIT = 256;
+
+    /**
+     * Producers are blocked in {@link #awaitCapacity()} if more than max(limit, MIN_QUEUE_CAPACITY)
+     * requests are queued.
+     */
+    static final int MIN_QUEUE_CAPACITY = 4;
+
+    /**
+     * A response which took longer than this multiple of the average response time decreases the limit
+     */
+    private static final int LATENCY_TOLERANCE = 4;
+    private static final double LATENCY_SMOOTHING = 0.1;
+
     private static final BackoffPolicy backoff = LimitedExponentialBackoff.limitedExponential(1000);
 
     private final ThreadPool threadPool;
 
-    private final Object pendingLock = new Object();
-    private final Queue<PendingOperation<ShardRequest, ShardResponse>> pendingOperations = new ArrayDeque<>();
-    private volatile int activeOperations = 0;
+    private final Deque<PendingOperation> pendingOperations = new ArrayDeque<>();
+    private double limit = INITIAL_LIMIT;
+    private int activeOperations = 0;
+    private long numDecreases = 0;
+    private double avgLatencyNanos = -1;
+    private long retries = 0;
+    private long rejections = 0;
 
     public BulkRetryCoordinator(ThreadPool threadPool) {
         this.threadPool = threadPool;
-        this.retryLock = new ReadWriteLock();
     }
 
     private void trace(String message, Object... args) {
         if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace("BulkRetryCoordinator{activeOperations='" + activeOperations + "', " +
+            LOGGER.trace("BulkRetryCoordinator{limit='" + limit + "', activeOperations='" + activeOperations + "', " +
                          "pendingOperations='" + pendingOperations.size() + "'} {}",
                 String.format(Locale.ENGLISH, message, args));
         }
     }
 
-    public void acquireReadLock() throws InterruptedException {
-        /**
-         * In order to keep the {@link retryLock} field private we expose only this proxy method.
-         * This method is only used by the BulkShardProcessor.
-         */
-        retryLock.acquireReadLock();
-    }
-
-    public void releaseWriteLock() {
-        /**
-         * In order to keep the {@link retryLock} field private we expose only this proxy method.
-         * This method is only used by the BulkShardProcessor.
-         */
-        retryLock.releaseWriteLock();
+    /**
+     * Blocks until the number of queued requests of the node is below its capacity.
+     * Returns immediately if requests to the node can be sent.
+     */
+    public synchronized void awaitCapacity() throws InterruptedException {
+        while (pendingOperations.size() >= Math.max((int) limit, MIN_QUEUE_CAPACITY)) {
+            wait();
+        }
     }
 
-    public int numPendingOperations() {
+    public synchronized int numPendingOperations() {
         return pendingOperations.size();
     }
 
-    public void retry(ShardRequest request, BulkRequestExecutor executor, ActionListener<ShardResponse> responseListener) {
-        retryOperation(new PendingOperation(request, responseListener, executor));
+    /**
+     * Sends the request once the number of active requests to the node is below the limit.
+     * Requests which are rejected by the node are retried until the backoff is exhausted.
+     */
+    @SuppressWarnings("unchecked")
+    public <Request extends ShardRequest> void execute(Request request,
+                                                       BulkRequestExecutor<Request> executor,
+                                                       ActionListener<ShardResponse> responseListener) {
+        PendingOperation operation = new PendingOperation(
+            request, responseListener, (BulkRequestExecutor<ShardRequest>) executor);
+        synchronized (this) {
+            pendingOperations.add(operation);
+        }
+        sendPending();
     }
 
-    private void retryOperation(final PendingOperation<ShardRequest, ShardResponse> operation) {
-        trace("retryOperation - activeOperations=%d", activeOperations);
-        synchronized (pendingLock) {
-            if (activeOperations > 0) {
-                pendingOperations.add(operation);
-                return;
+    private void sendPending() {
+        while (true) {
+            PendingOperation operation;
+            synchronized (this) {
+                if (activeOperations >= (int) limit || pendingOperations.isEmpty()) {
+                    return;
+                }
+                operation = pendingOperations.poll();
+                activeOperations++;
+                operation.numDecreasesOnSend = numDecreases;
+                notifyAll();
             }
-            activeOperations++;
+            trace("send - operation=%s", operation);
+            operation.startNanos = System.nanoTime();
+            operation.executor.execute(operation.request, new OperationListener(operation));
         }
+    }
 
-        try {
-            retryLock.acquireWriteLock();
-        } catch (InterruptedException e) {
-            operation.responseListener.onFailure(e);
-            return;
+    private synchronized void onSuccess(PendingOperation operation) {
+        activeOperations--;
+        long latencyNanos = System.nanoTime() - operation.startNanos;
+        if (avgLatencyNanos < 0) {
+            avgLatencyNanos = latencyNanos;
+        } else if (latencyNanos > LATENCY_TOLERANCE * avgLatencyNanos) {
+            decreaseLimit(operation);
+        } else {
+            limit = Math.min(MAX_LIMIT, limit + 1 / limit);
         }
+        avgLatencyNanos += LATENCY_SMOOTHING * (latencyNanos - avgLatencyNanos);
+    }
 
-        final ActionListener<ShardResponse> triggeringListener = new PendingTriggeringActionListener(operation);
-        operation.executor.execute(operation.request, triggeringListener);
+    private synchronized void onRejection(PendingOperation operation) {
+        activeOperations--;
+        rejections++;
+        decreaseLimit(operation);
     }
 
-    private void triggerNext() {
-        releaseWriteLock();
-        PendingOperation<ShardRequest, ShardResponse> pendingOperation = null;
-        synchronized (pendingLock) {
-            activeOperations--;
-            if (activeOperations == 0) {
-                pendingOperation = pendingOperations.poll();
-            }
+    private synchronized void onFailure() {
+        activeOperations--;
+    }
+
+    private void decreaseLimit(PendingOperation operation) {
+        if (operation.numDecreasesOnSend == numDecreases) {
+            numDecreases++;
+            limit = Math.max(MIN_LIMIT, limit / 2);
+            trace("decreased limit");
+        }
+    }
+
+    private void retryLater(final PendingOperation operation, TimeValue delay) {
+        synchronized (this) {
+            retries++;
         }
-        trace("triggerNext - pendingOperation=%s pendingOperations=%d", pendingOperation, pendingOperations.size());
+        trace("retry in %s - operation=%s", delay, operation);
+        threadPool.schedule(delay, ThreadPool.Names.SAME, new Runnable() {
+            @Override
+            public void run() {
+                synchronized (BulkRetryCoordinator.this) {
+                    // retries are sent before requests which haven't been sent yet
+                    pendingOperations.addFirst(operation);
+                }
+                sendPending();
+            }
+        });
+    }
+
+    public synchronized Stats stats() {
+        return new Stats((int) limit, activeOperations, pendingOperations.size(), retries, rejections);
+    }
+
+    public static class Stats {
+
+        public final int limit;
+        public final int activeOperations;
+        public final int pendingOperations;
+        public final long retries;
+        public final long rejections;
 
-        if (pendingOperation == null) {
-            return;
+        Stats(int limit, int activeOperations, int pendingOperations, long retries, long rejections) {
+            this.limit = limit;
+            this.activeOperations = activeOperations;
+            this.pendingOperations = pendingOperations;
+            this.retries = retries;
+            this.rejections = rejections;
         }
-        retryOperation(pendingOperation);
     }
 
-    static class PendingOperation<Request, Response> {
+    private static class PendingOperation {
 
-        private final Request request;
-        private final ActionListener<Response> responseListener;
-        private final BulkRequestExecutor executor;
+        private final ShardRequest request;
+        private final ActionListener<ShardResponse> responseListener;
+        private final BulkRequestExecutor<ShardRequest> executor;
         private final Iterator<TimeValue> delay = backoff.iterator();
 
+        private long numDecreasesOnSend;
+        private long startNanos;
 
-        public PendingOperation(Request request, ActionListener<Response> responseListener, BulkRequestExecutor executor) {
+        PendingOperation(ShardRequest request,
+                         ActionListener<ShardResponse> responseListener,
+                         BulkRequestExecutor<ShardRequest> executor) {
             this.request = request;
             this.responseListener = responseListener;
             this.executor = executor;
         }
     }
 
-    private class PendingTriggeringActionListener implements ActionListener<ShardResponse> {
-        private final PendingOperation<ShardRequest, ShardResponse> operation;
+    private class OperationListener implements ActionListener<ShardResponse> {
 
-        public PendingTriggeringActionListener(PendingOperation<ShardRequest, ShardResponse> operation) {
+        private final PendingOperation operation;
+
+        OperationListener(PendingOperation operation) {
             this.operation = operation;
         }
 
         @Override
         public void onResponse(ShardResponse response) {
-            triggerNext();
+            BulkRetryCoordinator.this.onSuccess(operation);
+            sendPending();
             operation.responseListener.onResponse(response);
         }
 
@@ -163,58 +250,14 @@ public class BulkRetryCoordinator {
         public void onFailure(Throwable e) {
             e = Exceptions.unwrap(e);
             if (e instanceof EsRejectedExecutionException && operation.delay.hasNext()) {
-                threadPool.schedule(operation.delay.next(), ThreadPool.Names.SAME, new Runnable() {
-                    @Override
-                    public void run() {
-                        operation.executor.execute(operation.request, PendingTriggeringActionListener.this);
-                    }
-                });
+                onRejection(operation);
+                retryLater(operation, operation.delay.next());
+                sendPending();
             } else {
-                triggerNext();
+                BulkRetryCoordinator.this.onFailure();
+                sendPending();
                 operation.responseListener.onFailure(e);
             }
         }
     }
-
-    /**
-     * A {@link Semaphore} based read/write lock allowing multiple readers,
-     * no reader will block others, and only 1 active writer. Writers take
-     * precedence over readers, a writer will block all readers.
-     * Compared to a {@link ReadWriteLock}, no lock is owned by a thread.
-     */
-    static private class ReadWriteLock {
-        private final Semaphore readLock = new Semaphore(1, true);
-        private final Semaphore writeLock = new Semaphore(1, true);
-        private final AtomicInteger activeWriters = new AtomicInteger(0);
-        private final AtomicInteger waitingReaders = new AtomicInteger(0);
-
-        public ReadWriteLock() {
-        }
-
-        public void acquireWriteLock() throws InterruptedException {
-            // check readLock permits to prevent deadlocks
-            if (activeWriters.getAndIncrement() == 0 && readLock.availablePermits() == 1) {
-                // draining read permits, so all reads will block
-                readLock.drainPermits();
-            }
-            writeLock.acquire();
-        }
-
-        public void releaseWriteLock() {
-            if (activeWriters.decrementAndGet() == 0) {
-                // unlock all readers
-                readLock.release(waitingReaders.getAndSet(0) + 1);
-            }
-            writeLock.release();
-        }
-
-        public void acquireReadLock() throws InterruptedException {
-            // only acquire permit if writers are active
-            if (activeWriters.get() > 0) {
-                waitingReaders.getAndIncrement();
-                readLock.acquire();
-            }
-        }
-
-    }
 }
@@ -39,7 +39,10 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Singleton
@@ -97,6 +100,34 @@ public class BulkRetryCoordinatorPool extends AbstractLifecycleComponent<BulkRet
         }
     }
 
+    /**
+     * @return the stats of the coordinators of all nodes to which bulk requests have been sent
+     */
+    public Iterable<NodeStats> statsGetter() {
+        List<NodeStats> stats = new ArrayList<>();
+        synchronized (coordinatorsByNodeId) {
+            for (Map.Entry<String, BulkRetryCoordinator> entry : coordinatorsByNodeId.entrySet()) {
+                stats.add(new NodeStats(entry.getKey(), entry.getValue().stats()));
+            }
+        }
+        return stats;
+    }
+
+    public static class NodeStats {
+
+        /**
+         * null for the coordinator of unassigned shards
+         */
+        @Nullable
+        public final String nodeId;
+        public final BulkRetryCoordinator.Stats stats;
+
+        NodeStats(@Nullable String nodeId, BulkRetryCoordinator.Stats stats) {
+            this.nodeId = nodeId;
+            this.stats = stats;
+        }
+    }
+
     @Override
     protected void doStart() throws ElasticsearchException {
         clusterService.addLast(this);
@@ -22,7 +22,6 @@
 package org.elasticsearch.action.bulk;
 
 import com.carrotsearch.hppc.cursors.IntCursor;
-import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
@@ -47,9 +46,9 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
-import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardNotFoundException;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -61,8 +60,9 @@ import java.util.concurrent.atomic.AtomicReference;
  * Processor to do Bulk Inserts, similar to {@link org.elasticsearch.action.bulk.BulkProcessor}
  * but less flexible (only supports IndexRequests)
  * <p>
- * If the Bulk threadPool Queue is full retries are made and
- * the {@link #add} method will start to block.
+ * Requests are sent through the {@link BulkRetryCoordinator} of the node which holds the primary shard.
+ * If the Bulk threadPool Queue of a node is full retries are made and
+ * the {@link #add} method will start to block once too many requests to that node are queued.
  */
 public class BulkShardProcessor<Request extends ShardRequest> {
 
@@ -162,8 +162,8 @@ public class BulkShardProcessor<Request extends ShardRequest> {
             addRequestForNewIndex(indexName, item, routing);
         } else {
             try {
-                // will only block if retries/writer are active
-                bulkRetryCoordinatorPool.coordinator(shardId).acquireReadLock();
+                // will only block if the node of the shard is overloaded
+                bulkRetryCoordinatorPool.coordinator(shardId).awaitCapacity();
             } catch (InterruptedException e) {
                 Thread.interrupted();
             } catch (Throwable e) {
@@ -185,9 +185,9 @@ public class BulkShardProcessor<Request extends ShardRequest> {
             return false;
         }
 
-        // will only block if retries/writer are active
+        // will only block if the node of the shard is overloaded
         try {
-            bulkRetryCoordinatorPool.coordinator(shardId).acquireReadLock();
+            bulkRetryCoordinatorPool.coordinator(shardId).awaitCapacity();
         } catch (InterruptedException e) {
             Thread.interrupted();
         } catch (Throwable e) {
@@ -256,8 +256,15 @@ public class BulkShardProcessor<Request extends ShardRequest> {
                 }
                 Map.Entry<ShardId, Request> entry = it.next();
                 final Request request = entry.getValue();
-                final ShardId shardId = entry.getKey();
-                requestExecutor.execute(request, new ActionListener<ShardResponse>() {
+                it.remove();
+                BulkRetryCoordinator coordinator;
+                try {
+                    coordinator = bulkRetryCoordinatorPool.coordinator(entry.getKey());
+                } catch (IndexNotFoundException | ShardNotFoundException e) {
+                    processFailure(e, request);
+                    continue;
+                }
+                coordinator.execute(request, requestExecutor, new ActionListener<ShardResponse>() {
                     @Override
                     public void onResponse(ShardResponse response) {
                         processResponse(response);
@@ -265,10 +272,9 @@ public class BulkShardProcessor<Request extends ShardRequest> {
 
                     @Override
                     public void onFailure(Throwable e) {
-                        processFailure(e, shardId, request, Optional.absent());
+                        processFailure(e, request);
                     }
                 });
-                it.remove();
             }
         } catch (InterruptedException e) {
             Thread.interrupted();
@@ -431,10 +437,7 @@ public class BulkShardProcessor<Request extends ShardRequest> {
         trace("response executed.");
     }
 
-    private void processFailure(Throwable e,
-                                final ShardId shardId,
-                                final Request request,
-                                Optional<BulkRetryCoordinator> retryCoordinator) {
+    private void processFailure(Throwable e, Request request) {
         trace("execute failure");
         e = Exceptions.unwrap(e);
 
@@ -449,50 +452,16 @@ public class BulkShardProcessor<Request extends ShardRequest> {
                 }
             }
             setResultIfDone(size);
-
-            if (retryCoordinator.isPresent()) {
-                // release failed retry
-                retryCoordinator.get().releaseWriteLock();
-            }
             return;
         }
 
-        final BulkRetryCoordinator coordinator;
-        if (retryCoordinator.isPresent()) {
-            coordinator = retryCoordinator.get();
-        } else {
-            try {
-                coordinator = bulkRetryCoordinatorPool.coordinator(shardId);
-            } catch (Throwable coordinatorException) {
-                setFailure(coordinatorException);
-                return;
-            }
-        }
-        if (e instanceof EsRejectedExecutionException) {
-            trace("rejected execution: [%s] - retrying", e.getMessage());
-            coordinator.retry(request, requestExecutor, new ActionListener<ShardResponse>() {
-                @Override
-                public void onResponse(ShardResponse response) {
-                    processResponse(response);
-                }
-
-                @Override
-                public void onFailure(Throwable e) {
-                    processFailure(e, shardId, request, Optional.of(coordinator));
-                }
-            });
-        } else {
-            if (retryCoordinator.isPresent()) {
-                // release failed retry
-                coordinator.releaseWriteLock();
-            }
-            for (IntCursor intCursor : request.itemIndices()) {
-                synchronized (responsesLock) {
-                    responses.set(intCursor.value, false);
-                }
+        // rejected executions have already been retried by the BulkRetryCoordinator
+        for (IntCursor intCursor : request.itemIndices()) {
+            synchronized (responsesLock) {
+                responses.set(intCursor.value, false);
             }
-            setFailure(e);
         }
+        setFailure(e);
     }
 
     private void trace(String message, Object... args) {
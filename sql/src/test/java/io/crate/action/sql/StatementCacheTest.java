@@ -0,0 +1,83 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.sql.parser.ParsingException;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class StatementCacheTest extends CrateUnitTest {
+
+    @Test
+    public void testStatementIsParsedOnlyOnce() throws Exception {
+        StatementCache cache = new StatementCache(Settings.EMPTY);
+        Statement first = cache.get("select name from users");
+        Statement second = cache.get("select name from users");
+
+        assertThat(second, sameInstance(first));
+        StatementCache.Stats stats = cache.stats();
+        assertThat(stats.size, is(1L));
+        assertThat(stats.hits, is(1L));
+        assertThat(stats.misses, is(1L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() throws Exception {
+        StatementCache cache = new StatementCache(1);
+        Statement first = cache.get("select 1");
+        cache.get("select 2");
+
+        assertThat(cache.get("select 1"), not(sameInstance(first)));
+        assertThat(cache.stats().size, is(1L));
+        assertThat(cache.stats().evictions, is(2L));
+    }
+
+    @Test
+    public void testInvalidStatementIsNotCached() throws Exception {
+        StatementCache cache = new StatementCache(Settings.EMPTY);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("select from");
+                fail("expected ParsingException");
+            } catch (ParsingException ignored) {
+            }
+        }
+        assertThat(cache.stats().size, is(0L));
+    }
+
+    @Test
+    public void testCacheCanBeDisabled() throws Exception {
+        StatementCache cache = new StatementCache(Settings.builder().put(StatementCache.SIZE_SETTING, 0).build());
+        Statement first = cache.get("select 1");
+
+        assertThat(cache.get("select 1"), not(sameInstance(first)));
+        assertThat(cache.stats().size, is(0L));
+        assertThat(cache.stats().hits, is(0L));
+    }
+}
@@ -95,6 +95,13 @@ public class InsertFromValuesAnalyzerTest extends CrateUnitTest {
             .addGeneratedColumn("name", DataTypes.STRING, "concat(user['name'], 'bar')", false);
         executorBuilder.addDocTable(generatedColumnTable);
 
+        TableIdent generatedTimestampTableIdent = new TableIdent(null, "generated_timestamp_column");
+        TestingTableInfo.Builder generatedTimestampTable = new TestingTableInfo.Builder(
+            generatedTimestampTableIdent, new Routing(ImmutableMap.<String, Map<String, List<Integer>>>of()))
+            .add("id", DataTypes.INTEGER, null)
+            .addGeneratedColumn("created", DataTypes.TIMESTAMP, "current_timestamp", false);
+        executorBuilder.addDocTable(generatedTimestampTable);
+
         TableIdent generatedPkColumnTableIdent = new TableIdent(null, "generated_pk_column");
         TestingTableInfo.Builder generatedPkColumnTable = new TestingTableInfo.Builder(
             generatedPkColumnTableIdent, SHARD_ROUTING)
@@ -1077,6 +1084,77 @@ public class InsertFromValuesAnalyzerTest extends CrateUnitTest {
             is(generateId(Arrays.asList(new ColumnIdent("id"), new ColumnIdent("id2")), Arrays.asList(new BytesRef("2"), new BytesRef("2")), new ColumnIdent("id"))));
     }
 
+    @Test
+    public void testBulkInsertWithGeneratedColumn() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "INSERT INTO generated_column (ts, user) values (?, ?)",
+            new Object[][]{
+                new Object[]{"1970-01-01", new HashMap<>(ImmutableMap.of("name", "Johnny"))},
+                new Object[]{"1989-11-09T08:30:00", new HashMap<>(ImmutableMap.of("name", "Egon"))},
+                new Object[]{null, null},
+            });
+        assertThat(analysis.columns(), contains(isReference("ts"), isReference("user"), isReference("day"), isReference("name")));
+        assertThat(analysis.bulkIndices(), contains(0, 1, 2));
+        assertThat(analysis.sourceMaps(), contains(
+            Matchers.arrayContaining(0L, ImmutableMap.<String, Object>of("name", new BytesRef("Johnny")), 0L, new BytesRef("Johnnybar")),
+            Matchers.arrayContaining(626603400000L, ImmutableMap.<String, Object>of("name", new BytesRef("Egon")), 626572800000L, new BytesRef("Egonbar")),
+            Matchers.arrayContaining(nullValue(), nullValue(), nullValue(), is(new BytesRef("bar")))));
+    }
+
+    @Test
+    public void testBulkInsertGeneratedPrimaryKeyColumn() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "INSERT INTO generated_pk_column (serial_no, product_no) values (?, ?)",
+            new Object[][]{
+                new Object[]{1, 1},
+                new Object[]{2, 3},
+            });
+        assertThat(analysis.routingValues(), contains("AgEyATI=", "AgEzATQ="));
+        assertThat(analysis.ids().get(1),
+            is(generateId(Arrays.asList(new ColumnIdent("id"), new ColumnIdent("id2")), Arrays.asList(new BytesRef("3"), new BytesRef("4")), new ColumnIdent("id"))));
+    }
+
+    @Test
+    public void testBulkInsertWithLiteralAndParameter() throws Exception {
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "insert into users (id, name) values (?, 'Trillian')",
+            new Object[][]{
+                new Object[]{1},
+                new Object[]{2},
+            });
+        assertThat(analysis.ids(), contains("1", "2"));
+        assertThat(analysis.sourceMaps(), contains(
+            Matchers.arrayContaining(1L, new BytesRef("Trillian")),
+            Matchers.arrayContaining(2L, new BytesRef("Trillian"))));
+    }
+
+    @Test
+    public void testBulkInsertWithNonDeterministicGeneratedColumnUsesSameValueForAllRows() throws Exception {
+        Object[][] bulkArgs = new Object[100][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[]{i};
+        }
+        InsertFromValuesAnalyzedStatement analysis = e.analyze(
+            "insert into generated_timestamp_column (id) values (?)", bulkArgs);
+        assertThat(analysis.columns(), contains(isReference("id"), isReference("created")));
+        Object created = analysis.sourceMaps().get(0)[1];
+        assertThat(created, notNullValue());
+        for (Object[] sourceMap : analysis.sourceMaps()) {
+            assertThat(sourceMap[1], is(created));
+        }
+    }
+
+    @Test
+    public void testBulkInsertWithGeneratedColumnWithInvalidValueGiven() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Given value 1449999900000 for generated column does not match defined generated expression value 1447804800000");
+        e.analyze("insert into generated_column (ts, day) values (?, ?)",
+            new Object[][]{
+                new Object[]{"2015-11-18T11:11:00", 1447804800000L},
+                new Object[]{"2015-11-18T11:11:00", 1449999900000L},
+            });
+    }
+
     @Test
     public void testInsertMultipleValuesTooManyValues() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
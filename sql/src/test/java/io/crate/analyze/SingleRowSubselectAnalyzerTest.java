@@ -22,6 +22,8 @@
 
 package io.crate.analyze;
 
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.SelectSymbol;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.SQLExecutor;
 import org.elasticsearch.test.cluster.NoopClusterService;
@@ -29,7 +31,7 @@ import org.hamcrest.Matchers;
 import org.junit.Test;
 
 import static io.crate.testing.TestingHelpers.isSQL;
-import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.is;
 
 public class SingleRowSubselectAnalyzerTest extends CrateUnitTest {
 
@@ -87,8 +89,24 @@ public class SingleRowSubselectAnalyzerTest extends CrateUnitTest {
 
     @Test
     public void testSubselectInWhereIn() throws Exception {
-        expectedException.expectMessage(allOf(Matchers.startsWith("Expression"), Matchers.endsWith("is not supported in IN")));
-        e.analyze("select * from t1 where x in (select y from t2)");
+        SelectAnalyzedStatement stmt = e.analyze("select * from t1 where x in (select y from t2)");
+        Function query = (Function) stmt.relation().querySpec().where().query();
+        assertThat(query, isSQL("(doc.t1.x = ANY(SelectSymbol{integer_set}))"));
+        SelectSymbol selectSymbol = (SelectSymbol) query.arguments().get(1);
+        assertThat(selectSymbol.resultType(), is(SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES));
+    }
+
+    @Test
+    public void testSubselectInWhereInCastsLeftSideToInnerType() throws Exception {
+        SelectAnalyzedStatement stmt = e.analyze("select * from t1 where x in (select cast(y as long) from t2)");
+        assertThat(stmt.relation().querySpec().where().query(),
+            isSQL("(CAST(doc.t1.x AS long) = ANY(SelectSymbol{long_set}))"));
+    }
+
+    @Test
+    public void testSubselectInWhereInWithMultipleColumns() throws Exception {
+        expectedException.expectMessage("Subqueries with more than 1 column are not supported.");
+        e.analyze("select * from t1 where x in (select y, y from t2)");
     }
 
     @Test
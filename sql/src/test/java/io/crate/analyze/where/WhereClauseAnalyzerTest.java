@@ -583,6 +583,37 @@ public class WhereClauseAnalyzerTest extends CrateUnitTest {
         assertFalse(whereClause.noMatch());
     }
 
+    @Test
+    public void testSelectFromTableWithManyPartitions() throws Exception {
+        long day = 86_400_000L;
+        String[] partitions = new String[1000];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new PartitionName("daily", Arrays.asList(new BytesRef(Long.toString(i * day)))).asIndexName();
+        }
+        SQLExecutor executor = SQLExecutor.builder(new NoopClusterService())
+            .addDocTable(TestingTableInfo.builder(new TableIdent("doc", "daily"), twoNodeRouting)
+                .add("id", DataTypes.INTEGER, null)
+                .add("date", DataTypes.TIMESTAMP, null, true)
+                .addPartitions(partitions)
+                .build())
+            .build();
+
+        SelectAnalyzedStatement statement = executor.analyze(
+            "select id from daily where date >= " + (10 * day) + " and date < " + (13 * day));
+        WhereClause whereClause = statement.relation().querySpec().where();
+        assertThat(whereClause.partitions(), contains(partitions[10], partitions[11], partitions[12]));
+        assertThat(whereClause.hasQuery(), is(false));
+
+        statement = executor.analyze(
+            "select id from daily where (date = " + (5 * day) + " or date in (" + (998 * day) + ", 1)) and id = 1");
+        whereClause = statement.relation().querySpec().where();
+        assertThat(whereClause.partitions(), contains(partitions[5], partitions[998]));
+        assertThat(whereClause.query(), isSQL("(doc.daily.id = 1)"));
+
+        statement = executor.analyze("select id from daily where date > " + (999 * day));
+        assertThat(statement.relation().querySpec().where().noMatch(), is(true));
+    }
+
     @Test
     public void testSelectFromPartitionedTableUnsupported() throws Exception {
         // these queries won't work because we would have to execute 2 separate ESSearch tasks
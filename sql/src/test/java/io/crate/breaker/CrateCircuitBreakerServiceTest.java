@@ -105,8 +105,8 @@ public class CrateCircuitBreakerServiceTest extends CrateUnitTest {
             .build();
 
         listeners[0].onRefreshSettings(newSettings);
-        // expecting 4 times because registerBreaker() is also called from constructor of CrateCircuitBreakerService 3 times
-        verify(esBreakerService, times(4)).registerBreaker(Matchers.any());
+        // expecting 5 times because registerBreaker() is also called from constructor of CrateCircuitBreakerService 4 times
+        verify(esBreakerService, times(5)).registerBreaker(Matchers.any());
 
         breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY);
         assertThat(breaker.getLimit(), is(104_857_600L));
@@ -114,7 +114,7 @@ public class CrateCircuitBreakerServiceTest extends CrateUnitTest {
 
         // updating with same settings should not register a new breaker
         listeners[0].onRefreshSettings(newSettings);
-        verify(esBreakerService, times(4)).registerBreaker(Matchers.any());
+        verify(esBreakerService, times(5)).registerBreaker(Matchers.any());
     }
 
     @Test
@@ -131,7 +131,7 @@ public class CrateCircuitBreakerServiceTest extends CrateUnitTest {
             Settings.EMPTY, settingsService, esBreakerService);
 
         CircuitBreakerStats[] stats = breakerService.stats().getAllStats();
-        assertThat(stats.length, is(7));
+        assertThat(stats.length, is(8));
 
         CircuitBreakerStats queryBreakerStats = breakerService.stats(CrateCircuitBreakerService.QUERY);
         assertThat(queryBreakerStats.getEstimated(), is(0L));
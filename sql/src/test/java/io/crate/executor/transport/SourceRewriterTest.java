@@ -0,0 +1,130 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.executor.transport;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SourceRewriterTest extends CrateUnitTest {
+
+    private static final BytesReference SOURCE = new BytesArray(
+        "{\"id\":1,\"hits\":10,\"o\":{\"x\":\"foo\",\"y\":[1,2]},\"tags\":[\"a\",\"b\"],\"n\":null}");
+
+    private static String rewrite(BytesReference source, Map<String, Object> changes) throws Exception {
+        SourceRewriter rewriter = SourceRewriter.forChanges(changes);
+        assertThat(rewriter, notNullValue());
+        BytesReference rewritten = rewriter.rewrite(source);
+        return rewritten == null ? null : rewritten.toUtf8();
+    }
+
+    @Test
+    public void testUntouchedFieldsAreCopied() throws Exception {
+        assertThat(rewrite(SOURCE, Collections.singletonMap("hits", 11L)),
+            is("{\"id\":1,\"hits\":11,\"o\":{\"x\":\"foo\",\"y\":[1,2]},\"tags\":[\"a\",\"b\"],\"n\":null}"));
+    }
+
+    @Test
+    public void testUpdateNestedPath() throws Exception {
+        assertThat(rewrite(SOURCE, Collections.singletonMap("o.x", "bar")),
+            is("{\"id\":1,\"hits\":10,\"o\":{\"x\":\"bar\",\"y\":[1,2]},\"tags\":[\"a\",\"b\"],\"n\":null}"));
+    }
+
+    @Test
+    public void testMissingPathsAreAddedAtTheEnd() throws Exception {
+        Map<String, Object> changes = MapBuilder.<String, Object>newMapBuilder()
+            .put("o.z", 3)
+            .put("p.q.r", "new")
+            .map();
+        assertThat(rewrite(SOURCE, changes),
+            is("{\"id\":1,\"hits\":10,\"o\":{\"x\":\"foo\",\"y\":[1,2],\"z\":3},\"tags\":[\"a\",\"b\"],\"n\":null," +
+               "\"p\":{\"q\":{\"r\":\"new\"}}}"));
+    }
+
+    @Test
+    public void testObjectValueIsReplaced() throws Exception {
+        assertThat(rewrite(SOURCE, Collections.singletonMap("o", Collections.singletonMap("z", 1))),
+            is("{\"id\":1,\"hits\":10,\"o\":{\"z\":1},\"tags\":[\"a\",\"b\"],\"n\":null}"));
+    }
+
+    @Test
+    public void testUnchangedValuesAreDetectedAsNoop() throws Exception {
+        Map<String, Object> changes = MapBuilder.<String, Object>newMapBuilder()
+            .put("hits", 10L)
+            .put("o.x", "foo")
+            .put("tags", Arrays.asList("a", "b"))
+            .put("n", null)
+            .map();
+        assertThat(rewrite(SOURCE, changes), nullValue());
+    }
+
+    @Test
+    public void testUpdateNullToValueIsNoNoop() throws Exception {
+        assertThat(rewrite(SOURCE, Collections.singletonMap("n", 1)),
+            is("{\"id\":1,\"hits\":10,\"o\":{\"x\":\"foo\",\"y\":[1,2]},\"tags\":[\"a\",\"b\"],\"n\":1}"));
+    }
+
+    @Test
+    public void testSameResultAsUpdateSourceByPaths() throws Exception {
+        Map<String, Object> changes = MapBuilder.<String, Object>newMapBuilder()
+            .put("hits", 11)
+            .put("o.y", Arrays.asList(3, 4))
+            .put("o.w.v", true)
+            .put("name", "Arthur")
+            .map();
+        Map<String, Object> expected = XContentHelper.convertToMap(SOURCE, true).v2();
+        TransportShardUpsertAction.updateSourceByPaths(expected, changes);
+
+        SourceRewriter rewriter = SourceRewriter.forChanges(changes);
+        assertThat(rewriter, notNullValue());
+        BytesReference rewritten = rewriter.rewrite(SOURCE);
+        assertThat(rewritten, notNullValue());
+        assertThat(XContentHelper.convertToMap(rewritten, true).v2(), is(expected));
+    }
+
+    @Test
+    public void testPathAndParentPathAreNotSupported() throws Exception {
+        Map<String, Object> changes = MapBuilder.<String, Object>newMapBuilder()
+            .put("o.x", 1)
+            .put("o", Collections.singletonMap("x", 2))
+            .map();
+        assertThat(SourceRewriter.forChanges(changes), nullValue());
+    }
+
+    @Test
+    public void testUpdateNullObject() throws Exception {
+        expectedException.expect(NullPointerException.class);
+        expectedException.expectMessage("Object n is null, cannot write {x.y=5} onto it");
+        rewrite(SOURCE, Collections.singletonMap("n.x.y", 5));
+    }
+}
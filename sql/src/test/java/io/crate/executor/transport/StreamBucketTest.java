@@ -0,0 +1,180 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.executor.transport;
+
+import io.crate.Streamer;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class StreamBucketTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.LONG.streamer(),
+        DataTypes.STRING.streamer(),
+        DataTypes.DOUBLE.streamer(),
+        DataTypes.TIMESTAMP.streamer()
+    };
+
+    private static List<Object[]> rows(int numRows) {
+        List<Object[]> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new Object[]{
+                i % 7 == 0 ? null : (long) (numRows - i) * 1000,
+                i % 5 == 0 ? null : new BytesRef("value" + (i % 10)),
+                i % 3 == 0 ? null : i * 0.5,
+                1480000000000L + i
+            });
+        }
+        return rows;
+    }
+
+    private static StreamBucket build(List<Object[]> rows, boolean columnar) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, columnar);
+        for (Object[] row : rows) {
+            builder.add(new RowN(row));
+        }
+        return builder.build();
+    }
+
+    private static StreamBucket streamed(BytesStreamOutput out) throws IOException {
+        StreamBucket bucket = new StreamBucket(STREAMERS);
+        bucket.readFrom(StreamInput.wrap(out.bytes()));
+        return bucket;
+    }
+
+    private static void assertRows(Bucket bucket, List<Object[]> expectedRows) {
+        assertThat(bucket.size(), is(expectedRows.size()));
+        int i = 0;
+        for (Row row : bucket) {
+            assertThat(Arrays.toString(row.materialize()), is(Arrays.toString(expectedRows.get(i))));
+            i++;
+        }
+        assertThat(i, is(expectedRows.size()));
+    }
+
+    @Test
+    public void testColumnarBucketStreaming() throws Exception {
+        List<Object[]> rows = rows(50);
+        BytesStreamOutput out = new BytesStreamOutput();
+        build(rows, true).writeTo(out, true);
+
+        assertRows(streamed(out), rows);
+    }
+
+    @Test
+    public void testColumnarBucketCanBeIteratedWithoutStreaming() throws Exception {
+        List<Object[]> rows = rows(20);
+        StreamBucket bucket = build(rows, true);
+        assertRows(bucket, rows);
+        // decoded columns are re-used for the second iteration
+        assertRows(bucket, rows);
+    }
+
+    @Test
+    public void testColumnarBucketIsWrittenRowBasedIfNotSupported() throws Exception {
+        List<Object[]> rows = rows(50);
+        BytesStreamOutput columnarFallback = new BytesStreamOutput();
+        build(rows, true).writeTo(columnarFallback, false);
+        BytesStreamOutput rowBased = new BytesStreamOutput();
+        build(rows, false).writeTo(rowBased);
+
+        assertThat(columnarFallback.bytes(), is(rowBased.bytes()));
+        assertRows(streamed(columnarFallback), rows);
+    }
+
+    @Test
+    public void testLargeColumnarBucketIsCompressedAndSmallerThanRowBased() throws Exception {
+        List<Object[]> rows = rows(10_000);
+        BytesStreamOutput columnar = new BytesStreamOutput();
+        build(rows, true).writeTo(columnar, true);
+        BytesStreamOutput rowBased = new BytesStreamOutput();
+        build(rows, false).writeTo(rowBased);
+
+        assertThat(columnar.size(), lessThan(rowBased.size() / 2));
+        assertRows(streamed(columnar), rows);
+    }
+
+    @Test
+    public void testLongDeltasCanOverflow() throws Exception {
+        List<Object[]> rows = Arrays.asList(
+            new Object[]{Long.MAX_VALUE, null, null, Long.MIN_VALUE},
+            new Object[]{Long.MIN_VALUE, null, null, Long.MAX_VALUE},
+            new Object[]{0L, null, null, -1L}
+        );
+        BytesStreamOutput out = new BytesStreamOutput();
+        build(rows, true).writeTo(out, true);
+
+        assertRows(streamed(out), rows);
+    }
+
+    @Test
+    public void testMostlyDistinctStringsAreNotDictionaryEncoded() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new Object[]{null, new BytesRef("distinct" + i), null, null});
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        build(rows, true).writeTo(out, true);
+
+        assertRows(streamed(out), rows);
+    }
+
+    @Test
+    public void testConcatOfColumnarBuckets() throws Exception {
+        List<Object[]> rows = rows(10_000);
+        List<Object[]> first = rows.subList(0, 20);
+        List<Object[]> second = rows.subList(20, rows.size());
+        StreamBucket concatenated = StreamBucket.concat(STREAMERS, Arrays.asList(
+            build(first, true),
+            build(new ArrayList<Object[]>(), true),
+            build(second, true)));
+        BytesStreamOutput out = new BytesStreamOutput();
+        concatenated.writeTo(out, true);
+
+        assertRows(streamed(out), rows);
+    }
+
+    @Test
+    public void testConcatOfRowBasedBuckets() throws Exception {
+        List<Object[]> rows = rows(30);
+        StreamBucket concatenated = StreamBucket.concat(STREAMERS, Arrays.asList(
+            build(rows.subList(0, 10), false),
+            build(rows.subList(10, 30), false)));
+
+        assertRows(concatenated, rows);
+    }
+}
@@ -22,17 +22,25 @@
 
 package io.crate.executor.transport;
 
+import com.google.common.collect.Sets;
+import io.crate.analyze.symbol.Literal;
 import io.crate.analyze.symbol.SelectSymbol;
 import io.crate.planner.MultiPhasePlan;
 import io.crate.planner.node.dql.ESGet;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.SQLExecutor;
+import io.crate.types.ArrayType;
+import io.crate.types.DataTypes;
+import io.crate.types.SetType;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.test.cluster.NoopClusterService;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static io.crate.testing.SymbolMatchers.isLiteral;
-import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.*;
 
 public class SubSelectSymbolReplacerTest extends CrateUnitTest {
 
@@ -49,4 +57,28 @@ public class SubSelectSymbolReplacerTest extends CrateUnitTest {
 
         assertThat(esGet.outputs(), contains(isLiteral("foo")));
     }
+
+    @Test
+    public void testSmallMultiValueResultIsInlinedAsArray() throws Exception {
+        SelectSymbol selectSymbol = new SelectSymbol(
+            null, new SetType(DataTypes.INTEGER), SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES);
+        Literal literal = SubSelectSymbolReplacer.toLiteral(selectSymbol, Sets.newHashSet(1, 2));
+
+        assertThat(literal.valueType(), is(new ArrayType(DataTypes.INTEGER)));
+        assertThat((Object[]) literal.value(), arrayContainingInAnyOrder(1, 2));
+    }
+
+    @Test
+    public void testLargeMultiValueResultIsKeptAsSet() throws Exception {
+        SelectSymbol selectSymbol = new SelectSymbol(
+            null, new SetType(DataTypes.INTEGER), SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES);
+        Set<Object> values = new HashSet<>();
+        for (int i = 0; i <= SubSelectSymbolReplacer.MAX_INLINED_VALUES; i++) {
+            values.add(i);
+        }
+        Literal literal = SubSelectSymbolReplacer.toLiteral(selectSymbol, values);
+
+        assertThat(literal.valueType(), is(new SetType(DataTypes.INTEGER)));
+        assertThat(literal.value(), sameInstance(values));
+    }
 }
@@ -30,6 +30,7 @@ import io.crate.metadata.Routing;
 import io.crate.metadata.RowGranularity;
 import io.crate.operation.NodeOperation;
 import io.crate.operation.Paging;
+import io.crate.operation.collect.stats.StatsTables;
 import io.crate.operation.projectors.DistributingDownstreamFactory;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.planner.distribution.DistributionInfo;
@@ -58,7 +59,8 @@ public class DistributingDownstreamFactoryTest extends CrateUnitTest {
         rowDownstreamFactory = new DistributingDownstreamFactory(
             Settings.EMPTY,
             new NoopClusterService(),
-            mock(TransportDistributedResultAction.class)
+            mock(TransportDistributedResultAction.class),
+            mock(StatsTables.class)
         );
     }
 
@@ -125,7 +125,9 @@ public class DistributingDownstreamTest extends CrateUnitTest {
             ImmutableList.of("n1"),
             transportDistributedResultAction,
             streamers,
-            pageSize
+            pageSize,
+            1,
+            pausedNanos -> {}
         );
 
         final List<Row> rows = new ArrayList<>();
@@ -180,7 +182,9 @@ public class DistributingDownstreamTest extends CrateUnitTest {
             ImmutableList.of("n1", "n2"),
             transportDistributedResultAction,
             streamers,
-            2
+            2,
+            1,
+            pausedNanos -> {}
         );
         RowSender rowSender = new RowSender(
             RowGenerator.range(1, 6),
@@ -220,10 +224,65 @@ public class DistributingDownstreamTest extends CrateUnitTest {
             ImmutableList.of("n1", "n2"),
             transportDistributedResultAction,
             streamers,
-            2
+            2,
+            1,
+            pausedNanos -> {}
         );
         dd.kill(new IllegalStateException("dummy"));
 
         assertThat(throwableReceived.get(), instanceOf(IllegalStateException.class));
     }
+
+    @Test
+    public void testPagesArePipelinedUpToMaxInFlightPages() throws Exception {
+        Streamer[] streamers = new Streamer[]{DataTypes.INTEGER.streamer()};
+        final List<Integer> pagesReceived = new ArrayList<>();
+        final List<ActionListener<DistributedResultResponse>> listeners = new ArrayList<>();
+        final List<Long> pausedNanos = new ArrayList<>();
+        TransportDistributedResultAction transportDistributedResultAction = new TransportDistributedResultAction(
+            mock(Transports.class),
+            mock(JobContextService.class),
+            mock(ThreadPool.class),
+            mock(TransportService.class),
+            Settings.EMPTY) {
+
+            @Override
+            public void pushResult(String node, final DistributedResultRequest request, final ActionListener<DistributedResultResponse> listener) {
+                assertThat(request.isPipelined(), is(true));
+                pagesReceived.add(request.pageIdx());
+                listeners.add(listener);
+            }
+        };
+
+        DistributingDownstream dd = new DistributingDownstream(
+            Loggers.getLogger(DistributingDownstream.class),
+            UUID.randomUUID(),
+            new BroadcastingBucketBuilder(streamers, 1),
+            1,
+            (byte) 0,
+            0,
+            ImmutableList.of("n1"),
+            transportDistributedResultAction,
+            streamers,
+            2,
+            2,
+            pausedNanos::add
+        );
+        RowSender rowSender = new RowSender(
+            RowGenerator.range(0, 10),
+            dd,
+            MoreExecutors.directExecutor()
+        );
+        rowSender.run();
+
+        // two pages are sent without waiting for a response, the third one has to wait
+        assertThat(pagesReceived, Matchers.contains(0, 1));
+        assertThat(rowSender.numPauses(), is(1));
+
+        listeners.get(0).onResponse(new DistributedResultResponse(true));
+        assertThat(pagesReceived, Matchers.contains(0, 1, 2));
+        assertThat(rowSender.numResumes(), is(1));
+        assertThat(dd.pausedWaitingForDownstreams().count(), is(1L));
+        assertThat(pausedNanos.size(), is(1));
+    }
 }
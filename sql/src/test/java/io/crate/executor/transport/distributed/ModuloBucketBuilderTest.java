@@ -23,12 +23,19 @@ package io.crate.executor.transport.distributed;
 
 import io.crate.Streamer;
 import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
 import io.crate.core.collections.Row1;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.hamcrest.core.Is.is;
 
 public class ModuloBucketBuilderTest extends CrateUnitTest {
@@ -53,4 +60,39 @@ public class ModuloBucketBuilderTest extends CrateUnitTest {
         assertThat(rowsD2.size(), is(2));
         assertThat(TestingHelpers.printedTable(rowsD2), is("1\n3\n"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRowsAddedByDifferentThreadsAreMergedOnBuild() throws Exception {
+        final ModuloBucketBuilder builder = new ModuloBucketBuilder(new Streamer[]{DataTypes.INTEGER.streamer()}, 2, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int offset = t * 100;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + 100; i++) {
+                        builder.add(new Row1(i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(builder.size(), is(400));
+
+        Bucket[] buckets = new Bucket[2];
+        builder.build(buckets);
+        assertThat(builder.size(), is(0));
+        assertThat(buckets[0].size(), is(200));
+        assertThat(buckets[1].size(), is(200));
+        for (Row row : buckets[0]) {
+            assertThat((Integer) row.get(0) % 2, is(0));
+        }
+        for (Row row : buckets[1]) {
+            assertThat((Integer) row.get(0) % 2, is(1));
+        }
+    }
+}
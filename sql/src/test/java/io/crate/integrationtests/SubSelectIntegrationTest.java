@@ -309,6 +309,45 @@ public class SubSelectIntegrationTest extends SQLTransportIntegrationTest {
         execute("select name from sys.cluster where 1 = (select x from t1)");
     }
 
+    @Test
+    public void testInSubSelect() throws Exception {
+        execute("create table t1 (x int)");
+        execute("create table t2 (y long)");
+        ensureYellow();
+        execute("insert into t1 (x) values (1), (2), (3)");
+        execute("insert into t2 (y) values (1), (1), (3), (4)");
+        execute("refresh table t1, t2");
+
+        execute("select x from t1 where x in (select y from t2) order by x");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("1\n3\n"));
+        execute("select x from t1 where x not in (select y from t2) order by x");
+        assertThat(TestingHelpers.printedTable(response.rows()), is("2\n"));
+    }
+
+    @Test
+    public void testInSubSelectWithLargeResultIsExecutedAsSemiJoin() throws Exception {
+        execute("create table t1 (x int) clustered into 3 shards");
+        execute("create table t2 (y int)");
+        ensureYellow();
+        // more values than are inlined as array literal
+        int numValues = 1200;
+        Object[][] args = new Object[numValues][];
+        for (int i = 0; i < numValues; i++) {
+            args[i] = new Object[]{i * 2};
+        }
+        execute("insert into t1 (x) values (?)", args);
+        for (int i = 0; i < numValues; i++) {
+            args[i] = new Object[]{i * 4};
+        }
+        execute("insert into t2 (y) values (?)", args);
+        execute("refresh table t1, t2");
+
+        execute("select count(*) from t1 where x in (select y from t2)");
+        assertThat(TestingHelpers.printedTable(response.rows()), is((numValues / 2) + "\n"));
+        execute("select count(*) from t1 where x + 0 in (select y from t2)");
+        assertThat(TestingHelpers.printedTable(response.rows()), is((numValues / 2) + "\n"));
+    }
+
     @Test
     public void testSingleRowSubSelectCanBeUsedInSelectListAndWhereOfPrimaryKeyLookup() throws Exception {
         execute("create table t1 (x int primary key)");
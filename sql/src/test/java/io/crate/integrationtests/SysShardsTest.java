@@ -152,14 +152,14 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
         SQLResponse response = execute(
             "select * from sys.shards where table_name = 'characters'");
         assertEquals(8L, response.rowCount());
-        assertEquals(14, response.cols().length);
+        assertEquals(15, response.cols().length);
     }
 
     @Test
     public void testSelectStarAllTables() throws Exception {
         SQLResponse response = execute("select * from sys.shards");
         assertEquals(26L, response.rowCount());
-        assertEquals(14, response.cols().length);
+        assertEquals(15, response.cols().length);
         assertThat(response.cols(), arrayContaining(
             "blob_path",
             "id",
@@ -168,6 +168,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
             "partition_ident",
             "path",
             "primary",
+            "query_result_cache",
             "recovery",
             "relocating_node",
             "routing_state",
@@ -182,7 +183,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
         SQLResponse response = execute(
             "select * from sys.shards where table_name like 'charact%'");
         assertEquals(8L, response.rowCount());
-        assertEquals(14, response.cols().length);
+        assertEquals(15, response.cols().length);
     }
 
     @Test
@@ -190,7 +191,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
         SQLResponse response = execute(
             "select * from sys.shards where table_name not like 'quotes%'");
         assertEquals(18L, response.rowCount());
-        assertEquals(14, response.cols().length);
+        assertEquals(15, response.cols().length);
     }
 
     @Test
@@ -198,7 +199,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
         SQLResponse response = execute(
             "select * from sys.shards where table_name in ('characters')");
         assertEquals(8L, response.rowCount());
-        assertEquals(14, response.cols().length);
+        assertEquals(15, response.cols().length);
     }
 
     @Test
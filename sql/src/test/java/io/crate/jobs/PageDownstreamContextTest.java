@@ -21,15 +21,20 @@
 
 package io.crate.jobs;
 
+import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.BucketPage;
 import io.crate.core.collections.Row1;
 import io.crate.core.collections.SingleRowBucket;
+import io.crate.operation.PageConsumeListener;
 import io.crate.operation.PageDownstream;
 import io.crate.operation.PageResultListener;
 import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.TestingHelpers;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.logging.Loggers;
@@ -40,6 +45,8 @@ import org.mockito.stubbing.Answer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.is;
@@ -52,6 +59,24 @@ public class PageDownstreamContextTest extends CrateUnitTest {
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
         new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
 
+    private static PageDownstream capturingPageDownstream(final List<BucketPage> pages,
+                                                          final List<PageConsumeListener> consumeListeners) {
+        PageDownstream pageDownstream = mock(PageDownstream.class);
+        doAnswer(new Answer() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                pages.add((BucketPage) invocation.getArguments()[0]);
+                consumeListeners.add((PageConsumeListener) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(pageDownstream).nextPage(any(BucketPage.class), any(PageConsumeListener.class));
+        return pageDownstream;
+    }
+
+    private static Bucket bucket(BucketPage page, int bucketIdx) throws Exception {
+        return Iterables.get(page.buckets(), bucketIdx).get();
+    }
+
     @Test
     public void testCantSetSameBucketTwiceWithoutReceivingFullPage() throws Exception {
         final AtomicReference<Throwable> ref = new AtomicReference<>();
@@ -77,6 +102,47 @@ public class PageDownstreamContextTest extends CrateUnitTest {
         assertThat(t.getMessage(), is("Same bucket of a page set more than once. node=n1 method=setBucket phaseId=1 bucket=1"));
     }
 
+    @Test
+    public void testBucketOfNextPageIsAppliedOnceThePageHasBeenConsumed() throws Exception {
+        List<BucketPage> pages = new ArrayList<>();
+        List<PageConsumeListener> consumeListeners = new ArrayList<>();
+        PageBucketReceiver ctx = new PageDownstreamContext(Loggers.getLogger(PageDownstreamContext.class), "n1",
+            1, "dummy", capturingPageDownstream(pages, consumeListeners), new Streamer[0], RAM_ACCOUNTING_CONTEXT, 2);
+
+        PageResultListener firstListener = mock(PageResultListener.class);
+        PageResultListener secondListener = mock(PageResultListener.class);
+        ctx.setBucket(1, 0, new SingleRowBucket(new Row1("foo")), false, firstListener);
+        ctx.setBucket(1, 1, new SingleRowBucket(new Row1("bar")), false, secondListener);
+        ctx.setBucket(0, 0, new SingleRowBucket(new Row1("baz")), false, mock(PageResultListener.class));
+        assertThat(pages.size(), is(1));
+        assertThat(TestingHelpers.printedTable(bucket(pages.get(0), 1)), is("foo\n"));
+
+        consumeListeners.get(0).needMore();
+        verify(firstListener, times(1)).needMore(true);
+        verify(secondListener, never()).needMore(anyBoolean());
+        assertThat(pages.size(), is(2));
+        assertThat(TestingHelpers.printedTable(bucket(pages.get(1), 1)), is("bar\n"));
+    }
+
+    @Test
+    public void testPipelinedBucketsAreAppliedInPageOrder() throws Exception {
+        List<BucketPage> pages = new ArrayList<>();
+        List<PageConsumeListener> consumeListeners = new ArrayList<>();
+        PageBucketReceiver ctx = new PageDownstreamContext(Loggers.getLogger(PageDownstreamContext.class), "n1",
+            1, "dummy", capturingPageDownstream(pages, consumeListeners), new Streamer[0], RAM_ACCOUNTING_CONTEXT, 1);
+
+        ctx.setBucket(0, 1, new SingleRowBucket(new Row1("second")), true, mock(PageResultListener.class));
+        assertThat(pages.size(), is(0));
+
+        ctx.setBucket(0, 0, new SingleRowBucket(new Row1("first")), false, mock(PageResultListener.class));
+        assertThat(pages.size(), is(1));
+        assertThat(TestingHelpers.printedTable(bucket(pages.get(0), 0)), is("first\n"));
+
+        consumeListeners.get(0).needMore();
+        assertThat(pages.size(), is(2));
+        assertThat(TestingHelpers.printedTable(bucket(pages.get(1), 0)), is("second\n"));
+    }
+
     @Test
     public void testKillCallsDownstream() throws Exception {
         PageDownstream downstream = mock(PageDownstream.class);
@@ -22,21 +22,26 @@
 package io.crate.lucene;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.WhereClause;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.TableRelation;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.Literal;
 import io.crate.lucene.match.CrateRegexQuery;
 import io.crate.metadata.Functions;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.TestingTableInfo;
+import io.crate.operation.operator.any.AnyEqOperator;
 import io.crate.sql.tree.QualifiedName;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.SqlExpressions;
 import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import io.crate.types.SetType;
 import org.apache.lucene.queries.TermsQuery;
 import org.apache.lucene.search.*;
 import org.apache.lucene.spatial.prefix.IntersectsPrefixTreeQuery;
@@ -324,6 +329,17 @@ public class LuceneQueryBuilderTest extends CrateUnitTest {
         assertThat(query, instanceOf(TermsQuery.class));
     }
 
+    @Test
+    public void testAnyEqSetLiteralQueryIsSharedBetweenConversions() throws Exception {
+        Literal setLiteral = Literal.of(Sets.newHashSet(1, 3, null), new SetType(DataTypes.INTEGER));
+        Function anyEq = new Function(
+            AnyEqOperator.createInfo(DataTypes.INTEGER), Arrays.asList(expressions.asSymbol("x"), setLiteral));
+
+        Query query = convert(new WhereClause(anyEq));
+        assertThat(query, instanceOf(TermsQuery.class));
+        assertThat(convert(new WhereClause(anyEq)), sameInstance(query));
+    }
+
     @Test
     public void testAnyEqArrayReference() throws Exception {
         Query query = convert("1.5 = any(d_array)");
@@ -0,0 +1,111 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.doc;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.Reference;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.is;
+
+public class PartitionIndexTest extends CrateUnitTest {
+
+    private static final ColumnIdent DAY = new ColumnIdent("day");
+    private static final ColumnIdent NAME = new ColumnIdent("name");
+
+    private PartitionIndex index;
+
+    @Before
+    public void prepare() throws Exception {
+        List<Reference> columns = Arrays.asList(
+            createReference("day", DataTypes.LONG),
+            createReference("name", DataTypes.STRING));
+        List<PartitionName> partitions = new ArrayList<>();
+        // partition ids: 0 -> (3, a), 1 -> (1, b), 2 -> (2, a), 3 -> (1, a), 4 -> (null, null), 5 -> (10, b)
+        partitions.add(partition("3", "a"));
+        partitions.add(partition("1", "b"));
+        partitions.add(partition("2", "a"));
+        partitions.add(partition("1", "a"));
+        partitions.add(partition(null, null));
+        partitions.add(partition("10", "b"));
+        index = new PartitionIndex(columns, partitions);
+    }
+
+    private static PartitionName partition(String day, String name) {
+        return new PartitionName("t", Arrays.asList(
+            day == null ? null : new BytesRef(day),
+            name == null ? null : new BytesRef(name)));
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bitSet = new BitSet();
+        for (int id : ids) {
+            bitSet.set(id);
+        }
+        return bitSet;
+    }
+
+    @Test
+    public void testEqualTo() throws Exception {
+        assertThat(index.equalTo(DAY, 1L), is(bits(1, 3)));
+        assertThat(index.equalTo(DAY, 10L), is(bits(5)));
+        assertThat(index.equalTo(DAY, 4L), is(bits()));
+        assertThat(index.equalTo(NAME, new BytesRef("a")), is(bits(0, 2, 3)));
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        assertThat(index.range(DAY, 2L, true, null, false), is(bits(0, 2, 5)));
+        assertThat(index.range(DAY, 2L, false, null, false), is(bits(0, 5)));
+        assertThat(index.range(DAY, null, false, 3L, false), is(bits(1, 2, 3)));
+        assertThat(index.range(DAY, null, false, 3L, true), is(bits(0, 1, 2, 3)));
+        assertThat(index.range(DAY, 0L, false, 2L, false), is(bits(1, 3)));
+        assertThat(index.range(DAY, 4L, true, 9L, true), is(bits()));
+        assertThat(index.range(DAY, 3L, true, 2L, true), is(bits()));
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        assertThat(index.isNull(DAY), is(bits(4)));
+        assertThat(index.range(DAY, null, false, null, false), is(bits(0, 1, 2, 3, 5)));
+        assertThat(index.all(), is(bits(0, 1, 2, 3, 4, 5)));
+    }
+
+    @Test
+    public void testTypeOfNonPartitionColumnIsNull() throws Exception {
+        assertThat(index.type(DAY), is((DataType) DataTypes.LONG));
+        assertNull(index.type(new ColumnIdent("x")));
+    }
+}
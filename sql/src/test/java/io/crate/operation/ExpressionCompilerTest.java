@@ -0,0 +1,147 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.analyze.symbol.Function;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Literal;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.analyze.symbol.Symbols;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowN;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.aggregation.FunctionExpression;
+import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.operator.*;
+import io.crate.operation.predicate.IsNullPredicate;
+import io.crate.operation.predicate.NotPredicate;
+import io.crate.operation.scalar.arithmetic.*;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
+
+public class ExpressionCompilerTest extends CrateUnitTest {
+
+    private SqlExpressions expressions = new SqlExpressions(ImmutableMap.of(T3.T1, T3.TR_1), T3.TR_1);
+    private InputFactory factory = new InputFactory(expressions.functions());
+
+    private static final InputColumn A = new InputColumn(0, DataTypes.INTEGER);
+    private static final InputColumn B = new InputColumn(1, DataTypes.LONG);
+    private static final InputColumn C = new InputColumn(2, DataTypes.LONG);
+    private static final InputColumn D = new InputColumn(3, DataTypes.STRING);
+    private static final InputColumn E = new InputColumn(4, DataTypes.DOUBLE);
+
+    private static final Object[][] ROWS = new Object[][]{
+        new Object[]{1, 2L, 3L, new BytesRef("xyz"), 1.5d},
+        new Object[]{10, 2L, 3L, new BytesRef("xyz"), -0.0d},
+        new Object[]{10, 2L, 30L, new BytesRef("abc"), 0.0d},
+        new Object[]{null, 2L, 3L, new BytesRef("xyz"), Double.NaN},
+        new Object[]{4, null, 3L, null, null},
+        new Object[]{0, 7L, null, new BytesRef("x"), 2.0d},
+        new Object[]{-3, -7L, -1L, new BytesRef("xx"), 3.25d},
+    };
+
+    private static Function fn(String name, DataType returnType, Symbol... args) {
+        return new Function(
+            new FunctionInfo(new FunctionIdent(name, Symbols.extractTypes(Arrays.asList(args))), returnType),
+            Arrays.asList(args));
+    }
+
+    private void assertCompiledMatchesInterpreted(Symbol symbol) {
+        InputFactory.Context<CollectExpression<Row, ?>> interpretedCtx = factory.ctxForInputColumns();
+        Input<?> interpreted = interpretedCtx.add(symbol);
+        InputFactory.Context<CollectExpression<Row, ?>> compiledCtx = factory.ctxForCompiledInputColumns();
+        Input<?> compiled = compiledCtx.add(symbol);
+
+        for (Object[] cells : ROWS) {
+            Row row = new RowN(cells);
+            for (CollectExpression<Row, ?> expression : interpretedCtx.expressions()) {
+                expression.setNextRow(row);
+            }
+            for (CollectExpression<Row, ?> expression : compiledCtx.expressions()) {
+                expression.setNextRow(row);
+            }
+            assertThat(Arrays.toString(cells), (Object) compiled.value(), is((Object) interpreted.value()));
+        }
+    }
+
+    @Test
+    public void testArithmeticComparisonAndLike() throws Exception {
+        // a + b * 2 > c and d like 'x%'
+        Function symbol = fn(AndOperator.NAME, DataTypes.BOOLEAN,
+            fn(GtOperator.NAME, DataTypes.BOOLEAN,
+                fn(AddFunction.NAME, DataTypes.LONG, A, fn(MultiplyFunction.NAME, DataTypes.LONG, B, Literal.of(2L))),
+                C),
+            fn(LikeOperator.NAME, DataTypes.BOOLEAN, D, Literal.of("x%")));
+
+        Input<?> compiled = factory.ctxForCompiledInputColumns().add(symbol);
+        assertThat(compiled, not(instanceOf(FunctionExpression.class)));
+        assertCompiledMatchesInterpreted(symbol);
+    }
+
+    @Test
+    public void testDoubleArithmeticOrNotIsNull() throws Exception {
+        // e / a <= 1.5 or not (b is null)
+        Function symbol = fn(OrOperator.NAME, DataTypes.BOOLEAN,
+            fn(LteOperator.NAME, DataTypes.BOOLEAN,
+                fn(DivideFunction.NAME, DataTypes.DOUBLE, E, A),
+                Literal.of(1.5d)),
+            fn(NotPredicate.NAME, DataTypes.BOOLEAN,
+                fn(IsNullPredicate.NAME, DataTypes.BOOLEAN, B)));
+        assertCompiledMatchesInterpreted(symbol);
+    }
+
+    @Test
+    public void testNumericResults() throws Exception {
+        assertCompiledMatchesInterpreted(fn(SubtractFunction.NAME, DataTypes.LONG,
+            B, fn(ModulusFunction.NAME, DataTypes.LONG, C, Literal.of(2L))));
+        assertCompiledMatchesInterpreted(fn(AddFunction.NAME, DataTypes.DOUBLE,
+            E, fn(MultiplyFunction.NAME, DataTypes.LONG, A, B)));
+    }
+
+    @Test
+    public void testDoubleEqualityUsesInterpreterSemantics() throws Exception {
+        // -0.0 and NaN are compared like Double.equals does
+        assertCompiledMatchesInterpreted(fn(EqOperator.NAME, DataTypes.BOOLEAN, E, Literal.of(0.0d)));
+        assertCompiledMatchesInterpreted(fn(EqOperator.NAME, DataTypes.BOOLEAN, E, Literal.of(Double.NaN)));
+        assertCompiledMatchesInterpreted(fn(GteOperator.NAME, DataTypes.BOOLEAN, E, Literal.of(Double.NaN)));
+    }
+
+    @Test
+    public void testUnsupportedFunctionIsInterpreted() throws Exception {
+        Function like = fn(LikeOperator.NAME, DataTypes.BOOLEAN, D, Literal.of("x%"));
+        assertThat(factory.ctxForCompiledInputColumns().add(like), instanceOf(FunctionExpression.class));
+        assertCompiledMatchesInterpreted(like);
+    }
+}
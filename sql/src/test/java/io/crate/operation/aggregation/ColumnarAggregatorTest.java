@@ -0,0 +1,221 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation;
+
+import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.InputColumn;
+import io.crate.analyze.symbol.Symbol;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.Functions;
+import io.crate.operation.Input;
+import io.crate.operation.aggregation.impl.*;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.*;
+
+public class ColumnarAggregatorTest extends CrateUnitTest {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    private static final List<Symbol> ARGS = Collections.<Symbol>singletonList(new InputColumn(0));
+
+    private final Functions functions = getFunctions();
+
+    private static class ValueInput implements Input<Object> {
+
+        Object value;
+
+        @Override
+        public Object value() {
+            return value;
+        }
+    }
+
+    private AggregationFunction function(String name, DataType argType) {
+        return (AggregationFunction) functions.get(new FunctionIdent(name, Collections.singletonList(argType)));
+    }
+
+    private Object[] randomValues(DataType type, int numValues, boolean positive) {
+        Object[] values = new Object[numValues];
+        for (int i = 0; i < numValues; i++) {
+            if (randomInt(4) == 0) {
+                continue;
+            }
+            Number value;
+            if (type.equals(DataTypes.DOUBLE) || type.equals(DataTypes.FLOAT)) {
+                value = randomDouble() * 1000;
+            } else {
+                value = randomIntBetween(1, 100);
+            }
+            if (!positive && randomBoolean()) {
+                value = -value.doubleValue();
+            }
+            values[i] = type.value(value);
+        }
+        return values;
+    }
+
+    /**
+     * the first numGroups rows create the groups in the order of their ids, the remaining rows go into random groups
+     */
+    private int[] groupIds(int numGroups, int numValues) {
+        int[] groupIds = new int[numValues];
+        for (int i = 0; i < numValues; i++) {
+            groupIds[i] = i < numGroups ? i : randomInt(numGroups - 1);
+        }
+        return groupIds;
+    }
+
+    private Object[] aggregate(AggregationFunction function,
+                               Aggregation aggregation,
+                               boolean columnar,
+                               Object[] values,
+                               int[] groupIds,
+                               int numGroups) {
+        ValueInput input = new ValueInput();
+        Object[] results = new Object[numGroups];
+        if (columnar) {
+            ColumnarAggregator aggregator = function.newColumnarAggregator(aggregation, input);
+            assertThat(aggregator, notNullValue());
+            for (int i = 0; i < values.length; i++) {
+                input.value = values[i];
+                if (i < numGroups) {
+                    aggregator.newGroup(groupIds[i]);
+                } else {
+                    aggregator.processRow(groupIds[i]);
+                }
+            }
+            for (int groupId = 0; groupId < numGroups; groupId++) {
+                results[groupId] = aggregator.finishCollect(groupId);
+            }
+        } else {
+            Aggregator aggregator = new Aggregator(RAM_ACCOUNTING_CONTEXT, aggregation, function, input);
+            Object[] states = new Object[numGroups];
+            for (int i = 0; i < values.length; i++) {
+                input.value = values[i];
+                int groupId = groupIds[i];
+                if (i < numGroups) {
+                    states[groupId] = aggregator.processRow(aggregator.prepareState());
+                } else {
+                    states[groupId] = aggregator.processRow(states[groupId]);
+                }
+            }
+            for (int groupId = 0; groupId < numGroups; groupId++) {
+                results[groupId] = aggregator.finishCollect(states[groupId]);
+            }
+        }
+        return results;
+    }
+
+    private void assertColumnarMatchesObjectStates(String name, DataType argType, boolean positive) {
+        AggregationFunction function = function(name, argType);
+        int numGroups = randomIntBetween(1, 40);
+        int numValues = numGroups + randomIntBetween(0, 500);
+        Object[] values = randomValues(argType, numValues, positive);
+        int[] groupIds = groupIds(numGroups, numValues);
+
+        Aggregation iterToFinal = Aggregation.finalAggregation(function.info(), ARGS, Aggregation.Step.ITER);
+        Object[] expected = aggregate(function, iterToFinal, false, values, groupIds, numGroups);
+        assertThat(aggregate(function, iterToFinal, true, values, groupIds, numGroups), is(expected));
+
+        // partial states of one implementation must be reducible by the other, both reduce into the same result
+        Aggregation iterToPartial = Aggregation.partialAggregation(function.info(), function.partialType(), ARGS);
+        Aggregation partialToFinal = Aggregation.finalAggregation(function.info(), ARGS, Aggregation.Step.PARTIAL);
+        int[] partialGroupIds = new int[numGroups * 2];
+        for (int i = 0; i < partialGroupIds.length; i++) {
+            partialGroupIds[i] = i % numGroups;
+        }
+        Object[] reducedByObjectStates = aggregate(function, partialToFinal, false,
+            partials(function, iterToPartial, values, groupIds, numGroups), partialGroupIds, numGroups);
+        Object[] reducedByColumnarStates = aggregate(function, partialToFinal, true,
+            partials(function, iterToPartial, values, groupIds, numGroups), partialGroupIds, numGroups);
+        assertThat(reducedByColumnarStates, is(reducedByObjectStates));
+    }
+
+    /**
+     * @return the partial states created by the object based aggregation followed by those of the columnar one
+     */
+    private Object[] partials(AggregationFunction function,
+                              Aggregation aggregation,
+                              Object[] values,
+                              int[] groupIds,
+                              int numGroups) {
+        Object[] objectPartials = aggregate(function, aggregation, false, values, groupIds, numGroups);
+        Object[] columnarPartials = aggregate(function, aggregation, true, values, groupIds, numGroups);
+        Object[] partials = new Object[numGroups * 2];
+        System.arraycopy(objectPartials, 0, partials, 0, numGroups);
+        System.arraycopy(columnarPartials, 0, partials, numGroups, numGroups);
+        return partials;
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        assertColumnarMatchesObjectStates(CountAggregation.NAME, DataTypes.LONG, false);
+    }
+
+    @Test
+    public void testSum() throws Exception {
+        assertColumnarMatchesObjectStates(SumAggregation.NAME, DataTypes.INTEGER, false);
+        assertColumnarMatchesObjectStates(SumAggregation.NAME, DataTypes.DOUBLE, false);
+    }
+
+    @Test
+    public void testAverage() throws Exception {
+        assertColumnarMatchesObjectStates(AverageAggregation.NAME, DataTypes.LONG, false);
+        assertColumnarMatchesObjectStates(AverageAggregation.NAME, DataTypes.FLOAT, false);
+    }
+
+    @Test
+    public void testGeometricMean() throws Exception {
+        assertColumnarMatchesObjectStates(GeometricMeanAggregation.NAME, DataTypes.SHORT, true);
+        assertColumnarMatchesObjectStates(GeometricMeanAggregation.NAME, DataTypes.DOUBLE, true);
+    }
+
+    @Test
+    public void testMinAndMax() throws Exception {
+        for (DataType type : DataTypes.NUMERIC_PRIMITIVE_TYPES) {
+            assertColumnarMatchesObjectStates(MinimumAggregation.NAME, type, false);
+            assertColumnarMatchesObjectStates(MaximumAggregation.NAME, type, false);
+        }
+        assertColumnarMatchesObjectStates(MinimumAggregation.NAME, DataTypes.TIMESTAMP, true);
+        assertColumnarMatchesObjectStates(MaximumAggregation.NAME, DataTypes.TIMESTAMP, true);
+    }
+
+    @Test
+    public void testMinOfStringHasNoColumnarStates() throws Exception {
+        AggregationFunction function = function(MinimumAggregation.NAME, DataTypes.STRING);
+        Aggregation aggregation = Aggregation.finalAggregation(function.info(), ARGS, Aggregation.Step.ITER);
+        assertThat(function.newColumnarAggregator(aggregation, new ValueInput()), nullValue());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.analyze.symbol.Literal;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.aggregation.AggregationTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+
+public class HyperLogLogDistinctAggregationTest extends AggregationTest {
+
+    private static final String NAME = "hyperloglog_distinct";
+
+    private long executeAggregation(DataType dataType, Object[][] data) throws Exception {
+        return (long) executeAggregation(NAME, dataType, data)[0][0];
+    }
+
+    @Test
+    public void testReturnType() throws Exception {
+        for (DataType dataType : DataTypes.PRIMITIVE_TYPES) {
+            FunctionIdent ident = new FunctionIdent(NAME, ImmutableList.of(dataType));
+            assertThat(functions.get(ident).info().returnType(), is((DataType) DataTypes.LONG));
+            ident = new FunctionIdent(NAME, ImmutableList.of(dataType, DataTypes.INTEGER));
+            assertThat(functions.get(ident).info().returnType(), is((DataType) DataTypes.LONG));
+        }
+    }
+
+    @Test
+    public void testAllTypes() throws Exception {
+        for (DataType dataType : DataTypes.PRIMITIVE_TYPES) {
+            if (dataType.equals(DataTypes.BOOLEAN)) {
+                continue;
+            }
+            Object[][] rows = new Object[200][];
+            for (int i = 0; i < rows.length; i++) {
+                // every value twice
+                Object value = dataType.equals(DataTypes.IP) ? "127.0.0." + (i % 100) : i % 100;
+                rows[i] = new Object[]{dataType.value(value)};
+            }
+            assertThat(dataType.getName(), executeAggregation(dataType, rows), is(100L));
+        }
+    }
+
+    @Test
+    public void testBoolean() throws Exception {
+        assertThat(executeAggregation(DataTypes.BOOLEAN, new Object[][]{{true}, {false}, {true}, {null}}), is(2L));
+    }
+
+    @Test
+    public void testNullValuesAndNoRows() throws Exception {
+        assertThat(executeAggregation(DataTypes.LONG, new Object[][]{{null}, {null}}), is(0L));
+        assertThat(executeAggregation(DataTypes.LONG, new Object[][]{}), is(0L));
+    }
+
+    @Test
+    public void testDenseStateIsApproximatelyCorrect() throws Exception {
+        Object[][] rows = new Object[100_000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{(long) i};
+        }
+        long result = executeAggregation(DataTypes.LONG, rows);
+        assertThat(result, allOf(greaterThan(97_000L), lessThan(103_000L)));
+    }
+
+    @Test
+    public void testWithPrecision() throws Exception {
+        Object[][] rows = new Object[10_000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i, 10};
+        }
+        long result = (long) executeAggregation(
+            NAME, DataTypes.INTEGER, rows, ImmutableList.<DataType>of(DataTypes.INTEGER, DataTypes.INTEGER))[0][0];
+        assertThat(result, allOf(greaterThan(9_000L), lessThan(11_000L)));
+    }
+
+    @Test
+    public void testInvalidPrecision() throws Exception {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("precision must be between 4 and 18, got: 30");
+        executeAggregation(NAME, DataTypes.INTEGER, new Object[][]{{1, 30}},
+            ImmutableList.<DataType>of(DataTypes.INTEGER, DataTypes.INTEGER));
+    }
+
+    @Test
+    public void testReduceStreamedStates() throws Exception {
+        HyperLogLogDistinctAggregation aggregation = new HyperLogLogDistinctAggregation(mock(FunctionInfo.class));
+        HyperLogLogState sparse = aggregation.newState(ramAccountingContext);
+        for (long i = 0; i < 500; i++) {
+            sparse = aggregation.iterate(ramAccountingContext, sparse, Literal.of(i));
+        }
+        HyperLogLogState dense = aggregation.newState(ramAccountingContext);
+        for (long i = 250; i < 50_000; i++) {
+            dense = aggregation.iterate(ramAccountingContext, dense, Literal.of(i));
+        }
+        assertThat(sparse.isSparse(), is(true));
+        assertThat(dense.isSparse(), is(false));
+
+        HyperLogLogState streamedSparse = stream(sparse);
+        HyperLogLogState streamedDense = stream(dense);
+        assertThat(streamedSparse.cardinality(), is(sparse.cardinality()));
+        assertThat(streamedDense.cardinality(), is(dense.cardinality()));
+
+        HyperLogLogState reduced = aggregation.reduce(ramAccountingContext, streamedSparse, streamedDense);
+        assertThat(aggregation.terminatePartial(ramAccountingContext, reduced),
+            allOf(greaterThan(48_500L), lessThan(51_500L)));
+    }
+
+    @Test
+    public void testReduceEmptyStateWithDifferentPrecision() throws Exception {
+        HyperLogLogDistinctAggregation aggregation = new HyperLogLogDistinctAggregation(mock(FunctionInfo.class));
+        HyperLogLogState state = aggregation.newState(ramAccountingContext);
+        state = aggregation.iterate(ramAccountingContext, state, Literal.of(1L), Literal.of(8));
+        assertThat(state.precision(), is(8));
+
+        HyperLogLogState reduced = aggregation.reduce(
+            ramAccountingContext, aggregation.newState(ramAccountingContext), state);
+        assertThat(reduced.cardinality(), is(1L));
+    }
+
+    private static HyperLogLogState stream(HyperLogLogState state) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        HyperLogLogStateType.INSTANCE.writeValueTo(out, state);
+        return HyperLogLogStateType.INSTANCE.readValueFrom(out.bytes().streamInput());
+    }
+}
@@ -38,6 +38,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 
 import static io.crate.testing.TestingHelpers.printedTable;
 import static org.hamcrest.Matchers.*;
@@ -207,6 +209,35 @@ public class LuceneDocCollectorTest extends SQLTransportIntegrationTest {
         }}));
     }
 
+    @Test
+    public void testUnorderedDocValuesColumnsWithNulls() throws Exception {
+        CrateCollector docCollector = createDocCollector(
+            "select population, continent, \"countryName\" from countries where population < 5", rowReceiver);
+        docCollector.doCollect();
+        rowReceiver.result();
+        Collections.sort(rowReceiver.rows, new Comparator<Object[]>() {
+            @Override
+            public int compare(Object[] o1, Object[] o2) {
+                return Integer.compare((Integer) o1[0], (Integer) o2[0]);
+            }
+        });
+        assertThat(TestingHelpers.printRows(rowReceiver.rows), is(
+            "0| Europe| Germany\n" +
+            "1| Europe| Austria\n" +
+            "2| Europe| NULL\n" +
+            "3| Europe| NULL\n" +
+            "4| Europe| NULL\n"));
+    }
+
+    @Test
+    public void testUnorderedWithSourceColumn() throws Exception {
+        CrateCollector docCollector = createDocCollector(
+            "select population, _raw from countries where population = 1", rowReceiver);
+        docCollector.doCollect();
+        assertThat(printedTable(rowReceiver.result()), is(
+            "1| {\"continent\":\"Europe\",\"countryName\":\"Austria\",\"population\":1}\n"));
+    }
+
     @Test
     public void testKillWhilePaused() throws Exception {
         CollectingRowReceiver projector = CollectingRowReceiver.withPauseAfter(5);
@@ -0,0 +1,178 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.collect;
+
+import io.crate.Streamer;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.core.collections.Row1;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.operation.projectors.RepeatHandle;
+import io.crate.operation.projectors.RowReceiver;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class QueryResultCacheTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{DataTypes.INTEGER.streamer()};
+
+    private CrateCircuitBreakerService breakerService;
+    private QueryResultCache cache;
+
+    @Before
+    public void prepare() throws Exception {
+        Settings settings = Settings.builder()
+            .put(CrateCircuitBreakerService.QUERY_RESULT_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING, "100b")
+            .build();
+        NodeSettingsService settingsService = new NodeSettingsService(settings);
+        breakerService = new CrateCircuitBreakerService(
+            settings, settingsService, new HierarchyCircuitBreakerService(Settings.EMPTY, settingsService));
+        cache = new QueryResultCache(breakerService);
+    }
+
+    private static StreamBucket bucket(int numRows) throws IOException {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS);
+        for (int i = 0; i < numRows; i++) {
+            builder.add(new Row1(i));
+        }
+        return builder.build();
+    }
+
+    private CircuitBreaker breaker() {
+        return breakerService.getBreaker(CrateCircuitBreakerService.QUERY_RESULT_CACHE);
+    }
+
+    @Test
+    public void testHitOnlyForSameReaderVersion() throws Exception {
+        BytesRef key = new BytesRef("a");
+        assertThat(cache.get(key, 1L), nullValue());
+        cache.put(key, 1L, bucket(2));
+
+        assertThat(cache.get(key, 1L), notNullValue());
+        assertThat(cache.get(new BytesRef("b"), 1L), nullValue());
+        assertThat(cache.get(key, 0L), nullValue());
+
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.misses(), is(3L));
+        assertThat(cache.sizeInBytes(), is(breaker().getUsed()));
+    }
+
+    @Test
+    public void testNewReaderVersionDropsEntries() throws Exception {
+        BytesRef key = new BytesRef("a");
+        cache.put(key, 1L, bucket(2));
+        assertThat(breaker().getUsed() > 0, is(true));
+
+        assertThat(cache.get(key, 2L), nullValue());
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(breaker().getUsed(), is(0L));
+
+        // results computed with an outdated reader are ignored
+        cache.put(key, 1L, bucket(2));
+        assertThat(cache.sizeInBytes(), is(0L));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        BytesRef a = new BytesRef("a");
+        BytesRef b = new BytesRef("b");
+        BytesRef c = new BytesRef("c");
+        // each entry uses 41 bytes, so only two of them fit into the 100 bytes
+        cache.put(a, 1L, bucket(8));
+        cache.put(b, 1L, bucket(8));
+        cache.get(a, 1L);
+        cache.put(c, 1L, bucket(8));
+
+        assertThat(cache.evictions(), is(1L));
+        assertThat(cache.get(a, 1L), notNullValue());
+        assertThat(cache.get(b, 1L), nullValue());
+        assertThat(cache.get(c, 1L), notNullValue());
+        assertThat(cache.sizeInBytes(), is(breaker().getUsed()));
+    }
+
+    @Test
+    public void testEntryLargerThanLimitIsNotCached() throws Exception {
+        BytesRef key = new BytesRef("a");
+        cache.put(key, 1L, bucket(5));
+        cache.put(new BytesRef("b"), 1L, bucket(100));
+
+        assertThat(cache.get(key, 1L), nullValue());
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(breaker().getUsed(), is(0L));
+    }
+
+    @Test
+    public void testClearReleasesBytes() throws Exception {
+        cache.put(new BytesRef("a"), 1L, bucket(2));
+        cache.clear();
+        assertThat(cache.sizeInBytes(), is(0L));
+        assertThat(breaker().getUsed(), is(0L));
+    }
+
+    @Test
+    public void testCachingRowReceiverCachesCompleteResult() throws Exception {
+        BytesRef key = new BytesRef("a");
+        CollectingRowReceiver downstream = new CollectingRowReceiver();
+        RowReceiver rowReceiver = cache.newCachingRowReceiver(downstream, key, 1L, STREAMERS);
+        rowReceiver.setNextRow(new Row1(1));
+        rowReceiver.setNextRow(new Row1(2));
+        rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(downstream.rows.size(), is(2));
+        StreamBucket cached = cache.get(key, 1L);
+        assertThat(cached, notNullValue());
+        assertThat(cached.size(), is(2));
+    }
+
+    @Test
+    public void testCachingRowReceiverDoesNotCacheIfDownstreamStops() throws Exception {
+        BytesRef key = new BytesRef("a");
+        RowReceiver rowReceiver = cache.newCachingRowReceiver(CollectingRowReceiver.withLimit(1), key, 1L, STREAMERS);
+        assertThat(rowReceiver.setNextRow(new Row1(1)), is(RowReceiver.Result.STOP));
+        rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+
+        assertThat(cache.get(key, 1L), nullValue());
+    }
+
+    @Test
+    public void testCachingRowReceiverDoesNotCacheOnFailure() throws Exception {
+        BytesRef key = new BytesRef("a");
+        RowReceiver rowReceiver = cache.newCachingRowReceiver(new CollectingRowReceiver(), key, 1L, STREAMERS);
+        rowReceiver.setNextRow(new Row1(1));
+        rowReceiver.fail(new IllegalStateException("dummy"));
+
+        assertThat(cache.get(key, 1L), nullValue());
+    }
+}
@@ -27,6 +27,7 @@ import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
@@ -35,12 +36,14 @@ import io.crate.metadata.*;
 import io.crate.metadata.tablefunctions.TableFunctionImplementation;
 import io.crate.operation.Input;
 import io.crate.operation.InputFactory;
+import io.crate.operation.projectors.MultiUpstreamRowReceiver;
 import io.crate.operation.projectors.RowReceiver;
 import io.crate.operation.reference.file.FileLineReferenceResolver;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.TestingHelpers;
 import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -224,6 +227,78 @@ public class FileReadingCollectorTest extends CrateUnitTest {
         assertThat(it.hasNext(), is(false));
     }
 
+    @Test
+    public void testConcurrentCollectorsReadEachLineOfSplitFileOnce() throws Throwable {
+        Path dir = Files.createTempDirectory("copy_from_split");
+        File file = new File(dir.toFile(), "split.json");
+        int numLines = 500;
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < numLines; i++) {
+                // lines of different length so that the split boundaries fall on different positions within a line
+                writer.write("{\"id\": " + i + ", \"name\": \"" + Strings.repeat("x", i % 13) + "\"}");
+                writer.write(i % 7 == 0 ? "\r\n" : "\n");
+                if (i % 50 == 0) {
+                    writer.write("\n");
+                }
+            }
+        }
+        try {
+            for (int numCollectors : new int[]{2, 3, 7}) {
+                FileSplits fileSplits = new FileSplits(
+                    Collections.singletonList(Paths.get(file.toURI()).toUri().toString()),
+                    null,
+                    ImmutableMap.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+                    false,
+                    1,
+                    0,
+                    numCollectors,
+                    1L
+                );
+                CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+                MultiUpstreamRowReceiver multiUpstreamRowReceiver = new MultiUpstreamRowReceiver(rowReceiver);
+                List<FileReadingCollector> collectors = new ArrayList<>(numCollectors);
+                for (int i = 0; i < numCollectors; i++) {
+                    collectors.add(createCollector(multiUpstreamRowReceiver.newRowReceiver(), fileSplits));
+                }
+                for (FileReadingCollector collector : collectors) {
+                    collector.doCollect();
+                }
+
+                Set<String> lines = new HashSet<>();
+                for (Row row : rowReceiver.result()) {
+                    assertThat(lines.add(((BytesRef) row.get(0)).utf8ToString()), is(true));
+                }
+                assertThat(lines.size(), is(numLines));
+                for (int i = 0; i < numLines; i++) {
+                    assertThat(lines.contains("{\"id\": " + i + ", \"name\": \"" + Strings.repeat("x", i % 13) + "\"}"), is(true));
+                }
+            }
+        } finally {
+            assertThat(file.delete(), is(true));
+        }
+    }
+
+    @Test
+    public void testConcurrentCollectorsStopIfDownstreamDoesNotWantMoreRows() throws Throwable {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withLimit(1);
+        MultiUpstreamRowReceiver multiUpstreamRowReceiver = new MultiUpstreamRowReceiver(rowReceiver);
+        FileSplits fileSplits = new FileSplits(
+            Arrays.asList(Paths.get(tmpFile.toURI()).toUri().toString(), Paths.get(tmpFileEmptyLine.toURI()).toUri().toString()),
+            null,
+            ImmutableMap.of(LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            false,
+            1,
+            0,
+            2,
+            1L
+        );
+        FileReadingCollector c1 = createCollector(multiUpstreamRowReceiver.newRowReceiver(), fileSplits);
+        FileReadingCollector c2 = createCollector(multiUpstreamRowReceiver.newRowReceiver(), fileSplits);
+        c1.doCollect();
+        c2.doCollect();
+        assertThat(rowReceiver.result().size(), is(1));
+    }
+
     private void assertCorrectResult(Bucket rows) throws Throwable {
         Iterator<Row> it = rows.iterator();
         assertThat(it.next(), isRow("{\"name\": \"Arthur\", \"id\": 4, \"details\": {\"age\": 38}}"));
@@ -247,15 +322,8 @@ public class FileReadingCollectorTest extends CrateUnitTest {
     }
 
     private void getObjects(Collection<String> fileUris, String compression, final S3ObjectInputStream s3InputStream, RowReceiver rowReceiver) throws Throwable {
-        Reference raw = createReference("_raw", DataTypes.STRING);
-        InputFactory.Context<LineCollectorExpression<?>> ctx =
-            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
-        List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
-        FileReadingCollector collector = new FileReadingCollector(
+        FileSplits fileSplits = new FileSplits(
             fileUris,
-            inputs,
-            ctx.expressions(),
-            rowReceiver,
             compression,
             ImmutableMap.of(
                 LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory(),
@@ -285,11 +353,21 @@ public class FileReadingCollectorTest extends CrateUnitTest {
                 }),
             false,
             1,
-            0
+            0,
+            1
         );
+        FileReadingCollector collector = createCollector(rowReceiver, fileSplits);
         collector.doCollect();
     }
 
+    private FileReadingCollector createCollector(RowReceiver rowReceiver, FileSplits fileSplits) {
+        Reference raw = createReference("_raw", DataTypes.STRING);
+        InputFactory.Context<LineCollectorExpression<?>> ctx =
+            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
+        List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
+        return new FileReadingCollector(inputs, ctx.expressions(), rowReceiver, fileSplits);
+    }
+
     private static class WriteBufferAnswer implements Answer<Integer> {
 
         private byte[] bytes;
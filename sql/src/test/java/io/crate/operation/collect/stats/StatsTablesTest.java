@@ -50,6 +50,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.Is.is;
 
@@ -231,6 +232,38 @@ public class StatsTablesTest extends CrateUnitTest {
         assertTrue(entries.contains(new OperationContextLog(ctxA, null)));
     }
 
+    @Test
+    public void testPausedTimeIsExposedForOperationAndLog() {
+        StatsTables statsTables = new StatsTables(() -> true);
+        Queue<OperationContextLog> q = new BlockingEvictingQueue(10);
+        statsTables.updateOperationsLog(new QueueSink<>(q, ramAccountingContext::close));
+
+        UUID jobId = UUID.randomUUID();
+        statsTables.operationStarted(1, jobId, "collect");
+        statsTables.operationStarted(2, jobId, "mergeOnHandler");
+        statsTables.operationPaused(1, jobId, TimeUnit.MILLISECONDS.toNanos(20));
+        statsTables.operationPaused(1, jobId, TimeUnit.MILLISECONDS.toNanos(15));
+
+        OperationContext paused = null;
+        OperationContext notPaused = null;
+        for (OperationContext operationContext : statsTables.operationsGetter()) {
+            if (operationContext.id == 1) {
+                paused = operationContext;
+            } else {
+                notPaused = operationContext;
+            }
+        }
+        assertThat(paused.pausedCount(), is(2L));
+        assertThat(paused.pausedTime(), is(35L));
+        assertThat(notPaused.pausedCount(), Matchers.nullValue());
+        assertThat(notPaused.pausedTime(), Matchers.nullValue());
+
+        statsTables.operationFinished(1, jobId, null, -1);
+        OperationContextLog log = (OperationContextLog) statsTables.operationsLogGetter().iterator().next();
+        assertThat(log.pausedCount(), is(2L));
+        assertThat(log.pausedTime(), is(35L));
+    }
+
     @Test
     public void testLowerBoundScheduler() throws NoSuchMethodException {
         StatsTablesService stats = new StatsTablesService(Settings.EMPTY, nodeSettingsService, scheduler, breakerService);
@@ -0,0 +1,64 @@
+/*
+ * Licensed to Crate.IO GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.fetch;
+
+import com.carrotsearch.hppc.IntArrayList;
+import io.crate.Streamer;
+import io.crate.core.collections.Row;
+import io.crate.executor.transport.StreamBucket;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class FetchCollectorTest extends CrateUnitTest {
+
+    @Test
+    public void testSortDocIdsKeepsRequestedPositions() throws Exception {
+        IntArrayList docIds = IntArrayList.from(42, 3, Integer.MAX_VALUE, 0, 17);
+        long[] sortedDocs = FetchCollector.sortDocIds(docIds);
+
+        int[] expectedDocIds = new int[]{0, 3, 17, 42, Integer.MAX_VALUE};
+        int[] expectedPositions = new int[]{3, 1, 4, 0, 2};
+        for (int i = 0; i < sortedDocs.length; i++) {
+            assertThat(FetchCollector.docId(sortedDocs[i]), is(expectedDocIds[i]));
+            assertThat(FetchCollector.position(sortedDocs[i]), is(expectedPositions[i]));
+        }
+    }
+
+    @Test
+    public void testToBucketUsesRowOrder() throws Exception {
+        Object[][] rows = new Object[][]{new Object[]{3}, new Object[]{1}, new Object[]{2}};
+        StreamBucket bucket = FetchCollector.toBucket(new Streamer[]{DataTypes.INTEGER.streamer()}, rows);
+
+        List<Object> values = new ArrayList<>();
+        for (Row row : bucket) {
+            values.add(row.get(0));
+        }
+        assertThat(values, contains((Object) 3, 1, 2));
+    }
+}
@@ -24,6 +24,7 @@ package io.crate.operation.fetch;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import io.crate.action.job.SharedShardContexts;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.TreeMapBuilder;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Reference;
@@ -33,6 +34,8 @@ import io.crate.planner.fetch.IndexBaseVisitor;
 import io.crate.planner.node.fetch.FetchPhase;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.indices.IndicesService;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -48,6 +51,9 @@ import static org.mockito.Mockito.mock;
 
 public class FetchContextTest extends CrateUnitTest {
 
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
     @Test
     public void testGetIndexServiceForInvalidReaderId() throws Exception {
 
@@ -61,6 +67,7 @@ public class FetchContextTest extends CrateUnitTest {
                 ImmutableList.<Reference>of()),
             "dummy",
             new SharedShardContexts(mock(IndicesService.class)),
+            RAM_ACCOUNTING_CONTEXT,
             Collections.<Routing>emptyList());
 
         expectedException.expect(IllegalArgumentException.class);
@@ -90,6 +97,7 @@ public class FetchContextTest extends CrateUnitTest {
                 ImmutableList.of(createReference("i1", new ColumnIdent("x"), DataTypes.STRING))),
             "dummy",
             new SharedShardContexts(mock(IndicesService.class, RETURNS_MOCKS)),
+            RAM_ACCOUNTING_CONTEXT,
             ImmutableList.of(routing));
 
         context.prepare();
@@ -0,0 +1,218 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.operation.Input;
+import io.crate.operation.collect.InputCollectExpression;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import io.crate.testing.RowSender;
+import io.crate.testing.TestingHelpers;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.crate.testing.RowGenerator.singleColRows;
+import static org.hamcrest.core.Is.is;
+
+public class HashJoinOperationTest extends CrateUnitTest {
+
+    private ExecutorService executorService;
+    private RamAccountingContext ramAccountingContext;
+
+    @Before
+    public void setupExecutor() throws Exception {
+        executorService = Executors.newFixedThreadPool(2);
+        ramAccountingContext = new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+    }
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executorService.shutdown();
+        executorService.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * joins on the first column of the left and the first column of the right rows
+     */
+    private HashJoinOperation hashJoinOperation(CollectingRowReceiver rowReceiver, JoinType joinType, int rightNumOutputs) {
+        InputCollectExpression leftKey = new InputCollectExpression(0);
+        InputCollectExpression rightKey = new InputCollectExpression(0);
+        return new HashJoinOperation(
+            0,
+            rowReceiver,
+            ramAccountingContext,
+            joinType,
+            ImmutableList.of(leftKey),
+            ImmutableList.of(leftKey),
+            ImmutableList.of(rightKey),
+            ImmutableList.of(rightKey),
+            rightNumOutputs);
+    }
+
+    private Bucket executeHashJoin(List<Row> leftRows, List<Row> rightRows, JoinType joinType) throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation operation = hashJoinOperation(rowReceiver, joinType, 1);
+
+        RowSender rsLeft = new RowSender(leftRows, operation.leftRowReceiver(), executorService);
+        RowSender rsRight = new RowSender(rightRows, operation.rightRowReceiver(), executorService);
+        executorService.submit(rsLeft);
+        executorService.submit(rsRight);
+        return rowReceiver.result();
+    }
+
+    @Test
+    public void testInnerJoin() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(1, 2, 3, 4, 3), singleColRows(3, 1, 5, 3), JoinType.INNER);
+        assertThat(TestingHelpers.printedTable(rows), is("" +
+                                                         "1| 1\n" +
+                                                         "3| 3\n" +
+                                                         "3| 3\n" +
+                                                         "3| 3\n" +
+                                                         "3| 3\n"));
+        assertThat(ramAccountingContext.totalBytes(), is(0L));
+    }
+
+    @Test
+    public void testLeftJoin() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(1, 2, null, 3), singleColRows(3, null, 1), JoinType.LEFT);
+        assertThat(TestingHelpers.printedTable(rows), is("" +
+                                                         "1| 1\n" +
+                                                         "2| NULL\n" +
+                                                         "NULL| NULL\n" +
+                                                         "3| 3\n"));
+    }
+
+    @Test
+    public void testNullKeysDoNotMatch() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(null, 1), singleColRows(null, 1), JoinType.INNER);
+        assertThat(TestingHelpers.printedTable(rows), is("1| 1\n"));
+    }
+
+    @Test
+    public void testLeftSideEmpty() throws Exception {
+        Bucket rows = executeHashJoin(Collections.<Row>emptyList(), singleColRows(1, 2), JoinType.LEFT);
+        assertThat(rows.size(), is(0));
+    }
+
+    @Test
+    public void testRightSideEmpty() throws Exception {
+        Bucket rows = executeHashJoin(singleColRows(1, 2), Collections.<Row>emptyList(), JoinType.INNER);
+        assertThat(rows.size(), is(0));
+
+        rows = executeHashJoin(singleColRows(1, 2), Collections.<Row>emptyList(), JoinType.LEFT);
+        assertThat(TestingHelpers.printedTable(rows), is("1| NULL\n2| NULL\n"));
+    }
+
+    @Test
+    public void testLeftSideStartsBeforeRightSide() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation operation = hashJoinOperation(rowReceiver, JoinType.INNER, 1);
+
+        RowSender rsLeft = new RowSender(singleColRows(1, 2), operation.leftRowReceiver(), MoreExecutors.directExecutor());
+        RowSender rsRight = new RowSender(singleColRows(2, 1), operation.rightRowReceiver(), MoreExecutors.directExecutor());
+
+        rsLeft.run();
+        assertThat(rsLeft.numPauses(), is(1));
+        assertThat(rowReceiver.isFinished(), is(false));
+
+        rsRight.run();
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), is("1| 1\n2| 2\n"));
+    }
+
+    @Test
+    public void testPausingDownstreamWithMultipleMatches() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withPauseAfter(2);
+        HashJoinOperation operation = hashJoinOperation(rowReceiver, JoinType.INNER, 1);
+
+        RowSender rsLeft = new RowSender(singleColRows(1, 2), operation.leftRowReceiver(), MoreExecutors.directExecutor());
+        RowSender rsRight = new RowSender(singleColRows(1, 1, 1, 2), operation.rightRowReceiver(), MoreExecutors.directExecutor());
+
+        rsRight.run();
+        rsLeft.run();
+        assertThat(rowReceiver.rows.size(), is(2));
+
+        rowReceiver.resumeUpstream(false);
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), is("" +
+                                                                         "1| 1\n" +
+                                                                         "1| 1\n" +
+                                                                         "1| 1\n" +
+                                                                         "2| 2\n"));
+    }
+
+    @Test
+    public void testRuntimeFilterIsPublishedOnceBuildSideHasFinished() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        InputCollectExpression leftKey = new InputCollectExpression(0);
+        InputCollectExpression rightKey = new InputCollectExpression(0);
+        RuntimeFilter runtimeFilter = new RuntimeFilter(new int[]{0}, rows -> {});
+        HashJoinOperation operation = new HashJoinOperation(
+            0,
+            rowReceiver,
+            ramAccountingContext,
+            JoinType.INNER,
+            ImmutableList.of(leftKey),
+            ImmutableList.of(leftKey),
+            ImmutableList.of(rightKey),
+            ImmutableList.of(rightKey),
+            1,
+            runtimeFilter);
+
+        RowSender rsRight = new RowSender(singleColRows(2, 4), operation.rightRowReceiver(), MoreExecutors.directExecutor());
+        assertThat(runtimeFilter.isPublished(), is(false));
+        rsRight.run();
+        assertThat(runtimeFilter.isPublished(), is(true));
+        assertThat(runtimeFilter.mightContain(new Input[]{() -> 2}), is(true));
+        assertThat(runtimeFilter.mightContain(new Input[]{() -> 5}), is(false));
+
+        RowSender rsLeft = new RowSender(singleColRows(1, 2), operation.leftRowReceiver(), MoreExecutors.directExecutor());
+        rsLeft.run();
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), is("2| 2\n"));
+    }
+
+    @Test
+    public void testFailureOfBuildSideIsPropagated() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        HashJoinOperation operation = hashJoinOperation(rowReceiver, JoinType.INNER, 1);
+
+        RowSender rsLeft = new RowSender(singleColRows(1, 2), operation.leftRowReceiver(), MoreExecutors.directExecutor());
+        rsLeft.run();
+        RowSender.withFailure(operation.rightRowReceiver(), MoreExecutors.directExecutor()).run();
+
+        expectedException.expect(IllegalStateException.class);
+        rowReceiver.result();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.join;
+
+import io.crate.operation.Input;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class RuntimeFilterTest extends CrateUnitTest {
+
+    private static Input<?>[] row(Object... values) {
+        Input<?>[] inputs = new Input[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            inputs[i] = () -> value;
+        }
+        return inputs;
+    }
+
+    private static RuntimeFilter filter(int... keyPositions) {
+        return new RuntimeFilter(keyPositions, rows -> {});
+    }
+
+    @Test
+    public void testEverythingMightMatchUntilPublished() throws Exception {
+        RuntimeFilter filter = filter(0);
+        assertThat(filter.isPublished(), is(false));
+        assertThat(filter.mightContain(row(1)), is(true));
+        assertThat(filter.mightContain(row((Object) null)), is(true));
+    }
+
+    @Test
+    public void testNoFalseNegatives() throws Exception {
+        RuntimeFilter filter = filter(1);
+        List<Object> keys = new ArrayList<>();
+        for (long i = 0; i < 10_000; i += 2) {
+            keys.add(i);
+        }
+        filter.publish(keys);
+        assertThat(filter.isPublished(), is(true));
+
+        int falsePositives = 0;
+        for (long i = 0; i < 10_000; i++) {
+            boolean mightContain = filter.mightContain(row("foo", i));
+            if (i % 2 == 0) {
+                assertThat(mightContain, is(true));
+            } else if (mightContain) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives, lessThan(250));
+    }
+
+    @Test
+    public void testKeysOutsideOfMinMaxDoNotMatch() throws Exception {
+        RuntimeFilter filter = filter(0);
+        filter.publish(Arrays.asList(10, 20, 30));
+        assertThat(filter.mightContain(row(9)), is(false));
+        assertThat(filter.mightContain(row(31)), is(false));
+        assertThat(filter.mightContain(row(20)), is(true));
+    }
+
+    @Test
+    public void testNullKeysDoNotMatch() throws Exception {
+        RuntimeFilter filter = filter(0, 1);
+        filter.publish(Collections.singletonList(Arrays.asList(new BytesRef("a"), 1)));
+        assertThat(filter.mightContain(row(new BytesRef("a"), null)), is(false));
+        assertThat(filter.mightContain(row(null, 1)), is(false));
+    }
+
+    @Test
+    public void testMultipleKeysUseHashOfList() throws Exception {
+        RuntimeFilter filter = filter(1, 0);
+        filter.publish(Collections.singletonList(Arrays.asList(new BytesRef("a"), 1)));
+        assertThat(filter.mightContain(row(1, new BytesRef("a"))), is(true));
+    }
+
+    @Test
+    public void testEmptyBuildSideMatchesNothing() throws Exception {
+        RuntimeFilter filter = filter(0);
+        filter.publish(Collections.emptyList());
+        assertThat(filter.mightContain(row(1)), is(false));
+        assertThat(filter.mightContain(row(new BytesRef("a"))), is(false));
+    }
+
+    @Test
+    public void testPrunedRowsAreReportedToListener() throws Exception {
+        AtomicLong prunedRows = new AtomicLong();
+        RuntimeFilter filter = new RuntimeFilter(new int[]{0}, prunedRows::addAndGet);
+        filter.addPrunedRows(3);
+        filter.addPrunedRows(2);
+        assertThat(prunedRows.get(), is(5L));
+    }
+}
@@ -22,6 +22,7 @@
 package io.crate.operation.operator.any;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.operator.input.ObjectInput;
@@ -90,6 +91,14 @@ public class AnyEqOperatorTest extends AbstractScalarFunctionsTest {
         assertNull(anyEq(null, new Object[]{1}));
     }
 
+    @Test
+    public void testEvaluateSet() throws Exception {
+        assertTrue(anyEq(1, Sets.newHashSet(1, 2)));
+        assertFalse(anyEq(3, Sets.newHashSet(1, 2)));
+        assertNull(anyEq(3, Sets.newHashSet(1, null)));
+        assertTrue(anyEq(1, Sets.newHashSet(1, null)));
+    }
+
     @Test
     public void testNormalizeSymbolNull() throws Exception {
         assertNormalize("null = ANY([null])", isLiteral(null));
@@ -0,0 +1,113 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.projectors;
+
+import com.google.common.base.Predicate;
+import io.crate.core.collections.Row;
+import io.crate.core.collections.RowBatch;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.testing.CollectingRowReceiver;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.is;
+
+public class BatchForwarderTest extends CrateUnitTest {
+
+    private static RowBatch batchOf(int numRows) {
+        RowBatch batch = new RowBatch(1, numRows);
+        for (int i = 0; i < numRows; i++) {
+            batch.column(0)[i] = i;
+        }
+        batch.size(numRows);
+        return batch;
+    }
+
+    private static final Predicate<Row> IS_EVEN = new Predicate<Row>() {
+        @Override
+        public boolean apply(@Nullable Row input) {
+            assert input != null : "row must not be null";
+            return ((Integer) input.get(0)) % 2 == 0;
+        }
+    };
+
+    @Test
+    public void testForwardSelectedRowsToRowReceiver() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        BatchForwarder forwarder = new BatchForwarder(rowReceiver);
+
+        RowBatch batch = batchOf(4);
+        batch.selection()[0] = 1;
+        batch.selection()[1] = 3;
+        batch.numSelected(2);
+
+        assertThat(forwarder.forward(batch), is(RowReceiver.Result.CONTINUE));
+        rowReceiver.finish(RepeatHandle.UNSUPPORTED);
+        assertThat(printedTable(rowReceiver.result()), is("1\n3\n"));
+    }
+
+    @Test
+    public void testRemainingRowsAreSentBeforeUpstreamIsResumed() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withPauseAfter(2);
+        BatchForwarder forwarder = new BatchForwarder(rowReceiver);
+
+        assertThat(forwarder.forward(batchOf(5)), is(RowReceiver.Result.PAUSE));
+        assertThat(rowReceiver.rows.size(), is(2));
+
+        final AtomicBoolean upstreamResumed = new AtomicBoolean(false);
+        rowReceiver.pauseProcessed(forwarder.resumeHandle(new ResumeHandle() {
+            @Override
+            public void resume(boolean async) {
+                upstreamResumed.set(true);
+            }
+        }));
+        rowReceiver.resumeUpstream(false);
+
+        assertThat(upstreamResumed.get(), is(true));
+        assertThat(rowReceiver.rows.size(), is(5));
+    }
+
+    @Test
+    public void testStopDiscardsRemainingRows() throws Exception {
+        CollectingRowReceiver rowReceiver = CollectingRowReceiver.withLimit(2);
+        BatchForwarder forwarder = new BatchForwarder(rowReceiver);
+
+        assertThat(forwarder.forward(batchOf(5)), is(RowReceiver.Result.STOP));
+        assertThat(forwarder.forward(batchOf(5)), is(RowReceiver.Result.STOP));
+        assertThat(rowReceiver.rows.size(), is(2));
+    }
+
+    @Test
+    public void testFilterProjectorShrinksSelection() throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        FilterProjector filterProjector = new FilterProjector(IS_EVEN);
+        filterProjector.downstream(rowReceiver);
+
+        assertThat(filterProjector.setNextBatch(batchOf(5)), is(RowReceiver.Result.CONTINUE));
+        filterProjector.finish(RepeatHandle.UNSUPPORTED);
+        assertThat(printedTable(rowReceiver.result()), is("0\n2\n4\n"));
+    }
+}
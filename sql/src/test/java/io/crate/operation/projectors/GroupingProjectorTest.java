@@ -2,6 +2,7 @@ package io.crate.operation.projectors;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.symbol.Aggregation;
+import io.crate.analyze.symbol.InputColumn;
 import io.crate.analyze.symbol.Symbol;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
@@ -13,8 +14,11 @@ import io.crate.metadata.Functions;
 import io.crate.operation.AggregationContext;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
+import io.crate.operation.aggregation.impl.AverageAggregation;
 import io.crate.operation.aggregation.impl.CountAggregation;
+import io.crate.operation.aggregation.impl.SumAggregation;
 import io.crate.operation.collect.CollectExpression;
+import io.crate.operation.collect.InputCollectExpression;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.types.DataType;
@@ -22,11 +26,18 @@ import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.hamcrest.Matcher;
 import org.junit.Test;
 
-import java.util.Arrays;
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
@@ -82,6 +93,227 @@ public class GroupingProjectorTest extends CrateUnitTest {
         assertThat(rows.iterator().next().get(1), instanceOf(CountAggregation.LongState.class));
     }
 
+    @Test
+    public void testStrategyIsChosenByKeyTypes() throws Exception {
+        assertThat(GroupingStrategy.forKeyTypes(Collections.singletonList(DataTypes.TIMESTAMP)), is(GroupingStrategy.LONG));
+        assertThat(GroupingStrategy.forKeyTypes(Collections.singletonList(DataTypes.INTEGER)), is(GroupingStrategy.INT));
+        assertThat(GroupingStrategy.forKeyTypes(Collections.singletonList(DataTypes.DOUBLE)), is(GroupingStrategy.DOUBLE));
+        assertThat(GroupingStrategy.forKeyTypes(Collections.singletonList(DataTypes.STRING)), is(GroupingStrategy.BYTES_REF));
+        assertThat(GroupingStrategy.forKeyTypes(Collections.singletonList(DataTypes.SHORT)), is(GroupingStrategy.FIXED_WIDTH));
+        assertThat(GroupingStrategy.forKeyTypes(Arrays.asList(DataTypes.LONG, DataTypes.BOOLEAN)), is(GroupingStrategy.FIXED_WIDTH));
+        assertThat(GroupingStrategy.forKeyTypes(Arrays.asList(DataTypes.LONG, DataTypes.STRING)), is(GroupingStrategy.GENERIC));
+        assertThat(GroupingStrategy.forKeyTypes(Collections.singletonList(DataTypes.GEO_POINT)), is(GroupingStrategy.GENERIC));
+    }
+
+    @Test
+    public void testLongKeyGrouping() throws Exception {
+        List<Object[]> result = groupAndCount(GroupingStrategy.LONG, Collections.singletonList(DataTypes.LONG),
+            new Object[]{1L}, new Object[]{null}, new Object[]{1L}, new Object[]{0L}, new Object[]{null});
+        assertThat(result, containsInAnyOrder(
+            new Object[]{1L, 2L}, new Object[]{0L, 1L}, new Object[]{null, 2L}));
+    }
+
+    @Test
+    public void testIntKeyGrouping() throws Exception {
+        List<Object[]> result = groupAndCount(GroupingStrategy.INT, Collections.singletonList(DataTypes.INTEGER),
+            new Object[]{3}, new Object[]{3}, new Object[]{-1}, new Object[]{null});
+        assertThat(result, containsInAnyOrder(
+            new Object[]{3, 2L}, new Object[]{-1, 1L}, new Object[]{null, 1L}));
+    }
+
+    @Test
+    public void testDoubleKeyGrouping() throws Exception {
+        List<Object[]> result = groupAndCount(GroupingStrategy.DOUBLE, Collections.singletonList(DataTypes.DOUBLE),
+            new Object[]{1.5d}, new Object[]{Double.NaN}, new Object[]{1.5d}, new Object[]{Double.NaN});
+        assertThat(result, containsInAnyOrder(
+            new Object[]{1.5d, 2L}, new Object[]{Double.NaN, 2L}));
+    }
+
+    @Test
+    public void testBytesRefKeyGrouping() throws Exception {
+        char[] chars = new char[40_000];
+        Arrays.fill(chars, 'x');
+        BytesRef largeKey = new BytesRef(new String(chars));
+        List<Object[]> result = groupAndCount(GroupingStrategy.BYTES_REF, Collections.singletonList(DataTypes.STRING),
+            new Object[]{new BytesRef("a")}, new Object[]{largeKey}, new Object[]{new BytesRef("b")},
+            new Object[]{new BytesRef("a")}, new Object[]{null}, new Object[]{BytesRef.deepCopyOf(largeKey)});
+        assertThat(result, containsInAnyOrder(
+            new Object[]{new BytesRef("a"), 2L},
+            new Object[]{new BytesRef("b"), 1L},
+            new Object[]{largeKey, 2L},
+            new Object[]{null, 1L}));
+    }
+
+    @Test
+    public void testFixedWidthKeyGrouping() throws Exception {
+        List<Object[]> result = groupAndCount(GroupingStrategy.FIXED_WIDTH,
+            Arrays.<DataType>asList(DataTypes.LONG, DataTypes.BOOLEAN, DataTypes.FLOAT, DataTypes.SHORT),
+            new Object[]{1L, true, 1.5f, (short) 2},
+            new Object[]{1L, true, 1.5f, (short) 2},
+            new Object[]{1L, false, 1.5f, (short) 2},
+            new Object[]{null, false, null, (short) -2},
+            new Object[]{0L, false, 0.0f, (short) -2},
+            new Object[]{null, false, null, (short) -2});
+        assertThat(result, containsInAnyOrder(
+            new Object[]{1L, true, 1.5f, (short) 2, 2L},
+            new Object[]{1L, false, 1.5f, (short) 2, 1L},
+            new Object[]{null, false, null, (short) -2, 2L},
+            new Object[]{0L, false, 0.0f, (short) -2, 1L}));
+    }
+
+    @Test
+    public void testFixedWidthKeyGroupingResizesTable() throws Exception {
+        Object[][] rows = new Object[10_000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i % 5_000, (long) i % 5_000};
+        }
+        List<Object[]> result = groupAndCount(GroupingStrategy.FIXED_WIDTH,
+            Arrays.<DataType>asList(DataTypes.INTEGER, DataTypes.LONG), rows);
+        assertThat(result.size(), is(5_000));
+        for (Object[] groupRow : result) {
+            assertThat(groupRow[2], is(2L));
+        }
+    }
+
+    @Test
+    public void testColumnarStatesMatchObjectStates() throws Exception {
+        Object[][] rows = new Object[][]{
+            new Object[]{new BytesRef("a"), 1L},
+            new Object[]{new BytesRef("b"), null},
+            new Object[]{null, 4L},
+            new Object[]{new BytesRef("a"), 2L},
+            new Object[]{null, 8L},
+        };
+        Matcher<Iterable<? extends Object[]>> expected = containsInAnyOrder(
+            new Object[]{new BytesRef("a"), 3.0d, 1.5d},
+            new Object[]{new BytesRef("b"), null, null},
+            new Object[]{null, 12.0d, 6.0d});
+        assertThat(groupAndSumAndAverage(true, rows), expected);
+        assertThat(groupAndSumAndAverage(false, rows), expected);
+    }
+
+    @Test
+    public void testGroupingWithSpilledPartitions() throws Exception {
+        Object[][] rows = new Object[1_000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{i % 10 == 0 ? null : (long) (i % 150), (long) i};
+        }
+        for (GroupingStrategy strategy : Arrays.asList(GroupingStrategy.LONG, GroupingStrategy.GENERIC)) {
+            List<Object[]> expected = groupAndCountAndSum(strategy, 0L, null, null, rows);
+
+            RamAccountingContext ramAccountingContext =
+                new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+            Path spillDirectory = createTempDir();
+            List<Object[]> result = groupAndCountAndSum(strategy, 512L, spillDirectory, ramAccountingContext, rows);
+
+            assertThat(result.size(), is(136));
+            assertThat(result, containsInAnyOrder(expected.toArray()));
+            assertThat(ramAccountingContext.spilledRuns() > SpilledPartitions.NUM_PARTITIONS, is(true));
+            assertThat(ramAccountingContext.spilledBytes() > 0, is(true));
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertThat(files.count(), is(0L));
+            }
+        }
+    }
+
+    private List<Object[]> groupAndCountAndSum(GroupingStrategy strategy,
+                                               long spillThreshold,
+                                               @Nullable final Path spillDirectory,
+                                               @Nullable RamAccountingContext ramAccountingContext,
+                                               Object[][] rows) throws Exception {
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        InputCollectExpression valueInput = new InputCollectExpression(1);
+        FunctionIdent countIdent = new FunctionIdent(CountAggregation.NAME, ImmutableList.<DataType>of());
+        AggregationFunction count = (AggregationFunction) getFunctions().get(countIdent);
+        FunctionIdent sumIdent = new FunctionIdent(SumAggregation.NAME, ImmutableList.<DataType>of(DataTypes.LONG));
+        AggregationFunction sum = (AggregationFunction) getFunctions().get(sumIdent);
+        AggregationContext countContext = new AggregationContext(count, Aggregation.finalAggregation(
+            count.info(), ImmutableList.<Symbol>of(), Aggregation.Step.ITER));
+        AggregationContext sumContext = new AggregationContext(sum, Aggregation.finalAggregation(
+            sum.info(), ImmutableList.<Symbol>of(new InputColumn(1)), Aggregation.Step.ITER));
+        sumContext.addInput(valueInput);
+        Supplier<Path> directory = spillDirectory == null ? null : () -> spillDirectory;
+
+        GroupingProjector projector = new GroupingProjector(
+            Collections.singletonList(DataTypes.LONG),
+            Collections.<Input<?>>singletonList(keyInput),
+            new CollectExpression[]{keyInput, valueInput},
+            new AggregationContext[]{countContext, sumContext},
+            ramAccountingContext == null ? RAM_ACCOUNTING_CONTEXT : ramAccountingContext,
+            strategy,
+            true,
+            spillThreshold,
+            directory
+        );
+        return collect(projector, rows);
+    }
+
+    private List<Object[]> groupAndSumAndAverage(boolean columnarStates, Object[][] rows) throws Exception {
+        InputCollectExpression keyInput = new InputCollectExpression(0);
+        InputCollectExpression valueInput = new InputCollectExpression(1);
+        AggregationContext[] aggregations = new AggregationContext[2];
+        String[] names = new String[]{SumAggregation.NAME, AverageAggregation.NAME};
+        for (int i = 0; i < names.length; i++) {
+            FunctionIdent ident = new FunctionIdent(names[i], ImmutableList.<DataType>of(DataTypes.LONG));
+            AggregationFunction function = (AggregationFunction) getFunctions().get(ident);
+            aggregations[i] = new AggregationContext(function, Aggregation.finalAggregation(
+                function.info(), ImmutableList.<Symbol>of(new InputColumn(1)), Aggregation.Step.ITER));
+            aggregations[i].addInput(valueInput);
+        }
+        GroupingProjector projector = new GroupingProjector(
+            Collections.singletonList(DataTypes.STRING),
+            Collections.<Input<?>>singletonList(keyInput),
+            new CollectExpression[]{keyInput, valueInput},
+            aggregations,
+            RAM_ACCOUNTING_CONTEXT,
+            GroupingStrategy.BYTES_REF,
+            columnarStates
+        );
+        return collect(projector, rows);
+    }
+
+    private List<Object[]> groupAndCount(GroupingStrategy strategy,
+                                         List<? extends DataType> keyTypes,
+                                         Object[]... rows) throws Exception {
+        List<Input<?>> keyInputs = new ArrayList<>(keyTypes.size());
+        CollectExpression[] collectExpressions = new CollectExpression[keyTypes.size()];
+        for (int i = 0; i < keyTypes.size(); i++) {
+            InputCollectExpression keyInput = new InputCollectExpression(i);
+            keyInputs.add(keyInput);
+            collectExpressions[i] = keyInput;
+        }
+        FunctionInfo countInfo = new FunctionInfo(new FunctionIdent("count", ImmutableList.<DataType>of()), DataTypes.LONG);
+        Aggregation countAggregation = Aggregation.finalAggregation(countInfo, ImmutableList.<Symbol>of(), Aggregation.Step.ITER);
+        AggregationContext aggregationContext = new AggregationContext(
+            (AggregationFunction) getFunctions().get(countInfo.ident()),
+            countAggregation);
+
+        GroupingProjector projector = new GroupingProjector(
+            keyTypes,
+            keyInputs,
+            collectExpressions,
+            new AggregationContext[]{aggregationContext},
+            RAM_ACCOUNTING_CONTEXT,
+            strategy
+        );
+        return collect(projector, rows);
+    }
+
+    private static List<Object[]> collect(GroupingProjector projector, Object[][] rows) throws Exception {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+        for (Object[] row : rows) {
+            projector.setNextRow(new RowN(row));
+        }
+        projector.finish(RepeatHandle.UNSUPPORTED);
+
+        List<Object[]> result = new ArrayList<>();
+        for (Row row : rowReceiver.result()) {
+            result.add(row.materialize());
+        }
+        return result;
+    }
+
     class DummyInput implements Input<BytesRef> {
 
         private final BytesRef[] values;
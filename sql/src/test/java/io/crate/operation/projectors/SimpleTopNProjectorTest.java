@@ -26,6 +26,7 @@ import com.google.common.collect.Iterables;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 import io.crate.core.collections.Row1;
+import io.crate.core.collections.RowBatch;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.Scalar;
 import io.crate.operation.Input;
@@ -139,6 +140,27 @@ public class SimpleTopNProjectorTest extends CrateUnitTest {
         assertThat(iterateLength, is(90));
     }
 
+    @Test
+    public void testProjectBatchesWithOffsetAndLimit() throws Throwable {
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        SimpleTopNProjector pipe = preparePipe(5, 3, rowReceiver);
+        RowBatch batch = new RowBatch(1, 4);
+        int value = 0;
+        RowReceiver.Result result;
+        do {
+            for (int i = 0; i < 4; i++) {
+                batch.column(0)[i] = value++;
+            }
+            batch.size(4);
+            result = pipe.setNextBatch(batch);
+        } while (result == RowReceiver.Result.CONTINUE);
+        assertThat(result, is(RowReceiver.Result.STOP));
+        assertThat(value, is(8));
+
+        pipe.finish(RepeatHandle.UNSUPPORTED);
+        assertThat(TestingHelpers.printedTable(rowReceiver.result()), is("3\n4\n5\n6\n7\n"));
+    }
+
     @Test
     public void testNegativeOffset() {
         expectedException.expect(IllegalArgumentException.class);
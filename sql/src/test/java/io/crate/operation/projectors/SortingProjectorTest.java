@@ -24,6 +24,7 @@ package io.crate.operation.projectors;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.analyze.symbol.Literal;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.Row;
 import io.crate.operation.collect.CollectExpression;
@@ -32,8 +33,17 @@ import io.crate.operation.projectors.sorting.OrderingByPosition;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.CollectingRowReceiver;
 import io.crate.testing.RowSender;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
 import static io.crate.testing.TestingHelpers.isRow;
 import static org.hamcrest.core.Is.is;
 
@@ -78,6 +88,41 @@ public class SortingProjectorTest extends CrateUnitTest {
         }
     }
 
+    @Test
+    public void testOrderByWithSpilledRuns() throws Exception {
+        RamAccountingContext ramAccountingContext =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+        final Path spillDirectory = createTempDir();
+        InputCollectExpression input = new InputCollectExpression(0);
+        SortingProjector projector = new SortingProjector(
+            ImmutableList.of(input, Literal.of(true)),
+            ImmutableList.<CollectExpression<Row, ?>>of(input),
+            2,
+            OrderingByPosition.arrayOrdering(0, false, null),
+            2,
+            ramAccountingContext,
+            Arrays.<DataType>asList(DataTypes.LONG, DataTypes.BOOLEAN),
+            100L, // each run holds 2 rows
+            () -> spillDirectory
+        );
+        CollectingRowReceiver rowReceiver = new CollectingRowReceiver();
+        projector.downstream(rowReceiver);
+
+        RowSender.generateRowsInRangeAndEmit(1, 11, projector);
+        Bucket rows = rowReceiver.result();
+        assertThat(rows.size(), is(8));
+        long iterateLength = 3;
+        for (Row row : rows) {
+            assertThat(row, isRow(iterateLength++, true));
+        }
+        assertThat(ramAccountingContext.spilledRuns(), is(5L));
+        assertThat(ramAccountingContext.spilledBytes() > 0, is(true));
+        assertThat(ramAccountingContext.totalBytes(), is(0L));
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
     @Test
     public void testInvalidOffset() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.operation.reference.doc.lucene;
+
+import io.crate.operation.collect.collectors.CollectorFieldsVisitor;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class SelectiveSourceLookupTest extends CrateUnitTest {
+
+    private BytesReference source;
+    private SelectiveSourceLookup lookup;
+
+    @Before
+    public void prepare() throws Exception {
+        source = XContentFactory.jsonBuilder()
+            .startObject()
+                .field("id", 1)
+                .field("name", "Arthur")
+                .startObject("details")
+                    .field("age", 42)
+                    .startObject("address")
+                        .field("city", "Berlin")
+                        .field("zip", 10115)
+                    .endObject()
+                .endObject()
+                .startArray("friends")
+                    .startObject().field("name", "Ford").field("age", 200).endObject()
+                    .startObject().field("name", "Trillian").field("age", 30).endObject()
+                .endArray()
+                .field("tags", new String[]{"a", "b"})
+            .endObject().bytes();
+        lookup = new SelectiveSourceLookup(new CollectorFieldsVisitor(0));
+    }
+
+    @Test
+    public void testOnlyRegisteredTopLevelColumnsAreParsed() throws Exception {
+        lookup.register("name");
+        lookup.register("tags");
+
+        Map<String, Object> map = lookup.parse(source);
+        assertThat(map.size(), is(2));
+        assertThat((String) map.get("name"), is("Arthur"));
+        assertThat((List<Object>) map.get("tags"), contains((Object) "a", "b"));
+    }
+
+    @Test
+    public void testNestedPathSkipsSiblings() throws Exception {
+        lookup.register("details.address.city");
+
+        Map<String, Object> map = lookup.parse(source);
+        assertThat(map.keySet(), contains("details"));
+        Map<String, Object> details = (Map<String, Object>) map.get("details");
+        assertThat(details.keySet(), contains("address"));
+        Map<String, Object> address = (Map<String, Object>) details.get("address");
+        assertThat(address.size(), is(1));
+        assertThat((String) address.get("city"), is("Berlin"));
+    }
+
+    @Test
+    public void testParentAndChildPathRegistered() throws Exception {
+        lookup.register("details.age");
+        lookup.register("details");
+
+        Map<String, Object> map = lookup.parse(source);
+        Map<String, Object> details = (Map<String, Object>) map.get("details");
+        assertThat(details.size(), is(2));
+        assertThat((Map<String, Object>) details.get("address"), hasEntry("zip", (Object) 10115));
+    }
+
+    @Test
+    public void testPathIntoArrayOfObjects() throws Exception {
+        lookup.register("friends.name");
+
+        Map<String, Object> map = lookup.parse(source);
+        List<Object> friends = (List<Object>) map.get("friends");
+        assertThat(friends.size(), is(2));
+        for (Object friend : friends) {
+            assertThat(((Map<String, Object>) friend).keySet(), contains("name"));
+        }
+        assertThat((String) ((Map<String, Object>) friends.get(1)).get("name"), is("Trillian"));
+    }
+
+    @Test
+    public void testRegisterAllReturnsFullSource() throws Exception {
+        lookup.register("id");
+        lookup.registerAll();
+
+        Map<String, Object> map = lookup.parse(source);
+        assertThat(map, is(XContentHelper.convertToMap(source, false).v2()));
+    }
+
+    @Test
+    public void testNullSource() throws Exception {
+        lookup.register("id");
+        assertThat(lookup.parse(null), nullValue());
+    }
+}
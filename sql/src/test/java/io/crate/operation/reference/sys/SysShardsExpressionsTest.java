@@ -83,7 +83,8 @@ public class SysShardsExpressionsTest extends CrateUnitTest {
         ShardReferenceResolver shardRefResolver = new ShardReferenceResolver(
             clusterService,
             schemas,
-            indexShard
+            indexShard,
+            null
         );
         resolver = new RecoveryShardReferenceResolver(shardRefResolver, indexShard);
     }
@@ -26,11 +26,15 @@ import com.carrotsearch.hppc.ObjectLongMap;
 import io.crate.action.sql.Option;
 import io.crate.action.sql.SQLOperations;
 import io.crate.core.collections.RowN;
+import io.crate.executor.transport.TransportColumnStatsAction;
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.settings.CrateSettings;
+import io.crate.planner.statistics.ColumnStatsSketch;
 import io.crate.protocols.postgres.FormatCodes;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataType;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.inject.Provider;
@@ -44,6 +48,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -81,7 +86,8 @@ public class TableStatsServiceTest extends CrateUnitTest {
             threadPool,
             clusterService,
             new NodeSettingsService(Settings.EMPTY),
-            () -> mock(SQLOperations.class));
+            () -> mock(SQLOperations.class),
+            () -> mock(TransportColumnStatsAction.class));
 
         assertThat(statsService.lastRefreshInterval,
             is(TimeValue.timeValueMinutes(0)));
@@ -93,7 +99,8 @@ public class TableStatsServiceTest extends CrateUnitTest {
             threadPool,
             clusterService,
             new NodeSettingsService(Settings.EMPTY),
-            () -> mock(SQLOperations.class));
+            () -> mock(SQLOperations.class),
+            () -> mock(TransportColumnStatsAction.class));
 
         assertThat(statsService.lastRefreshInterval,
             is(CrateSettings.STATS_SERVICE_REFRESH_INTERVAL.defaultValue()));
@@ -158,7 +165,8 @@ public class TableStatsServiceTest extends CrateUnitTest {
                 public SQLOperations get() {
                     return sqlOperations;
                 }
-            });
+            },
+            () -> mock(TransportColumnStatsAction.class));
         statsService.run();
 
         verify(session, times(1)).parse(
@@ -193,9 +201,38 @@ public class TableStatsServiceTest extends CrateUnitTest {
                 public SQLOperations get() {
                     return sqlOperations;
                 }
-            });
+            },
+            () -> mock(TransportColumnStatsAction.class));
 
         statsService.run();
         Mockito.verify(sqlOperations, times(0)).createSession(anyString(), anySetOf(Option.class), anyByte());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAnalyzePublishesColumnStatsToAllNodes() throws Exception {
+        ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.localNode()).thenReturn(mock(DiscoveryNode.class));
+        TransportColumnStatsAction columnStatsAction = mock(TransportColumnStatsAction.class);
+        doAnswer(invocation -> {
+            ((ActionListener<Map<TableIdent, Map<ColumnIdent, ColumnStatsSketch>>>) invocation.getArguments()[0])
+                .onResponse(Collections.emptyMap());
+            return null;
+        }).when(columnStatsAction).broadcast(any(ActionListener.class));
+        doAnswer(invocation -> {
+            ((ActionListener<Void>) invocation.getArguments()[1]).onResponse(null);
+            return null;
+        }).when(columnStatsAction).publish(anyMap(), any(ActionListener.class));
+
+        TableStatsService statsService = new TableStatsService(
+            Settings.builder().put(CrateSettings.STATS_SERVICE_REFRESH_INTERVAL.settingName(), 0).build(),
+            threadPool,
+            clusterService,
+            new NodeSettingsService(Settings.EMPTY),
+            () -> mock(SQLOperations.class),
+            () -> columnStatsAction);
+
+        assertThat(statsService.analyze().get(10, TimeUnit.SECONDS), nullValue());
+        verify(columnStatsAction, times(1)).publish(eq(Collections.emptyMap()), any(ActionListener.class));
+    }
 }
@@ -194,6 +194,20 @@ public class GroupByPlannerTest extends CrateUnitTest {
         assertThat(mergePhase.projections().size(), is(1));
     }
 
+    @Test
+    public void testNonDistributedGroupByOnClusteredColumnWithHyperLogLogDistinct() throws Exception {
+        Merge merge = e.plan(
+            "select hyperloglog_distinct(name), id from users group by id limit 20");
+        Collect collect = ((Collect) merge.subPlan());
+        RoutedCollectPhase collectPhase = ((RoutedCollectPhase) collect.collectPhase());
+        assertThat(collectPhase.projections().get(0), instanceOf(GroupProjection.class));
+        GroupProjection groupProjection = (GroupProjection) collectPhase.projections().get(0);
+        Aggregation aggregation = groupProjection.values().get(0);
+        assertThat(aggregation.fromStep(), is(Aggregation.Step.ITER));
+        assertThat(aggregation.toStep(), is(Aggregation.Step.FINAL));
+        assertThat(aggregation.valueType(), Is.<DataType>is(DataTypes.LONG));
+    }
+
     @Test
     public void testNonDistributedGroupByOnClusteredColumnSorted() throws Exception {
         Merge merge = e.plan(
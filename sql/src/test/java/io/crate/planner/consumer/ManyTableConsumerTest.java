@@ -27,7 +27,9 @@ import com.google.common.collect.ImmutableSet;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.*;
 import io.crate.analyze.relations.JoinPair;
+import io.crate.planner.TableStatsService;
 import io.crate.planner.node.dql.join.JoinType;
+import io.crate.planner.statistics.CardinalityEstimator;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.QualifiedName;
 import io.crate.test.integration.CrateUnitTest;
@@ -43,6 +45,9 @@ import java.util.Set;
 
 import static io.crate.testing.TestingHelpers.isSQL;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ManyTableConsumerTest extends CrateUnitTest {
 
@@ -197,4 +202,28 @@ public class ManyTableConsumerTest extends CrateUnitTest {
         assertThat(t1Andt3.toString(), is("join.doc.t1.doc.t3"));
         assertThat(root.right().qualifiedName().toString(), is("doc.t2"));
     }
+
+    @Test
+    public void test3TableJoinOrderIsBasedOnEstimatedCardinality() throws Exception {
+        TableStatsService tableStatsService = mock(TableStatsService.class);
+        when(tableStatsService.numDocs(eq(T3.T1_INFO.ident()))).thenReturn(10L);
+        when(tableStatsService.numDocs(eq(T3.T2_INFO.ident()))).thenReturn(1000L);
+        when(tableStatsService.numDocs(eq(T3.T3_INFO.ident()))).thenReturn(100L);
+
+        MultiSourceSelect mss = analyze("select * from t1, t2, t3 " +
+                                        "where t1.a = t3.c and t2.b = t3.c");
+        TwoTableJoin root = ManyTableConsumer.buildTwoTableJoinTree(mss, new CardinalityEstimator(tableStatsService));
+        // all orders which start with t3 or end with t3 allow to push down both join conditions,
+        // but joining the large t2 first keeps the relations added on the right side small
+        assertThat(root.toString(), is("join.join.doc.t2.doc.t3.doc.t1"));
+    }
+
+    @Test
+    public void test3TableJoinOrderWithoutStatsIsUnchanged() throws Exception {
+        MultiSourceSelect mss = analyze("select * from t1, t2, t3 " +
+                                        "where t1.a = t3.c and t2.b = t3.c");
+        TwoTableJoin root = ManyTableConsumer.buildTwoTableJoinTree(
+            mss, new CardinalityEstimator(mock(TableStatsService.class)));
+        assertThat(root.toString(), is("join.join.doc.t1.doc.t3.doc.t2"));
+    }
 }
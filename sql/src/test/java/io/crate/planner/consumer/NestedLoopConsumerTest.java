@@ -335,4 +335,23 @@ public class NestedLoopConsumerTest extends CrateUnitTest {
         nl = ((NestedLoop) ((NestedLoop) ((NestedLoop) plan.subPlan()).left()).left()).nestedLoopPhase();
         assertThat(nl.projections().get(0), instanceOf(EvalProjection.class));
     }
+
+    @Test
+    public void testEquiJoinIsPlannedAsHashJoin() throws Exception {
+        QueryThenFetch qtf = plan("select u1.name, u2.name from users u1 " +
+                                  "join users u2 on u1.id = u2.id and u1.name = u2.name");
+        NestedLoopPhase nl = ((NestedLoop) qtf.subPlan()).nestedLoopPhase();
+        assertThat(nl.isHashJoin(), is(true));
+        assertThat(nl.name(), is("hash-join"));
+        assertThat(nl.leftJoinKeys().size(), is(2));
+        assertThat(nl.rightJoinKeys().size(), is(2));
+    }
+
+    @Test
+    public void testNonEquiJoinIsPlannedAsNestedLoop() throws Exception {
+        QueryThenFetch qtf = plan("select u1.name, u2.name from users u1 join users u2 on u1.id > u2.id");
+        NestedLoopPhase nl = ((NestedLoop) qtf.subPlan()).nestedLoopPhase();
+        assertThat(nl.isHashJoin(), is(false));
+        assertThat(nl.name(), is("nested-loop"));
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.statistics;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.TableIdent;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnStatsSketchTest extends CrateUnitTest {
+
+    private static final TableIdent TABLE_IDENT = new TableIdent("doc", "t1");
+
+    private RAMDirectory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void createIndex() throws Exception {
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()))) {
+            for (int i = 0; i < 100; i++) {
+                Document doc = new Document();
+                doc.add(new LongField("id", i, Field.Store.NO));
+                if (i % 4 != 0) {
+                    doc.add(new StringField("name", "n" + (i % 10), Field.Store.NO));
+                }
+                writer.addDocument(doc);
+            }
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void closeIndex() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void testStatsOfNumericColumn() throws Exception {
+        try (ColumnStatsSketch sketch = new ColumnStatsSketch(DataTypes.LONG)) {
+            sketch.collect(reader, "id");
+            ColumnStats stats = sketch.toColumnStats(TABLE_IDENT, new ColumnIdent("id"));
+
+            assertThat(stats.nullFraction(), is(0.0));
+            assertThat((double) stats.approxDistinct(), closeTo(100.0, 3.0));
+            assertThat(stats.min(), is(0L));
+            assertThat(stats.max(), is(99L));
+        }
+    }
+
+    @Test
+    public void testStatsOfStringColumnWithNulls() throws Exception {
+        try (ColumnStatsSketch sketch = new ColumnStatsSketch(DataTypes.STRING)) {
+            sketch.collect(reader, "name");
+            ColumnStats stats = sketch.toColumnStats(TABLE_IDENT, new ColumnIdent("name"));
+
+            assertThat(stats.nullFraction(), closeTo(0.25, 0.001));
+            assertThat(stats.approxDistinct(), is(10L));
+            assertThat(stats.min(), is(new BytesRef("n0")));
+            assertThat(stats.max(), is(new BytesRef("n9")));
+        }
+    }
+
+    @Test
+    public void testMergeAndStreaming() throws Exception {
+        ColumnStatsSketch first = new ColumnStatsSketch(DataTypes.LONG);
+        first.collect(reader, "id");
+        ColumnStatsSketch second = new ColumnStatsSketch(DataTypes.LONG);
+        second.collect(reader, "id");
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        second.writeTo(out);
+        second.close();
+        StreamInput in = StreamInput.wrap(out.bytes());
+        ColumnStatsSketch streamed = new ColumnStatsSketch();
+        streamed.readFrom(in);
+
+        first.merge(streamed);
+        streamed.close();
+        ColumnStats stats = first.toColumnStats(TABLE_IDENT, new ColumnIdent("id"));
+        first.close();
+
+        // the same values are seen twice, the number of distinct values must not change
+        assertThat((double) stats.approxDistinct(), closeTo(100.0, 3.0));
+        assertThat(stats.min(), is(0L));
+        assertThat(stats.max(), is(99L));
+    }
+}
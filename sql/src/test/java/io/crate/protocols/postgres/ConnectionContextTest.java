@@ -24,6 +24,7 @@ package io.crate.protocols.postgres;
 
 import io.crate.action.sql.Option;
 import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.StatementCache;
 import io.crate.executor.Executor;
 import io.crate.operation.collect.stats.StatsTables;
 import io.crate.testing.SQLExecutor;
@@ -64,6 +65,7 @@ public class ConnectionContextTest {
             e.planner,
             () -> mock(Executor.class),
             statsTables,
+            new StatementCache(Settings.EMPTY),
             Settings.EMPTY,
             clusterService
         ) {
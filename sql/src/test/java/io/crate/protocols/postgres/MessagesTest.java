@@ -25,32 +25,25 @@ package io.crate.protocols.postgres;
 import io.crate.core.collections.RowN;
 import io.crate.types.DataTypes;
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.channel.Channel;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.Test;
-import org.mockito.Answers;
-import org.mockito.ArgumentCaptor;
 
 import java.util.Arrays;
 
 import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
 
 public class MessagesTest {
 
     @Test
     public void testNullValuesAddToLength() throws Exception {
-        Channel channel = mock(Channel.class, Answers.RETURNS_MOCKS.get());
-        Messages.sendDataRow(
-            channel,
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        Messages.writeDataRow(
+            buffer,
             new RowN($(10, null)),
             Arrays.asList(DataTypes.INTEGER, DataTypes.STRING), null
         );
-        ArgumentCaptor<Object> writeCaptor = ArgumentCaptor.forClass(Object.class);
-        verify(channel).write(writeCaptor.capture());
-        ChannelBuffer buffer = (ChannelBuffer) writeCaptor.getValue();
 
         // message type
         assertThat((char) buffer.readByte(), is('D'));
@@ -59,4 +52,18 @@ public class MessagesTest {
         assertThat(buffer.readInt(), is(16));
         assertThat(buffer.readableBytes(), is(12)); // 16 - INT4 because the size was already read
     }
+
+    @Test
+    public void testMultipleDataRowsCanBeWrittenIntoTheSameBuffer() throws Exception {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
+        Messages.writeDataRow(buffer, new RowN($(10)), Arrays.asList(DataTypes.INTEGER), null);
+        Messages.writeDataRow(buffer, new RowN($(20)), Arrays.asList(DataTypes.INTEGER), null);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat((char) buffer.readByte(), is('D'));
+            int length = buffer.readInt();
+            buffer.skipBytes(length - 4);
+        }
+        assertThat(buffer.readable(), is(false));
+    }
 }
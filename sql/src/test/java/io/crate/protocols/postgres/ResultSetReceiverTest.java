@@ -0,0 +1,107 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.protocols.postgres;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.crate.core.collections.RowN;
+import io.crate.types.DataTypes;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.*;
+
+public class ResultSetReceiverTest {
+
+    @Test
+    public void testRowsAreWrittenInBatches() throws Exception {
+        Channel channel = mock(Channel.class, Answers.RETURNS_MOCKS.get());
+        ResultSetReceiver receiver = new ResultSetReceiver(
+            "select x from t", channel, Collections.singletonList(DataTypes.INTEGER), null);
+
+        for (int i = 0; i < 100; i++) {
+            receiver.setNextRow(new RowN($(i)));
+        }
+        verify(channel, never()).write(any());
+        receiver.allFinished();
+
+        ArgumentCaptor<Object> writeCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(channel, times(2)).write(writeCaptor.capture());
+        List<Object> writes = writeCaptor.getAllValues();
+
+        // all DataRow messages within the first write, followed by CommandComplete
+        ChannelBuffer dataRows = (ChannelBuffer) writes.get(0);
+        for (int i = 0; i < 100; i++) {
+            assertThat((char) dataRows.readByte(), is('D'));
+            dataRows.skipBytes(dataRows.readInt() - 4);
+        }
+        assertThat(dataRows.readable(), is(false));
+        assertThat((char) ((ChannelBuffer) writes.get(1)).readByte(), is('C'));
+    }
+
+    @Test
+    public void testBufferIsWrittenOnceThresholdIsReached() throws Exception {
+        Channel channel = mock(Channel.class, Answers.RETURNS_MOCKS.get());
+        ResultSetReceiver receiver = new ResultSetReceiver(
+            "select x from t", channel, Collections.singletonList(DataTypes.STRING), null);
+
+        String value = new String(new char[ResultSetReceiver.FLUSH_THRESHOLD]).replace('\0', 'x');
+        receiver.setNextRow(new RowN($(value)));
+        verify(channel, times(1)).write(any());
+    }
+
+    @Test
+    public void testReadyFutureCompletesOncePendingWriteIsDone() throws Exception {
+        Channel channel = mock(Channel.class);
+        ChannelFuture writeFuture = mock(ChannelFuture.class);
+        when(channel.write(any())).thenReturn(writeFuture);
+        when(channel.isWritable()).thenReturn(false);
+        ResultSetReceiver receiver = new ResultSetReceiver(
+            "select x from t", channel, Collections.singletonList(DataTypes.STRING), null);
+
+        assertThat(receiver.readyFuture(), nullValue());
+
+        String value = new String(new char[ResultSetReceiver.FLUSH_THRESHOLD]).replace('\0', 'x');
+        receiver.setNextRow(new RowN($(value)));
+
+        ListenableFuture<?> readyFuture = receiver.readyFuture();
+        assertThat(readyFuture, notNullValue());
+        assertThat(readyFuture.isDone(), is(false));
+
+        ArgumentCaptor<ChannelFutureListener> listenerCaptor = ArgumentCaptor.forClass(ChannelFutureListener.class);
+        verify(writeFuture).addListener(listenerCaptor.capture());
+        listenerCaptor.getValue().operationComplete(writeFuture);
+        assertThat(readyFuture.isDone(), is(true));
+    }
+}
@@ -33,12 +33,21 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpVersion;
 import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 public class RestActionReceiversTest extends CrateUnitTest {
@@ -111,6 +120,75 @@ public class RestActionReceiversTest extends CrateUnitTest {
         assertXContentBuilder(actualBuilder, builder.build());
     }
 
+    @Test
+    public void testRestStreamingResultSetReceiverSendsSmallResultAsRegularResponse() throws Exception {
+        RestChannel restChannel = newChannel();
+        Channel channel = mock(Channel.class, Answers.RETURNS_MOCKS.get());
+        RestStreamingResultSetReceiver receiver =
+            new RestStreamingResultSetReceiver(restChannel, channel, HttpVersion.HTTP_1_1, fields, 0L, false);
+        for (Row row : rows) {
+            receiver.setNextRow(row);
+        }
+        receiver.allFinished();
+
+        verify(channel, never()).write(any());
+        ArgumentCaptor<RestResponse> responseCaptor = ArgumentCaptor.forClass(RestResponse.class);
+        verify(restChannel).sendResponse(responseCaptor.capture());
+        assertThat(stripDuration(responseCaptor.getValue().content().toUtf8()),
+            is("{\"cols\":[\"doc.col_a\",\"doc.col_b\",\"doc.col_c\"]," +
+               "\"rows\":[[\"foo\",1,true],[\"bar\",2,false],[\"foobar\",3,null]],\"rowcount\":3}"));
+    }
+
+    @Test
+    public void testRestStreamingResultSetReceiverWritesChunks() throws Exception {
+        RestChannel restChannel = newChannel();
+        Channel channel = mock(Channel.class, Answers.RETURNS_MOCKS.get());
+        RestStreamingResultSetReceiver receiver =
+            new RestStreamingResultSetReceiver(restChannel, channel, HttpVersion.HTTP_1_1, fields, 0L, false);
+        ResultToXContentBuilder builder = ResultToXContentBuilder.builder(newChannel());
+        builder.cols(fields);
+        builder.startRows();
+        int numRows = 5000;
+        for (int i = 0; i < numRows; i++) {
+            Row row = new RowN(new Object[]{"foo" + i, i, true});
+            receiver.setNextRow(row);
+            builder.addRow(row, 3);
+        }
+        receiver.allFinished();
+        builder.finishRows();
+        builder.rowCount(numRows);
+
+        verify(restChannel, never()).sendResponse(any(RestResponse.class));
+        ArgumentCaptor<Object> writeCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(channel, atLeast(4)).write(writeCaptor.capture());
+        List<Object> writes = writeCaptor.getAllValues();
+
+        HttpResponse response = (HttpResponse) writes.get(0);
+        assertThat(response.isChunked(), is(true));
+        assertThat(writes.get(writes.size() - 1), is((Object) HttpChunk.LAST_CHUNK));
+
+        StringBuilder content = new StringBuilder();
+        for (Object chunk : writes.subList(1, writes.size() - 1)) {
+            content.append(((HttpChunk) chunk).getContent().toString(StandardCharsets.UTF_8));
+        }
+        assertThat(stripDuration(content.toString()), is(stripDuration(builder.build().string())));
+    }
+
+    @Test
+    public void testRestStreamingResultSetReceiverSendsOnlyOneResponseAfterFailure() throws Exception {
+        RestChannel restChannel = newChannel();
+        Channel channel = mock(Channel.class, Answers.RETURNS_MOCKS.get());
+        RestStreamingResultSetReceiver receiver =
+            new RestStreamingResultSetReceiver(restChannel, channel, HttpVersion.HTTP_1_1, fields, 0L, false);
+        receiver.setNextRow(rows.get(0));
+        receiver.fail(new IOException("failed to write row"));
+        receiver.setNextRow(rows.get(1));
+        receiver.allFinished();
+
+        verify(channel, never()).write(any());
+        verify(restChannel, times(1)).sendResponse(any(RestResponse.class));
+    }
+
     @Test
     public void testRestBulkRowCountReceiver() throws Exception {
         RestBulkRowCountReceiver.Result[] results = new RestBulkRowCountReceiver.Result[] {
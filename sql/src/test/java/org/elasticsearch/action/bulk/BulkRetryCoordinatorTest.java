@@ -40,6 +40,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -47,6 +49,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -90,7 +93,7 @@ public class BulkRetryCoordinatorTest extends CrateUnitTest {
             }
         };
 
-        coordinator.retry(shardRequest(), executor, new ActionListener<ShardResponse>() {
+        coordinator.execute(shardRequest(), executor, new ActionListener<ShardResponse>() {
             @Override
             public void onResponse(ShardResponse shardResponse) {
             }
@@ -118,7 +121,7 @@ public class BulkRetryCoordinatorTest extends CrateUnitTest {
         };
 
         final SettableFuture<ShardResponse> future = SettableFuture.create();
-        coordinator.retry(shardRequest(), executor, new ActionListener<ShardResponse>() {
+        coordinator.execute(shardRequest(), executor, new ActionListener<ShardResponse>() {
             @Override
             public void onResponse(ShardResponse shardResponse) {
             }
@@ -134,6 +137,71 @@ public class BulkRetryCoordinatorTest extends CrateUnitTest {
         assertEquals(0, coordinator.numPendingOperations());
     }
 
+    @Test
+    public void testRejectedExecutionHalvesLimit() throws Exception {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        BulkRetryCoordinator coordinator = new BulkRetryCoordinator(threadPool);
+
+        TransportShardUpsertActionDelegate executor = new MockShardUpsertActionDelegate() {
+            @Override
+            public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                listener.onFailure(new EsRejectedExecutionException("Dummy execution rejected"));
+            }
+        };
+
+        coordinator.execute(shardRequest(), executor, new ActionListener<ShardResponse>() {
+            @Override
+            public void onResponse(ShardResponse shardResponse) {
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+            }
+        });
+
+        BulkRetryCoordinator.Stats stats = coordinator.stats();
+        assertThat(stats.limit, is(BulkRetryCoordinator.INITIAL_LIMIT / 2));
+        assertThat(stats.activeOperations, is(0));
+        assertThat(stats.rejections, is(1L));
+        assertThat(stats.retries, is(1L));
+    }
+
+    @Test
+    public void testRequestsAboveLimitAreQueued() throws Exception {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        BulkRetryCoordinator coordinator = new BulkRetryCoordinator(threadPool);
+
+        final List<ActionListener<ShardResponse>> listeners = new ArrayList<>();
+        TransportShardUpsertActionDelegate executor = new MockShardUpsertActionDelegate() {
+            @Override
+            public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
+                listeners.add(listener);
+            }
+        };
+        ActionListener<ShardResponse> responseListener = new ActionListener<ShardResponse>() {
+            @Override
+            public void onResponse(ShardResponse shardResponse) {
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+            }
+        };
+
+        for (int i = 0; i < BulkRetryCoordinator.INITIAL_LIMIT + 2; i++) {
+            coordinator.execute(shardRequest(), executor, responseListener);
+        }
+        assertThat(listeners.size(), is(BulkRetryCoordinator.INITIAL_LIMIT));
+        assertThat(coordinator.stats().activeOperations, is(BulkRetryCoordinator.INITIAL_LIMIT));
+        assertThat(coordinator.numPendingOperations(), is(2));
+
+        // a finished request makes room for a queued one
+        listeners.get(0).onResponse(new ShardResponse());
+        assertThat(listeners.size(), is(BulkRetryCoordinator.INITIAL_LIMIT + 1));
+        assertThat(coordinator.stats().activeOperations, is(BulkRetryCoordinator.INITIAL_LIMIT));
+        assertThat(coordinator.numPendingOperations(), is(1));
+    }
+
     @Test
     public void testParallelSuccessfulExecution() throws Exception {
         ThreadPool threadPool = mock(ThreadPool.class);
@@ -152,7 +220,7 @@ public class BulkRetryCoordinatorTest extends CrateUnitTest {
             executorService.submit(new Runnable() {
                 @Override
                 public void run() {
-                    coordinator.retry(shardRequest(), executor, new ActionListener<ShardResponse>() {
+                    coordinator.execute(shardRequest(), executor, new ActionListener<ShardResponse>() {
                         @Override
                         public void onResponse(ShardResponse shardResponse) {
                             latch.countDown();
@@ -39,15 +39,14 @@ import org.elasticsearch.cluster.routing.OperationRouting;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 import org.mockito.*;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -128,31 +127,22 @@ public class BulkShardProcessorTest extends CrateUnitTest {
     }
 
     @Test
-    public void testThatAddAfterFailureBlocksDueToRetry() throws Exception {
+    public void testThatAddBlocksIfQueueOfNodeIsFull() throws Exception {
         ClusterService clusterService = mock(ClusterService.class);
         OperationRouting operationRouting = mock(OperationRouting.class);
 
         mockShard(operationRouting, 1);
-        mockShard(operationRouting, 2);
-        mockShard(operationRouting, 3);
         when(clusterService.operationRouting()).thenReturn(operationRouting);
 
-        // listener will be executed 2 times, once for the successfully added row and once for the failure
-        final CountDownLatch listenerLatch = new CountDownLatch(2);
-        final AtomicReference<ActionListener<ShardResponse>> ref = new AtomicReference<>();
-
+        final List<ActionListener<ShardResponse>> listeners = new CopyOnWriteArrayList<>();
         BulkRequestExecutor<ShardUpsertRequest> transportShardBulkAction =
             new BulkRequestExecutor<ShardUpsertRequest>() {
                 @Override
                 public void execute(ShardUpsertRequest request, ActionListener<ShardResponse> listener) {
-                    ref.set(listener);
-                    listenerLatch.countDown();
+                    listeners.add(listener);
                 }
             };
 
-        TransportActionProvider transportActionProvider = mock(TransportActionProvider.class, Answers.RETURNS_DEEP_STUBS.get());
-        when(transportActionProvider.transportShardUpsertActionDelegate()).thenReturn(transportShardBulkAction);
-
         BulkRetryCoordinator bulkRetryCoordinator = new BulkRetryCoordinator(threadPool);
         BulkRetryCoordinatorPool coordinatorPool = mock(BulkRetryCoordinatorPool.class);
         when(coordinatorPool.coordinator(any(ShardId.class))).thenReturn(bulkRetryCoordinator);
@@ -178,36 +168,35 @@ public class BulkShardProcessorTest extends CrateUnitTest {
             transportShardBulkAction,
             UUID.randomUUID()
         );
-        bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar1"}, null), null);
-        final ActionListener<ShardResponse> listener = ref.get();
 
-        listener.onFailure(new EsRejectedExecutionException());
-        // wait, failure retry lock is done in decoupled thread
-        listenerLatch.await(10, TimeUnit.SECONDS);
+        // the first requests are sent, the following are queued until the queue of the node is full
+        int numRequests = 2 * BulkRetryCoordinator.INITIAL_LIMIT;
+        for (int i = 0; i < numRequests; i++) {
+            bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar" + i}, null), null);
+        }
+        assertThat(listeners.size(), is(BulkRetryCoordinator.INITIAL_LIMIT));
+        assertThat(bulkRetryCoordinator.numPendingOperations(), is(BulkRetryCoordinator.INITIAL_LIMIT));
 
-        final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(2);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
         try {
-            final AtomicBoolean hadBlocked = new AtomicBoolean(false);
-            final AtomicBoolean hasBlocked = new AtomicBoolean(true);
-            final CountDownLatch latch = new CountDownLatch(1);
-            scheduledExecutorService.execute(new Runnable() {
+            Future<Boolean> blockedAdd = executorService.submit(new Callable<Boolean>() {
                 @Override
-                public void run() {
-                    scheduledExecutorService.schedule(new Runnable() {
-                        @Override
-                        public void run() {
-                            hadBlocked.set(hasBlocked.get());
-                            latch.countDown();
-                        }
-                    }, 10, TimeUnit.MILLISECONDS);
-                    bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("2", null, new Object[]{"bar2"}, null), null);
-                    hasBlocked.set(false);
+                public Boolean call() throws Exception {
+                    return bulkShardProcessor.add("foo", new ShardUpsertRequest.Item("1", null, new Object[]{"bar"}, null), null);
                 }
             });
-            latch.await();
-            assertTrue(hadBlocked.get());
+            try {
+                blockedAdd.get(50, TimeUnit.MILLISECONDS);
+                fail("add must block while the queue of the node is full");
+            } catch (TimeoutException e) {
+                // expected
+            }
+
+            // a response makes room for a queued request, which unblocks the producer
+            listeners.get(0).onResponse(new ShardResponse());
+            assertThat(blockedAdd.get(10, TimeUnit.SECONDS), is(true));
         } finally {
-            scheduledExecutorService.shutdownNow();
+            executorService.shutdownNow();
         }
     }
 